@@ -0,0 +1,197 @@
+package inventory.bench;
+
+import inventory.model.BillOfMaterials;
+import inventory.model.ConcurrentInventory;
+import inventory.model.Explosion;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures costing the top level products of a deep bill of materials, where every level is built from shared
+ * sub-assemblies of the level below. Walking every level for each product is compared with BillOfMaterials, cold and
+ * with its explosions kept, then a bottom level sub-assembly is changed repeatedly to measure what dropping and
+ * recomputing the explosions above it takes. The kept results are checked against the walk.
+ *
+ * Usage: BomBenchmark [levels] [productsPerLevel] [subassembliesPerProduct] [changes]
+ */
+public class BomBenchmark {
+
+    private static final int PART_COUNT = 10_000;
+
+    /**
+     * A product's sub-assemblies are drawn from this many positions either side of it on the level below, so product
+     * families share sub-assemblies the way real assemblies do rather than every product sharing with every other.
+     */
+    private static final int NEIGHBOURHOOD = 8;
+
+    public static void main(String[] args) {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int perLevel = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int fanOut = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int changes = args.length > 3 ? Integer.parseInt(args[3]) : 2_000;
+
+        Inventory inventory = new ConcurrentInventory();
+        int[][] levelIDs = populate(inventory, levels, perLevel, fanOut);
+        int[] top = levelIDs[levels - 1];
+        System.out.printf("%d levels of %,d products, %d sub-assemblies each, %,d parts%n", levels, perLevel, fanOut,
+                PART_COUNT);
+
+        double walked = 0;
+        double kept = 0;
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+
+            long began = System.nanoTime();
+            walked = 0;
+            for (int productID : top) {
+                walked += costByWalking(inventory, productID);
+            }
+            long elapsed = System.nanoTime() - began;
+            if (report) {
+                System.out.printf("%-32s %10.1f ms%n", "walk every level", elapsed / 1e6);
+            }
+
+            BillOfMaterials bom = new BillOfMaterials(inventory);
+            began = System.nanoTime();
+            for (int productID : top) {
+                bom.getCost(productID);
+            }
+            elapsed = System.nanoTime() - began;
+            if (report) {
+                System.out.printf("%-32s %10.1f ms  (%,d explosions kept)%n", "explode, cold", elapsed / 1e6, bom.size());
+            }
+
+            began = System.nanoTime();
+            kept = 0;
+            for (int productID : top) {
+                kept += bom.getCost(productID);
+            }
+            elapsed = System.nanoTime() - began;
+            if (report) {
+                System.out.printf("%-32s %10.1f ms%n", "explode, kept", elapsed / 1e6);
+            }
+            bom.close();
+        }
+        System.out.printf("total cost walked %.0f, exploded %.0f%n", walked, kept);
+
+        BillOfMaterials bom = new BillOfMaterials(inventory);
+        for (int productID : top) {
+            bom.getCost(productID);
+        }
+
+        // Each change drops the explosions above one bottom level sub-assembly, then all top products are exploded.
+        Random random = new Random(11);
+        long[] latencies = new long[changes];
+        int dropped = 0;
+        for (int i = 0; i < changes; i++) {
+            Product changed = inventory.lookupProduct(levelIDs[0][random.nextInt(perLevel)]).copy();
+            Part part = inventory.lookupPart(1 + random.nextInt(PART_COUNT));
+
+            long start = System.nanoTime();
+            int before = bom.size();
+            if ((i & 1) == 0) {
+                changed.addAssociatedPart(part);
+            } else {
+                changed.removeAssociatedPart(changed.getAssociatedParts().get(0).getPartID());
+            }
+            inventory.updateProduct(changed.getProductID(), changed);
+            dropped += before - bom.size();
+            for (int productID : top) {
+                bom.explode(productID);
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-32s p50 %8.1f us  p99 %8.1f us  (%,.0f explosions dropped per change)%n",
+                "change + explode all top", latencies[changes / 2] / 1e3, latencies[(int) (changes * 0.99)] / 1e3,
+                (double) dropped / changes);
+
+        int mismatches = 0;
+        for (int productID : top) {
+            if (Math.abs(bom.getCost(productID) - costByWalking(inventory, productID)) > 1e-6) {
+                mismatches++;
+            }
+        }
+        Explosion sample = bom.explode(top[0]);
+        System.out.printf("%d mismatched the walk, top product %d has %,d leaf parts, %,d buildable%n", mismatches,
+                top[0], sample.size(), bom.getBuildableQuantity(top[0]));
+        bom.close();
+    }
+
+    /**
+     * What a caller had to do without explosions: follow every sub-assembly down every level for every product.
+     */
+    private static double costByWalking(Inventory inventory, int productID) {
+        Map<Integer, Long> leaves = new HashMap<>();
+        walk(inventory, productID, 1, leaves);
+
+        double cost = 0;
+        for (Map.Entry<Integer, Long> leaf : leaves.entrySet()) {
+            cost += leaf.getValue() * inventory.lookupPart(leaf.getKey()).getPrice();
+        }
+        return cost;
+    }
+
+    private static void walk(Inventory inventory, int productID, long times, Map<Integer, Long> leaves) {
+        Product product = inventory.lookupProduct(productID);
+        // Each part is listed once per unit.
+        for (Part part : product.getAssociatedParts()) {
+            leaves.merge(part.getPartID(), times, Long::sum);
+        }
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            walk(inventory, subassemblyID, times * product.getSubassemblyQuantity(subassemblyID), leaves);
+        }
+    }
+
+    private static int[][] populate(Inventory inventory, int levels, int perLevel, int fanOut) {
+        Random random = new Random(6);
+
+        List<Part> parts = new ArrayList<>(PART_COUNT);
+        for (int i = 0; i < PART_COUNT; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(1 + random.nextInt(20));
+            part.setInStock(1_000_000);
+            part.setMin(0);
+            part.setMax(Integer.MAX_VALUE);
+            part.setMachineID(1);
+            parts.add(part);
+        }
+        inventory.addParts(parts);
+
+        int[][] levelIDs = new int[levels][perLevel];
+        for (int level = 0; level < levels; level++) {
+            List<Product> products = new ArrayList<>(perLevel);
+            for (int i = 0; i < perLevel; i++) {
+                Product product = new Product();
+                product.setName("Level " + level + " product " + i);
+                product.setPrice(1_000_000);
+                product.setMin(0);
+                product.setMax(Integer.MAX_VALUE);
+                for (int j = 0; j < (level == 0 ? 4 : 2); j++) {
+                    product.addAssociatedPart(inventory.lookupPart(1 + random.nextInt(PART_COUNT)),
+                            1 + random.nextInt(3));
+                }
+                for (int j = 0; level > 0 && j < fanOut; j++) {
+                    int near = Math.floorMod(i + random.nextInt(2 * NEIGHBOURHOOD + 1) - NEIGHBOURHOOD, perLevel);
+                    product.addSubassembly(levelIDs[level - 1][near], 1 + random.nextInt(2));
+                }
+                products.add(product);
+            }
+            inventory.addProducts(products);
+            for (int i = 0; i < perLevel; i++) {
+                levelIDs[level][i] = products.get(i).getProductID();
+            }
+        }
+        return levelIDs;
+    }
+}
@@ -0,0 +1,164 @@
+package inventory.bench;
+
+import inventory.model.Buildable;
+import inventory.model.BuildableQuantities;
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures computing the buildable quantity of every product, by walking the products and their parts by hand and
+ * with BuildableQuantities on fork/join pools of increasing size, then the cost BuildableQuantities adds to part
+ * stock changes as it keeps the quantities current. The kept quantities are checked against a fresh computation.
+ *
+ * Usage: BuildableBenchmark [partCount] [productCount] [changes]
+ */
+public class BuildableBenchmark {
+
+    /**
+     * Every tenth product uses part 1, so changing it recomputes that many products.
+     */
+    private static final int POPULAR_EVERY = 10;
+
+    public static void main(String[] args) {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int productCount = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int changes = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        Inventory inventory = populate(partCount, productCount);
+        System.out.printf("%,d parts, %,d products, %d processors%n", partCount, productCount,
+                Runtime.getRuntime().availableProcessors());
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+
+            long began = System.nanoTime();
+            long total = walkByHand(inventory);
+            long elapsed = System.nanoTime() - began;
+            if (report) {
+                System.out.printf("%-28s %10.1f ms  (%,d units)%n", "walk by hand", elapsed / 1e6, total);
+            }
+
+            for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                began = System.nanoTime();
+                BuildableQuantities quantities = new BuildableQuantities(inventory, pool);
+                elapsed = System.nanoTime() - began;
+                quantities.close();
+                pool.shutdown();
+                if (report) {
+                    System.out.printf("%-28s %10.1f ms%n", "fork/join, " + threads + " threads", elapsed / 1e6);
+                }
+            }
+        }
+
+        Random random = new Random(9);
+        int[] partIDs = new int[changes];
+        for (int i = 0; i < changes; i++) {
+            partIDs[i] = 2 + random.nextInt(partCount - 1);
+        }
+
+        measureChanges("stock changes, untracked", inventory, partIDs);
+        BuildableQuantities quantities = new BuildableQuantities(inventory);
+        measureChanges("stock changes, tracked", inventory, partIDs);
+
+        int[] popular = new int[Math.max(1, changes / 100)];
+        Arrays.fill(popular, 1);
+        measureChanges("popular part, tracked", inventory, popular);
+
+        int mismatches = 0;
+        for (Product product : inventory.getProducts()) {
+            if (quantities.getQuantity(product.getProductID()) != inventory.getBuildableQuantity(product.getProductID())) {
+                mismatches++;
+            }
+        }
+        System.out.printf("%,d products ranked, %d mismatched a fresh computation%n", quantities.size(), mismatches);
+        for (Buildable buildable : quantities.getLeastBuildable(3)) {
+            System.out.println("  " + buildable);
+        }
+        quantities.close();
+    }
+
+    /**
+     * What a caller had to do before: every product, every associated part, the fewest units any part covers.
+     */
+    private static long walkByHand(Inventory inventory) {
+        long total = 0;
+        for (Product product : inventory.getProducts()) {
+            int buildable = Integer.MAX_VALUE;
+            int[] partIDs = product.getAssociatedPartIDs();
+            for (Part part : product.getAssociatedParts()) {
+                int units = 0;
+                for (int partID : partIDs) {
+                    if (partID == part.getPartID()) {
+                        units++;
+                    }
+                }
+                buildable = Math.min(buildable, part.getInStock() / units);
+            }
+            total += buildable == Integer.MAX_VALUE ? 0 : buildable;
+        }
+        return total;
+    }
+
+    private static void measureChanges(String label, Inventory inventory, int[] partIDs) {
+        long[] latencies = new long[partIDs.length];
+        long began = System.nanoTime();
+        for (int i = 0; i < partIDs.length; i++) {
+            long start = System.nanoTime();
+            inventory.adjustPartStock(partIDs[i], (i & 1) == 0 ? -7 : 5);
+            latencies[i] = System.nanoTime() - start;
+        }
+        long elapsed = System.nanoTime() - began;
+
+        Arrays.sort(latencies);
+        System.out.printf("%-28s %,10.0f changes/s  p50 %7.1f us  p99 %8.1f us%n", label,
+                partIDs.length / (elapsed / 1e9), latencies[latencies.length / 2] / 1e3,
+                latencies[(int) (latencies.length * 0.99)] / 1e3);
+    }
+
+    private static Inventory populate(int partCount, int productCount) {
+        Inventory inventory = new ConcurrentInventory();
+        Random random = new Random(4);
+
+        List<Part> parts = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(1);
+            part.setInStock(i == 0 ? 50_000_000 : 1_000 + random.nextInt(100_000));
+            part.setMin(0);
+            part.setMax(Integer.MAX_VALUE);
+            part.setMachineID(1);
+            parts.add(part);
+        }
+        inventory.addParts(parts);
+
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(100);
+            product.setMin(0);
+            product.setMax(Integer.MAX_VALUE);
+            if (i % POPULAR_EVERY == 0) {
+                product.addAssociatedPart(inventory.lookupPart(1), 1 + random.nextInt(3));
+            }
+            for (int j = 0; j < 3; j++) {
+                product.addAssociatedPart(inventory.lookupPart(2 + random.nextInt(partCount - 1)),
+                        1 + random.nextInt(3));
+            }
+            products.add(product);
+        }
+        inventory.addProducts(products);
+        return inventory;
+    }
+}
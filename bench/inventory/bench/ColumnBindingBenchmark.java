@@ -0,0 +1,155 @@
+package inventory.bench;
+
+import inventory.controller.ColumnBinding;
+import inventory.controller.PagedList;
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.cell.PropertyValueFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the cell value work of scrolling a large parts table, with PropertyValueFactory against ColumnBinding.
+ *
+ * Every frame each visible cell does what a TableCell does when its row changes: ask the column for the cell's
+ * observable value, stop listening to the old value, listen to the new one and read it. Rows come from a PagedList so
+ * page loads are part of the cost, as they are on screen. Runs without a display, the columns are not in a table.
+ *
+ * Usage: ColumnBindingBenchmark [partCount]
+ */
+public class ColumnBindingBenchmark {
+
+    private static final int VISIBLE_ROWS = 40;
+    private static final int FRAMES = 50_000;
+
+    public static void main(String[] args) {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Inventory inventory = new ConcurrentInventory();
+        List<Part> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(i % 100);
+            part.setInStock(i % 1000);
+            batch.add(part);
+
+            if (batch.size() == 10_000) {
+                inventory.addParts(batch);
+                batch.clear();
+            }
+        }
+        inventory.addParts(batch);
+
+        PagedList<Part> rows = new PagedList<>(inventory::getParts, () -> inventory.getAllParts().size(),
+                Part::getPartID);
+
+        List<TableColumn<Part, ?>> reflective = reflectiveColumns();
+        List<TableColumn<Part, ?>> typed = typedColumns();
+
+        System.out.printf("%-12s %10s %12s %12s %14s%n", "binding", "frames", "median us", "p99 us", "bytes/cell");
+
+        // Warm up both, then measure.
+        run(rows, reflective);
+        run(rows, typed);
+        report("reflective", run(rows, reflective));
+        report("typed", run(rows, typed));
+    }
+
+    private static List<TableColumn<Part, ?>> reflectiveColumns() {
+        TableColumn<Part, Integer> id = new TableColumn<>();
+        TableColumn<Part, String> name = new TableColumn<>();
+        TableColumn<Part, Integer> inStock = new TableColumn<>();
+        TableColumn<Part, Double> price = new TableColumn<>();
+        id.setCellValueFactory(new PropertyValueFactory<>("partID"));
+        name.setCellValueFactory(new PropertyValueFactory<>("name"));
+        inStock.setCellValueFactory(new PropertyValueFactory<>("inStock"));
+        price.setCellValueFactory(new PropertyValueFactory<>("price"));
+        return Arrays.asList(id, name, inStock, price);
+    }
+
+    private static List<TableColumn<Part, ?>> typedColumns() {
+        TableColumn<Part, Integer> id = new TableColumn<>();
+        TableColumn<Part, String> name = new TableColumn<>();
+        TableColumn<Part, Integer> inStock = new TableColumn<>();
+        TableColumn<Part, Double> price = new TableColumn<>();
+        ColumnBinding.bindParts(id, name, inStock, price);
+        return Arrays.asList(id, name, inStock, price);
+    }
+
+    /**
+     * @return Nanoseconds per frame, sorted, with the bytes allocated per cell as the last element.
+     */
+    private static long[] run(PagedList<Part> rows, List<TableColumn<Part, ?>> columns) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // One listener per visible cell, as each TableCell keeps its own.
+        int cells = VISIBLE_ROWS * columns.size();
+        InvalidationListener[] listeners = new InvalidationListener[cells];
+        ObservableValue<?>[] current = new ObservableValue<?>[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            listeners[cell] = new WeakInvalidationListener(observable -> { });
+        }
+
+        Random random = new Random(7);
+        long[] nanos = new long[FRAMES + 1];
+        long checksum = 0;
+        int top = 0;
+
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        for (int frame = 0; frame < FRAMES; frame++) {
+            // Mostly smooth scrolling with an occasional jump of the scroll bar.
+            top = frame % 100 == 0 ? random.nextInt(rows.size() - VISIBLE_ROWS) : top + 3;
+            top = Math.min(top, rows.size() - VISIBLE_ROWS);
+
+            long began = System.nanoTime();
+            for (int row = 0; row < VISIBLE_ROWS; row++) {
+                for (int column = 0; column < columns.size(); column++) {
+                    int cell = row * columns.size() + column;
+                    if (current[cell] != null) {
+                        current[cell].removeListener(listeners[cell]);
+                    }
+
+                    current[cell] = value(columns.get(column), rows.get(top + row));
+                    current[cell].addListener(listeners[cell]);
+                    Object value = current[cell].getValue();
+                    checksum += value == null ? 0 : value.hashCode();
+                }
+            }
+            nanos[frame] = System.nanoTime() - began;
+        }
+        long bytesPerCell = (threads.getThreadAllocatedBytes(thread) - allocated) / ((long) FRAMES * cells);
+
+        if (checksum == 42) {
+            System.out.println();
+        }
+
+        Arrays.sort(nanos, 0, FRAMES);
+        nanos[FRAMES] = bytesPerCell;
+        return nanos;
+    }
+
+    /**
+     * Call the column's cell value factory the way TableColumn.getCellObservableValue() does, which needs a TableView.
+     */
+    private static <T> ObservableValue<T> value(TableColumn<Part, T> column, Part row) {
+        return column.getCellValueFactory().call(new TableColumn.CellDataFeatures<>(null, column, row));
+    }
+
+    private static void report(String label, long[] result) {
+        int frames = result.length - 1;
+        System.out.printf("%-12s %10d %12.1f %12.1f %14d%n", label, frames, result[frames / 2] / 1e3,
+                result[(int) (frames * 0.99)] / 1e3, result[frames]);
+    }
+}
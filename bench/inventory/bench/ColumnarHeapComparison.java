@@ -0,0 +1,127 @@
+package inventory.bench;
+
+import inventory.model.ColumnarInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Outsourced;
+import inventory.model.Part;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares heap usage and GC pauses of Inventory and ColumnarInventory holding the same parts.
+ *
+ * For each engine the catalog is built, a full collection is timed to show the cost of tracing the live set, and then
+ * a lookup and update workload runs while collector time is sampled from the GC MXBeans. Run with a fixed heap, for
+ * example -Xms4g -Xmx4g, so both engines see the same collector configuration.
+ *
+ * Usage: ColumnarHeapComparison [partCount] [workloadSeconds]
+ */
+public class ColumnarHeapComparison {
+
+    public static void main(String[] args) {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.printf("%-10s %10s %12s %12s %12s %10s %12s %14s%n", "engine", "parts", "heap MiB",
+                "offheap MiB", "full GC ms", "GCs", "GC ms", "ops/s");
+
+        measure("heap", new Inventory(), partCount, seconds);
+        measure("columnar", new ColumnarInventory(partCount), partCount, seconds);
+    }
+
+    private static void measure(String engine, Inventory inventory, int partCount, int seconds) {
+        long baseline = usedHeapAfterGC();
+
+        for (int i = 0; i < partCount; i++) {
+            inventory.addPart(createPart(i));
+        }
+
+        long heap = usedHeapAfterGC() - baseline;
+        long offHeap = inventory instanceof ColumnarInventory ? ((ColumnarInventory) inventory).getOffHeapBytes() : 0;
+
+        // A full collection has to trace every live part object on the heap engine.
+        long began = System.nanoTime();
+        System.gc();
+        long fullGC = System.nanoTime() - began;
+
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcMillis();
+
+        Random random = new Random(42);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long operations = 0;
+        long checksum = 0;
+
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 1000; i++) {
+                int partID = 1 + random.nextInt(partCount);
+
+                if (random.nextInt(10) == 0) {
+                    Part part = createPart(partID);
+                    part.setPartID(partID);
+                    inventory.updatePart(partID, part);
+                } else {
+                    checksum += inventory.lookupPart(partID).getInStock();
+                }
+            }
+            operations += 1000;
+        }
+
+        List<Part> all = inventory.getAllParts();
+        checksum += all.get(all.size() - 1).getPartID();
+
+        System.out.printf("%-10s %10d %12.1f %12.1f %12.1f %10d %12d %14.0f%n", engine, partCount, heap / 1048576.0,
+                offHeap / 1048576.0, fullGC / 1e6, gcCount() - gcCountBefore, gcMillis() - gcTimeBefore,
+                operations / (double) seconds);
+
+        if (checksum == 42) {
+            System.out.println();
+        }
+    }
+
+    private static Part createPart(int i) {
+        Part part;
+        if (i % 2 == 0) {
+            part = new Inhouse();
+            ((Inhouse) part).setMachineID(i % 500);
+        } else {
+            part = new Outsourced();
+            ((Outsourced) part).setCompanyName("Supplier " + (i % 200));
+        }
+
+        part.setName("Part " + i);
+        part.setPrice(i % 100 + 0.99);
+        part.setInStock(i % 1000);
+        part.setMin(0);
+        part.setMax(1000);
+        return part;
+    }
+
+    private static long usedHeapAfterGC() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(bean.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(bean.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,151 @@
+package inventory.bench;
+
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stress test measuring read and write throughput of ConcurrentInventory as threads are added.
+ *
+ * Each thread runs a mix of part lookups, product lookups, part updates, product updates and part inserts
+ * against a shared inventory. The plain Inventory guarded by one lock is measured alongside as the baseline.
+ *
+ * Usage: ConcurrentInventoryStress [catalogSize] [secondsPerRun] [writePercent]
+ */
+public class ConcurrentInventoryStress {
+
+    public static void main(String[] args) throws InterruptedException {
+        int catalogSize = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("catalog=%d seconds=%d writes=%d%% cores=%d%n", catalogSize, seconds, writePercent, cores);
+        System.out.printf("%-8s %18s %18s %18s %18s%n", "threads", "concurrent ops/s", "scaling", "locked ops/s", "scaling");
+
+        // Warm up the JIT so the first row is not measuring the interpreter.
+        run(new ConcurrentInventory(), false, 1, catalogSize, 1, writePercent);
+        run(new Inventory(), true, 1, catalogSize, 1, writePercent);
+
+        double concurrentBase = 0;
+        double lockedBase = 0;
+
+        for (int threads = 1; threads <= cores * 2; threads *= 2) {
+            double concurrent = run(new ConcurrentInventory(), false, threads, catalogSize, seconds, writePercent);
+            double locked = run(new Inventory(), true, threads, catalogSize, seconds, writePercent);
+
+            if (threads == 1) {
+                concurrentBase = concurrent;
+                lockedBase = locked;
+            }
+
+            System.out.printf("%-8d %18.0f %17.2fx %18.0f %17.2fx%n",
+                    threads, concurrent, concurrent / concurrentBase, locked, locked / lockedBase);
+        }
+    }
+
+    private static double run(Inventory inventory, boolean lock, int threads, int catalogSize, int seconds,
+                              int writePercent) throws InterruptedException {
+        populate(inventory, catalogSize);
+
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Object monitor = new Object();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+
+                try {
+                    start.await();
+                    while ((count & 0xFF) != 0 || System.nanoTime() < deadline) {
+                        if (lock) {
+                            synchronized (monitor) {
+                                operate(inventory, random, catalogSize, writePercent);
+                            }
+                        } else {
+                            operate(inventory, random, catalogSize, writePercent);
+                        }
+                        count++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    operations.add(count);
+                    done.countDown();
+                }
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        done.await();
+        return operations.sum() / ((System.nanoTime() - began) / 1e9);
+    }
+
+    private static void operate(Inventory inventory, ThreadLocalRandom random, int catalogSize, int writePercent) {
+        int id = 1 + random.nextInt(catalogSize);
+        int roll = random.nextInt(100);
+
+        if (roll >= writePercent) {
+            if ((roll & 1) == 0) {
+                inventory.lookupPart(id);
+            } else {
+                inventory.lookupProduct(id);
+            }
+            return;
+        }
+
+        switch (roll % 3) {
+            case 0:
+                inventory.updatePart(id, part(id, random.nextInt(1000)));
+                break;
+            case 1:
+                Product product = inventory.lookupProduct(id);
+                if (product != null) {
+                    inventory.updateProduct(id, product(id, product.getAssociatedParts().get(0)));
+                }
+                break;
+            default:
+                inventory.addPart(part(0, random.nextInt(1000)));
+        }
+    }
+
+    private static void populate(Inventory inventory, int catalogSize) {
+        for (int i = 0; i < catalogSize; i++) {
+            inventory.addPart(part(0, i));
+        }
+        for (int i = 1; i <= catalogSize; i++) {
+            inventory.addProduct(product(0, inventory.lookupPart(i)));
+        }
+    }
+
+    private static Part part(int id, int stock) {
+        Inhouse part = new Inhouse();
+        part.setPartID(id);
+        part.setName("Part " + stock);
+        part.setPrice(1.5);
+        part.setInStock(stock);
+        return part;
+    }
+
+    private static Product product(int id, Part part) {
+        Product product = new Product();
+        product.setProductID(id);
+        product.setName("Product " + part.getPartID());
+        product.setPrice(10);
+        product.addAssociatedPart(part);
+        return product;
+    }
+}
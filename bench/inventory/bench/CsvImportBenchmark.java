@@ -0,0 +1,94 @@
+package inventory.bench;
+
+import inventory.importer.CsvImporter;
+import inventory.importer.ImportResult;
+import inventory.model.Inventory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures CSV import throughput. Generates a parts file and a products file, one row in a hundred invalid, imports
+ * them into an empty inventory and reports rows per minute.
+ *
+ * Usage: CsvImportBenchmark [partRows] [productRows]
+ */
+public class CsvImportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int partRows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int productRows = args.length > 1 ? Integer.parseInt(args[1]) : partRows / 10;
+
+        Path directory = Files.createTempDirectory("import-bench");
+        Path parts = directory.resolve("parts.csv");
+        Path products = directory.resolve("products.csv");
+
+        try {
+            writeParts(parts, partRows);
+            writeProducts(products, productRows, partRows);
+
+            // One warm up run, then the measured run.
+            for (int run = 0; run < 2; run++) {
+                Inventory inventory = new Inventory();
+                CsvImporter importer = new CsvImporter(inventory);
+                long[] rejected = new long[1];
+
+                ImportResult partResult = importer.importParts(parts, (line, errors) -> rejected[0]++);
+                ImportResult productResult = importer.importProducts(products, (line, errors) -> rejected[0]++);
+
+                if (run == 1) {
+                    report("parts", parts, partResult);
+                    report("products", products, productResult);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(parts);
+            Files.deleteIfExists(products);
+            Files.delete(directory);
+        }
+    }
+
+    private static void report(String label, Path file, ImportResult result) throws IOException {
+        double minutes = result.getElapsedNanos() / 60e9;
+        System.out.printf("%-9s %10d rows %8.1f MiB %8d ms %14.0f rows/min  (%d rejected)%n", label, result.getRows(),
+                Files.size(file) / 1048576.0, result.getElapsedNanos() / 1_000_000, result.getRows() / minutes,
+                result.getRejected());
+    }
+
+    private static void writeParts(Path file, int rows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("type,name,price,inStock,min,max,machineIDOrCompanyName\n");
+
+            for (int i = 0; i < rows; i++) {
+                boolean inhouse = i % 2 == 0;
+                out.write(inhouse ? "inhouse," : "outsourced,");
+                out.write("\"Part " + i + ", rev " + (i % 7) + "\",");
+                out.write(i % 100 == 99 ? "free," : (i % 100) + ".99,");
+                out.write(Integer.toString(10 + i % 90));
+                out.write(",10,100,");
+                out.write(inhouse ? Integer.toString(1 + i % 500) : "Supplier " + (i % 200));
+                out.write('\n');
+            }
+        }
+    }
+
+    private static void writeProducts(Path file, int rows, int partRows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("name,price,inStock,min,max,partIDs\n");
+
+            for (int i = 0; i < rows; i++) {
+                out.write("Product " + i + ",1000," + (i % 50) + ",0,100,");
+
+                // Skip the invalid part rows, which are not imported.
+                for (int p = 0; p < 4; p++) {
+                    int partID = 1 + (i * 4 + p) % (partRows - partRows / 100);
+                    out.write(p == 0 ? Integer.toString(partID) : ";" + partID);
+                }
+                out.write('\n');
+            }
+        }
+    }
+}
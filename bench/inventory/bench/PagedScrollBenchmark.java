@@ -0,0 +1,86 @@
+package inventory.bench;
+
+import inventory.controller.PagedList;
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how long a table frame takes to read its visible rows from a PagedList over a large catalog, while
+ * scrolling smoothly, paging and jumping to random positions with the scroll bar.
+ *
+ * Usage: PagedScrollBenchmark [partCount]
+ */
+public class PagedScrollBenchmark {
+
+    private static final int VISIBLE_ROWS = 40;
+
+    public static void main(String[] args) {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        Inventory inventory = new ConcurrentInventory();
+        List<Part> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(i % 100);
+            part.setInStock(i % 1000);
+            batch.add(part);
+
+            if (batch.size() == 10_000) {
+                inventory.addParts(batch);
+                batch.clear();
+            }
+        }
+        inventory.addParts(batch);
+
+        PagedList<Part> rows = new PagedList<>(inventory::getParts, () -> inventory.getAllParts().size());
+
+        System.out.printf("%-12s %10s %12s %12s %12s%n", "scroll", "frames", "median us", "p99 us", "max us");
+        report("smooth", rows, frames(rows.size(), 3, 20_000, false));
+        report("page", rows, frames(rows.size(), VISIBLE_ROWS, 20_000, false));
+        report("jump", rows, frames(rows.size(), 0, 2_000, true));
+    }
+
+    /**
+     * @return The first visible row of each frame.
+     */
+    private static int[] frames(int size, int step, int count, boolean jump) {
+        Random random = new Random(7);
+        int[] firstRows = new int[count];
+        int top = 0;
+
+        for (int i = 0; i < count; i++) {
+            top = jump ? random.nextInt(size - VISIBLE_ROWS) : (top + step) % (size - VISIBLE_ROWS);
+            firstRows[i] = top;
+        }
+        return firstRows;
+    }
+
+    private static void report(String label, PagedList<Part> rows, int[] firstRows) {
+        long[] nanos = new long[firstRows.length];
+        long checksum = 0;
+
+        for (int frame = 0; frame < firstRows.length; frame++) {
+            long began = System.nanoTime();
+            for (int row = firstRows[frame]; row < firstRows[frame] + VISIBLE_ROWS; row++) {
+                checksum += rows.get(row).getPartID();
+            }
+            nanos[frame] = System.nanoTime() - began;
+        }
+
+        Arrays.sort(nanos);
+        System.out.printf("%-12s %10d %12.1f %12.1f %12.1f%n", label, nanos.length, nanos[nanos.length / 2] / 1e3,
+                nanos[(int) (nanos.length * 0.99)] / 1e3, nanos[nanos.length - 1] / 1e3);
+
+        if (checksum == 42) {
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package inventory.bench;
+
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+import inventory.reservation.Reservation;
+import inventory.reservation.StockReservations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds products from many threads at once, every product using one popular part, and checks no part stock is lost
+ * or oversold.
+ *
+ * First the builds are made the way the part screen would, reading a part and writing back a copy with a lower level,
+ * to count the updates that are lost. Then the same builds go through StockReservations with a mix of commits,
+ * releases and timeouts, and the final levels are checked against the units built. Reserve and release alone measure
+ * the lock free part of the engine, and a last run builds until the popular part runs out.
+ *
+ * Usage: ReservationStress [threads] [seconds] [popularStock]
+ */
+public class ReservationStress {
+
+    private static final int PART_COUNT = 1_000;
+    private static final int PRODUCT_COUNT = 1_000;
+
+    /**
+     * Units of the popular part each product uses.
+     */
+    private static final int POPULAR_QUANTITY = 2;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int popularStock = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        System.out.printf("%d threads, %d seconds, %,d of the popular part%n", threads, seconds, popularStock);
+        readModifyWrite(threads, seconds, popularStock);
+        reservations(threads, seconds, popularStock);
+        holdAndRelease(threads, seconds, popularStock);
+        exhaustion(threads, popularStock / 1000);
+    }
+
+    /**
+     * Take parts out of stock by replacing each part with a copy, as the part screen does.
+     */
+    private static void readModifyWrite(int threads, int seconds, int popularStock) throws InterruptedException {
+        Inventory inventory = populate(popularStock);
+        AtomicLong taken = new AtomicLong();
+
+        long elapsed = runThreads(threads, seconds, random -> {
+            Part part = inventory.lookupPart(1);
+            if (part.getInStock() < POPULAR_QUANTITY) {
+                return;
+            }
+            Part copy = part.copy();
+            copy.setInStock(part.getInStock() - POPULAR_QUANTITY);
+            inventory.updatePart(1, copy);
+            taken.addAndGet(POPULAR_QUANTITY);
+        });
+
+        long lost = taken.get() - (popularStock - inventory.lookupPart(1).getInStock());
+        System.out.printf("%-22s %,12.0f builds/s   %,d of %,d units taken were lost%n", "read-modify-write",
+                taken.get() / POPULAR_QUANTITY / (elapsed / 1e9), lost, taken.get());
+    }
+
+    /**
+     * Build through reservations: 80% committed, 15% released and 5% left to time out.
+     */
+    private static void reservations(int threads, int seconds, int popularStock) throws InterruptedException {
+        Inventory inventory = populate(popularStock);
+        StockReservations engine = new StockReservations(inventory);
+        AtomicLong built = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+
+        long elapsed = runThreads(threads, seconds, random -> {
+            int productID = 1 + random.nextInt(PRODUCT_COUNT);
+            int pick = random.nextInt(100);
+
+            Reservation reservation = engine.reserve(productID, 1, pick < 95 ? 10_000 : 5, TimeUnit.MILLISECONDS);
+            if (reservation == null) {
+                refused.incrementAndGet();
+            } else if (pick < 80) {
+                if (engine.commit(reservation).isEmpty()) {
+                    built.incrementAndGet();
+                } else {
+                    refused.incrementAndGet();
+                }
+            } else if (pick < 95) {
+                engine.release(reservation);
+            }
+        });
+
+        // Let the reservations left to time out expire.
+        Thread.sleep(100);
+
+        long expected = popularStock - built.get() * POPULAR_QUANTITY;
+        int actual = inventory.lookupPart(1).getInStock();
+        System.out.printf("%-22s %,12.0f builds/s   popular part %,d, expected %,d, %d held, %d refused%n",
+                "reservations", built.get() / (elapsed / 1e9), actual, expected, engine.getHeld(1),
+                refused.get());
+        check(actual == expected && engine.getHeld(1) == 0 && engine.size() == 0, "reservation totals");
+        check(productStock(inventory) == 1000L * PRODUCT_COUNT + built.get(), "product totals");
+        engine.close();
+    }
+
+    /**
+     * Reserve and release without committing, which is only compare and set on the part counters.
+     */
+    private static void holdAndRelease(int threads, int seconds, int popularStock) throws InterruptedException {
+        Inventory inventory = populate(popularStock);
+        StockReservations engine = new StockReservations(inventory);
+        AtomicLong cycles = new AtomicLong();
+
+        long elapsed = runThreads(threads, seconds, random -> {
+            Reservation reservation = engine.reserve(1 + random.nextInt(PRODUCT_COUNT), 1, 10, TimeUnit.SECONDS);
+            if (reservation != null && engine.release(reservation)) {
+                cycles.incrementAndGet();
+            }
+        });
+
+        System.out.printf("%-22s %,12.0f cycles/s   %d held after%n", "reserve and release",
+                cycles.get() / (elapsed / 1e9), engine.getHeld(1));
+        check(engine.getHeld(1) == 0 && engine.getAvailable(1) == popularStock, "hold and release");
+        engine.close();
+    }
+
+    /**
+     * Reserve the popular part until it runs out and check it is never oversold.
+     */
+    private static void exhaustion(int threads, int popularStock) throws InterruptedException {
+        Inventory inventory = populate(popularStock);
+        StockReservations engine = new StockReservations(inventory);
+        AtomicLong built = new AtomicLong();
+
+        runThreads(threads, 2, random -> {
+            if (engine.build(1 + random.nextInt(PRODUCT_COUNT), 1 + random.nextInt(3)).isEmpty()) {
+                built.incrementAndGet();
+            }
+        });
+
+        int left = inventory.lookupPart(1).getInStock();
+        System.out.printf("%-22s %,12d builds         popular part %,d left of %,d%n", "exhaustion", built.get(), left,
+                popularStock);
+        check(left >= 0 && left < 3 * POPULAR_QUANTITY && engine.getAvailable(1) == left, "exhaustion");
+        engine.close();
+    }
+
+    private interface Step {
+        void run(Random random);
+    }
+
+    /**
+     * Run a step in a loop on every thread until the time is up.
+     *
+     * @return Elapsed nanoseconds.
+     */
+    private static long runThreads(int threads, int seconds, Step step) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        long began = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            Random random = new Random(17 * i + 1);
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        step.run(random);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        return System.nanoTime() - began;
+    }
+
+    private static long productStock(Inventory inventory) {
+        long total = 0;
+        for (Product product : inventory.getProducts()) {
+            total += product.getInStock();
+        }
+        return total;
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException(what + " do not add up");
+        }
+    }
+
+    /**
+     * Part 1 is the popular part every product uses. The other parts have stock to spare.
+     */
+    private static Inventory populate(int popularStock) {
+        Inventory inventory = new ConcurrentInventory();
+        List<Part> parts = new ArrayList<>(PART_COUNT);
+        for (int i = 0; i < PART_COUNT; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(1);
+            part.setInStock(i == 0 ? popularStock : Integer.MAX_VALUE / 2);
+            part.setMin(0);
+            part.setMax(Integer.MAX_VALUE);
+            part.setMachineID(1);
+            parts.add(part);
+        }
+        inventory.addParts(parts);
+
+        Random random = new Random(5);
+        List<Product> products = new ArrayList<>(PRODUCT_COUNT);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(100);
+            product.setInStock(1000);
+            product.setMin(0);
+            product.setMax(Integer.MAX_VALUE);
+            product.addAssociatedPart(inventory.lookupPart(1), POPULAR_QUANTITY);
+            for (int j = 0; j < 3; j++) {
+                product.addAssociatedPart(inventory.lookupPart(2 + random.nextInt(PART_COUNT - 1)));
+            }
+            products.add(product);
+        }
+        inventory.addProducts(products);
+        return inventory;
+    }
+}
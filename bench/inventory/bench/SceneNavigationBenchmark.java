@@ -0,0 +1,129 @@
+package inventory.bench;
+
+import inventory.Main;
+import inventory.controller.SceneCache;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures navigating between the views over a large catalog: loading each view from fxml on every navigation, as
+ * nextScene() used to, against showing the views from a SceneCache.
+ *
+ * Each navigation includes the CSS and layout pass of the shown scene. Needs a display, or Monocle to run headless:
+ * put openjfx-monocle on the classpath and run with -Dglass.platform=Monocle -Dmonocle.platform=Headless
+ * -Dprism.order=sw. The views are shown by a nested Application so the benchmark also starts with JavaFX on the
+ * classpath of a newer JDK, which refuses a main class that extends Application.
+ *
+ * Usage: SceneNavigationBenchmark [partCount]
+ */
+public class SceneNavigationBenchmark {
+
+    private static final int ROUNDS = 50;
+
+    private static final String[] ROUTE = {SceneCache.PART, SceneCache.MAIN, SceneCache.PRODUCT, SceneCache.MAIN};
+
+    public static void main(String[] args) {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        populate(Main.getInventory(), partCount);
+        Application.launch(Navigation.class, args);
+    }
+
+    /**
+     * Navigates the views once the toolkit has started.
+     */
+    public static class Navigation extends Application {
+
+        @Override
+        public void start(Stage stage) throws Exception {
+            navigate(stage);
+        }
+    }
+
+    private static void navigate(Stage stage) throws Exception {
+        stage.show();
+
+        SceneCache scenes = Main.getScenes();
+        scenes.preload(SceneCache.MAIN, SceneCache.PART, SceneCache.PRODUCT);
+
+        System.out.printf("%-10s %-22s %10s %12s %12s%n", "views", "view", "shows", "median ms", "p99 ms");
+        for (String fxml : ROUTE) {
+            // Warm up both paths before measuring.
+            uncached(stage, fxml);
+            cached(stage, scenes, fxml);
+        }
+
+        for (String fxml : new String[]{SceneCache.MAIN, SceneCache.PART, SceneCache.PRODUCT}) {
+            long[] loaded = new long[ROUNDS];
+            long[] reused = new long[ROUNDS];
+            for (int round = 0; round < ROUNDS; round++) {
+                loaded[round] = uncached(stage, fxml);
+                reused[round] = cached(stage, scenes, fxml);
+            }
+            report("loaded", fxml, loaded);
+            report("cached", fxml, reused);
+        }
+
+        Platform.exit();
+    }
+
+    private static long uncached(Stage stage, String fxml) throws Exception {
+        long began = System.nanoTime();
+        SceneCache.View view = SceneCache.load(fxml);
+        stage.setScene(view.getScene());
+        layout(view.getScene());
+        return System.nanoTime() - began;
+    }
+
+    private static long cached(Stage stage, SceneCache scenes, String fxml) throws Exception {
+        long began = System.nanoTime();
+        scenes.show(stage, fxml);
+        layout(stage.getScene());
+        return System.nanoTime() - began;
+    }
+
+    private static void layout(Scene scene) {
+        scene.getRoot().applyCss();
+        scene.getRoot().layout();
+    }
+
+    private static void report(String label, String fxml, long[] nanos) {
+        Arrays.sort(nanos);
+        System.out.printf("%-10s %-22s %10d %12.2f %12.2f%n", label, fxml, nanos.length,
+                nanos[nanos.length / 2] / 1e6, nanos[(int) (nanos.length * 0.99)] / 1e6);
+    }
+
+    private static void populate(Inventory inventory, int partCount) {
+        List<Part> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(i % 100);
+            part.setInStock(i % 1000);
+            batch.add(part);
+
+            if (batch.size() == 10_000) {
+                inventory.addParts(batch);
+                batch.clear();
+            }
+        }
+        inventory.addParts(batch);
+
+        for (int i = 0; i < partCount / 10; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(100);
+            product.setInStock(10);
+            inventory.addProduct(product);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package inventory.bench;
+
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+import inventory.server.InventoryServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Load test of InventoryServer on the loopback interface. Client threads send a mix of part and product lookups,
+ * name searches and stock adjustments over kept alive connections for a fixed time, then requests per second and
+ * latency percentiles are reported.
+ *
+ * Usage: ServerLoadTest [clients] [seconds] [serverThreads] [partCount]
+ */
+public class ServerLoadTest {
+
+    private static final int PRODUCT_COUNT = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        int serverThreads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int partCount = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+
+        // Keep-alive is on by default, allow a pooled connection per client.
+        System.setProperty("http.maxConnections", Integer.toString(clients));
+
+        Inventory inventory = populate(partCount);
+        try (InventoryServer server = InventoryServer.start(inventory, new InetSocketAddress("127.0.0.1", 0),
+                serverThreads, 1024)) {
+            String base = "http://127.0.0.1:" + server.getPort();
+
+            System.out.printf("%d clients, %d server threads, %,d parts, %,d products%n",
+                    clients, serverThreads, partCount, PRODUCT_COUNT);
+            run(base, clients, Math.max(1, seconds / 3), partCount, false);
+            run(base, clients, seconds, partCount, true);
+        }
+    }
+
+    private static void run(String base, int clients, int seconds, int partCount, boolean report)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Client[] threads = new Client[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        long began = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            threads[i] = new Client(base, partCount, deadline, 31 * i + 7, done);
+            threads[i].start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - began;
+
+        if (!report) {
+            return;
+        }
+
+        int total = 0;
+        int failures = 0;
+        for (Client client : threads) {
+            total += client.count;
+            failures += client.failures;
+        }
+
+        long[] latencies = new long[total];
+        int next = 0;
+        for (Client client : threads) {
+            System.arraycopy(client.latencies, 0, latencies, next, client.count);
+            next += client.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%,12.0f requests/s  (%,d requests, %d failed)%n", total / (elapsed / 1e9), total, failures);
+        System.out.printf("latency  p50 %8.3f ms  p90 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  max %8.3f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+
+    /**
+     * One client sending requests back to back until the deadline.
+     * The mix is 70% part lookups, 10% product lookups, 10% part searches and 10% stock adjustments.
+     */
+    private static final class Client extends Thread {
+        private final String base;
+        private final int partCount;
+        private final long deadline;
+        private final Random random;
+        private final CountDownLatch done;
+        private final byte[] buffer = new byte[64 * 1024];
+
+        long[] latencies = new long[1 << 16];
+        int count;
+        int failures;
+
+        Client(String base, int partCount, long deadline, long seed, CountDownLatch done) {
+            this.base = base;
+            this.partCount = partCount;
+            this.deadline = deadline;
+            this.random = new Random(seed);
+            this.done = done;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(100);
+                    long began = System.nanoTime();
+
+                    int status;
+                    if (pick < 70) {
+                        status = request("GET", "/parts/" + (1 + random.nextInt(partCount)), null);
+                    } else if (pick < 80) {
+                        status = request("GET", "/products/" + (1 + random.nextInt(PRODUCT_COUNT)), null);
+                    } else if (pick < 90) {
+                        status = request("GET", "/parts?limit=20&q=Part+" + random.nextInt(partCount), null);
+                    } else {
+                        String delta = "{\"delta\":" + (random.nextBoolean() ? 1 : -1) + "}";
+                        status = request("POST", "/parts/" + (1 + random.nextInt(partCount)) + "/stock", delta);
+                    }
+
+                    record(System.nanoTime() - began);
+                    if (status >= 300) {
+                        failures++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private int request(String method, String path, String body) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+            connection.setRequestMethod(method);
+
+            if (body != null) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(bytes.length);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(bytes);
+                }
+            }
+
+            int status = connection.getResponseCode();
+
+            // Reading the response to its end returns the connection to the keep-alive pool.
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (in != null) {
+                try (InputStream response = in) {
+                    while (response.read(buffer) >= 0) {
+                        // Discard.
+                    }
+                }
+            }
+            return status;
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private static Inventory populate(int partCount) {
+        Inventory inventory = new ConcurrentInventory();
+        List<Part> parts = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(1 + i % 100);
+            part.setInStock(1_000_000);
+            part.setMin(0);
+            part.setMax(10_000_000);
+            part.setMachineID(i % 50);
+            parts.add(part);
+        }
+        inventory.addParts(parts);
+
+        Random random = new Random(3);
+        List<Product> products = new ArrayList<>(PRODUCT_COUNT);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(500);
+            product.setInStock(1000);
+            product.setMin(0);
+            product.setMax(100_000);
+            for (int j = 0; j < 4; j++) {
+                product.addAssociatedPart(inventory.lookupPart(1 + random.nextInt(partCount)), 1 + random.nextInt(3));
+            }
+            products.add(product);
+        }
+        inventory.addProducts(products);
+        return inventory;
+    }
+}
@@ -0,0 +1,109 @@
+package inventory.bench;
+
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Outsourced;
+import inventory.model.Part;
+import inventory.model.Product;
+import inventory.persistence.FileJournal;
+import inventory.persistence.SnapshotFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures how snapshot load time grows with the number of records, with journal replay of the same data as
+ * the comparison.
+ *
+ * Usage: SnapshotLoadBenchmark [largestPartCount]
+ */
+public class SnapshotLoadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("snapshot-bench");
+
+        System.out.printf("%-10s %-10s %12s %14s %14s %14s%n",
+                "parts", "products", "file MiB", "snapshot ms", "journal ms", "ns/record");
+
+        for (int parts = 10_000; parts <= largest; parts *= 10) {
+            int products = parts / 10;
+            Inventory source = populate(parts, products);
+
+            Path snapshot = directory.resolve("inventory-" + parts + ".snapshot");
+            SnapshotFile.write(source, snapshot);
+
+            Path journalFile = directory.resolve("inventory-" + parts + ".journal");
+            try (FileJournal journal = new FileJournal(journalFile, FileJournal.SyncPolicy.NEVER, 1000, Long.MAX_VALUE)) {
+                journal.partsAdded(source.getAllParts());
+                journal.productsAdded(source.getProducts());
+            }
+
+            // Warm up, then take the best of three to keep GC noise out.
+            long snapshotNanos = Long.MAX_VALUE;
+            long journalNanos = Long.MAX_VALUE;
+            for (int run = 0; run < 4; run++) {
+                long began = System.nanoTime();
+                SnapshotFile.read(snapshot, new Inventory());
+                long loaded = System.nanoTime() - began;
+
+                began = System.nanoTime();
+                try (FileJournal journal = new FileJournal(journalFile, FileJournal.SyncPolicy.NEVER, 1000, Long.MAX_VALUE)) {
+                    journal.replay(new Inventory());
+                }
+                long replayed = System.nanoTime() - began;
+
+                if (run > 0) {
+                    snapshotNanos = Math.min(snapshotNanos, loaded);
+                    journalNanos = Math.min(journalNanos, replayed);
+                }
+            }
+
+            System.out.printf("%-10d %-10d %12.1f %14.1f %14.1f %14.1f%n",
+                    parts, products, Files.size(snapshot) / 1048576.0,
+                    snapshotNanos / 1e6, journalNanos / 1e6, (double) snapshotNanos / (parts + products));
+
+            Files.delete(snapshot);
+            Files.delete(journalFile);
+        }
+
+        Files.delete(directory);
+    }
+
+    private static Inventory populate(int partCount, int productCount) {
+        Inventory inventory = new Inventory();
+
+        for (int i = 0; i < partCount; i++) {
+            Part part;
+            if (i % 2 == 0) {
+                part = new Inhouse();
+                ((Inhouse) part).setMachineID(i % 500);
+            } else {
+                part = new Outsourced();
+                ((Outsourced) part).setCompanyName("Supplier " + (i % 200));
+            }
+
+            part.setName("Part " + i);
+            part.setPrice(i % 100 + 0.99);
+            part.setInStock(i % 1000);
+            part.setMin(0);
+            part.setMax(1000);
+            inventory.addPart(part);
+        }
+
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(500);
+            product.setInStock(i % 50);
+
+            for (int p = 0; p < 4; p++) {
+                product.addAssociatedPart(inventory.lookupPart(1 + (i * 4 + p) % partCount));
+            }
+            inventory.addProduct(product);
+        }
+
+        return inventory;
+    }
+}
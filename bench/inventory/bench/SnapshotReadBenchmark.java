@@ -0,0 +1,102 @@
+package inventory.bench;
+
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.InventorySnapshot;
+import inventory.model.Part;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures write throughput with and without a full export running alongside, and how long each export of a
+ * snapshot takes while parts are being written.
+ *
+ * Usage: SnapshotReadBenchmark [partCount] [seconds] [writers]
+ */
+public class SnapshotReadBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int writerCount = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        Inventory inventory = new ConcurrentInventory();
+        List<Part> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(i % 100);
+            part.setInStock(100);
+            batch.add(part);
+
+            if (batch.size() == 10_000) {
+                inventory.addParts(batch);
+                batch.clear();
+            }
+        }
+        inventory.addParts(batch);
+
+        System.out.printf("parts=%d writers=%d%n", partCount, writerCount);
+        System.out.printf("writes alone:       %,d changes/s%n", writes(inventory, seconds, writerCount, false));
+        System.out.printf("writes with export: %,d changes/s%n", writes(inventory, seconds, writerCount, true));
+    }
+
+    private static long writes(Inventory inventory, int seconds, int writerCount, boolean export)
+            throws InterruptedException {
+        int partCount = inventory.getAllParts().size();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong changes = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < writerCount; t++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    inventory.adjustPartStock(1 + random.nextInt(partCount), random.nextInt(-5, 6));
+                    done++;
+                }
+                changes.addAndGet(done);
+            }));
+        }
+
+        if (export) {
+            threads.add(new Thread(() -> {
+                int exports = 0;
+                long slowest = 0;
+                while (System.nanoTime() < deadline) {
+                    long began = System.nanoTime();
+
+                    // Stands in for writing a report: every part of one version, summed.
+                    InventorySnapshot snapshot = inventory.getSnapshot();
+                    long stock = 0;
+                    int rows = 0;
+                    for (Part part : snapshot.getAllParts()) {
+                        stock += part.getInStock();
+                        rows++;
+                    }
+                    if (rows != partCount) {
+                        throw new IllegalStateException("Export saw " + rows + " of " + partCount + " parts");
+                    }
+
+                    slowest = Math.max(slowest, System.nanoTime() - began);
+                    exports++;
+                }
+                System.out.printf("%d exports of version-consistent snapshots, slowest %.1f ms%n", exports,
+                        slowest / 1e6);
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return changes.get() / seconds;
+    }
+}
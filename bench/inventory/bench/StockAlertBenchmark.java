@@ -0,0 +1,95 @@
+package inventory.bench;
+
+import inventory.alert.StockAlert;
+import inventory.alert.StockAlerts;
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures stock changes per second on a large catalog while StockAlerts keeps its ranked alert set current, then
+ * checks the incrementally maintained set against a fresh scan.
+ *
+ * Usage: StockAlertBenchmark [partCount] [seconds] [threads]
+ */
+public class StockAlertBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threadCount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Inventory inventory = new ConcurrentInventory();
+        List<Part> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(i % 100);
+            part.setMin(10);
+            part.setMax(100);
+            part.setInStock(10 + i % 91);
+            batch.add(part);
+
+            if (batch.size() == 10_000) {
+                inventory.addParts(batch);
+                batch.clear();
+            }
+        }
+        inventory.addParts(batch);
+
+        long began = System.nanoTime();
+        StockAlerts alerts = new StockAlerts(inventory);
+        System.out.printf("parts=%d threads=%d initial scan %.1f ms%n", partCount, threadCount,
+                (System.nanoTime() - began) / 1e6);
+
+        AtomicLong changes = new AtomicLong();
+        AtomicLong notified = new AtomicLong();
+        alerts.addListener((previous, current) -> notified.incrementAndGet());
+
+        // Each thread takes stock out of and puts stock back into random parts.
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    inventory.adjustPartStock(1 + random.nextInt(partCount), random.nextInt(-20, 21));
+                    done++;
+                }
+                changes.addAndGet(done);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        began = System.nanoTime();
+        List<StockAlert> top = alerts.getReorderList(20);
+        long topNanos = System.nanoTime() - began;
+
+        System.out.printf("%,d stock changes/s, %,d alert notifications, %,d alerts (%,d below min)%n",
+                changes.get() / seconds, notified.get(), alerts.size(), alerts.getReorderList().size());
+        System.out.printf("top 20 reorder view read in %.1f us, most urgent: %s%n", topNanos / 1e3,
+                top.isEmpty() ? "none" : top.get(0));
+
+        try (StockAlerts rescanned = new StockAlerts(inventory)) {
+            Set<StockAlert> incremental = new HashSet<>(alerts.getReorderList());
+            incremental.addAll(alerts.getOverstocked());
+            Set<StockAlert> scanned = new HashSet<>(rescanned.getReorderList());
+            scanned.addAll(rescanned.getOverstocked());
+            System.out.println("matches a fresh scan: " + incremental.equals(scanned));
+        }
+        alerts.close();
+    }
+}
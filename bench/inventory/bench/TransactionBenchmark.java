@@ -0,0 +1,187 @@
+package inventory.bench;
+
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Transaction;
+import inventory.persistence.FileJournal;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Compares stock adjustments made one call at a time with the same adjustments committed in transactions of
+ * increasing size, without a journal and with a journal that forces every commit to disk. Afterwards checks that a
+ * journal whose last transaction lost its commit record replays without it and keeps the records appended after.
+ *
+ * Usage: TransactionBenchmark [partCount] [changes]
+ */
+public class TransactionBenchmark {
+
+    private static final int[] BATCH_SIZES = {1, 10, 100, 1000};
+
+    /**
+     * Bytes of a transaction commit record: length, type, record count and crc.
+     */
+    private static final int COMMIT_RECORD_BYTES = 4 + 1 + 4 + 4;
+
+    public static void main(String[] args) throws IOException {
+        int partCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int changes = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        System.out.printf("%-10s %-14s %14s%n", "journal", "mode", "changes/s");
+        run("none", partCount, changes, null);
+
+        // A forced journal pays one fsync per commit, so it gets a tenth of the changes.
+        Path directory = Files.createTempDirectory("transaction-bench");
+        try {
+            run("fsync", partCount, changes / 10, directory);
+            checkTornTransaction(directory.resolve("torn"));
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void run(String label, int partCount, int changes, Path directory) throws IOException {
+        Random random = new Random(11);
+        int[] partIDs = new int[changes];
+        int[] deltas = new int[changes];
+        for (int i = 0; i < changes; i++) {
+            partIDs[i] = 1 + random.nextInt(partCount);
+            deltas[i] = random.nextBoolean() ? 1 : -1;
+        }
+
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+
+            Inventory inventory = populate(partCount);
+            FileJournal journal = directory == null ? null : new FileJournal(directory.resolve("single-" + round));
+            inventory.setJournal(journal);
+
+            long began = System.nanoTime();
+            for (int i = 0; i < changes; i++) {
+                inventory.adjustPartStock(partIDs[i], deltas[i]);
+            }
+            long elapsed = System.nanoTime() - began;
+            close(journal);
+            if (report) {
+                System.out.printf("%-10s %-14s %,14.0f%n", label, "single calls", changes / (elapsed / 1e9));
+            }
+
+            for (int batchSize : BATCH_SIZES) {
+                inventory = populate(partCount);
+                journal = directory == null ? null : new FileJournal(directory.resolve(batchSize + "-" + round));
+                inventory.setJournal(journal);
+
+                began = System.nanoTime();
+                for (int from = 0; from < changes; from += batchSize) {
+                    Transaction transaction = inventory.newTransaction();
+                    for (int i = from; i < Math.min(from + batchSize, changes); i++) {
+                        transaction.adjustPartStock(partIDs[i], deltas[i]);
+                    }
+
+                    List<String> errors = transaction.commit();
+                    if (!errors.isEmpty()) {
+                        throw new IllegalStateException(errors.toString());
+                    }
+                }
+                elapsed = System.nanoTime() - began;
+                close(journal);
+                if (report) {
+                    System.out.printf("%-10s %-14s %,14.0f%n", label, "batches of " + batchSize,
+                            changes / (elapsed / 1e9));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tear the commit record off the last transaction in a journal, then check replay drops the transaction and does
+     * not hold later records back as part of it.
+     */
+    private static void checkTornTransaction(Path file) throws IOException {
+        Inventory inventory = new ConcurrentInventory();
+        FileJournal journal = new FileJournal(file);
+        inventory.setJournal(journal);
+        inventory.addParts(parts(3));
+
+        Transaction transaction = inventory.newTransaction();
+        transaction.adjustPartStock(1, 5);
+        transaction.adjustPartStock(2, 5);
+        List<String> errors = transaction.commit();
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException(errors.toString());
+        }
+        journal.close();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - COMMIT_RECORD_BYTES);
+        }
+
+        // The first replay drops the torn transaction, then a change is journaled after it.
+        inventory = new ConcurrentInventory();
+        journal = new FileJournal(file);
+        journal.replay(inventory);
+        inventory.setJournal(journal);
+        expectStock(inventory, 1, 1_000_000);
+        inventory.adjustPartStock(3, 7);
+        journal.close();
+
+        // The second replay must still see that change.
+        inventory = new ConcurrentInventory();
+        journal = new FileJournal(file);
+        journal.replay(inventory);
+        journal.close();
+        expectStock(inventory, 1, 1_000_000);
+        expectStock(inventory, 2, 1_000_000);
+        expectStock(inventory, 3, 1_000_007);
+
+        System.out.println("torn transaction recovery ok");
+    }
+
+    private static void expectStock(Inventory inventory, int partID, int inStock) {
+        Part part = inventory.lookupPart(partID);
+        if (part == null || part.getInStock() != inStock) {
+            throw new IllegalStateException("Part " + partID + " replayed with "
+                    + (part == null ? "no part" : part.getInStock() + " in stock") + ", expected " + inStock);
+        }
+    }
+
+    private static Inventory populate(int partCount) {
+        Inventory inventory = new ConcurrentInventory();
+        inventory.addParts(parts(partCount));
+        return inventory;
+    }
+
+    private static List<Part> parts(int partCount) {
+        List<Part> batch = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            Inhouse part = new Inhouse();
+            part.setName("Part " + i);
+            part.setPrice(i % 100);
+            part.setInStock(1_000_000);
+            part.setMachineID(1);
+            batch.add(part);
+        }
+        return batch;
+    }
+
+    private static void close(FileJournal journal) throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
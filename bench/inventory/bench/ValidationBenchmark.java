@@ -0,0 +1,207 @@
+package inventory.bench;
+
+import inventory.model.Inhouse;
+import inventory.model.Part;
+import inventory.model.Product;
+import inventory.model.Validation;
+import inventory.model.ValidationReport;
+import inventory.model.Violation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures validation throughput over a million records. Text rows are parsed and validated the way the part screen
+ * used to, with String.matches compiling its pattern on every call and -2 marking a bad field, and then with the
+ * Validation parsers and rules. Parsed parts and products are then checked one at a time and as batches on fork/join
+ * pools of increasing size. Both ways must reject the same rows.
+ *
+ * Usage: ValidationBenchmark [records] [invalidPercent]
+ */
+public class ValidationBenchmark {
+
+    private static final int OLD_INVALID = -2;
+
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int invalidPercent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String[][] rows = rows(records, invalidPercent);
+        System.out.printf("%,d rows, about %d%% invalid, %d processors%n", records, invalidPercent,
+                Runtime.getRuntime().availableProcessors());
+
+        List<Part> parts = new ArrayList<>(records);
+        List<Product> products = new ArrayList<>(records);
+        int oldRejected = 0;
+        int newRejected = 0;
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+
+            long began = System.nanoTime();
+            oldRejected = 0;
+            for (String[] row : rows) {
+                if (!validateLikeTheForm(row).isEmpty()) {
+                    oldRejected++;
+                }
+            }
+            print(report, "matches() and -2 markers", records, System.nanoTime() - began);
+
+            began = System.nanoTime();
+            newRejected = 0;
+            parts.clear();
+            List<Violation> errors = new ArrayList<>();
+            for (String[] row : rows) {
+                errors.clear();
+                Part part = parse(row, errors);
+                errors.addAll(Validation.PARTS.validate(part));
+                if (!errors.isEmpty()) {
+                    newRejected++;
+                }
+                parts.add(part);
+            }
+            print(report, "parsers and rules", records, System.nanoTime() - began);
+        }
+        System.out.printf("rejected rows: %,d the old way, %,d with the rules%n", oldRejected, newRejected);
+
+        Random random = new Random(3);
+        for (int i = 0; i < records; i++) {
+            products.add(product(random, parts.get(i), i % 100 < invalidPercent));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+
+            long began = System.nanoTime();
+            int invalid = 0;
+            for (Part part : parts) {
+                if (!Validation.PARTS.isValid(part)) {
+                    invalid++;
+                }
+            }
+            print(report, "parts, one at a time", records, System.nanoTime() - began);
+
+            for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                began = System.nanoTime();
+                ValidationReport partReport = Validation.PARTS.validateAll(parts, pool);
+                print(report, "parts, batch of " + threads + " threads", records, System.nanoTime() - began);
+
+                began = System.nanoTime();
+                ValidationReport productReport = Validation.PRODUCTS.validateAll(products, pool);
+                print(report, "products, batch of " + threads + " threads", records, System.nanoTime() - began);
+                pool.shutdown();
+
+                if (partReport.getInvalidCount() != invalid) {
+                    throw new IllegalStateException("Batch found " + partReport.getInvalidCount() + " invalid parts, "
+                            + "one at a time found " + invalid);
+                }
+                if (report && threads == 1) {
+                    System.out.println("  " + partReport + " parts, " + productReport + " products");
+                }
+            }
+        }
+    }
+
+    private static void print(boolean report, String label, int records, long elapsed) {
+        if (report) {
+            System.out.printf("%-32s %8.1f ms  %,12.0f records/s%n", label, elapsed / 1e6, records / (elapsed / 1e9));
+        }
+    }
+
+    /**
+     * What the part screen did before: String.matches per field, -2 stored for a bad optional field, then checks.
+     */
+    private static List<String> validateLikeTheForm(String[] row) {
+        int inStock = row[2].matches("\\d+") ? Integer.parseInt(row[2]) : 0;
+        double price = row[1].matches("[0-9]+\\.?[0-9]*") ? Double.parseDouble(row[1]) : -1;
+        int max = row[4].isEmpty() ? -1 : row[4].matches("\\d+") ? Integer.parseInt(row[4]) : OLD_INVALID;
+        int min = row[3].isEmpty() ? -1 : row[3].matches("\\d+") ? Integer.parseInt(row[3]) : OLD_INVALID;
+        int machineID = row[5].isEmpty() ? -1 : row[5].matches("\\d+") ? Integer.parseInt(row[5]) : OLD_INVALID;
+
+        List<String> errors = new ArrayList<>();
+        if (max == OLD_INVALID) {
+            errors.add("Maximum allowed is optional but when provided must be a positive integer.");
+        }
+        if (min == OLD_INVALID) {
+            errors.add("Minimum allowed is optional but when provided must be an integer >= 0.");
+        }
+        if (min >= 0 && max > 0 && min > max) {
+            errors.add("Minimum allowed must be less than maximum allowed.");
+        }
+        if (min >= 0 && inStock < min) {
+            errors.add("Inventory must be greater than the minimum.");
+        }
+        if (max > 0 && inStock > max) {
+            errors.add("Inventory must be less than the maximum.");
+        }
+        if (row[0].isEmpty()) {
+            errors.add("Name is a required field.");
+        }
+        if (price == -1) {
+            errors.add("Price is a required decimal field.");
+        }
+        if (machineID == 0 || machineID == OLD_INVALID) {
+            errors.add("Machine ID is optional but if provided must be a positive integer.");
+        }
+        return errors;
+    }
+
+    private static Part parse(String[] row, List<Violation> errors) {
+        Inhouse part = new Inhouse();
+        part.setName(row[0]);
+        part.setPrice(Validation.parseDecimal(row[1], -1));
+        part.setInStock(Validation.parseInteger(row[2], 0, Validation.IN_STOCK_INVALID, errors));
+        part.setMin(Validation.parseInteger(row[3], Validation.ABSENT, Validation.MIN_INVALID, errors));
+        part.setMax(Validation.parseInteger(row[4], Validation.ABSENT, Validation.MAX_INVALID, errors));
+        part.setMachineID(Validation.parseInteger(row[5], Validation.ABSENT, Validation.MACHINE_ID_INVALID, errors));
+        return part;
+    }
+
+    /**
+     * Part rows as name, price, inStock, min, max, machineID text, with one field spoiled in the invalid ones.
+     */
+    private static String[][] rows(int records, int invalidPercent) {
+        Random random = new Random(7);
+        String[][] rows = new String[records][];
+
+        for (int i = 0; i < records; i++) {
+            int min = random.nextInt(50);
+            int max = min + 1 + random.nextInt(1_000);
+            String[] row = {
+                    "Part " + i,
+                    (1 + random.nextInt(500)) + "." + random.nextInt(100),
+                    String.valueOf(min + random.nextInt(max - min + 1)),
+                    String.valueOf(min),
+                    String.valueOf(max),
+                    String.valueOf(1 + random.nextInt(9_999))
+            };
+
+            if (i % 100 < invalidPercent) {
+                switch (random.nextInt(6)) {
+                    case 0: row[0] = ""; break;
+                    case 1: row[1] = "12,50"; break;
+                    case 2: row[2] = "0"; break;
+                    case 3: row[3] = "-4"; break;
+                    case 4: row[4] = "ten"; break;
+                    default: row[5] = "0"; break;
+                }
+            }
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    private static Product product(Random random, Part part, boolean invalid) {
+        Product product = new Product();
+        product.setName(invalid && random.nextBoolean() ? "" : "Product for " + part.getName());
+        product.setPrice(invalid ? 0.01 : 10_000);
+        product.setInStock(1);
+        product.setMin(0);
+        product.setMax(100);
+        product.addAssociatedPart(part, 1 + random.nextInt(3));
+        return product;
+    }
+}
@@ -0,0 +1,120 @@
+package inventory.jmh;
+
+import inventory.model.ColumnarInventory;
+import inventory.model.ConcurrentInventory;
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Outsourced;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the catalogs the benchmarks run against.
+ */
+final class Catalogs {
+
+    /**
+     * Parts associated with every generated product.
+     */
+    static final int PARTS_PER_PRODUCT = 4;
+
+    private Catalogs() {
+    }
+
+    /**
+     * @param engine - heap, concurrent or columnar.
+     * @param size - Number of parts to expect.
+     * @return An empty inventory of the given engine.
+     */
+    static Inventory create(String engine, int size) {
+        switch (engine) {
+            case "heap":
+                return new Inventory();
+            case "concurrent":
+                return new ConcurrentInventory();
+            case "columnar":
+                return new ColumnarInventory(size);
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine);
+        }
+    }
+
+    /**
+     * Fill an inventory with the given number of parts and a tenth as many products, each associated with
+     * PARTS_PER_PRODUCT parts. Parts are added in batches to keep setup time down at the larger sizes.
+     *
+     * @param inventory - Empty inventory.
+     * @param size - Number of parts.
+     */
+    static void populate(Inventory inventory, int size) {
+        List<Part> parts = new ArrayList<>(10_000);
+        for (int i = 0; i < size; i++) {
+            parts.add(part(i));
+
+            if (parts.size() == 10_000) {
+                inventory.addParts(parts);
+                parts.clear();
+            }
+        }
+        inventory.addParts(parts);
+
+        List<Product> products = new ArrayList<>(10_000);
+        for (int i = 0; i < Math.max(size / 10, 1); i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(500);
+            product.setInStock(i % 50);
+            product.setMin(0);
+            product.setMax(100);
+
+            for (int p = 0; p < PARTS_PER_PRODUCT; p++) {
+                product.addAssociatedPart(inventory.lookupPart(1 + (i * PARTS_PER_PRODUCT + p) % size));
+            }
+            products.add(product);
+
+            if (products.size() == 10_000) {
+                inventory.addProducts(products);
+                products.clear();
+            }
+        }
+        inventory.addProducts(products);
+    }
+
+    static Part part(int i) {
+        Part part;
+        if (i % 2 == 0) {
+            Inhouse inhouse = new Inhouse();
+            inhouse.setMachineID(i % 500);
+            part = inhouse;
+        } else {
+            Outsourced outsourced = new Outsourced();
+            outsourced.setCompanyName("Supplier " + (i % 200));
+            part = outsourced;
+        }
+
+        part.setName("Part " + i);
+        part.setPrice(i % 100 + 0.99);
+        part.setInStock(i % 1000);
+        part.setMin(0);
+        part.setMax(1000);
+        return part;
+    }
+
+    /**
+     * @param count - Number of IDs.
+     * @param bound - Largest ID.
+     * @return IDs between 1 and bound in random order, so the benchmarks do not pay for a Random per operation.
+     */
+    static int[] randomIDs(int count, int bound) {
+        Random random = new Random(42);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1 + random.nextInt(bound);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,132 @@
+package inventory.jmh;
+
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the Inventory operations at catalog sizes from a thousand to ten million parts.
+ *
+ * Operations that would grow or shrink the catalog are measured paired with the operation that undoes them, so the
+ * catalog stays at its nominal size for the whole run. Run through the jmh ant target, which adds the gc profiler to
+ * report the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class InventoryBenchmark {
+
+    private static final String[] QUERIES = {"Part 12", "art 9", "PART 4711", "xyz"};
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"heap", "concurrent", "columnar"})
+    public String engine;
+
+    private Inventory inventory;
+
+    private int[] partIDs;
+    private int[] productIDs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        inventory = Catalogs.create(engine, size);
+        Catalogs.populate(inventory, size);
+
+        partIDs = Catalogs.randomIDs(1 << 16, size);
+        productIDs = Catalogs.randomIDs(1 << 16, Math.max(size / 10, 1));
+    }
+
+    private int nextPartID() {
+        return partIDs[next++ & (partIDs.length - 1)];
+    }
+
+    private int nextProductID() {
+        return productIDs[next++ & (productIDs.length - 1)];
+    }
+
+    @Benchmark
+    public boolean addAndDeletePart() {
+        Part part = Catalogs.part(next++);
+        inventory.addPart(part);
+        return inventory.deletePart(part.getPartID());
+    }
+
+    @Benchmark
+    public Part deleteAndRestorePart() {
+        Part part = inventory.lookupPart(nextPartID());
+        inventory.deletePart(part.getPartID());
+        inventory.restorePart(part);
+        return part;
+    }
+
+    @Benchmark
+    public Part lookupPartByID() {
+        return inventory.lookupPart(nextPartID());
+    }
+
+    @Benchmark
+    public List<Part> lookupPartByName() {
+        return inventory.lookupPart(QUERIES[next++ & 3]);
+    }
+
+    @Benchmark
+    public List<Product> lookupProductByName() {
+        return inventory.lookupProduct(QUERIES[next++ & 3].replace("Part", "Product"));
+    }
+
+    @Benchmark
+    public Product lookupProductByID() {
+        return inventory.lookupProduct(nextProductID());
+    }
+
+    @Benchmark
+    public Part updatePart() {
+        int partID = nextPartID();
+        Part part = Catalogs.part(partID);
+        part.setPartID(partID);
+        inventory.updatePart(partID, part);
+        return part;
+    }
+
+    @Benchmark
+    public Product updateProduct() {
+        Product current = inventory.lookupProduct(nextProductID());
+
+        Product product = new Product();
+        product.setProductID(current.getProductID());
+        product.setName(current.getName());
+        product.setPrice(current.getPrice());
+        for (Part part : current.getAssociatedParts()) {
+            product.addAssociatedPart(part);
+        }
+
+        inventory.updateProduct(product.getProductID(), product);
+        return product;
+    }
+
+    @Benchmark
+    public List<Product> getProductsContainingPart() {
+        return inventory.getProductsContainingPart(nextPartID());
+    }
+}
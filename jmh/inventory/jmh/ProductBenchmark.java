@@ -0,0 +1,85 @@
+package inventory.jmh;
+
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the associated part operations on a product that belongs to a catalog. A stored product is never
+ * changed in place, so an association change copies the product and saves the copy, paying for keeping the catalog's
+ * part to product index and snapshot current.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ProductBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Parts associated with the product under test.
+     */
+    @Param({"4", "64", "1024"})
+    public int associated;
+
+    private Inventory inventory;
+    private Product product;
+    private int[] associatedIDs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        inventory = Catalogs.create("heap", size);
+        Catalogs.populate(inventory, size);
+
+        product = new Product();
+        product.setName("Benchmark product");
+        product.setPrice(1000);
+
+        int[] partIDs = Catalogs.randomIDs(associated, size);
+        for (int partID : partIDs) {
+            product.addAssociatedPart(inventory.lookupPart(partID));
+        }
+        inventory.addProduct(product);
+
+        // Look the associated parts up in random order.
+        associatedIDs = Catalogs.randomIDs(1 << 16, associated);
+        for (int i = 0; i < associatedIDs.length; i++) {
+            associatedIDs[i] = partIDs[associatedIDs[i] - 1];
+        }
+    }
+
+    @Benchmark
+    public Part lookupAssociatedPart() {
+        return product.lookupAssociatedPart(associatedIDs[next++ & (associatedIDs.length - 1)]);
+    }
+
+    @Benchmark
+    public boolean removeAndAddAssociatedPart() {
+        Part part = product.lookupAssociatedPart(associatedIDs[next++ & (associatedIDs.length - 1)]);
+        Product changed = product.copy();
+        boolean removed = changed.removeAssociatedPart(part.getPartID());
+        changed.addAssociatedPart(part);
+        inventory.updateProduct(changed.getProductID(), changed);
+        product = changed;
+        return removed;
+    }
+}
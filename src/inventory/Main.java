@@ -1,15 +1,45 @@
 package inventory;
 
+import inventory.controller.SceneCache;
+import inventory.model.ConcurrentInventory;
 import inventory.model.Inventory;
+import inventory.persistence.FileJournal;
+import inventory.persistence.InventoryStore;
+import inventory.server.InventoryServer;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class Main extends Application {
 
-    private static Inventory inventory = new Inventory();
+    /**
+     * The global inventory. It is concurrent so background work may write to it while the UI reads it.
+     */
+    private static Inventory inventory = new ConcurrentInventory();
+
+    /**
+     * Snapshot and journal that make every inventory change durable.
+     */
+    private InventoryStore store;
+
+    /**
+     * Views shared by every controller, each is loaded once.
+     */
+    private static SceneCache scenes = new SceneCache();
+
+    /**
+     * Load the persisted inventory before the UI starts.
+     *
+     * @throws Exception
+     */
+    @Override
+    public void init() throws Exception {
+        store = openStore();
+    }
 
     /**
      * Start method required by JavaFX application
@@ -20,26 +50,92 @@ public class Main extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
 
-        // Load the main view/controller.
-        Parent root = FXMLLoader.load(getClass().getResource("/inventory/view/main.fxml"));
+        // Load every view up front so navigating between them never parses fxml.
+        scenes.preload(SceneCache.MAIN, SceneCache.PART, SceneCache.PRODUCT);
 
         // Set the title of the window.
         primaryStage.setTitle("Inventory Management System");
 
-        // Set a suitable width/height.
-        primaryStage.setScene(new Scene(root, 990, 465));
+        // The main view is sized 990x465 in main.fxml.
+        primaryStage.setScene(scenes.get(SceneCache.MAIN).getScene());
 
         // Display the stage.
         primaryStage.show();
     }
 
     /**
-     * Entry point of the application
+     * Write a snapshot and close the journal on exit.
+     *
+     * @throws Exception
+     */
+    @Override
+    public void stop() throws Exception {
+        store.close();
+    }
+
+    /**
+     * Entry point of the application. With --server the inventory is served over HTTP instead of shown in a window.
      *
      * @param args
+     * @throws IOException
      */
-    public static void main(String[] args) {
-        launch(args);
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            serve();
+        } else {
+            launch(args);
+        }
+    }
+
+    /**
+     * Serve the persisted inventory over HTTP without a UI until the process is stopped.
+     * The address and worker pool may be set with the inventory.server.host, inventory.server.port,
+     * inventory.server.threads and inventory.server.queue system properties. By default only local clients are served.
+     * TCP_NODELAY is turned on for the JDK server unless sun.net.httpserver.nodelay is set at launch.
+     *
+     * @throws IOException
+     */
+    private static void serve() throws IOException {
+        InventoryStore store = openStore();
+
+        // The JDK server reads this once, when its first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        InetSocketAddress address = new InetSocketAddress(System.getProperty("inventory.server.host", "127.0.0.1"),
+                Integer.getInteger("inventory.server.port", 8080));
+        int threads = Integer.getInteger("inventory.server.threads",
+                Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+        InventoryServer server = InventoryServer.start(inventory, address, threads,
+                Integer.getInteger("inventory.server.queue", 1024));
+
+        // Stop taking requests before the final snapshot is written. If it cannot be written the changes are still in
+        // the journal, say so and exit with a failure status.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Final snapshot not written, changes remain in the journal: " + e.getMessage());
+                Runtime.getRuntime().halt(1);
+            }
+        }));
+
+        System.out.println("Serving inventory on " + address.getHostString() + ":" + server.getPort());
+    }
+
+    /**
+     * Open the persisted inventory. The data directory and fsync policy may be set with the inventory.data and
+     * inventory.journal.sync system properties.
+     *
+     * @return InventoryStore
+     * @throws IOException
+     */
+    private static InventoryStore openStore() throws IOException {
+        FileJournal.SyncPolicy policy = FileJournal.SyncPolicy.valueOf(
+                System.getProperty("inventory.journal.sync", FileJournal.SyncPolicy.ALWAYS.name()));
+        return InventoryStore.open(getDataDirectory(), inventory, policy);
     }
 
     /**
@@ -50,4 +146,23 @@ public class Main extends Application {
     public static Inventory getInventory() {
         return inventory;
     }
+
+    /**
+     * Static getter method for the view cache.
+     *
+     * @return SceneCache
+     */
+    public static SceneCache getScenes() {
+        return scenes;
+    }
+
+    /**
+     * Directory that persisted inventory data is kept in.
+     *
+     * @return Path
+     */
+    public static Path getDataDirectory() {
+        return Paths.get(System.getProperty("inventory.data",
+                Paths.get(System.getProperty("user.home"), ".inventory-system").toString()));
+    }
 }
@@ -0,0 +1,165 @@
+package inventory.alert;
+
+import inventory.model.Part;
+import inventory.model.Product;
+
+/**
+ * A part or product whose inventory level is outside its minimum or maximum.
+ *
+ * Alerts are immutable snapshots of the entity's levels when the alert was raised or last changed.
+ */
+public final class StockAlert {
+
+    public enum Kind {
+        PART,
+        PRODUCT
+    }
+
+    public enum Level {
+
+        /**
+         * Inventory is below the minimum and should be reordered.
+         */
+        BELOW_MIN,
+
+        /**
+         * Inventory is above the maximum.
+         */
+        ABOVE_MAX
+    }
+
+    private final Kind kind;
+    private final Level level;
+    private final int id;
+    private final String name;
+    private final int inStock;
+    private final int min;
+    private final int max;
+    private final double severity;
+
+    private StockAlert(Kind kind, Level level, int id, String name, int inStock, int min, int max) {
+        this.kind = kind;
+        this.level = level;
+        this.id = id;
+        this.name = name;
+        this.inStock = inStock;
+        this.min = min;
+        this.max = max;
+
+        // How far outside the limit the level is, relative to the limit, so small and large items rank together.
+        this.severity = level == Level.BELOW_MIN
+                ? (double) (min - (long) inStock) / Math.max(min, 1)
+                : (double) (inStock - (long) max) / Math.max(max, 1);
+    }
+
+    /**
+     * @param part - Part to check.
+     * @return The part's alert, else null if its inventory level is within its limits.
+     */
+    static StockAlert of(Part part) {
+        return of(Kind.PART, part.getPartID(), part.getName(), part.getInStock(), part.getMin(), part.getMax());
+    }
+
+    /**
+     * @param product - Product to check.
+     * @return The product's alert, else null if its inventory level is within its limits.
+     */
+    static StockAlert of(Product product) {
+        return of(Kind.PRODUCT, product.getProductID(), product.getName(), product.getInStock(), product.getMin(),
+                product.getMax());
+    }
+
+    /**
+     * A minimum of -1 or a maximum of -1 or 0 is unset, the same rules form validation applies.
+     */
+    private static StockAlert of(Kind kind, int id, String name, int inStock, int min, int max) {
+        if (min >= 0 && inStock < min) {
+            return new StockAlert(kind, Level.BELOW_MIN, id, name, inStock, min, max);
+        }
+        if (max > 0 && inStock > max) {
+            return new StockAlert(kind, Level.ABOVE_MAX, id, name, inStock, min, max);
+        }
+        return null;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return partID or productID.
+     */
+    public int getID() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInStock() {
+        return inStock;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return Distance outside the limit as a fraction of the limit. 1.0 is a part with a minimum and none in stock.
+     */
+    public double getSeverity() {
+        return severity;
+    }
+
+    /**
+     * @return How many to order to fill up to the maximum, or to the minimum without one. 0 if above the maximum.
+     */
+    public int getReorderQuantity() {
+        if (level != Level.BELOW_MIN) {
+            return 0;
+        }
+        return (max > 0 ? max : min) - inStock;
+    }
+
+    /**
+     * Key of the entity an alert is for, unique across parts and products.
+     */
+    long key() {
+        return key(kind, id);
+    }
+
+    static long key(Kind kind, int id) {
+        return (long) kind.ordinal() << 32 | (id & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof StockAlert)) {
+            return false;
+        }
+
+        StockAlert alert = (StockAlert) other;
+        return kind == alert.kind && level == alert.level && id == alert.id && inStock == alert.inStock
+                && min == alert.min && max == alert.max
+                && (name == null ? alert.name == null : name.equals(alert.name));
+    }
+
+    @Override
+    public int hashCode() {
+        return (kind.hashCode() * 31 + id) * 31 + inStock;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + id + " " + level + " (" + inStock + " in stock, min " + min + ", max " + max + ")";
+    }
+}
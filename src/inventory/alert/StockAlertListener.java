@@ -0,0 +1,17 @@
+package inventory.alert;
+
+/**
+ * Receives changes to the set of stock alerts.
+ *
+ * Called on the thread that changed the inventory, after the alert set is updated. Listeners should return quickly;
+ * a UI listener should hand the change to its own thread.
+ */
+@FunctionalInterface
+public interface StockAlertListener {
+
+    /**
+     * @param previous - The entity's alert before the change, null if it had none.
+     * @param current - The entity's alert now, null if the alert was cleared.
+     */
+    void alertChanged(StockAlert previous, StockAlert current);
+}
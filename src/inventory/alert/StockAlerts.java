@@ -0,0 +1,218 @@
+package inventory.alert;
+
+import inventory.model.Inventory;
+import inventory.model.InventoryEvent;
+import inventory.model.InventoryListener;
+import inventory.model.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the set of parts and products whose inventory level is below their minimum or above their maximum.
+ *
+ * The inventory is scanned once when the engine is created. After that every change reported by the inventory
+ * re-checks only the changed entity, so keeping the set current costs O(log alerts) per change however large the
+ * catalog is. Alerts are ranked by severity, the most urgent first.
+ *
+ * Safe to use from any thread, with any inventory whose events are ordered per entity, as ConcurrentInventory's are.
+ */
+public class StockAlerts implements AutoCloseable {
+
+    /**
+     * Most severe first. Kind and ID break ties so each entity has one place in the order.
+     */
+    private static final Comparator<StockAlert> BY_SEVERITY = Comparator
+            .comparingDouble(StockAlert::getSeverity).reversed()
+            .thenComparing(StockAlert::getKind)
+            .thenComparingInt(StockAlert::getID);
+
+    private final Inventory inventory;
+
+    /**
+     * Current alert of each entity that has one, by StockAlert.key().
+     */
+    private final ConcurrentHashMap<Long, StockAlert> alerts = new ConcurrentHashMap<>();
+
+    private final NavigableSet<StockAlert> belowMin = new ConcurrentSkipListSet<>(BY_SEVERITY);
+    private final NavigableSet<StockAlert> aboveMax = new ConcurrentSkipListSet<>(BY_SEVERITY);
+
+    private final List<StockAlertListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final InventoryListener inventoryListener = this::inventoryChanged;
+
+    /**
+     * Keys changed by events while the initial scan runs, the scan must not overwrite them with what it read.
+     * Null once the scan is done.
+     */
+    private volatile Set<Long> changedDuringScan = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Start tracking an inventory.
+     *
+     * @param inventory - Inventory to track.
+     */
+    public StockAlerts(Inventory inventory) {
+        this.inventory = inventory;
+
+        // Listen first so no change is missed, then fill in everything that has not changed since.
+        inventory.addListener(inventoryListener);
+        inventory.forEachPart(part ->
+                scanned(StockAlert.key(StockAlert.Kind.PART, part.getPartID()), StockAlert.of(part)));
+        for (Product product : inventory.getProducts()) {
+            scanned(StockAlert.key(StockAlert.Kind.PRODUCT, product.getProductID()), StockAlert.of(product));
+        }
+        changedDuringScan = null;
+    }
+
+    /**
+     * Stop tracking the inventory.
+     */
+    @Override
+    public void close() {
+        inventory.removeListener(inventoryListener);
+    }
+
+    /**
+     * Register a listener to be told about every alert raised, changed or cleared.
+     *
+     * @param listener - The listener.
+     */
+    public void addListener(StockAlertListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop telling a listener about alerts.
+     *
+     * @param listener - The listener.
+     */
+    public void removeListener(StockAlertListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get everything below its minimum, the most urgent first.
+     *
+     * @return A new list of alerts.
+     */
+    public List<StockAlert> getReorderList() {
+        return new ArrayList<>(belowMin);
+    }
+
+    /**
+     * Get the most urgent items below their minimum.
+     *
+     * @param limit - Largest number of alerts to return.
+     * @return A new list of at most limit alerts, the most urgent first.
+     */
+    public List<StockAlert> getReorderList(int limit) {
+        List<StockAlert> top = new ArrayList<>(Math.min(limit, 64));
+        Iterator<StockAlert> ranked = belowMin.iterator();
+        while (top.size() < limit && ranked.hasNext()) {
+            top.add(ranked.next());
+        }
+        return top;
+    }
+
+    /**
+     * Get everything above its maximum, the furthest over first.
+     *
+     * @return A new list of alerts.
+     */
+    public List<StockAlert> getOverstocked() {
+        return new ArrayList<>(aboveMax);
+    }
+
+    /**
+     * @param kind - Part or product.
+     * @param id - partID or productID.
+     * @return The entity's current alert, else null.
+     */
+    public StockAlert getAlert(StockAlert.Kind kind, int id) {
+        return alerts.get(StockAlert.key(kind, id));
+    }
+
+    /**
+     * @return Number of entities with an alert.
+     */
+    public int size() {
+        return alerts.size();
+    }
+
+    private void inventoryChanged(InventoryEvent event) {
+        StockAlert.Kind kind = event.getType().isPartEvent() ? StockAlert.Kind.PART : StockAlert.Kind.PRODUCT;
+        long key = StockAlert.key(kind, event.getID());
+
+        StockAlert alert;
+        switch (event.getType()) {
+            case PART_ADDED:
+            case PART_UPDATED:
+                alert = StockAlert.of(event.getPart());
+                break;
+            case PRODUCT_ADDED:
+            case PRODUCT_UPDATED:
+                alert = StockAlert.of(event.getProduct());
+                break;
+            default:
+                alert = null;
+        }
+
+        Set<Long> changed = changedDuringScan;
+        if (changed != null) {
+            changed.add(key);
+        }
+
+        StockAlert[] previous = new StockAlert[1];
+        alerts.compute(key, (ignored, old) -> {
+            previous[0] = old;
+            return replace(old, alert);
+        });
+
+        if (!Objects.equals(previous[0], alert)) {
+            for (StockAlertListener listener : listeners) {
+                listener.alertChanged(previous[0], alert);
+            }
+        }
+    }
+
+    /**
+     * Record what the initial scan read for an entity, unless an event has already reported a newer state.
+     */
+    private void scanned(long key, StockAlert alert) {
+        if (alert == null) {
+            return;
+        }
+
+        alerts.compute(key, (ignored, old) -> {
+            Set<Long> changed = changedDuringScan;
+            return changed != null && changed.contains(key) ? old : replace(old, alert);
+        });
+    }
+
+    /**
+     * Swap an entity's alert in the ranked sets. Called inside a compute on the entity's key so it is atomic per
+     * entity.
+     */
+    private StockAlert replace(StockAlert old, StockAlert alert) {
+        if (old != null) {
+            ranked(old).remove(old);
+        }
+        if (alert != null) {
+            ranked(alert).add(alert);
+        }
+        return alert;
+    }
+
+    private NavigableSet<StockAlert> ranked(StockAlert alert) {
+        return alert.getLevel() == StockAlert.Level.BELOW_MIN ? belowMin : aboveMax;
+    }
+}
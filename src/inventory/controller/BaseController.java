@@ -2,11 +2,10 @@ package inventory.controller;
 
 import inventory.Main;
 import inventory.model.Inventory;
+import inventory.model.Violation;
 import javafx.event.Event;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
@@ -14,6 +13,7 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
 
 /**
@@ -28,34 +28,51 @@ public class BaseController implements Initializable {
     private Inventory inventory;
 
     /**
-     * A utility method for loading the next scene.
-     * It provides a reference to the controller it loads so that other controllers may pass data.
+     * A utility method for showing the next scene.
+     * It provides a reference to the controller it shows so that other controllers may pass data.
      *
      * @param Event - the UI event that triggered this transition
-     * @param fxml - the fxml file to load
-     * @return BaseController - Reference to the controller that was loaded.
+     * @param fxml - the fxml file to show, relative to /inventory/
+     * @return BaseController - Reference to the controller that was shown.
      * @throws IOException
+     * @implNote Views are loaded once and reused from Main.getScenes(), the controller is reset() before it is shown.
      */
     public BaseController nextScene(Event event, String fxml) throws IOException{
 
-        // Load the fxml file
-        FXMLLoader loader = new FXMLLoader(getClass().getResource(getBasePath() + fxml));
-
         // Get the button that was clicked to hook into the window/stage.
         Button clicked = (Button) event.getSource();
         Stage stage = (Stage) clicked.getScene().getWindow();
 
-        // Load the new scene.
-        Scene scene = new Scene(loader.load());
-        stage.setScene(scene);
+        // Show the view, loading it only the first time.
+        BaseController controller = Main.getScenes().show(stage, fxml);
         stage.show();
 
         // Return a reference to the controller so the calling controller can pass data.
-        return loader.getController();
+        return controller;
+    }
+
+    /**
+     * Return the view to the state it was loaded in. Called by nextScene() every time before the view is shown, so a
+     * reused controller does not show data from its last use.
+     */
+    protected void reset() {
     }
 
-    private String getBasePath() {
-        return "/inventory/";
+    /**
+     * Helper method to put validation errors in an alert, one message per line.
+     *
+     * @param errors - The violations.
+     * @return The messages joined by newlines.
+     */
+    protected static String messages(List<Violation> errors) {
+        StringBuilder text = new StringBuilder();
+        for (Violation error : errors) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(error.getMessage());
+        }
+        return text.toString();
     }
 
     /**
@@ -66,7 +83,7 @@ public class BaseController implements Initializable {
      */
     @FXML
     public void goHome(Event event) throws IOException {
-        nextScene(event, "view/main.fxml");
+        nextScene(event, SceneCache.MAIN);
     }
 
     /**
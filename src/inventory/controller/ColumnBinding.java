@@ -0,0 +1,139 @@
+package inventory.controller;
+
+import inventory.model.Part;
+import inventory.model.Product;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Binds table columns to Part and Product accessors without reflection.
+ *
+ * PropertyValueFactory finds the getter by name and calls it reflectively, then wraps the value in a new
+ * ReadOnlyObjectWrapper, which allocates again once the cell listens to it. Parts and products do not notify of
+ * changes, a changed row is replaced in the table's list instead, so a cell value never needs to change. The values
+ * handed out here are constants that ignore listeners, and the most common integers are shared. A null row, such as
+ * a row of a PagedList past the end of a shrunk inventory, has no value.
+ */
+public final class ColumnBinding {
+
+    private static final int CACHED_LOW = -1;
+    private static final int CACHED_HIGH = 1024;
+
+    /**
+     * Shared values for integers in [CACHED_LOW, CACHED_HIGH), which covers the unset -1 and most stock levels.
+     */
+    private static final Value<?>[] INTEGERS = new Value<?>[CACHED_HIGH - CACHED_LOW];
+
+    static {
+        for (int i = CACHED_LOW; i < CACHED_HIGH; i++) {
+            INTEGERS[i - CACHED_LOW] = new Value<>(i);
+        }
+    }
+
+    private ColumnBinding() {
+    }
+
+    /**
+     * Bind the ID, name, inventory level and price columns of a part table.
+     */
+    public static void bindParts(TableColumn<Part, Integer> id, TableColumn<Part, String> name,
+                                 TableColumn<Part, Integer> inStock, TableColumn<Part, Double> price) {
+        bindInt(id, Part::getPartID);
+        bind(name, Part::getName);
+        bindInt(inStock, Part::getInStock);
+        bindDouble(price, Part::getPrice);
+    }
+
+    /**
+     * Bind the ID, name, inventory level and price columns of a product table.
+     */
+    public static void bindProducts(TableColumn<Product, Integer> id, TableColumn<Product, String> name,
+                                    TableColumn<Product, Integer> inStock, TableColumn<Product, Double> price) {
+        bindInt(id, Product::getProductID);
+        bind(name, Product::getName);
+        bindInt(inStock, Product::getInStock);
+        bindDouble(price, Product::getPrice);
+    }
+
+    /**
+     * @param column - Column to bind.
+     * @param accessor - Reads the cell value from a row.
+     */
+    public static <S, T> void bind(TableColumn<S, T> column, Function<S, T> accessor) {
+        column.setCellValueFactory(cell -> {
+            S row = cell.getValue();
+            return row == null ? null : new Value<>(accessor.apply(row));
+        });
+    }
+
+    /**
+     * @param column - Column to bind.
+     * @param accessor - Reads the cell value from a row.
+     */
+    public static <S> void bindInt(TableColumn<S, Integer> column, ToIntFunction<S> accessor) {
+        column.setCellValueFactory(cell -> {
+            S row = cell.getValue();
+            return row == null ? null : valueOf(accessor.applyAsInt(row));
+        });
+    }
+
+    /**
+     * @param column - Column to bind.
+     * @param accessor - Reads the cell value from a row.
+     */
+    public static <S> void bindDouble(TableColumn<S, Double> column, ToDoubleFunction<S> accessor) {
+        column.setCellValueFactory(cell -> {
+            S row = cell.getValue();
+            return row == null ? null : new Value<>(accessor.applyAsDouble(row));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static ObservableValue<Integer> valueOf(int value) {
+        if (value >= CACHED_LOW && value < CACHED_HIGH) {
+            return (ObservableValue<Integer>) INTEGERS[value - CACHED_LOW];
+        }
+        return new Value<>(value);
+    }
+
+    /**
+     * A cell value that never changes, so listeners are never kept or called.
+     *
+     * @param <T> - Value type.
+     */
+    static final class Value<T> implements ObservableValue<T> {
+
+        private final T value;
+
+        Value(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T getValue() {
+            return value;
+        }
+
+        @Override
+        public void addListener(ChangeListener<? super T> listener) {
+        }
+
+        @Override
+        public void removeListener(ChangeListener<? super T> listener) {
+        }
+
+        @Override
+        public void addListener(InvalidationListener listener) {
+        }
+
+        @Override
+        public void removeListener(InvalidationListener listener) {
+        }
+    }
+}
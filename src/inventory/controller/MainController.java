@@ -1,61 +1,82 @@
 package inventory.controller;
 
+import inventory.model.InventoryEvent;
+import inventory.model.InventoryListener;
 import inventory.model.Part;
 import inventory.model.Product;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.RandomAccess;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
 
 /**
  * Controller that handles the main screen and related actions.
  */
 public class MainController extends BaseController {
 
+    /**
+     * More changes than this in one pulse, for example an import, reload the tables instead of patching them.
+     */
+    private static final int PATCH_LIMIT = 1000;
+
+    /**
+     * Style state of product rows priced below the cost of their parts, see main.css.
+     */
+    private static final PseudoClass BELOW_COST = PseudoClass.getPseudoClass("below-cost");
+
     /**
      * All member variables below are related to the UI for the main screen.
      * They are bound to the fxml elements in main.fxml
      */
     @FXML
-    private TableView partTable;
+    private TableView<Part> partTable;
 
     @FXML
-    private TableColumn partID;
+    private TableColumn<Part, Integer> partID;
 
     @FXML
-    private TableColumn partName;
+    private TableColumn<Part, String> partName;
 
     @FXML
-    private TableColumn partInventoryLevel;
+    private TableColumn<Part, Integer> partInventoryLevel;
 
     @FXML
-    private TableColumn partPrice;
+    private TableColumn<Part, Double> partPrice;
 
     @FXML
     private TextField partSearchField;
 
     @FXML
-    private TableView productTable;
+    private TableView<Product> productTable;
 
     @FXML
-    private TableColumn productID;
+    private TableColumn<Product, Integer> productID;
 
     @FXML
-    private TableColumn productName;
+    private TableColumn<Product, String> productName;
 
     @FXML
-    private TableColumn productInventoryLevel;
+    private TableColumn<Product, Integer> productInventoryLevel;
 
     @FXML
-    private TableColumn productPrice;
+    private TableColumn<Product, Double> productPrice;
 
     @FXML
     private TextField productSearchField;
@@ -72,6 +93,25 @@ public class MainController extends BaseController {
      */
     private ObservableList<Product> filteredProducts = FXCollections.observableArrayList();
 
+    /**
+     * Every part and every product, fetched a page at a time. The tables show these while no search is active.
+     */
+    private PagedList<Part> allParts;
+    private PagedList<Product> allProducts;
+
+    /**
+     * Background searches publishing into filteredParts and filteredProducts.
+     */
+    private SearchService<Part> partSearch;
+    private SearchService<Product> productSearch;
+
+    /**
+     * Inventory changes waiting to be applied to the tables on the FX thread.
+     */
+    private final Queue<InventoryEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final InventoryListener inventoryListener = this::inventoryChanged;
+
     /**
      * All of the following methods prefixed with handle are used for handling events from the UI.
      */
@@ -83,36 +123,7 @@ public class MainController extends BaseController {
      */
     @FXML
     public void handleSearchPartClick(Event event) throws IOException {
-
-        // Clear current filter.
-        filteredParts.clear();
-
-        // IF search field is empty just return all the results.
-        if (partSearchField.getText().length() == 0) {
-            filteredParts.addAll(getInventory().getAllParts());
-            return;
-        }
-
-        try {
-
-            // Try parsing the string as integer and look up the part.
-            // On NumberFormatException we fall into the exception handler.
-            Part part = getInventory().lookupPart(Integer.valueOf(partSearchField.getText()));
-
-            // If part not found leave the filter as no parts.
-            if (part == null) {
-                return;
-            }
-
-            // Add part
-            filteredParts.add(part);
-
-        } catch (NumberFormatException e) {
-
-            // Searching with a string is considered a "contains case insensitive" search on the name field only.
-            List<Part> parts = getInventory().lookupPart(partSearchField.getText());
-            filteredParts.addAll(parts);
-        }
+        searchParts(partSearchField.getText(), true);
     }
 
     /**
@@ -123,7 +134,7 @@ public class MainController extends BaseController {
      */
     @FXML
     private void handleAddPartClick(Event event) throws IOException {
-        nextScene(event,"view/part.fxml");
+        nextScene(event, SceneCache.PART);
     }
 
     /**
@@ -135,7 +146,7 @@ public class MainController extends BaseController {
     @FXML
     public void handleModifyPartClick(Event event) throws IOException {
 
-        Part part = (Part) partTable.getSelectionModel().getSelectedItem();
+        Part part = partTable.getSelectionModel().getSelectedItem();
 
         if (part == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select a part to modify.");
@@ -143,7 +154,7 @@ public class MainController extends BaseController {
             return;
         }
 
-        PartController controller = (PartController) nextScene(event,"view/part.fxml");
+        PartController controller = (PartController) nextScene(event, SceneCache.PART);
         controller.loadPart(part.getPartID());
     }
 
@@ -155,7 +166,7 @@ public class MainController extends BaseController {
      */
     @FXML
     public void handleDeletePartClick(Event event) throws IOException {
-        Part part = (Part) partTable.getSelectionModel().getSelectedItem();
+        Part part = partTable.getSelectionModel().getSelectedItem();
 
         if (part == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select the part you wish to delete.", ButtonType.CLOSE);
@@ -163,7 +174,7 @@ public class MainController extends BaseController {
             return;
         }
 
-        if (getInventory().getProductsContainingPart(part.getPartID()).size() > 0) {
+        if (getInventory().isPartAssociated(part.getPartID())) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "You may not remove this part as it is still associated to one or more products.", ButtonType.CLOSE);
             alert.showAndWait();
             return;
@@ -177,7 +188,6 @@ public class MainController extends BaseController {
 
         if (alert.getResult() == ButtonType.YES) {
             getInventory().deletePart(part.getPartID());
-            filteredParts.remove(part);
         }
     }
 
@@ -189,35 +199,7 @@ public class MainController extends BaseController {
      */
     @FXML
     public void handleSearchProductClick(Event event) throws IOException {
-        // Clear current filter.
-        filteredProducts.clear();
-
-        // IF search field is empty just return all the results.
-        if (productSearchField.getText().length() == 0) {
-            filteredProducts.addAll(getInventory().getProducts());
-            return;
-        }
-
-        try {
-
-            // Try parsing the string as integer and look up the part.
-            // On NumberFormatException we fall into the exception handler.
-            Product product = getInventory().lookupProduct(Integer.valueOf(productSearchField.getText()));
-
-            // If part not found leave the filter as no parts.
-            if (product == null) {
-                return;
-            }
-
-            // Add part
-            filteredProducts.add(product);
-
-        } catch (NumberFormatException e) {
-
-            // Searching with a string is considered a "contains case insensitive" search on the name field only.
-            List<Product> products = getInventory().lookupProduct(productSearchField.getText());
-            filteredProducts.addAll(products);
-        }
+        searchProducts(productSearchField.getText(), true);
     }
 
     /**
@@ -228,7 +210,7 @@ public class MainController extends BaseController {
      */
     @FXML
     public void handleAddProductClick(Event event) throws IOException {
-        nextScene(event,"view/product.fxml");
+        nextScene(event, SceneCache.PRODUCT);
     }
 
     /**
@@ -240,7 +222,7 @@ public class MainController extends BaseController {
     @FXML
     public void handleModifyProductClick(Event event) throws IOException {
 
-        Product product = (Product) productTable.getSelectionModel().getSelectedItem();
+        Product product = productTable.getSelectionModel().getSelectedItem();
 
         if (product == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select a product to modify.");
@@ -249,7 +231,7 @@ public class MainController extends BaseController {
         }
 
         // Load the product controller
-        ProductController controller = (ProductController) nextScene(event,"view/product.fxml");
+        ProductController controller = (ProductController) nextScene(event, SceneCache.PRODUCT);
 
         // Pass productID to the product controller
         controller.loadProduct(product.getProductID());
@@ -265,7 +247,7 @@ public class MainController extends BaseController {
     public void handleDeleteProductClick(Event event) throws IOException {
 
         // Get the selected product from the table
-        Product product = (Product) productTable.getSelectionModel().getSelectedItem();
+        Product product = productTable.getSelectionModel().getSelectedItem();
 
         if (product == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select the product you wish to delete.", ButtonType.CLOSE);
@@ -274,12 +256,19 @@ public class MainController extends BaseController {
         }
 
         // Must remove all parts prior to deleting a product
-        if (product.getAssociatedParts().size() > 0) {
+        if (product.hasAssociatedParts()) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "You may not delete a product that has a part assigned to it.", ButtonType.CLOSE);
             alert.showAndWait();
             return;
         }
 
+        // A product other products are built from must stay while they use it
+        if (!getInventory().getProductsUsingSubassembly(product.getProductID()).isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "You may not delete a product that is a sub-assembly of another product.", ButtonType.CLOSE);
+            alert.showAndWait();
+            return;
+        }
+
         Alert alert = new Alert(
                 Alert.AlertType.CONFIRMATION,
                 "Are you sure you want to delete the selected product?",
@@ -288,7 +277,6 @@ public class MainController extends BaseController {
 
         if (alert.getResult() == ButtonType.YES) {
             getInventory().removeProduct(product.getProductID());
-            filteredProducts.remove(product);
         }
 
     }
@@ -309,28 +297,222 @@ public class MainController extends BaseController {
     public void initialize(URL location, ResourceBundle resources) {
         super.initialize(location, resources);
 
-        // Initialize the parts table with all parts from inventory
-        filteredParts.addAll(getInventory().getAllParts());
+        // Search as the user types, each search replaces the table contents in one step.
+        partSearch = SearchService.forParts(getInventory(), results -> {
+            filteredParts.setAll(results);
+            partTable.setItems(filteredParts);
+        });
+        partSearchField.textProperty().addListener((observable, previous, text) -> searchParts(text, false));
+
+        // Without a search the table pages through all parts in inventory.
+        allParts = new PagedList<>(getInventory()::getParts, getInventory()::getPartCount,
+                Part::getPartID);
+
+        // Bind table columns to part and product accessors
+        ColumnBinding.bindParts(partID, partName, partInventoryLevel, partPrice);
+
+        // Bind the part table to all parts, or to the search results once a search is made
+        partTable.setItems(allParts);
+
+        productSearch = SearchService.forProducts(getInventory(), results -> {
+            filteredProducts.setAll(results);
+            productTable.setItems(filteredProducts);
+        });
+        productSearchField.textProperty().addListener((observable, previous, text) -> searchProducts(text, false));
+
+        // Without a search the table pages through all products in inventory.
+        allProducts = new PagedList<>(getInventory()::getProducts, getInventory()::getProductCount,
+                Product::getProductID);
+
+        // Bind table columns to part and product accessors
+        ColumnBinding.bindProducts(productID, productName, productInventoryLevel, productPrice);
+
+        // Bind the product table to all products, or to the search results once a search is made
+        productTable.setItems(allProducts);
+
+        // Flag products priced below the cost of their parts. A part price change replaces the product with a recosted
+        // copy and patches its row, which may re-index the row without a new item, so check on every index update.
+        productTable.setRowFactory(table -> new TableRow<Product>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                Product product = getItem();
+                pseudoClassStateChanged(BELOW_COST, !isEmpty() && product != null && product.isPricedBelowCost());
+            }
+        });
 
-        // Bind table columns to properties
-        partID.setCellValueFactory(new PropertyValueFactory<Part, Integer>("partID"));
-        partName.setCellValueFactory(new PropertyValueFactory<Part, String>("name"));
-        partInventoryLevel.setCellValueFactory(new PropertyValueFactory<Part, Integer>("inStock"));
-        partPrice.setCellValueFactory(new PropertyValueFactory<Part, Double>("price"));
+        // Keep both tables current as the inventory changes, whoever changes it. The main view is cached for the life
+        // of the application, so the listener is never removed and returning to it finds the tables up to date.
+        getInventory().addListener(inventoryListener);
+    }
 
-        // Bind the part table to the allParts observable list in Inventory
-        partTable.setItems(filteredParts);
+    /**
+     * Queue a change and make sure one drain is scheduled on the FX thread, however many changes arrive before it runs.
+     *
+     * @param event - Change made to the inventory, on any thread.
+     */
+    private void inventoryChanged(InventoryEvent event) {
+        pendingEvents.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::applyPendingEvents);
+        }
+    }
+
+    /**
+     * Patch the rows touched by the queued changes. Only the changed entity is checked against the active search.
+     */
+    private void applyPendingEvents() {
+        drainScheduled.set(false);
+
+        List<InventoryEvent> events = new ArrayList<>();
+        for (InventoryEvent event = pendingEvents.poll(); event != null; event = pendingEvents.poll()) {
+            events.add(event);
+        }
+
+        if (events.size() > PATCH_LIMIT) {
+            reloadTables();
+            return;
+        }
+
+        String partQuery = partSearchField.getText();
+        String productQuery = productSearchField.getText();
+
+        // Without a search the filtered lists are empty and the paged lists are shown.
+        boolean partsFiltered = partQuery.length() > 0;
+        boolean productsFiltered = productQuery.length() > 0;
+
+        for (InventoryEvent event : events) {
+            switch (event.getType()) {
+                case PART_ADDED:
+                    allParts.added(event.getPart());
+                    patch(filteredParts, Part::getPartID, event.getID(), event.getPart(),
+                            partsFiltered && SearchService.matchesPart(event.getPart(), partQuery));
+                    break;
+                case PART_UPDATED:
+                    allParts.updated(event.getID(), event.getPart());
+                    patch(filteredParts, Part::getPartID, event.getID(), event.getPart(),
+                            partsFiltered && SearchService.matchesPart(event.getPart(), partQuery));
+                    break;
+                case PART_REMOVED:
+                    allParts.removed(event.getID());
+                    patch(filteredParts, Part::getPartID, event.getID(), null, false);
+                    break;
+                case PRODUCT_ADDED:
+                    allProducts.added(event.getProduct());
+                    patch(filteredProducts, Product::getProductID, event.getID(), event.getProduct(),
+                            productsFiltered && SearchService.matchesProduct(event.getProduct(), productQuery));
+                    break;
+                case PRODUCT_UPDATED:
+                    allProducts.updated(event.getID(), event.getProduct());
+                    patch(filteredProducts, Product::getProductID, event.getID(), event.getProduct(),
+                            productsFiltered && SearchService.matchesProduct(event.getProduct(), productQuery));
+                    break;
+                case PRODUCT_REMOVED:
+                    allProducts.removed(event.getID());
+                    patch(filteredProducts, Product::getProductID, event.getID(), null, false);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reload both tables and re-run any active search.
+     */
+    private void reloadTables() {
+        allParts.refresh();
+        allProducts.refresh();
+
+        if (partSearchField.getText().length() > 0) {
+            partSearch.searchNow(partSearchField.getText());
+        }
+        if (productSearchField.getText().length() > 0) {
+            productSearch.searchNow(productSearchField.getText());
+        }
+    }
+
+    /**
+     * Bring one entity in a list of search results up to date.
+     *
+     * @param rows - Search results in ID order.
+     * @param idOf - ID of a row.
+     * @param id - ID of the changed entity.
+     * @param entity - The entity as it is now.
+     * @param matches - Whether the entity matches the search now.
+     * @implNote The row is found by a binary search on the IDs, O(log n) per change.
+     */
+    private static <T> void patch(ObservableList<T> rows, ToIntFunction<T> idOf, int id, T entity, boolean matches) {
+        int index = Collections.binarySearch(ids(rows, idOf), id);
+        boolean present = index >= 0;
+        if (!present) {
+            index = -index - 1;
+        }
 
-        // Initialize the products table with all products from inventory
-        filteredProducts.addAll(getInventory().getProducts());
+        if (present && matches) {
+            rows.set(index, entity);
+        } else if (present) {
+            rows.remove(index);
+        } else if (matches) {
+            rows.add(index, entity);
+        }
+    }
 
-        // Bind table columns to properties
-        productID.setCellValueFactory(new PropertyValueFactory<Part, Integer>("productID"));
-        productName.setCellValueFactory(new PropertyValueFactory<Part, String>("name"));
-        productInventoryLevel.setCellValueFactory(new PropertyValueFactory<Part, Integer>("inStock"));
-        productPrice.setCellValueFactory(new PropertyValueFactory<Part, Double>("price"));
+    /**
+     * View a list of rows as their IDs, reading each ID only when it is asked for.
+     *
+     * @param rows - Rows in ID order.
+     * @param idOf - ID of a row.
+     * @return List<Integer>
+     */
+    private static <T> List<Integer> ids(List<T> rows, ToIntFunction<T> idOf) {
+        class Ids extends AbstractList<Integer> implements RandomAccess {
+            @Override
+            public Integer get(int index) {
+                return idOf.applyAsInt(rows.get(index));
+            }
 
-        // Bind the part table to the allParts observable list in Inventory
-        productTable.setItems(filteredProducts);
+            @Override
+            public int size() {
+                return rows.size();
+            }
+        }
+        return new Ids();
+    }
+
+    /**
+     * Show the parts matching a query. An empty query shows every part through the paged list.
+     *
+     * @param query - Search text.
+     * @param now - Search without waiting for typing to pause.
+     */
+    private void searchParts(String query, boolean now) {
+        if (query.length() == 0) {
+            partSearch.cancel();
+            filteredParts.clear();
+            allParts.refresh();
+            partTable.setItems(allParts);
+        } else if (now) {
+            partSearch.searchNow(query);
+        } else {
+            partSearch.submit(query);
+        }
+    }
+
+    /**
+     * Show the products matching a query. An empty query shows every product through the paged list.
+     *
+     * @param query - Search text.
+     * @param now - Search without waiting for typing to pause.
+     */
+    private void searchProducts(String query, boolean now) {
+        if (query.length() == 0) {
+            productSearch.cancel();
+            filteredProducts.clear();
+            allProducts.refresh();
+            productTable.setItems(allProducts);
+        } else if (now) {
+            productSearch.searchNow(query);
+        } else {
+            productSearch.submit(query);
+        }
     }
 }
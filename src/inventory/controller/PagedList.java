@@ -0,0 +1,241 @@
+package inventory.controller;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Observable list that fetches its rows from the inventory one page at a time as they are asked for.
+ *
+ * A TableView only asks for the rows it shows, so backing a table with a PagedList keeps memory and load time
+ * proportional to the visible window instead of the catalog. The most recently used pages are cached. The list does
+ * not see inventory changes by itself; pass each change to updated(), added() or removed(), or call refresh() to drop
+ * the cache and pick up a new size.
+ *
+ * The patch methods assume rows are in ascending ID order, as the inventory returns them.
+ *
+ * @param <T> - Row type.
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+
+    /**
+     * Fetches one page of rows.
+     *
+     * @param <T> - Row type.
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+
+        /**
+         * @param offset - Position of the first row.
+         * @param limit - Largest number of rows to return.
+         * @return Up to limit rows starting at offset.
+         */
+        List<T> load(int offset, int limit);
+    }
+
+    public static final int PAGE_SIZE = 256;
+    public static final int CACHED_PAGES = 16;
+
+    private final PageLoader<T> loader;
+    private final IntSupplier counter;
+    private final ToIntFunction<T> idOf;
+
+    /**
+     * Pages by page number, in least recently used order.
+     */
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<Integer, List<T>>(CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    private int size;
+
+    /**
+     * @param loader - Fetches pages, for example inventory::getParts.
+     * @param counter - Counts the rows, for example () -> inventory.getAllParts().size().
+     */
+    public PagedList(PageLoader<T> loader, IntSupplier counter) {
+        this(loader, counter, null);
+    }
+
+    /**
+     * @param loader - Fetches pages, for example inventory::getParts.
+     * @param counter - Counts the rows, for example () -> inventory.getAllParts().size().
+     * @param idOf - ID of a row, for example Part::getPartID. Without it every patch falls back to refresh().
+     */
+    public PagedList(PageLoader<T> loader, IntSupplier counter, ToIntFunction<T> idOf) {
+        this.loader = loader;
+        this.counter = counter;
+        this.idOf = idOf;
+        this.size = counter.getAsInt();
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int page = index / PAGE_SIZE;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            rows = loader.load(page * PAGE_SIZE, PAGE_SIZE);
+            pages.put(page, rows);
+        }
+
+        // The inventory may have shrunk since the size was taken, until the next refresh() show the row as empty.
+        int row = index % PAGE_SIZE;
+        return row < rows.size() ? rows.get(row) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Replace a row that changed in the inventory.
+     *
+     * @param id - ID of the changed row.
+     * @param row - The row as it is now.
+     * @implNote Only cached pages hold rows, a row on any other page is read fresh when it is next shown.
+     */
+    public void updated(int id, T row) {
+        if (idOf == null) {
+            refresh();
+            return;
+        }
+
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            List<T> rows = entry.getValue();
+            int index = indexOf(rows, id);
+            if (index < 0) {
+                continue;
+            }
+
+            List<T> replaced = new ArrayList<>(rows);
+            T previous = replaced.set(index, row);
+            entry.setValue(replaced);
+
+            beginChange();
+            nextSet(entry.getKey() * PAGE_SIZE + index, previous);
+            endChange();
+            return;
+        }
+    }
+
+    /**
+     * Append a row added to the inventory.
+     *
+     * @param row - The new row.
+     * @implNote New IDs are always the largest so the row goes last. A restored row may belong in the middle, if a
+     * cached page holds a larger ID the list is refreshed instead.
+     */
+    public void added(T row) {
+        if (idOf == null || lastCachedID() > idOf.applyAsInt(row)) {
+            refresh();
+            return;
+        }
+
+        // The last page may be cached short, reload it with the new row when it is next shown.
+        pages.remove(size / PAGE_SIZE);
+        size++;
+
+        beginChange();
+        nextAdd(size - 1, size);
+        endChange();
+    }
+
+    /**
+     * Remove a row removed from the inventory.
+     *
+     * @param id - ID of the removed row.
+     * @implNote Rows after the removed one shift up a position, so its page and every later cached page are dropped.
+     * If the row is not on a cached page its position is unknown and the list is refreshed instead.
+     */
+    public void removed(int id) {
+        if (idOf == null) {
+            refresh();
+            return;
+        }
+
+        int position = -1;
+        T previous = null;
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            int index = indexOf(entry.getValue(), id);
+            if (index >= 0) {
+                position = entry.getKey() * PAGE_SIZE + index;
+                previous = entry.getValue().get(index);
+                break;
+            }
+        }
+
+        if (position < 0) {
+            refresh();
+            return;
+        }
+
+        int page = position / PAGE_SIZE;
+        pages.keySet().removeIf(cached -> cached >= page);
+        size--;
+
+        beginChange();
+        nextRemove(position, previous);
+        endChange();
+    }
+
+    private int indexOf(List<T> rows, int id) {
+        if (rows.isEmpty() || id < idOf.applyAsInt(rows.get(0)) || id > idOf.applyAsInt(rows.get(rows.size() - 1))) {
+            return -1;
+        }
+
+        // Rows are in ID order.
+        int low = 0;
+        int high = rows.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleID = idOf.applyAsInt(rows.get(middle));
+            if (middleID < id) {
+                low = middle + 1;
+            } else if (middleID > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int lastCachedID() {
+        int last = Integer.MIN_VALUE;
+        for (List<T> rows : pages.values()) {
+            if (!rows.isEmpty()) {
+                last = Math.max(last, idOf.applyAsInt(rows.get(rows.size() - 1)));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Drop the cached pages, re-read the size and tell listeners every row may have changed.
+     */
+    public void refresh() {
+        int previous = size;
+        pages.clear();
+        size = counter.getAsInt();
+
+        beginChange();
+        nextRemove(0, Collections.nCopies(previous, null));
+        nextAdd(0, size);
+        endChange();
+    }
+}
@@ -3,6 +3,8 @@ package inventory.controller;
 import inventory.model.Inhouse;
 import inventory.model.Outsourced;
 import inventory.model.Part;
+import inventory.model.Validation;
+import inventory.model.Violation;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -94,6 +96,24 @@ public class PartController extends BaseController {
         }
     }
 
+    /**
+     * Clear the form back to an empty in-house part, ready for an add or for loadPart().
+     */
+    @Override
+    protected void reset() {
+        id.clear();
+        name.clear();
+        inv.clear();
+        price.clear();
+        min.clear();
+        max.clear();
+        companyName.clear();
+        machID.clear();
+
+        inHouse.setSelected(true);
+        handleInHouseClick(null);
+    }
+
     /**
      * Handle save click.
      *
@@ -103,15 +123,16 @@ public class PartController extends BaseController {
     @FXML
     public void handleSaveClick(Event event) throws IOException {
 
-        // Parse the part form.
-        Part part = parseForm();
+        // Parse the part form, collecting fields that could not be parsed.
+        List<Violation> errors = new ArrayList<>();
+        Part part = parseForm(errors);
 
-        // Validate the part and get any errors.
-        List<String> errors = validatePart(part);
+        // Validate the part and add any errors.
+        errors.addAll(Validation.PARTS.validate(part));
 
         // If the part is invalid display messages.
         if (errors.size() > 0) {
-            Alert alert = new Alert(Alert.AlertType.ERROR, String.join("\n", errors), ButtonType.CLOSE);
+            Alert alert = new Alert(Alert.AlertType.ERROR, messages(errors), ButtonType.CLOSE);
             alert.showAndWait();
             return;
         }
@@ -130,62 +151,15 @@ public class PartController extends BaseController {
         goHome(event);
     }
 
-    /**
-     * This method will validate the part and return any error messages.
-     *
-     * @param part - The part to validate
-     * @return List<String> of error messages
-     */
-    private List<String> validatePart(Part part) {
-        List<String> errors = new ArrayList<>();
-
-        if (part.getMax() == -2) {
-            errors.add("Maximum allowed is optional but when provided must be a positive integer.");
-        }
-
-        if (part.getMin() == -2) {
-            errors.add("Minimum allowed is optional but when provided must be an integer >= 0.");
-        }
-
-        if (part.getMin() >= 0 && part.getMax() > 0 && part.getMin() > part.getMax()) {
-            errors.add("Minimum allowed must be less than maximum allowed.");
-        }
-
-        if (part.getMin() >= 0 && part.getInStock() < part.getMin()) {
-            errors.add("Inventory must be greater than the minimum.");
-        }
-
-        if (part.getMax() > 0 && part.getInStock() > part.getMax()) {
-            errors.add("Inventory must be less than the maximum.");
-        }
-
-        if (part.getName() == null || part.getName().length() == 0) {
-            errors.add("Name is a required field.");
-        }
-
-        if (part.getPrice() == -1) {
-            errors.add("Price is a required decimal field.");
-        }
-
-        if (part instanceof Inhouse) {
-
-            int machineID = ((Inhouse)part).getMachineID();
-            if (machineID == 0) {
-                errors.add("Machine ID is optional but if provided must be a positive integer.");
-            }
-        }
-
-        return errors;
-    }
-
     /**
      * This method parses the data from the part form into an object.
      * Some data type validation is done to prevent exceptions.
      *
+     * @param errors - Receives a violation for each field whose text could not be parsed.
      * @return Part constructed from the form data
-     * @implNote For max, min fields we set the value to -2 to indicate that an invalid value was passed.
+     * @implNote A field that could not be parsed is left at its absent value.
      */
-    private Part parseForm() {
+    private Part parseForm(List<Violation> errors) {
         Part part = inHouse.isSelected() ? new Inhouse() : new Outsourced();
 
         if (id.getText().length() > 0) {
@@ -195,34 +169,15 @@ public class PartController extends BaseController {
         part.setName(name.getText());
 
         // Added safety checks around integer values to avoid NPE
-        if (inv.getText().matches("\\d+")) {
-            part.setInStock(Integer.valueOf(inv.getText()));
-        }
+        part.setInStock(Validation.parseInteger(inv.getText(), 0, Validation.IN_STOCK_INVALID, errors));
 
-        if (price.getText().matches("[0-9]+\\.?[0-9]*")) {
-            part.setPrice(Double.valueOf(price.getText()));
-        }
-
-        if (max.getText().matches("\\d+")) {
-            part.setMax(Integer.valueOf(max.getText()));
-        } else if (!max.getText().equals("")) {
-            part.setMax(-2);
-        }
-
-        if (min.getText().matches("\\d+")) {
-            part.setMin(Integer.valueOf(min.getText()));
-        } else if (!min.getText().equals("")) {
-            part.setMin(-2);
-        }
+        part.setPrice(Validation.parseDecimal(price.getText(), -1));
+        part.setMax(Validation.parseInteger(max.getText(), Validation.ABSENT, Validation.MAX_INVALID, errors));
+        part.setMin(Validation.parseInteger(min.getText(), Validation.ABSENT, Validation.MIN_INVALID, errors));
 
         if (inHouse.isSelected()) {
-            if (machID.getText().matches("\\d+")) {
-                ((Inhouse) part).setMachineID(Integer.valueOf(machID.getText()));
-            } else if (machID.getText().length() != 0) {
-
-                // Validation error set machine id to 0.
-                ((Inhouse) part).setMachineID(0);
-            }
+            ((Inhouse) part).setMachineID(Validation.parseInteger(machID.getText(), Validation.ABSENT,
+                    Validation.MACHINE_ID_INVALID, errors));
         } else {
             ((Outsourced) part).setCompanyName(companyName.getText());
         }
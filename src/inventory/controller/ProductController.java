@@ -2,13 +2,14 @@ package inventory.controller;
 
 import inventory.model.Part;
 import inventory.model.Product;
+import inventory.model.Validation;
+import inventory.model.Violation;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.io.IOException;
 import java.net.URL;
@@ -45,34 +46,34 @@ public class ProductController extends BaseController {
     private TextField searchField;
 
     @FXML
-    private TableView partSearchTable;
+    private TableView<Part> partSearchTable;
 
     @FXML
-    private TableColumn searchPartID;
+    private TableColumn<Part, Integer> searchPartID;
 
     @FXML
-    private TableColumn searchPartName;
+    private TableColumn<Part, String> searchPartName;
 
     @FXML
-    private TableColumn searchPartInventoryLevel;
+    private TableColumn<Part, Integer> searchPartInventoryLevel;
 
     @FXML
-    private TableColumn searchPartPrice;
+    private TableColumn<Part, Double> searchPartPrice;
 
     @FXML
-    private TableView productPartsTable;
+    private TableView<Part> productPartsTable;
 
     @FXML
-    private TableColumn productPartID;
+    private TableColumn<Part, Integer> productPartID;
 
     @FXML
-    private TableColumn productPartName;
+    private TableColumn<Part, String> productPartName;
 
     @FXML
-    private TableColumn productPartInventoryLevel;
+    private TableColumn<Part, Integer> productPartInventoryLevel;
 
     @FXML
-    private TableColumn productPartPrice;
+    private TableColumn<Part, Double> productPartPrice;
 
     /**
      * An observable list of parts that were added to the current product.
@@ -84,7 +85,12 @@ public class ProductController extends BaseController {
      * An observable list of parts filtered for the part search.
      * When a different search is performed the table in the UI follows this list.
      */
-    private ObservableList<Part> filteredParts;
+    private ObservableList<Part> filteredParts = FXCollections.observableArrayList();
+
+    /**
+     * Background search publishing into filteredParts.
+     */
+    private SearchService<Part> partSearch;
 
     /**
      * This method will load values from a product into the form elements.
@@ -114,6 +120,25 @@ public class ProductController extends BaseController {
         productParts.addAll(product.getAssociatedParts());
     }
 
+    /**
+     * Clear the form and the associated parts, and show every part in the search table again, ready for an add or
+     * for loadProduct().
+     */
+    @Override
+    protected void reset() {
+        id.clear();
+        name.clear();
+        inv.clear();
+        price.clear();
+        min.clear();
+        max.clear();
+        productParts.clear();
+
+        // Clearing the search field submits an empty search, search now so all parts show straight away.
+        searchField.clear();
+        partSearch.searchNow("");
+    }
+
     /**
      * Handle save button click.
      *
@@ -123,15 +148,16 @@ public class ProductController extends BaseController {
     @FXML
     public void handleSaveClick(Event event) throws IOException {
 
-        // Parse the product form into a Product object
-        Product product = parseForm();
+        // Parse the product form into a Product object, collecting fields that could not be parsed.
+        List<Violation> errors = new ArrayList<>();
+        Product product = parseForm(errors);
 
-        // Validate the product and return any errors.
-        List<String> errors = validateProduct(product);
+        // Validate the product and add any errors.
+        errors.addAll(Validation.PRODUCTS.validate(product));
 
         // If the product is invalid display messages.
         if (errors.size() > 0) {
-            Alert alert = new Alert(Alert.AlertType.ERROR, String.join("\n", errors), ButtonType.CLOSE);
+            Alert alert = new Alert(Alert.AlertType.ERROR, messages(errors), ButtonType.CLOSE);
             alert.showAndWait();
             return;
         }
@@ -148,62 +174,6 @@ public class ProductController extends BaseController {
         goHome(event);
     }
 
-    /**
-     * This method will validate the product and return any error messages.
-     *
-     * @param product - The product to validate
-     * @return List<String> of error messages
-     */
-    private List<String> validateProduct(Product product) {
-
-        List<String> errors = new ArrayList<>();
-
-        if (product.getMax() == -2) {
-            errors.add("Maximum allowed is optional but when provided must be a positive integer.");
-        }
-
-        if (product.getMin() == -2) {
-            errors.add("Minimum allowed is optional but when provided must be an integer >= 0.");
-        }
-
-        if (product.getMin() > product.getMax()) {
-            errors.add("Minimum allowed must be less than maximum allowed.");
-        }
-
-        if (product.getMin() >= 0 && product.getInStock() < product.getMin()) {
-            errors.add("Inventory must be greater than the minimum.");
-        }
-
-        if (product.getMax() > 0 && product.getInStock() > product.getMax()) {
-            errors.add("Inventory must be less than the maximum.");
-        }
-
-        if (product.getAssociatedParts().size() == 0) {
-            errors.add("Must have one or more parts associated to the product.");
-        }
-
-        if (product.getName() == null || product.getName().length() == 0) {
-            errors.add("Name is a required field.");
-        }
-
-        if (product.getPrice() == -1) {
-            errors.add("Price is a required field.");
-        } else {
-
-            // Make sure that the product costs at least as much as the sum of the parts' cost.
-            Double totalCost = 0.0;
-            for (Part part : product.getAssociatedParts()) {
-                totalCost += part.getPrice();
-            }
-
-            if (product.getPrice() < totalCost) {
-                errors.add("Price of the product can not be less than the sum of part costs.");
-            }
-        }
-
-        return errors;
-    }
-
     /**
      * Handle delete part click.
      *
@@ -212,7 +182,7 @@ public class ProductController extends BaseController {
      */
     @FXML
     public void handleDeletePartClick(Event event) throws IOException {
-        Part part = (Part) productPartsTable.getSelectionModel().getSelectedItem();
+        Part part = productPartsTable.getSelectionModel().getSelectedItem();
 
         if (part == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select a part to disassociate from the product.");
@@ -236,7 +206,7 @@ public class ProductController extends BaseController {
      */
     @FXML
     public void handleAddPartClick(Event event) throws IOException {
-        Part part = (Part) partSearchTable.getSelectionModel().getSelectedItem();
+        Part part = partSearchTable.getSelectionModel().getSelectedItem();
 
         if (part == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select the part you wish to associate with this product.");
@@ -255,38 +225,7 @@ public class ProductController extends BaseController {
      */
     @FXML
     public void handleSearchPartClick(ActionEvent event) throws IOException {
-
-        // @todo remove duplicated search logic
-
-        // Clear current filter.
-        filteredParts.clear();
-
-        // IF search field is empty just return all the results.
-        if (searchField.getText().length() == 0) {
-            filteredParts.addAll(getInventory().getAllParts());
-            return;
-        }
-
-        try {
-
-            // Try parsing the string as integer and look up the part.
-            // On NumberFormatException we fall into the exception handler.
-            Part part = getInventory().lookupPart(Integer.valueOf(searchField.getText()));
-
-            // If part not found leave the filter as no parts.
-            if (part == null) {
-                return;
-            }
-
-            // Add part
-            filteredParts.add(part);
-
-        } catch (NumberFormatException e) {
-
-            // Searching with a string is considered a "contains case insensitive" search on the name field only.
-            List<Part> parts = getInventory().lookupPart(searchField.getText());
-            filteredParts.addAll(parts);
-        }
+        partSearch.searchNow(searchField.getText());
     }
 
 
@@ -294,10 +233,11 @@ public class ProductController extends BaseController {
      * This method parses the data from the product form into an object.
      * Some data type validation is done to prevent exceptions.
      *
+     * @param errors - Receives a violation for each field whose text could not be parsed.
      * @return Product constructed from the form data
-     * @implNote For max, min fields we set the value to -2 to indicate that an invalid value was passed.
+     * @implNote A field that could not be parsed is left at its absent value.
      */
-    private Product parseForm() {
+    private Product parseForm(List<Violation> errors) {
         Product product = new Product();
 
         if (id.getText().length() != 0) {
@@ -305,29 +245,30 @@ public class ProductController extends BaseController {
         }
 
         product.setName(name.getText());
-        if (inv.getText().matches("\\d+")) {
-            product.setInStock(Integer.valueOf(inv.getText()));
-        }
-
-        if (price.getText().matches("[0-9]+\\.?[0-9]*")) {
-            product.setPrice(Double.valueOf(price.getText()));
-        }
+        product.setInStock(Validation.parseInteger(inv.getText(), 0, Validation.IN_STOCK_INVALID, errors));
 
-        if (min.getText().matches("\\d+")) {
-            product.setMin(Integer.valueOf(min.getText()));
-        } else if (!min.getText().equals("")) {
-            product.setMin(-2);
-        }
-
-        if (max.getText().matches("\\d+")) {
-            product.setMax(Integer.valueOf(max.getText()));
-        } else if (!max.getText().equals("")) {
-            product.setMax(-2);
-        }
+        product.setPrice(Validation.parseDecimal(price.getText(), -1));
+        product.setMin(Validation.parseInteger(min.getText(), Validation.ABSENT, Validation.MIN_INVALID, errors));
+        product.setMax(Validation.parseInteger(max.getText(), Validation.ABSENT, Validation.MAX_INVALID, errors));
 
         // Add all parts from the product parts list to the product.
         productParts.forEach(product::addAssociatedPart);
 
+        // The form does not edit sub-assemblies, keep the ones the product already has.
+        Product stored = getInventory().lookupProduct(product.getProductID());
+        if (stored != null) {
+            for (int subassemblyID : stored.getSubassemblyIDs()) {
+                Product subassembly = getInventory().lookupProduct(subassemblyID);
+                if (subassembly != null) {
+
+                    // Kept as a product so the price is validated against the cost of its parts too.
+                    product.addSubassembly(subassembly, stored.getSubassemblyQuantity(subassemblyID));
+                } else {
+                    product.addSubassembly(subassemblyID, stored.getSubassemblyQuantity(subassemblyID));
+                }
+            }
+        }
+
         return product;
     }
 
@@ -335,23 +276,21 @@ public class ProductController extends BaseController {
     public void initialize(URL location, ResourceBundle resources) {
         super.initialize(location, resources);
 
+        // Search as the user types, each search replaces the table contents in one step.
+        partSearch = SearchService.forParts(getInventory(), filteredParts::setAll);
+        searchField.textProperty().addListener((observable, previous, text) -> partSearch.submit(text));
+
         // Initialize the part search table to include all parts
-        filteredParts = FXCollections.observableList(getInventory().getAllParts());
+        partSearch.searchNow(searchField.getText());
 
-        // Bind partSearchTable columns to properties
-        searchPartID.setCellValueFactory(new PropertyValueFactory<Part, Integer>("partID"));
-        searchPartName.setCellValueFactory(new PropertyValueFactory<Part, String>("name"));
-        searchPartInventoryLevel.setCellValueFactory(new PropertyValueFactory<Part, Integer>("inStock"));
-        searchPartPrice.setCellValueFactory(new PropertyValueFactory<Part, Double>("price"));
+        // Bind partSearchTable columns to part accessors
+        ColumnBinding.bindParts(searchPartID, searchPartName, searchPartInventoryLevel, searchPartPrice);
 
         // Bind the part table to the allParts observable list in Inventory
         partSearchTable.setItems(filteredParts);
 
-        // Bind productPartsTable columns to properties
-        productPartID.setCellValueFactory(new PropertyValueFactory<Part, Integer>("partID"));
-        productPartName.setCellValueFactory(new PropertyValueFactory<Part, String>("name"));
-        productPartInventoryLevel.setCellValueFactory(new PropertyValueFactory<Part, Integer>("inStock"));
-        productPartPrice.setCellValueFactory(new PropertyValueFactory<Part, Double>("price"));
+        // Bind productPartsTable columns to part accessors
+        ColumnBinding.bindParts(productPartID, productPartName, productPartInventoryLevel, productPartPrice);
 
         // Bind the part table to the allParts observable list in Inventory
         productPartsTable.setItems(productParts);
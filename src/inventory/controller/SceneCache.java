@@ -0,0 +1,108 @@
+package inventory.controller;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loads each view once and keeps its scene and controller for reuse.
+ *
+ * Parsing fxml and initializing a controller costs far more than showing an existing scene, so navigation reuses
+ * the cached views instead of loading them again. A reused controller is returned to its freshly loaded state by
+ * BaseController.reset() before it is shown.
+ *
+ * @implNote Must be used on the JavaFX application thread.
+ */
+public class SceneCache {
+
+    public static final String MAIN = "view/main.fxml";
+    public static final String PART = "view/part.fxml";
+    public static final String PRODUCT = "view/product.fxml";
+
+    /**
+     * A loaded view.
+     */
+    public static final class View {
+
+        private final Scene scene;
+        private final BaseController controller;
+
+        private View(Scene scene, BaseController controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+
+        public Scene getScene() {
+            return scene;
+        }
+
+        public BaseController getController() {
+            return controller;
+        }
+    }
+
+    private final Map<String, View> views = new HashMap<>();
+
+    /**
+     * Load views ahead of their first use.
+     *
+     * @param fxmls - fxml files relative to /inventory/, for example SceneCache.MAIN.
+     * @throws IOException
+     */
+    public void preload(String... fxmls) throws IOException {
+        for (String fxml : fxmls) {
+            get(fxml);
+        }
+    }
+
+    /**
+     * Get a view, loading it if this is its first use.
+     *
+     * @param fxml - fxml file relative to /inventory/.
+     * @return View
+     * @throws IOException
+     */
+    public View get(String fxml) throws IOException {
+        View view = views.get(fxml);
+        if (view == null) {
+            view = load(fxml);
+            views.put(fxml, view);
+        }
+        return view;
+    }
+
+    /**
+     * Reset a view's controller and show the view on a stage.
+     *
+     * @param stage - Stage to show the view on.
+     * @param fxml - fxml file relative to /inventory/.
+     * @return The view's controller.
+     * @throws IOException
+     */
+    public BaseController show(Stage stage, String fxml) throws IOException {
+        View view = get(fxml);
+
+        // Clear whatever the view showed last time, then show it.
+        view.getController().reset();
+        stage.setScene(view.getScene());
+        return view.getController();
+    }
+
+    /**
+     * Load a view without caching it.
+     *
+     * @param fxml - fxml file relative to /inventory/.
+     * @return View
+     * @throws IOException
+     */
+    public static View load(String fxml) throws IOException {
+        FXMLLoader loader = new FXMLLoader(SceneCache.class.getResource("/inventory/" + fxml));
+        Parent root = loader.load();
+        return new View(new Scene(root), loader.getController());
+    }
+}
@@ -0,0 +1,210 @@
+package inventory.controller;
+
+import inventory.model.Inventory;
+import inventory.model.Part;
+import inventory.model.Product;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs searches off the JavaFX application thread.
+ *
+ * Each search box owns a SearchService. Queries typed in quick succession are debounced, so only the last one runs,
+ * and a query superseded by a newer one is dropped, whether it is still waiting, running or about to be published.
+ * Results are handed to the publisher on the FX thread in one call.
+ *
+ * All services share one background thread, so searches never run in parallel with each other. The inventory must be
+ * safe to read from that thread while the FX thread changes it, as ConcurrentInventory is.
+ *
+ * @param <T> - Type of the search results.
+ */
+public class SearchService<T> {
+
+    /**
+     * Delay after the last keystroke before a search runs.
+     */
+    public static final long DEBOUNCE_MILLIS = 200;
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Function<String, List<T>> search;
+    private final Consumer<List<T>> publisher;
+
+    /**
+     * Incremented by every submitted query, a search only publishes if it is still the latest.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private ScheduledFuture<?> pending;
+
+    /**
+     * @param search - Runs a query, called on the background thread.
+     * @param publisher - Receives the results, called on the FX thread.
+     */
+    public SearchService(Function<String, List<T>> search, Consumer<List<T>> publisher) {
+        this.search = search;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Create a service running the part search: all parts for an empty query, the part with that ID for a number,
+     * else a case insensitive name search.
+     *
+     * @param inventory - Inventory to search.
+     * @param publisher - Receives the results on the FX thread.
+     * @return SearchService
+     */
+    public static SearchService<Part> forParts(Inventory inventory, Consumer<List<Part>> publisher) {
+        return new SearchService<>(query -> searchParts(inventory, query), publisher);
+    }
+
+    /**
+     * Create a service running the product search, with the same rules as forParts().
+     *
+     * @param inventory - Inventory to search.
+     * @param publisher - Receives the results on the FX thread.
+     * @return SearchService
+     */
+    public static SearchService<Product> forProducts(Inventory inventory, Consumer<List<Product>> publisher) {
+        return new SearchService<>(query -> searchProducts(inventory, query), publisher);
+    }
+
+    /**
+     * Search once typing pauses. Call on every change of the search text.
+     *
+     * @param query - Search text.
+     */
+    public void submit(String query) {
+        schedule(query, DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Search without waiting, for an explicit search click.
+     *
+     * @param query - Search text.
+     */
+    public void searchNow(String query) {
+        schedule(query, 0);
+    }
+
+    /**
+     * Drop any search that has not published yet.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void schedule(String query, long delayMillis) {
+        cancel();
+
+        long scheduled = generation.get();
+        pending = EXECUTOR.schedule(() -> run(query, scheduled), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(String query, long scheduled) {
+        if (generation.get() != scheduled) {
+            return;
+        }
+
+        List<T> results = search.apply(query);
+
+        Platform.runLater(() -> {
+            // A newer query may have been submitted while this one ran.
+            if (generation.get() == scheduled) {
+                publisher.accept(results);
+            }
+        });
+    }
+
+    static List<Part> searchParts(Inventory inventory, String query) {
+        if (query == null || query.length() == 0) {
+            return new ArrayList<>(inventory.getAllParts());
+        }
+
+        Integer partID = parseID(query);
+        if (partID == null) {
+
+            // Searching with a string is considered a "contains case insensitive" search on the name field only.
+            return inventory.lookupPart(query);
+        }
+
+        Part part = inventory.lookupPart(partID);
+        return part == null ? Collections.emptyList() : Collections.singletonList(part);
+    }
+
+    static List<Product> searchProducts(Inventory inventory, String query) {
+        if (query == null || query.length() == 0) {
+            return new ArrayList<>(inventory.getProducts());
+        }
+
+        Integer productID = parseID(query);
+        if (productID == null) {
+            return inventory.lookupProduct(query);
+        }
+
+        Product product = inventory.lookupProduct(productID);
+        return product == null ? Collections.emptyList() : Collections.singletonList(product);
+    }
+
+    /**
+     * Test one part against a query with the rules of searchParts(), so a changed part can be re-checked without
+     * running the whole search again.
+     *
+     * @param part - Part to test.
+     * @param query - Search text.
+     * @return True if searchParts() would return the part for the query.
+     */
+    static boolean matchesPart(Part part, String query) {
+        return matches(part.getPartID(), part.getName(), query);
+    }
+
+    /**
+     * Test one product against a query with the rules of searchProducts().
+     *
+     * @param product - Product to test.
+     * @param query - Search text.
+     * @return True if searchProducts() would return the product for the query.
+     */
+    static boolean matchesProduct(Product product, String query) {
+        return matches(product.getProductID(), product.getName(), query);
+    }
+
+    private static boolean matches(int id, String name, String query) {
+        if (query == null || query.length() == 0) {
+            return true;
+        }
+
+        Integer queryID = parseID(query);
+        if (queryID != null) {
+            return queryID == id;
+        }
+
+        return (name == null ? "" : name.toUpperCase()).contains(query.toUpperCase());
+    }
+
+    private static Integer parseID(String query) {
+        try {
+            return Integer.valueOf(query);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package inventory.importer;
+
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Outsourced;
+import inventory.model.Part;
+import inventory.model.Product;
+import inventory.model.Validation;
+import inventory.model.ValidationReport;
+import inventory.model.Validator;
+import inventory.model.Violation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming bulk import of parts and products from CSV.
+ *
+ * Files are read in a single pass, a batch of rows at a time. Each batch is parsed, validated in parallel with the same
+ * rules as the add/modify screens, its rejected rows are reported to an ImportErrorHandler and its valid rows are added
+ * to the inventory, so memory use is bounded by the batch size rather than the file size and each batch is journaled
+ * as one group.
+ *
+ * Parts file columns:
+ * <pre>
+ * type,name,price,inStock,min,max,machineIDOrCompanyName
+ * </pre>
+ * where type is inhouse or outsourced, and the last column holds the machine ID for inhouse parts and the company
+ * name for outsourced parts.
+ *
+ * Products file columns:
+ * <pre>
+ * name,price,inStock,min,max,partIDs
+ * </pre>
+ * where partIDs is a semicolon separated list of existing partIDs.
+ *
+ * min, max and machine ID may be left empty. A first line starting with the first column's name is treated as a
+ * header and skipped, as are blank lines.
+ */
+public class CsvImporter {
+
+    private static final int PART_COLUMNS = 7;
+    private static final int PRODUCT_COLUMNS = 6;
+
+    private static final Violation INVALID_TYPE = new Violation(Violation.Field.RECORD,
+            "Type must be inhouse or outsourced.");
+
+    private final Inventory inventory;
+    private int batchSize = 10_000;
+
+    /**
+     * @param inventory - Inventory to import into.
+     */
+    public CsvImporter(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Set how many rows are read and validated together before the valid ones are added to the inventory.
+     *
+     * @param batchSize - Rows per batch.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import a parts file.
+     *
+     * @param file - UTF-8 CSV file.
+     * @param errors - Receives rejected rows.
+     * @return ImportResult
+     * @throws IOException
+     */
+    public ImportResult importParts(Path file, ImportErrorHandler errors) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importParts(reader, errors);
+        }
+    }
+
+    /**
+     * Import parts read from a reader. The reader is not closed.
+     *
+     * @param reader - CSV input.
+     * @param errors - Receives rejected rows.
+     * @return ImportResult
+     * @throws IOException
+     */
+    public ImportResult importParts(Reader reader, ImportErrorHandler errors) throws IOException {
+        long began = System.nanoTime();
+        ImportResult result = new ImportResult();
+        CsvReader csv = new CsvReader(reader);
+        Rows<Part> batch = new Rows<>(batchSize);
+
+        while (csv.next()) {
+            if (csv.isBlank() || isHeader(csv, "type")) {
+                continue;
+            }
+            result.rowRead();
+
+            List<Violation> rowErrors = new ArrayList<>(0);
+            Part part = parsePart(csv, rowErrors);
+            batch.add(csv.line(), part, rowErrors);
+
+            if (batch.size() == batchSize) {
+                flush(batch, Validation.PARTS, inventory::addParts, result, errors);
+            }
+        }
+        flush(batch, Validation.PARTS, inventory::addParts, result, errors);
+
+        result.setElapsedNanos(System.nanoTime() - began);
+        return result;
+    }
+
+    /**
+     * Import a products file. The parts the products refer to must already be in the inventory.
+     *
+     * @param file - UTF-8 CSV file.
+     * @param errors - Receives rejected rows.
+     * @return ImportResult
+     * @throws IOException
+     */
+    public ImportResult importProducts(Path file, ImportErrorHandler errors) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importProducts(reader, errors);
+        }
+    }
+
+    /**
+     * Import products read from a reader. The reader is not closed.
+     *
+     * @param reader - CSV input.
+     * @param errors - Receives rejected rows.
+     * @return ImportResult
+     * @throws IOException
+     */
+    public ImportResult importProducts(Reader reader, ImportErrorHandler errors) throws IOException {
+        long began = System.nanoTime();
+        ImportResult result = new ImportResult();
+        CsvReader csv = new CsvReader(reader);
+        Rows<Product> batch = new Rows<>(batchSize);
+
+        while (csv.next()) {
+            if (csv.isBlank() || isHeader(csv, "name")) {
+                continue;
+            }
+            result.rowRead();
+
+            List<Violation> rowErrors = new ArrayList<>(0);
+            Product product = parseProduct(csv, rowErrors);
+            batch.add(csv.line(), product, rowErrors);
+
+            if (batch.size() == batchSize) {
+                flush(batch, Validation.PRODUCTS, inventory::addProducts, result, errors);
+            }
+        }
+        flush(batch, Validation.PRODUCTS, inventory::addProducts, result, errors);
+
+        result.setElapsedNanos(System.nanoTime() - began);
+        return result;
+    }
+
+    private static boolean isHeader(CsvReader csv, String firstColumn) {
+        return csv.line() == 1 && firstColumn.equalsIgnoreCase(csv.string(0));
+    }
+
+    /**
+     * @return The parsed part, or null with errors added if the row could not be parsed.
+     */
+    private static Part parsePart(CsvReader csv, List<Violation> errors) {
+        if (csv.fieldCount() != PART_COLUMNS) {
+            errors.add(columnCount(PART_COLUMNS, csv));
+            return null;
+        }
+
+        Part part;
+        String type = csv.string(0);
+        if ("inhouse".equalsIgnoreCase(type)) {
+            Inhouse inhouse = new Inhouse();
+            inhouse.setMachineID(Validation.parseInteger(csv.field(6), Validation.ABSENT,
+                    Validation.MACHINE_ID_INVALID, errors));
+            part = inhouse;
+        } else if ("outsourced".equalsIgnoreCase(type)) {
+            Outsourced outsourced = new Outsourced();
+            outsourced.setCompanyName(csv.string(6));
+            part = outsourced;
+        } else {
+            errors.add(INVALID_TYPE);
+            return null;
+        }
+
+        part.setName(csv.string(1));
+        part.setPrice(Validation.parseDecimal(csv.field(2), -1));
+        part.setInStock(Validation.parseInteger(csv.field(3), 0, Validation.IN_STOCK_INVALID, errors));
+        part.setMin(Validation.parseInteger(csv.field(4), Validation.ABSENT, Validation.MIN_INVALID, errors));
+        part.setMax(Validation.parseInteger(csv.field(5), Validation.ABSENT, Validation.MAX_INVALID, errors));
+        return part;
+    }
+
+    /**
+     * @return The parsed product, or null with errors added if the row could not be parsed. Errors are also added for
+     * fields that could not be parsed and unknown parts.
+     */
+    private Product parseProduct(CsvReader csv, List<Violation> errors) {
+        Product product = new Product();
+
+        if (csv.fieldCount() != PRODUCT_COLUMNS) {
+            errors.add(columnCount(PRODUCT_COLUMNS, csv));
+            return null;
+        }
+
+        product.setName(csv.string(0));
+        product.setPrice(Validation.parseDecimal(csv.field(1), -1));
+        product.setInStock(Validation.parseInteger(csv.field(2), 0, Validation.IN_STOCK_INVALID, errors));
+        product.setMin(Validation.parseInteger(csv.field(3), Validation.ABSENT, Validation.MIN_INVALID, errors));
+        product.setMax(Validation.parseInteger(csv.field(4), Validation.ABSENT, Validation.MAX_INVALID, errors));
+
+        CharSequence partIDs = csv.field(5);
+        int start = 0;
+        for (int i = 0; i <= partIDs.length(); i++) {
+            if (i < partIDs.length() && partIDs.charAt(i) != ';') {
+                continue;
+            }
+
+            CharSequence token = trim(partIDs.subSequence(start, i));
+            start = i + 1;
+            if (token.length() == 0) {
+                continue;
+            }
+
+            int partID = Validation.parseInteger(token, -1);
+            Part part = partID < 0 ? null : inventory.lookupPart(partID);
+            if (part == null) {
+                errors.add(new Violation(Violation.Field.PARTS, "Part " + token + " does not exist."));
+            } else {
+                product.addAssociatedPart(part);
+            }
+        }
+        return product;
+    }
+
+    private static CharSequence trim(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return text.subSequence(start, end);
+    }
+
+    private static Violation columnCount(int expected, CsvReader csv) {
+        return new Violation(Violation.Field.RECORD,
+                "Expected " + expected + " columns but found " + csv.fieldCount() + ".");
+    }
+
+    /**
+     * Validate a batch of rows in parallel, report the rejected ones in file order and add the rest to the inventory.
+     * A row is rejected with its parse errors followed by the rules it broke, and a row that could not be parsed at all
+     * with its parse errors only.
+     */
+    private static <T> void flush(Rows<T> batch, Validator<T> validator, Consumer<List<T>> add, ImportResult result,
+                                  ImportErrorHandler errors) {
+        if (batch.size() == 0) {
+            return;
+        }
+
+        List<T> checked = batch.records;
+        if (batch.unparsed > 0) {
+            checked = new ArrayList<>(batch.size() - batch.unparsed);
+            for (T record : batch.records) {
+                if (record != null) {
+                    checked.add(record);
+                }
+            }
+        }
+        ValidationReport report = validator.validateAll(checked);
+
+        List<T> valid = new ArrayList<>(checked.size());
+        int index = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            List<Violation> rowErrors = batch.parseErrors.get(i);
+            if (batch.records.get(i) != null) {
+                List<Violation> broken = report.getViolations(index);
+                if (rowErrors == null && broken.isEmpty()) {
+                    valid.add(checked.get(index++));
+                    continue;
+                }
+                index++;
+
+                if (rowErrors == null) {
+                    rowErrors = broken;
+                } else {
+                    rowErrors.addAll(broken);
+                }
+            }
+
+            result.rowRejected();
+            errors.rowRejected(batch.lines[i], rowErrors);
+        }
+
+        if (!valid.isEmpty()) {
+            add.accept(valid);
+            result.rowsImported(valid.size());
+        }
+        batch.clear();
+    }
+
+    /**
+     * Rows read since the last flush, in file order.
+     */
+    private static final class Rows<T> {
+        private final List<T> records;
+
+        /**
+         * Parse errors of each row, null for a row that parsed.
+         */
+        private final List<List<Violation>> parseErrors;
+        private long[] lines;
+
+        /**
+         * Rows that could not be parsed at all, their record is null.
+         */
+        private int unparsed;
+
+        Rows(int batchSize) {
+            records = new ArrayList<>(Math.min(batchSize, 1 << 16));
+            parseErrors = new ArrayList<>(Math.min(batchSize, 1 << 16));
+            lines = new long[Math.min(batchSize, 1 << 16)];
+        }
+
+        void add(long line, T record, List<Violation> errors) {
+            if (records.size() == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            }
+            lines[records.size()] = line;
+            records.add(record);
+            parseErrors.add(errors.isEmpty() ? null : errors);
+            if (record == null) {
+                unparsed++;
+            }
+        }
+
+        int size() {
+            return records.size();
+        }
+
+        void clear() {
+            records.clear();
+            parseErrors.clear();
+            unparsed = 0;
+        }
+    }
+}
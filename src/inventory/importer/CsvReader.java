@@ -0,0 +1,173 @@
+package inventory.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming RFC 4180 CSV reader.
+ *
+ * Records are read one at a time into field buffers that are reused for every record, so memory use does not grow
+ * with the size of the file. Fields may be quoted, quoted fields may contain commas, line breaks and doubled quotes.
+ * Lines may end in \n or \r\n.
+ */
+class CsvReader implements Closeable {
+
+    private final Reader in;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+
+    private StringBuilder[] fields = new StringBuilder[16];
+    private int count;
+
+    /**
+     * Line the next record starts on, and the line the current record started on.
+     */
+    private long line = 1;
+    private long recordLine;
+
+    CsvReader(Reader in) {
+        this.in = in;
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = new StringBuilder(32);
+        }
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return false at the end of the input.
+     * @throws IOException
+     */
+    boolean next() throws IOException {
+        count = 0;
+        recordLine = line;
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+
+        StringBuilder field = startField();
+        boolean inQuotes = false;
+
+        while (c != -1) {
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+            } else if (c == ',') {
+                field = startField();
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                line++;
+                break;
+            } else {
+                field.append((char) c);
+            }
+
+            c = read();
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of fields in the current record.
+     */
+    int fieldCount() {
+        return count;
+    }
+
+    /**
+     * @param index - Field index.
+     * @return The field's text. The buffer is reused by the next record.
+     */
+    CharSequence field(int index) {
+        return fields[index];
+    }
+
+    /**
+     * @param index - Field index.
+     * @return The field's text as a String.
+     */
+    String string(int index) {
+        return fields[index].toString();
+    }
+
+    /**
+     * @return true if the current record is an empty line.
+     */
+    boolean isBlank() {
+        return count == 1 && fields[0].length() == 0;
+    }
+
+    /**
+     * @return Line number the current record started on, counting from 1.
+     */
+    long line() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private StringBuilder startField() {
+        if (count == fields.length) {
+            StringBuilder[] grown = new StringBuilder[count * 2];
+            System.arraycopy(fields, 0, grown, 0, count);
+            for (int i = count; i < grown.length; i++) {
+                grown[i] = new StringBuilder(32);
+            }
+            fields = grown;
+        }
+
+        StringBuilder field = fields[count++];
+        field.setLength(0);
+        return field;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package inventory.importer;
+
+import inventory.model.Violation;
+
+import java.util.List;
+
+/**
+ * Receives the rows an import rejects.
+ */
+@FunctionalInterface
+public interface ImportErrorHandler {
+
+    /**
+     * Called once for every rejected row, in file order.
+     *
+     * @param line - Line the row starts on, counting from 1.
+     * @param errors - Why the row was rejected, the fields the row could not be parsed for or the rules it broke.
+     */
+    void rowRejected(long line, List<Violation> errors);
+}
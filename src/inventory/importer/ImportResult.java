@@ -0,0 +1,62 @@
+package inventory.importer;
+
+/**
+ * Counts of what an import did.
+ */
+public class ImportResult {
+
+    private long rows;
+    private long imported;
+    private long rejected;
+    private long elapsedNanos;
+
+    /**
+     * @return Data rows read, not counting a header or blank lines.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Rows added to the inventory.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * @return Rows rejected by validation.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return Wall clock time the import took.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    void rowRead() {
+        rows++;
+    }
+
+    void rowsImported(int count) {
+        imported += count;
+    }
+
+    void rowRejected() {
+        rejected++;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return rows + " rows, " + imported + " imported, " + rejected + " rejected in "
+                + elapsedNanos / 1_000_000 + " ms";
+    }
+}
@@ -0,0 +1,373 @@
+package inventory.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Explodes products with sub-assemblies into the leaf parts they are built from, across any number of levels.
+ *
+ * A product's explosion is computed from its direct parts and the explosions of its sub-assemblies, and kept until
+ * the product or one of its sub-assemblies at any level changes. A sub-assembly shared by many products is exploded
+ * once, and a change to it drops only the explosions that contain it, so costing and buildability queries over deep
+ * bills of materials read a flat list of parts instead of walking the levels.
+ *
+ * Safe to use from any thread. Lookups of a kept explosion take no lock.
+ *
+ * @implNote Explosions hold partIDs and quantities only, so part changes keep them, and cost and buildable quantity
+ * read the parts as they are now. BuildableQuantities and StockReservations explode the products with sub-assemblies
+ * through their own instance.
+ */
+public class BillOfMaterials implements AutoCloseable {
+
+    private final Inventory inventory;
+
+    /**
+     * Kept explosions by productID.
+     */
+    private final ConcurrentHashMap<Integer, Explosion> exploded = new ConcurrentHashMap<>();
+
+    /**
+     * productIDs of the kept explosions that use a product directly as a sub-assembly, keyed by the sub-assembly's
+     * productID. Entries may be stale, which only drops an explosion that did not need it. Guarded by lock.
+     */
+    private final IntHashMap<IntIntHashMap> usedIn = new IntHashMap<>();
+
+    /**
+     * Held while explosions are computed or dropped.
+     */
+    private final Object lock = new Object();
+
+    private final InventoryListener inventoryListener = this::inventoryChanged;
+
+    /**
+     * Start exploding the products of an inventory. Nothing is computed until it is asked for.
+     *
+     * @param inventory - Inventory holding the products and parts.
+     */
+    public BillOfMaterials(Inventory inventory) {
+        this.inventory = inventory;
+        inventory.addListener(inventoryListener);
+    }
+
+    /**
+     * Stop tracking the inventory.
+     */
+    @Override
+    public void close() {
+        inventory.removeListener(inventoryListener);
+    }
+
+    /**
+     * Get the leaf parts one unit of a product needs.
+     *
+     * @param productID - productID to explode.
+     * @return Explosion, else null if the product does not exist.
+     * @throws IllegalStateException if the product's sub-assemblies form a cycle.
+     * @throws ArithmeticException if a quantity exceeds a long.
+     */
+    public Explosion explode(int productID) {
+        Explosion explosion = exploded.get(productID);
+        if (explosion != null) {
+            return explosion;
+        }
+
+        synchronized (lock) {
+            return compute(productID, new IntIntHashMap(), new ArrayList<>());
+        }
+    }
+
+    /**
+     * Get the cost of the leaf parts one unit of a product needs, at the parts' current prices.
+     *
+     * @param productID - productID to cost.
+     * @return Cost of the parts, 0 if the product does not exist. Parts the inventory no longer holds count nothing.
+     * @throws IllegalStateException if the product's sub-assemblies form a cycle.
+     */
+    public double getCost(int productID) {
+        Explosion explosion = explode(productID);
+        if (explosion == null) {
+            return 0;
+        }
+
+        double cost = 0;
+        for (int i = 0; i < explosion.size(); i++) {
+            Part part = inventory.lookupPart(explosion.getPartID(i));
+            if (part != null) {
+                cost += explosion.getQuantity(i) * part.getPrice();
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Get how many units of a product the leaf parts in stock cover, building every sub-assembly from parts.
+     *
+     * @param productID - productID to look up.
+     * @return Units buildable. 0 if the product does not exist, has no parts at any level, or needs a part or
+     * sub-assembly the inventory does not hold.
+     * @throws IllegalStateException if the product's sub-assemblies form a cycle.
+     */
+    public int getBuildableQuantity(int productID) {
+        Explosion explosion = explode(productID);
+        if (explosion == null || !explosion.isComplete() || explosion.size() == 0) {
+            return 0;
+        }
+
+        long buildable = Integer.MAX_VALUE;
+        for (int i = 0; i < explosion.size() && buildable > 0; i++) {
+            Part part = inventory.lookupPart(explosion.getPartID(i));
+            long quantity = explosion.getQuantity(i);
+            if (quantity > 0) {
+                buildable = Math.min(buildable, part == null ? 0 : Math.max(0, part.getInStock()) / quantity);
+            }
+        }
+        return (int) buildable;
+    }
+
+    /**
+     * Find a cycle among the sub-assemblies reachable from a product.
+     *
+     * @param productID - productID to start from.
+     * @return The productIDs around the cycle, starting and ending with the same one, else an empty list.
+     */
+    public List<Integer> findCycle(int productID) {
+        return findCycle(productID, inventory::lookupProduct);
+    }
+
+    /**
+     * @return Number of explosions kept.
+     */
+    public int size() {
+        return exploded.size();
+    }
+
+    /**
+     * Find a cycle among the sub-assemblies reachable from a product.
+     *
+     * @param productID - productID to start from.
+     * @param lookup - Resolves a productID to its product, or null.
+     * @return The productIDs around the cycle, starting and ending with the same one, else an empty list.
+     */
+    static List<Integer> findCycle(int productID, IntFunction<Product> lookup) {
+        List<Integer> path = new ArrayList<>();
+        return cycleFrom(productID, lookup, new IntIntHashMap(), new IntIntHashMap(), path)
+                ? path : Collections.emptyList();
+    }
+
+    /**
+     * Find a chain of sub-assemblies leading from one product to another.
+     *
+     * @param from - productID to start from.
+     * @param to - productID to reach.
+     * @param lookup - Resolves a productID to its product, or null.
+     * @return true if to is from, or a sub-assembly of it at any level.
+     */
+    static boolean reaches(int from, int to, IntFunction<Product> lookup) {
+        IntIntHashMap visited = new IntIntHashMap();
+        int[] pending = {from};
+        int count = 1;
+
+        while (count > 0) {
+            int productID = pending[--count];
+            if (productID == to) {
+                return true;
+            }
+            if (visited.containsKey(productID)) {
+                continue;
+            }
+            visited.put(productID, 1);
+
+            Product product = lookup.apply(productID);
+            if (product == null) {
+                continue;
+            }
+            for (int subassemblyID : product.getSubassemblyIDs()) {
+                if (count == pending.length) {
+                    pending = Arrays.copyOf(pending, count * 2);
+                }
+                pending[count++] = subassemblyID;
+            }
+        }
+        return false;
+    }
+
+    private static boolean cycleFrom(int productID, IntFunction<Product> lookup, IntIntHashMap onPath,
+                                     IntIntHashMap done, List<Integer> path) {
+        if (onPath.containsKey(productID)) {
+            path.subList(0, path.indexOf(productID)).clear();
+            path.add(productID);
+            return true;
+        }
+        if (done.containsKey(productID)) {
+            return false;
+        }
+
+        Product product = lookup.apply(productID);
+        if (product == null) {
+            return false;
+        }
+
+        onPath.put(productID, 1);
+        path.add(productID);
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            if (cycleFrom(subassemblyID, lookup, onPath, done, path)) {
+                return true;
+            }
+        }
+        path.remove(path.size() - 1);
+        onPath.remove(productID);
+        done.put(productID, 1);
+        return false;
+    }
+
+    private void inventoryChanged(InventoryEvent event) {
+        if (!event.getType().isPartEvent()) {
+            synchronized (lock) {
+                invalidate(event.getID());
+            }
+        }
+    }
+
+    /**
+     * Drop the explosion of a product and of every product using it at any level. Caller holds the lock.
+     */
+    private void invalidate(int productID) {
+        int[] pending = {productID};
+        int count = 1;
+
+        while (count > 0) {
+            int changed = pending[--count];
+            exploded.remove(changed);
+
+            // Products using it register again when they are next exploded.
+            IntIntHashMap users = usedIn.remove(changed);
+            if (users == null) {
+                continue;
+            }
+            for (int i = 0; i < users.size(); i++) {
+                if (count == pending.length) {
+                    pending = Arrays.copyOf(pending, count * 2);
+                }
+                pending[count++] = users.keyAt(i);
+            }
+        }
+    }
+
+    /**
+     * Explode a product, reusing kept explosions of its sub-assemblies. Caller holds the lock.
+     *
+     * @param onPath - productIDs being exploded further up, to detect a cycle.
+     * @param path - The same productIDs in order, to report a cycle.
+     */
+    private Explosion compute(int productID, IntIntHashMap onPath, List<Integer> path) {
+        Explosion explosion = exploded.get(productID);
+        if (explosion != null) {
+            return explosion;
+        }
+
+        Product product = inventory.lookupProduct(productID);
+        if (product == null) {
+            return null;
+        }
+        if (onPath.containsKey(productID)) {
+            List<Integer> cycle = new ArrayList<>(path.subList(path.indexOf(productID), path.size()));
+            cycle.add(productID);
+            throw new IllegalStateException("Products " + cycle + " form a sub-assembly cycle");
+        }
+
+        onPath.put(productID, 1);
+        path.add(productID);
+
+        Parts parts = new Parts(product.getPartQuantities());
+        boolean complete = true;
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            IntIntHashMap users = usedIn.get(subassemblyID);
+            if (users == null) {
+                users = new IntIntHashMap(2);
+                usedIn.put(subassemblyID, users);
+            }
+            users.put(productID, 1);
+
+            Explosion subassembly = compute(subassemblyID, onPath, path);
+            if (subassembly == null) {
+                complete = false;
+            } else {
+                parts.add(subassembly, product.getSubassemblyQuantity(subassemblyID));
+                complete &= subassembly.isComplete();
+            }
+        }
+
+        path.remove(path.size() - 1);
+        onPath.remove(productID);
+
+        explosion = parts.toExplosion(productID, complete);
+        exploded.put(productID, explosion);
+        return explosion;
+    }
+
+    /**
+     * Parts accumulated while a product is exploded, sorted by partID.
+     */
+    private static final class Parts {
+        private int[] partIDs;
+        private long[] quantities;
+        private int size;
+
+        /**
+         * Start with a product's direct parts.
+         */
+        Parts(IntIntHashMap direct) {
+            // Sorting partID and quantity packed together keeps each pair intact.
+            long[] packed = new long[direct.size()];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = (long) direct.keyAt(i) << 32 | (direct.valueAt(i) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed);
+
+            size = packed.length;
+            partIDs = new int[size];
+            quantities = new long[size];
+            for (int i = 0; i < size; i++) {
+                partIDs[i] = (int) (packed[i] >> 32);
+                quantities[i] = (int) packed[i];
+            }
+        }
+
+        /**
+         * Add the parts of a sub-assembly, times the number of it used.
+         */
+        void add(Explosion subassembly, long times) {
+            int[] mergedIDs = new int[size + subassembly.size()];
+            long[] mergedQuantities = new long[mergedIDs.length];
+
+            int i = 0;
+            int j = 0;
+            int merged = 0;
+            while (i < size || j < subassembly.size()) {
+                if (j == subassembly.size() || (i < size && partIDs[i] < subassembly.getPartID(j))) {
+                    mergedIDs[merged] = partIDs[i];
+                    mergedQuantities[merged++] = quantities[i++];
+                } else if (i == size || subassembly.getPartID(j) < partIDs[i]) {
+                    mergedIDs[merged] = subassembly.getPartID(j);
+                    mergedQuantities[merged++] = Math.multiplyExact(subassembly.getQuantity(j++), times);
+                } else {
+                    mergedIDs[merged] = partIDs[i];
+                    mergedQuantities[merged++] = Math.addExact(quantities[i++],
+                            Math.multiplyExact(subassembly.getQuantity(j++), times));
+                }
+            }
+
+            partIDs = mergedIDs;
+            quantities = mergedQuantities;
+            size = merged;
+        }
+
+        Explosion toExplosion(int productID, boolean complete) {
+            return new Explosion(productID, Arrays.copyOf(partIDs, size), Arrays.copyOf(quantities, size), complete);
+        }
+    }
+}
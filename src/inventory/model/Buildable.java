@@ -0,0 +1,116 @@
+package inventory.model;
+
+/**
+ * How many units of a product can be built from the parts in stock, and which part runs out first.
+ *
+ * Immutable, computed from the part levels at one moment.
+ */
+public final class Buildable {
+
+    private final int productID;
+    private final String name;
+    private final int quantity;
+    private final int limitingPartID;
+
+    /**
+     * The product the quantity was computed for, so a recompute can tell whether it has since been replaced.
+     */
+    final Product product;
+
+    private Buildable(Product product, int quantity, int limitingPartID) {
+        this.productID = product.getProductID();
+        this.name = product.getName();
+        this.quantity = quantity;
+        this.limitingPartID = limitingPartID;
+        this.product = product;
+    }
+
+    /**
+     * Work out how many units of a product the inventory's part stock covers.
+     *
+     * @param inventory - Inventory holding the parts.
+     * @param product - The product.
+     * @param bom - Explodes the product if it has sub-assemblies, every sub-assembly is built from parts.
+     * @return Buildable
+     * @implNote A product without parts, or with a part or sub-assembly the inventory does not hold, can not be built.
+     */
+    static Buildable of(Inventory inventory, Product product, BillOfMaterials bom) {
+        if (product.hasSubassemblies()) {
+            return of(inventory, product, bom.explode(product.getProductID()));
+        }
+
+        IntIntHashMap quantities = product.getPartQuantities();
+
+        int quantity = quantities.size() == 0 ? 0 : Integer.MAX_VALUE;
+        int limitingPartID = -1;
+        for (int i = 0; i < quantities.size() && quantity > 0; i++) {
+            int partID = quantities.keyAt(i);
+            Part part = inventory.lookupPart(partID);
+
+            int covered = part == null ? 0 : Math.max(0, part.getInStock()) / quantities.valueAt(i);
+            if (covered < quantity || limitingPartID < 0) {
+                quantity = Math.min(quantity, covered);
+                limitingPartID = partID;
+            }
+        }
+        return new Buildable(product, quantity, limitingPartID);
+    }
+
+    /**
+     * Work out how many units of a product the leaf parts of its explosion cover.
+     */
+    private static Buildable of(Inventory inventory, Product product, Explosion explosion) {
+        if (explosion == null || !explosion.isComplete() || explosion.size() == 0) {
+            return new Buildable(product, 0, -1);
+        }
+
+        long quantity = Integer.MAX_VALUE;
+        int limitingPartID = -1;
+        for (int i = 0; i < explosion.size() && quantity > 0; i++) {
+            int partID = explosion.getPartID(i);
+            long needed = explosion.getQuantity(i);
+            if (needed == 0) {
+                continue;
+            }
+
+            Part part = inventory.lookupPart(partID);
+            long covered = part == null ? 0 : Math.max(0, part.getInStock()) / needed;
+            if (covered < quantity || limitingPartID < 0) {
+                quantity = Math.min(quantity, covered);
+                limitingPartID = partID;
+            }
+        }
+        return new Buildable(product, (int) quantity, limitingPartID);
+    }
+
+    public int getProductID() {
+        return productID;
+    }
+
+    /**
+     * @return Product name when the quantity was computed.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Number of units the parts in stock cover.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * @return partID of the part that covers the fewest units, -1 if the product has no parts or a sub-assembly is
+     * missing.
+     */
+    public int getLimitingPartID() {
+        return limitingPartID;
+    }
+
+    @Override
+    public String toString() {
+        return "Product " + productID + " " + name + ": " + quantity + " buildable, limited by part " + limitingPartID;
+    }
+}
@@ -0,0 +1,384 @@
+package inventory.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Keeps how many units of every product can be built from the parts in stock, ranked from most to fewest.
+ *
+ * All products are computed once when the calculator is created, split across a fork/join pool. After that a change
+ * to a part's inventory level looks only at the products using the part, and a product change only at that product,
+ * so the ranking stays current without rescanning the catalog. A product whose quantity the change cannot move, one
+ * the part is not the limiting part of and still covers, is not recomputed at all.
+ *
+ * A product with sub-assemblies is computed from its BillOfMaterials explosion, building every sub-assembly from
+ * parts. It is recomputed when a leaf part at any level changes level, or a sub-assembly at any level changes.
+ *
+ * Safe to use from any thread, with any inventory whose events are ordered per entity, as ConcurrentInventory's are.
+ *
+ * @implNote A product is recomputed from the levels as they are now, inside a compute on its entry, so two recomputes
+ * of one product never overlap and the later one stores the newer result.
+ */
+public class BuildableQuantities implements AutoCloseable {
+
+    /**
+     * Products a fork/join task computes itself rather than splitting further.
+     */
+    private static final int SCAN_THRESHOLD = 1024;
+
+    /**
+     * Most buildable first. productID breaks ties so each product has one place in the order.
+     */
+    private static final Comparator<Buildable> MOST_FIRST = (a, b) -> a.getQuantity() != b.getQuantity()
+            ? Integer.compare(b.getQuantity(), a.getQuantity())
+            : Integer.compare(a.getProductID(), b.getProductID());
+
+    private final Inventory inventory;
+
+    private final ConcurrentHashMap<Integer, Buildable> byProduct = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Buildable> ranked = new ConcurrentSkipListSet<>(MOST_FIRST);
+
+    /**
+     * Inventory level of each part when its dependent products were last recomputed, by partID. Part updates that
+     * leave the level alone, such as a new price, recompute nothing.
+     */
+    private final ConcurrentHashMap<Integer, Integer> partLevels = new ConcurrentHashMap<>();
+
+    /**
+     * Explodes the products with sub-assemblies. Listens before this does, so its explosions are dropped before a
+     * product change is recomputed.
+     */
+    private final BillOfMaterials bom;
+
+    /**
+     * productIDs of the products with sub-assemblies built from a part at any level, keyed by partID, and built from
+     * a sub-assembly at any level, keyed by the sub-assembly's productID. Entries are never dropped, a stale one only
+     * recomputes a product that did not need it.
+     */
+    private final ConcurrentHashMap<Integer, Set<Integer>> assembledByPart = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Integer>> assembledBySubassembly = new ConcurrentHashMap<>();
+
+    private final InventoryListener inventoryListener = this::inventoryChanged;
+
+    /**
+     * productIDs changed by events while the initial scan runs, the scan must not overwrite them with what it read.
+     * Null once the scan is done.
+     */
+    private volatile Set<Integer> changedDuringScan = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Start tracking an inventory, computing every product on the common fork/join pool.
+     *
+     * @param inventory - Inventory to track.
+     */
+    public BuildableQuantities(Inventory inventory) {
+        this(inventory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Start tracking an inventory.
+     *
+     * @param inventory - Inventory to track.
+     * @param pool - Pool the initial computation is split across.
+     */
+    public BuildableQuantities(Inventory inventory, ForkJoinPool pool) {
+        this.inventory = inventory;
+        this.bom = new BillOfMaterials(inventory);
+
+        // Listen first so no change is missed, then fill in everything that has not changed since.
+        inventory.addListener(inventoryListener);
+        List<Product> products = inventory.getProducts();
+        Buildable[] scanned = new Buildable[products.size()];
+        pool.invoke(new Scan(products, scanned, 0, scanned.length));
+
+        // Adding in ranked order keeps the skip list inserts at its tail.
+        Arrays.sort(scanned, MOST_FIRST);
+        for (Buildable buildable : scanned) {
+            byProduct.compute(buildable.getProductID(), (productID, old) -> {
+                if (old != null || changedDuringScan.contains(productID)) {
+                    return old;
+                }
+                ranked.add(buildable);
+                return buildable;
+            });
+        }
+        changedDuringScan = null;
+    }
+
+    /**
+     * Stop tracking the inventory.
+     */
+    @Override
+    public void close() {
+        inventory.removeListener(inventoryListener);
+        bom.close();
+    }
+
+    /**
+     * Get how many units of a product can be built.
+     *
+     * @param productID - productID to look up.
+     * @return Units buildable, 0 if the product does not exist.
+     */
+    public int getQuantity(int productID) {
+        Buildable buildable = byProduct.get(productID);
+        return buildable == null ? 0 : buildable.getQuantity();
+    }
+
+    /**
+     * @param productID - productID to look up.
+     * @return The product's Buildable, else null.
+     */
+    public Buildable get(int productID) {
+        return byProduct.get(productID);
+    }
+
+    /**
+     * Get every product ranked by units buildable, most first. The view is live and may be iterated while the
+     * inventory changes.
+     *
+     * @return Unmodifiable NavigableSet of Buildable.
+     */
+    public NavigableSet<Buildable> getRanking() {
+        return Collections.unmodifiableNavigableSet(ranked);
+    }
+
+    /**
+     * Get the products with the most units buildable.
+     *
+     * @param limit - Maximum number of products to return.
+     * @return A new list, most buildable first.
+     */
+    public List<Buildable> getMostBuildable(int limit) {
+        return first(ranked.iterator(), limit);
+    }
+
+    /**
+     * Get the products with the fewest units buildable, the ones parts should be bought for first.
+     *
+     * @param limit - Maximum number of products to return.
+     * @return A new list, least buildable first.
+     */
+    public List<Buildable> getLeastBuildable(int limit) {
+        return first(ranked.descendingIterator(), limit);
+    }
+
+    public int size() {
+        return byProduct.size();
+    }
+
+    private void inventoryChanged(InventoryEvent event) {
+        switch (event.getType()) {
+            case PART_ADDED:
+            case PART_UPDATED: {
+                Integer previous = partLevels.put(event.getID(), event.getPart().getInStock());
+                if (previous == null || previous != event.getPart().getInStock()) {
+                    recomputeUsing(event.getID());
+                }
+                break;
+            }
+            case PART_REMOVED:
+                partLevels.remove(event.getID());
+                recomputeUsing(event.getID());
+                break;
+            default: {
+                recompute(event.getID());
+
+                Set<Integer> assembled = assembledBySubassembly.get(event.getID());
+                if (assembled != null) {
+                    assembled.forEach(this::recompute);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute the products using a part whose level changed, skipping those whose quantity it cannot move.
+     */
+    private void recomputeUsing(int partID) {
+        Part part = inventory.lookupPart(partID);
+
+        List<Product> using = inventory.getProductsContainingPart(partID);
+        Set<Integer> assembled = assembledByPart.get(partID);
+        if (assembled != null) {
+            using = new ArrayList<>(using);
+            for (int productID : assembled) {
+                Product product = inventory.lookupProduct(productID);
+
+                // A product using the part directly is already listed.
+                if (product != null && product.getPartQuantity(partID) == 0) {
+                    using.add(product);
+                }
+            }
+        }
+
+        for (Product product : using) {
+            int productID = product.getProductID();
+            scanning(productID);
+
+            byProduct.compute(productID, (ignored, old) -> {
+                // The quantity is the fewest units any part covers. A part that is not the fewest and still covers
+                // at least as many leaves it where it is, any other part's change is handled by its own event.
+                if (old == null || old.product != product) {
+                    // Added, replaced or removed since, look the product up.
+                    return rank(old, current(productID));
+                }
+
+                int quantity = product.getPartQuantity(partID);
+                if (!product.hasSubassemblies() && old.getLimitingPartID() != partID && part != null && quantity > 0
+                        && Math.max(0, part.getInStock()) / quantity >= old.getQuantity()) {
+                    return old;
+                }
+                return rank(old, Buildable.of(inventory, product, bom));
+            });
+        }
+    }
+
+    /**
+     * Recompute one product from the inventory as it is now, or forget it if it is gone.
+     */
+    private void recompute(int productID) {
+        scanning(productID);
+        byProduct.compute(productID, (ignored, old) -> rank(old, current(productID)));
+    }
+
+    private Buildable current(int productID) {
+        Product product = inventory.lookupProduct(productID);
+        return product == null ? null : buildable(product);
+    }
+
+    /**
+     * Compute a product that is new or changed, noting what a product with sub-assemblies is built from.
+     */
+    private Buildable buildable(Product product) {
+        Buildable buildable = Buildable.of(inventory, product, bom);
+        if (product.hasSubassemblies()) {
+            track(product);
+        }
+        return buildable;
+    }
+
+    /**
+     * Note the leaf parts and sub-assemblies a product is built from at any level, so their changes recompute it.
+     */
+    private void track(Product product) {
+        Integer productID = product.getProductID();
+
+        Explosion explosion = bom.explode(productID);
+        if (explosion != null) {
+            for (int i = 0; i < explosion.size(); i++) {
+                assembledByPart.computeIfAbsent(explosion.getPartID(i), key -> ConcurrentHashMap.newKeySet())
+                        .add(productID);
+            }
+        }
+
+        // Walk every level, a missing sub-assembly is noted too so its return recomputes the product.
+        Set<Integer> visited = new HashSet<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            pending.push(subassemblyID);
+        }
+        while (!pending.isEmpty()) {
+            Integer subassemblyID = pending.pop();
+            if (!visited.add(subassemblyID)) {
+                continue;
+            }
+            assembledBySubassembly.computeIfAbsent(subassemblyID, key -> ConcurrentHashMap.newKeySet()).add(productID);
+
+            Product subassembly = inventory.lookupProduct(subassemblyID);
+            if (subassembly != null) {
+                for (int nestedID : subassembly.getSubassemblyIDs()) {
+                    pending.push(nestedID);
+                }
+            }
+        }
+    }
+
+    /**
+     * Swap a product's entry in the ranking. Called inside a compute on the product's entry so it is atomic per
+     * product. An unchanged result keeps its place.
+     */
+    private Buildable rank(Buildable old, Buildable buildable) {
+        if (old != null && buildable != null && old.getQuantity() == buildable.getQuantity()) {
+            return old.getLimitingPartID() == buildable.getLimitingPartID()
+                    && Objects.equals(old.getName(), buildable.getName()) ? old : replaceRanked(old, buildable);
+        }
+        return replaceRanked(old, buildable);
+    }
+
+    private Buildable replaceRanked(Buildable old, Buildable buildable) {
+        if (old != null) {
+            ranked.remove(old);
+        }
+        if (buildable != null) {
+            ranked.add(buildable);
+        }
+        return buildable;
+    }
+
+    /**
+     * Note that an event changed a product while the initial scan may still be running.
+     */
+    private void scanning(int productID) {
+        Set<Integer> changed = changedDuringScan;
+        if (changed != null) {
+            changed.add(productID);
+        }
+    }
+
+    private static List<Buildable> first(Iterator<Buildable> iterator, int limit) {
+        List<Buildable> first = new ArrayList<>(Math.min(Math.max(limit, 0), 1024));
+        while (first.size() < limit && iterator.hasNext()) {
+            first.add(iterator.next());
+        }
+        return first;
+    }
+
+    /**
+     * Computes a range of products into the matching range of an array, splitting it in half until the halves are
+     * small.
+     */
+    private final class Scan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Product> products;
+        private final Buildable[] scanned;
+        private final int from;
+        private final int to;
+
+        Scan(List<Product> products, Buildable[] scanned, int from, int to) {
+            this.products = products;
+            this.scanned = scanned;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SCAN_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    scanned[i] = buildable(products.get(i));
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new Scan(products, scanned, from, middle), new Scan(products, scanned, middle, to));
+        }
+    }
+}
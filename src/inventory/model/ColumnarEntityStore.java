@@ -0,0 +1,66 @@
+package inventory.model;
+
+/**
+ * EntityStore keeping parts off the Java heap in a ColumnarPartStore and everything else as HeapEntityStore does.
+ *
+ * Parts handed out are materialized copies, so two lookups of the same part return different but equal valued
+ * objects.
+ *
+ * @implNote Not thread safe.
+ */
+class ColumnarEntityStore extends HeapEntityStore {
+
+    private final ColumnarPartStore parts;
+
+    /**
+     * @param expectedParts - Number of parts to size the columns for.
+     */
+    ColumnarEntityStore(int expectedParts) {
+        super(false);
+        parts = new ColumnarPartStore(expectedParts);
+    }
+
+    @Override
+    public Part getPart(int partID) {
+        return parts.get(partID);
+    }
+
+    @Override
+    public boolean containsPart(int partID) {
+        return parts.contains(partID);
+    }
+
+    /**
+     * @implNote Reads the price column, no part is materialized.
+     */
+    @Override
+    public double getPartPrice(int partID) {
+        return parts.getPrice(partID);
+    }
+
+    @Override
+    public double putPart(int partID, Part part) {
+        double previousPrice = parts.getPrice(partID);
+        parts.put(partID, part);
+        return previousPrice;
+    }
+
+    @Override
+    public Part removePart(int partID) {
+        Part removed = parts.get(partID);
+        parts.remove(partID);
+        return removed;
+    }
+
+    @Override
+    public int[] searchParts(String name) {
+        return parts.searchName(name);
+    }
+
+    /**
+     * @return The columns the parts are stored in.
+     */
+    ColumnarPartStore getParts() {
+        return parts;
+    }
+}
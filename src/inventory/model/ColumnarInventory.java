@@ -0,0 +1,148 @@
+package inventory.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Inventory for very large catalogs that keeps parts off the Java heap in a ColumnarPartStore.
+ *
+ * Products and the part to product index are kept as in Inventory. Parts handed out by lookupPart() and the paging
+ * methods are materialized on request, only for the rows asked for; they are copies, so changes to one must be saved
+ * with updatePart(). Two lookups of the same part return different but equal valued objects. getPartCount() and
+ * forEachPart() read the columns directly, and getProducts() reads the products alone.
+ *
+ * Only getSnapshot() and getAllParts(), which promise a list of every part that later changes do not affect, copy
+ * every part onto the heap.
+ *
+ * @implNote Not thread safe, same as Inventory.
+ */
+public class ColumnarInventory extends Inventory {
+
+    private final ColumnarPartStore parts;
+
+    /**
+     * Last snapshot materialized, until a part changes. Weak so the inventory never keeps the copy alive itself.
+     */
+    private WeakReference<InventorySnapshot> materialized = new WeakReference<>(null);
+
+    public ColumnarInventory() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedParts - Number of parts to size the columns for.
+     */
+    public ColumnarInventory(int expectedParts) {
+        this(new ColumnarEntityStore(expectedParts));
+    }
+
+    private ColumnarInventory(ColumnarEntityStore store) {
+        super(store);
+        parts = store.getParts();
+    }
+
+    /**
+     * @implNote lookupPart() already materializes a detached copy, so it is adjusted and saved without copying again.
+     */
+    @Override
+    public Part adjustPartStock(int partID, int delta) {
+        Part part = lookupPart(partID);
+        if (part == null) {
+            return null;
+        }
+
+        part.setInStock(Math.addExact(part.getInStock(), delta));
+        updatePart(partID, part);
+        return part;
+    }
+
+    /**
+     * @implNote Materializes every part into the snapshot in O(parts). The snapshot is reused until a part or product
+     * changes, for as long as a caller still holds it. The version counts product changes only.
+     */
+    @Override
+    public InventorySnapshot getSnapshot() {
+        InventorySnapshot products = super.getSnapshot();
+        InventorySnapshot snapshot = materialized.get();
+        if (snapshot == null || snapshot.getVersion() != products.getVersion()) {
+            List<Part> all = new ArrayList<>(parts.size());
+            parts.forEach(all::add);
+            snapshot = products.withAllParts(all);
+            materialized = new WeakReference<>(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @implNote Materializes only the parts on the page, straight from the columns.
+     */
+    @Override
+    public List<Part> getParts(int offset, int limit) {
+        return parts.getRange(offset, limit);
+    }
+
+    /**
+     * @implNote Materializes one part at a time, straight from the columns.
+     */
+    @Override
+    public void forEachPart(Consumer<? super Part> action) {
+        parts.forEach(action);
+    }
+
+    @Override
+    public int getPartCount() {
+        return parts.size();
+    }
+
+    /**
+     * @implNote Reads the products of the snapshot without materializing any part.
+     */
+    @Override
+    public List<Product> getProducts() {
+        return super.getSnapshot().getProducts();
+    }
+
+    /**
+     * @implNote Reads the products of the snapshot without materializing any part.
+     */
+    @Override
+    public List<Product> getProducts(int offset, int limit) {
+        return super.getSnapshot().getProducts(offset, limit);
+    }
+
+    @Override
+    public int getProductCount() {
+        return super.getSnapshot().getProducts().size();
+    }
+
+    /**
+     * @implNote Parts are not kept in the snapshot, so nothing is published. A materialized snapshot is dropped.
+     */
+    @Override
+    protected void publishPart(int partID, Part part) {
+        materialized.clear();
+    }
+
+    /**
+     * @implNote Nothing is published, same as publishPart().
+     */
+    @Override
+    protected void publishParts(Collection<Part> batch) {
+        materialized.clear();
+    }
+
+    @Override
+    protected boolean snapshotsParts() {
+        return false;
+    }
+
+    /**
+     * @return Bytes of off-heap memory used to store parts.
+     */
+    public long getOffHeapBytes() {
+        return parts.offHeapBytes();
+    }
+}
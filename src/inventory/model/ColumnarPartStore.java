@@ -0,0 +1,619 @@
+package inventory.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Off-heap, column oriented storage for parts.
+ *
+ * Each attribute lives in its own direct ByteBuffer column indexed by row, so a part costs a few dozen bytes outside
+ * the Java heap instead of an object graph the garbage collector has to trace. Names and company names are interned
+ * into an off-heap string dictionary and stored as int codes. Rows are kept in partID order, so a lookup by ID is a
+ * binary search over the ID column. Deleted rows are tombstoned and their rows listed in order, so a position among the
+ * parts maps to a row in O(log tombstones). remove() squeezes them out once there are more than MAX_TOMBSTONES or they
+ * outnumber the parts, so reads never move rows.
+ *
+ * Part objects are only created when one is asked for, and they are detached copies: changing one does not change
+ * the store.
+ *
+ * @implNote Not thread safe.
+ */
+public class ColumnarPartStore {
+
+    private static final byte DELETED = 0;
+    private static final byte INHOUSE = 1;
+    private static final byte OUTSOURCED = 2;
+
+    private static final int NULL_STRING = -1;
+
+    /**
+     * Tombstones kept before remove() squeezes them out. Bounds the cost of listing one to a small array copy.
+     */
+    private static final int MAX_TOMBSTONES = 1024;
+
+    /**
+     * True when upper casing ASCII letters in the default locale gives ASCII letters, which allows names to be
+     * matched byte by byte.
+     */
+    private static final boolean ASCII_FOLDING =
+            "abcdefghijklmnopqrstuvwxyz".toUpperCase().equals("ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+
+    private ByteBuffer ids;
+    private ByteBuffer types;
+    private ByteBuffer prices;
+    private ByteBuffer inStock;
+    private ByteBuffer mins;
+    private ByteBuffer maxes;
+    private ByteBuffer machineIDs;
+    private ByteBuffer names;
+    private ByteBuffer companies;
+
+    /**
+     * Rows in use, including tombstones.
+     */
+    private int rows;
+
+    /**
+     * Rows holding a part.
+     */
+    private int live;
+
+    private int capacity;
+
+    /**
+     * Rows of the tombstones below rows, ascending.
+     */
+    private int[] tombstones = new int[16];
+    private int tombstoneCount;
+
+    private final Dictionary strings = new Dictionary();
+
+    public ColumnarPartStore() {
+        this(1024);
+    }
+
+    /**
+     * @param initialCapacity - Number of rows to allocate up front.
+     */
+    public ColumnarPartStore(int initialCapacity) {
+        capacity = Math.max(initialCapacity, 16);
+        ids = column(capacity, 4);
+        types = column(capacity, 1);
+        prices = column(capacity, 8);
+        inStock = column(capacity, 4);
+        mins = column(capacity, 4);
+        maxes = column(capacity, 4);
+        machineIDs = column(capacity, 4);
+        names = column(capacity, 4);
+        companies = column(capacity, 4);
+    }
+
+    /**
+     * Store a part, replacing any part with the same partID.
+     *
+     * @param partID - partID to store the part under.
+     * @param part - The part to store. Only its values are kept.
+     */
+    public void put(int partID, Part part) {
+        int row = find(partID);
+
+        if (row < 0) {
+            row = -(row + 1);
+            ensureCapacity(rows + 1);
+
+            if (row < rows) {
+                shiftUp(row);
+
+                // Tombstones at or above the row moved up with it.
+                for (int i = tombstoneIndex(row); i < tombstoneCount; i++) {
+                    tombstones[i]++;
+                }
+            }
+            rows++;
+            live++;
+        } else if (types.get(row) == DELETED) {
+            int i = tombstoneIndex(row);
+            System.arraycopy(tombstones, i + 1, tombstones, i, tombstoneCount - i - 1);
+            tombstoneCount--;
+            live++;
+        }
+
+        write(row, partID, part);
+    }
+
+    /**
+     * Remove a part.
+     *
+     * @param partID - partID to remove.
+     * @return true if the part was stored.
+     */
+    public boolean remove(int partID) {
+        int row = find(partID);
+
+        if (row < 0 || types.get(row) == DELETED) {
+            return false;
+        }
+
+        types.put(row, DELETED);
+        live--;
+
+        // A trailing row can simply be given back.
+        if (row == rows - 1) {
+            rows--;
+            return true;
+        }
+
+        if (tombstoneCount == tombstones.length) {
+            tombstones = Arrays.copyOf(tombstones, tombstoneCount * 2);
+        }
+        int i = tombstoneIndex(row);
+        System.arraycopy(tombstones, i, tombstones, i + 1, tombstoneCount - i);
+        tombstones[i] = row;
+        tombstoneCount++;
+
+        // Squeezing out costs O(rows), at most once every MAX_TOMBSTONES removals or every live removals.
+        if (tombstoneCount > MAX_TOMBSTONES || tombstoneCount > live) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * @param partID - partID to check.
+     * @return true if the part is stored.
+     */
+    public boolean contains(int partID) {
+        int row = find(partID);
+        return row >= 0 && types.get(row) != DELETED;
+    }
+
+    /**
+     * Materialize a part.
+     *
+     * @param partID - partID to look up.
+     * @return A detached copy of the part, else null.
+     */
+    public Part get(int partID) {
+        int row = find(partID);
+        return row < 0 || types.get(row) == DELETED ? null : read(row);
+    }
+
+    /**
+     * Read a part's price without materializing the part.
+     *
+     * @param partID - partID to look up.
+     * @return The price, else NaN.
+     */
+    public double getPrice(int partID) {
+        int row = find(partID);
+        return row < 0 || types.get(row) == DELETED ? Double.NaN : prices.getDouble(row * 8);
+    }
+
+    /**
+     * Materialize the parts at a range of positions in partID order. Nothing in the store is changed.
+     *
+     * @param offset - Position of the first part.
+     * @param limit - Largest number of parts to return.
+     * @return Detached copies of up to limit parts starting at offset, empty past the end.
+     */
+    public List<Part> getRange(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", limit: " + limit);
+        }
+
+        int count = (int) Math.min(limit, Math.max(0L, (long) live - offset));
+        List<Part> range = new ArrayList<>(count);
+        for (int row = count == 0 ? rows : rowAt(offset); range.size() < count; row++) {
+            if (types.get(row) != DELETED) {
+                range.add(read(row));
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Materialize every part, in partID order. Nothing in the store is changed.
+     *
+     * @param action - Called with a detached copy of each part.
+     */
+    public void forEach(Consumer<? super Part> action) {
+        for (int row = 0; row < rows; row++) {
+            if (types.get(row) != DELETED) {
+                action.accept(read(row));
+            }
+        }
+    }
+
+    /**
+     * @return Number of stored parts.
+     */
+    public int size() {
+        return live;
+    }
+
+    /**
+     * Find the parts whose name contains the query, ignoring case.
+     * Each distinct name is tested once and ASCII names are compared byte by byte without decoding them.
+     *
+     * @param query - Text to search for.
+     * @return Matching partIDs in ascending order.
+     */
+    public int[] searchName(String query) {
+        String upperQuery = query == null ? "" : query.toUpperCase();
+        BitSet matching = strings.matching(upperQuery);
+
+        // A part without a name has an empty name as far as search is concerned.
+        boolean matchesNull = upperQuery.isEmpty();
+
+        int[] result = new int[16];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            int name = names.getInt(row * 4);
+
+            if (types.get(row) != DELETED && (name == NULL_STRING ? matchesNull : matching.get(name))) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = ids.getInt(row * 4);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * @return Bytes of off-heap memory held by the columns and the string dictionary.
+     */
+    public long offHeapBytes() {
+        return (long) capacity * (4 + 1 + 8 + 4 + 4 + 4 + 4 + 4 + 4) + strings.arena.capacity();
+    }
+
+    /**
+     * Binary search the ID column.
+     *
+     * @return The row holding the ID, else -(insertion point + 1).
+     */
+    private int find(int partID) {
+        int low = 0;
+        int high = rows - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = ids.getInt(middle * 4);
+
+            if (id < partID) {
+                low = middle + 1;
+            } else if (id > partID) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void write(int row, int partID, Part part) {
+        boolean inhouse = part instanceof Inhouse;
+
+        ids.putInt(row * 4, partID);
+        types.put(row, inhouse ? INHOUSE : OUTSOURCED);
+        prices.putDouble(row * 8, part.getPrice());
+        inStock.putInt(row * 4, part.getInStock());
+        mins.putInt(row * 4, part.getMin());
+        maxes.putInt(row * 4, part.getMax());
+        machineIDs.putInt(row * 4, inhouse ? ((Inhouse) part).getMachineID() : -1);
+        names.putInt(row * 4, strings.intern(part.getName()));
+        companies.putInt(row * 4, inhouse ? NULL_STRING : strings.intern(((Outsourced) part).getCompanyName()));
+    }
+
+    private Part read(int row) {
+        Part part;
+
+        if (types.get(row) == INHOUSE) {
+            Inhouse inhouse = new Inhouse();
+            inhouse.setMachineID(machineIDs.getInt(row * 4));
+            part = inhouse;
+        } else {
+            Outsourced outsourced = new Outsourced();
+            outsourced.setCompanyName(strings.decode(companies.getInt(row * 4)));
+            part = outsourced;
+        }
+
+        part.setPartID(ids.getInt(row * 4));
+        part.setName(strings.decode(names.getInt(row * 4)));
+        part.setPrice(prices.getDouble(row * 8));
+        part.setInStock(inStock.getInt(row * 4));
+        part.setMin(mins.getInt(row * 4));
+        part.setMax(maxes.getInt(row * 4));
+        return part;
+    }
+
+    /**
+     * Find the row holding the part at a position.
+     *
+     * @param index - Position among the stored parts.
+     * @return The row, counting the tombstones before it.
+     */
+    private int rowAt(int index) {
+        // The tombstone at tombstones[i] has tombstones[i] - i parts before it, which never decreases with i. The
+        // row is the index plus the number of tombstones with at most index parts before them.
+        int low = 0;
+        int high = tombstoneCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tombstones[middle] - middle <= index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return index + low;
+    }
+
+    /**
+     * @return Position in the tombstone list of the first tombstone at or above a row.
+     */
+    private int tombstoneIndex(int row) {
+        int i = Arrays.binarySearch(tombstones, 0, tombstoneCount, row);
+        return i < 0 ? -(i + 1) : i;
+    }
+
+    /**
+     * Squeeze out tombstoned rows, keeping partID order.
+     */
+    private void compact() {
+        tombstoneCount = 0;
+        if (live == rows) {
+            return;
+        }
+
+        int target = 0;
+        for (int row = 0; row < rows; row++) {
+            if (types.get(row) == DELETED) {
+                continue;
+            }
+
+            if (target != row) {
+                ids.putInt(target * 4, ids.getInt(row * 4));
+                types.put(target, types.get(row));
+                prices.putDouble(target * 8, prices.getDouble(row * 8));
+                inStock.putInt(target * 4, inStock.getInt(row * 4));
+                mins.putInt(target * 4, mins.getInt(row * 4));
+                maxes.putInt(target * 4, maxes.getInt(row * 4));
+                machineIDs.putInt(target * 4, machineIDs.getInt(row * 4));
+                names.putInt(target * 4, names.getInt(row * 4));
+                companies.putInt(target * 4, companies.getInt(row * 4));
+            }
+            target++;
+        }
+        rows = target;
+    }
+
+    /**
+     * Move rows from the given row up by one to make room for an out of order insert.
+     */
+    private void shiftUp(int row) {
+        shift(ids, row, 4);
+        shift(types, row, 1);
+        shift(prices, row, 8);
+        shift(inStock, row, 4);
+        shift(mins, row, 4);
+        shift(maxes, row, 4);
+        shift(machineIDs, row, 4);
+        shift(names, row, 4);
+        shift(companies, row, 4);
+    }
+
+    private void shift(ByteBuffer column, int row, int width) {
+        ByteBuffer source = column.duplicate();
+        source.limit(rows * width).position(row * width);
+
+        // Copy the tail out first, put() does not handle overlapping regions.
+        ByteBuffer tail = ByteBuffer.allocate(source.remaining());
+        tail.put(source).flip();
+
+        ByteBuffer target = column.duplicate();
+        target.position((row + 1) * width);
+        target.put(tail);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= capacity) {
+            return;
+        }
+
+        int grown = Math.max(needed, capacity * 2);
+        ids = grow(ids, grown, 4);
+        types = grow(types, grown, 1);
+        prices = grow(prices, grown, 8);
+        inStock = grow(inStock, grown, 4);
+        mins = grow(mins, grown, 4);
+        maxes = grow(maxes, grown, 4);
+        machineIDs = grow(machineIDs, grown, 4);
+        names = grow(names, grown, 4);
+        companies = grow(companies, grown, 4);
+        capacity = grown;
+    }
+
+    private ByteBuffer grow(ByteBuffer column, int rowCapacity, int width) {
+        ByteBuffer grown = column(rowCapacity, width);
+        ByteBuffer used = column.duplicate();
+        used.limit(rows * width).position(0);
+        grown.put(used).clear();
+        return grown;
+    }
+
+    private static ByteBuffer column(int rowCapacity, int width) {
+        return ByteBuffer.allocateDirect(rowCapacity * width).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Off-heap string dictionary. Each distinct string is stored once as [int length][byte ascii][UTF-8 bytes] in a
+     * direct arena and identified by a sequential code. The hash table from content to code is a plain int array.
+     *
+     * @implNote Strings are never removed; the dictionary only holds distinct values so it grows with variety rather
+     * than with the number of parts.
+     */
+    private static class Dictionary {
+        private ByteBuffer arena = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.nativeOrder());
+        private int[] offsets = new int[1024];
+        private int[] table = new int[2048];
+        private int count;
+
+        int intern(String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int mask = table.length - 1;
+            int slot = hash(bytes) & mask;
+
+            while (table[slot] != 0) {
+                int code = table[slot] - 1;
+                if (equalsAt(offsets[code], bytes)) {
+                    return code;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int code = append(bytes);
+            table[slot] = code + 1;
+
+            if (count * 2 > table.length) {
+                rehash();
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            if (code == NULL_STRING) {
+                return null;
+            }
+
+            int offset = offsets[code];
+            byte[] bytes = new byte[arena.getInt(offset)];
+            ByteBuffer view = arena.duplicate();
+            view.position(offset + 5);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Test every distinct string against an upper cased query.
+         *
+         * @return Codes of the strings that contain the query, ignoring case.
+         */
+        BitSet matching(String upperQuery) {
+            BitSet matches = new BitSet(count);
+            byte[] query = upperQuery.getBytes(StandardCharsets.UTF_8);
+            boolean asciiQuery = ASCII_FOLDING && query.length == upperQuery.length();
+
+            for (int code = 0; code < count; code++) {
+                int offset = offsets[code];
+                boolean ascii = arena.get(offset + 4) == 1;
+
+                boolean match = asciiQuery && ascii
+                        ? containsFolded(offset + 5, arena.getInt(offset), query)
+                        : decode(code).toUpperCase().contains(upperQuery);
+
+                if (match) {
+                    matches.set(code);
+                }
+            }
+            return matches;
+        }
+
+        private boolean containsFolded(int start, int length, byte[] query) {
+            for (int i = 0; i + query.length <= length; i++) {
+                int j = 0;
+                while (j < query.length && fold(arena.get(start + i + j)) == query[j]) {
+                    j++;
+                }
+                if (j == query.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static byte fold(byte b) {
+            return b >= 'a' && b <= 'z' ? (byte) (b - 32) : b;
+        }
+
+        private int append(byte[] bytes) {
+            int needed = 5 + bytes.length;
+            if (arena.remaining() < needed) {
+                ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(arena.capacity() * 2, arena.position() + needed))
+                        .order(ByteOrder.nativeOrder());
+                arena.flip();
+                grown.put(arena);
+                arena = grown;
+            }
+
+            boolean ascii = true;
+            for (byte b : bytes) {
+                if (b < 0) {
+                    ascii = false;
+                    break;
+                }
+            }
+
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count] = arena.position();
+
+            arena.putInt(bytes.length);
+            arena.put((byte) (ascii ? 1 : 0));
+            arena.put(bytes);
+            return count++;
+        }
+
+        private boolean equalsAt(int offset, byte[] bytes) {
+            if (arena.getInt(offset) != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (arena.get(offset + 5 + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+
+            for (int code = 0; code < count; code++) {
+                int offset = offsets[code];
+                int length = arena.getInt(offset);
+                int h = 1;
+                for (int i = 0; i < length; i++) {
+                    h = 31 * h + arena.get(offset + 5 + i);
+                }
+
+                int slot = spread(h) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = code + 1;
+            }
+        }
+
+        private static int hash(byte[] bytes) {
+            return spread(Arrays.hashCode(bytes));
+        }
+
+        private static int spread(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
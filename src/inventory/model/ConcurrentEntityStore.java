@@ -0,0 +1,195 @@
+package inventory.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * EntityStore that may be read and written from any number of threads, as long as writers of the same entity are
+ * serialized.
+ *
+ * Entities and the part and sub-assembly to product indexes live in concurrent hash maps, so lookups never lock. Each NameIndex is
+ * guarded by a read write lock: searches share it, and a writer only takes it exclusively when an entity is added,
+ * removed or renamed, so stock and price changes never wait for a search.
+ */
+class ConcurrentEntityStore implements EntityStore {
+
+    private final ConcurrentHashMap<Integer, Part> parts = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Integer, Product> products = new ConcurrentHashMap<>();
+
+    /**
+     * Reverse index from partID to the products associated with it, keyed by productID.
+     */
+    private final ConcurrentHashMap<Integer, Map<Integer, Product>> productsByPart = new ConcurrentHashMap<>();
+
+    /**
+     * Reverse index from a sub-assembly's productID to the products using it, keyed by productID.
+     */
+    private final ConcurrentHashMap<Integer, Map<Integer, Product>> productsBySubassembly = new ConcurrentHashMap<>();
+
+    private final NameIndex partNames = new NameIndex();
+    private final ReadWriteLock partNamesLock = new ReentrantReadWriteLock();
+
+    private final NameIndex productNames = new NameIndex();
+    private final ReadWriteLock productNamesLock = new ReentrantReadWriteLock();
+
+    @Override
+    public Part getPart(int partID) {
+        return parts.get(partID);
+    }
+
+    @Override
+    public boolean containsPart(int partID) {
+        return parts.containsKey(partID);
+    }
+
+    @Override
+    public double getPartPrice(int partID) {
+        Part part = parts.get(partID);
+        return part == null ? Double.NaN : part.getPrice();
+    }
+
+    @Override
+    public double putPart(int partID, Part part) {
+        Part previous = parts.put(partID, part);
+        if (previous == null || !Objects.equals(previous.getName(), part.getName())) {
+            index(partNames, partNamesLock, partID, part.getName());
+        }
+        return previous == null ? Double.NaN : previous.getPrice();
+    }
+
+    @Override
+    public Part removePart(int partID) {
+        Part removed = parts.remove(partID);
+        if (removed != null) {
+            unindex(partNames, partNamesLock, partID);
+        }
+        return removed;
+    }
+
+    @Override
+    public int[] searchParts(String name) {
+        return search(partNames, partNamesLock, name);
+    }
+
+    @Override
+    public Product getProduct(int productID) {
+        return products.get(productID);
+    }
+
+    @Override
+    public Product putProduct(int productID, Product product) {
+        Product previous = products.put(productID, product);
+        if (previous == null || !Objects.equals(previous.getName(), product.getName())) {
+            index(productNames, productNamesLock, productID, product.getName());
+        }
+        return previous;
+    }
+
+    @Override
+    public Product removeProduct(int productID) {
+        Product removed = products.remove(productID);
+        if (removed != null) {
+            unindex(productNames, productNamesLock, productID);
+        }
+        return removed;
+    }
+
+    @Override
+    public int[] searchProducts(String name) {
+        return search(productNames, productNamesLock, name);
+    }
+
+    @Override
+    public void link(Product product, int partID) {
+        link(productsByPart, partID, product);
+    }
+
+    @Override
+    public void unlink(Product product, int partID) {
+        unlink(productsByPart, partID, product);
+    }
+
+    @Override
+    public List<Product> getProductsContaining(int partID) {
+        return using(productsByPart, partID);
+    }
+
+    @Override
+    public boolean isPartAssociated(int partID) {
+        return productsByPart.containsKey(partID);
+    }
+
+    @Override
+    public void linkSubassembly(Product product, int subassemblyID) {
+        link(productsBySubassembly, subassemblyID, product);
+    }
+
+    @Override
+    public void unlinkSubassembly(Product product, int subassemblyID) {
+        unlink(productsBySubassembly, subassemblyID, product);
+    }
+
+    @Override
+    public List<Product> getProductsUsing(int subassemblyID) {
+        return using(productsBySubassembly, subassemblyID);
+    }
+
+    private static void link(ConcurrentHashMap<Integer, Map<Integer, Product>> index, int key, Product product) {
+        index.compute(key, (ignored, using) -> {
+            if (using == null) {
+                using = new ConcurrentHashMap<>(4);
+            }
+            using.put(product.getProductID(), product);
+            return using;
+        });
+    }
+
+    private static void unlink(ConcurrentHashMap<Integer, Map<Integer, Product>> index, int key, Product product) {
+        index.computeIfPresent(key, (ignored, using) -> {
+            using.remove(product.getProductID(), product);
+            return using.isEmpty() ? null : using;
+        });
+    }
+
+    private static List<Product> using(ConcurrentHashMap<Integer, Map<Integer, Product>> index, int key) {
+        Map<Integer, Product> using = index.get(key);
+        return using == null ? Collections.emptyList() : new ArrayList<>(using.values());
+    }
+
+    /**
+     * Index an ID under a new name.
+     */
+    private static void index(NameIndex names, ReadWriteLock lock, int id, String name) {
+        lock.writeLock().lock();
+        try {
+            names.update(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void unindex(NameIndex names, ReadWriteLock lock, int id) {
+        lock.writeLock().lock();
+        try {
+            names.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int[] search(NameIndex names, ReadWriteLock lock, String query) {
+        lock.readLock().lock();
+        try {
+            return names.search(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
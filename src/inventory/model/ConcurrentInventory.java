@@ -0,0 +1,116 @@
+package inventory.model;
+
+import java.util.BitSet;
+import java.util.function.Supplier;
+
+/**
+ * Inventory that may be read and written from any number of threads.
+ *
+ * Parts and products are kept in a ConcurrentEntityStore, so lookups and name searches never lock and searches use
+ * the same trigram index as Inventory. Writes are serialized per entity through a small set of striped locks, so the
+ * journal sees changes to one entity in the order they are applied, while writes to different entities proceed in
+ * parallel.
+ *
+ * Every change is also published as a new InventorySnapshot under the entity's lock, so snapshots see the changes to
+ * one entity in the order they were applied. Lookups by ID, getAllParts(), getProducts() and the paging methods read
+ * the current snapshot and never lock or see a change half applied.
+ *
+ * A Transaction commits with the stripes of every entity it touches locked, so single writes to those entities wait
+ * for it and writes to other entities carry on. Its changes are published in one snapshot, so readers see all of them
+ * or none.
+ */
+public class ConcurrentInventory extends Inventory {
+
+    /**
+     * Number of lock stripes per kind of entity, a power of two.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Locks serializing writes to the same part and to the same product.
+     */
+    private final Object[] partLocks = new Object[STRIPES];
+    private final Object[] productLocks = new Object[STRIPES];
+
+    public ConcurrentInventory() {
+        super(new ConcurrentEntityStore());
+
+        for (int i = 0; i < STRIPES; i++) {
+            partLocks[i] = new Object();
+            productLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * @implNote Reads the current snapshot in O(log n), so a transaction being staged is not seen.
+     */
+    @Override
+    public Part lookupPart(int partID) {
+        return getSnapshot().lookupPart(partID);
+    }
+
+    /**
+     * @implNote Reads the current snapshot, same as lookupPart(int).
+     */
+    @Override
+    public Product lookupProduct(int productID) {
+        return getSnapshot().lookupProduct(productID);
+    }
+
+    /**
+     * @implNote Takes the stripe locks of every touched part and then every touched product, each in stripe order.
+     * Nothing else is locked while they are held: the products using a part a transaction reprices are recosted
+     * after the stripes are released. A batch touches at most every stripe, however large it is.
+     */
+    @Override
+    protected <T> T locked(int[] partIDs, int[] productIDs, Supplier<T> commit) {
+        BitSet partStripes = new BitSet(STRIPES);
+        for (int partID : partIDs) {
+            partStripes.set(partID & (STRIPES - 1));
+        }
+        BitSet productStripes = new BitSet(STRIPES);
+        for (int productID : productIDs) {
+            productStripes.set(productID & (STRIPES - 1));
+        }
+
+        Object[] locks = new Object[partStripes.cardinality() + productStripes.cardinality()];
+        int count = 0;
+        for (int stripe = partStripes.nextSetBit(0); stripe >= 0; stripe = partStripes.nextSetBit(stripe + 1)) {
+            locks[count++] = partLocks[stripe];
+        }
+        for (int stripe = productStripes.nextSetBit(0); stripe >= 0; stripe = productStripes.nextSetBit(stripe + 1)) {
+            locks[count++] = productLocks[stripe];
+        }
+        return lockAll(locks, 0, commit);
+    }
+
+    /**
+     * @implNote Takes every part stripe and then every product stripe, the order locked() takes them in.
+     */
+    @Override
+    protected <T> T lockedAll(Supplier<T> action) {
+        Object[] locks = new Object[STRIPES * 2];
+        System.arraycopy(partLocks, 0, locks, 0, STRIPES);
+        System.arraycopy(productLocks, 0, locks, STRIPES, STRIPES);
+        return lockAll(locks, 0, action);
+    }
+
+    private static <T> T lockAll(Object[] locks, int from, Supplier<T> commit) {
+        if (from == locks.length) {
+            return commit.get();
+        }
+        synchronized (locks[from]) {
+            return lockAll(locks, from + 1, commit);
+        }
+    }
+
+    @Override
+    protected Object partLock(int partID) {
+        return partLocks[partID & (STRIPES - 1)];
+    }
+
+    @Override
+    protected Object productLock(int productID) {
+        return productLocks[productID & (STRIPES - 1)];
+    }
+}
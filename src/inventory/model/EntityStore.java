@@ -0,0 +1,135 @@
+package inventory.model;
+
+import java.util.List;
+
+/**
+ * Where an Inventory keeps its parts and products, their name indexes, the part to product index and the sub-assembly
+ * to product index.
+ *
+ * Inventory implements every change once on top of a store: it journals the change, applies it to the store,
+ * publishes it to the snapshot and tells listeners. A store only keeps the entities and their indexes current. Its
+ * thread safety decides the inventory's: writers of one entity are serialized by the inventory's locks, so a store
+ * only has to be safe for concurrent writers of different entities if the inventory allows them.
+ */
+interface EntityStore {
+
+    /**
+     * @param partID - partID to look up.
+     * @return Part matching the ID, else null.
+     */
+    Part getPart(int partID);
+
+    /**
+     * @param partID - partID to check.
+     * @return true if a part is stored under the ID.
+     */
+    boolean containsPart(int partID);
+
+    /**
+     * @param partID - partID to look up.
+     * @return The price of the part stored under the ID, else NaN.
+     */
+    double getPartPrice(int partID);
+
+    /**
+     * Store a part, replacing any part with the ID, and index its name.
+     *
+     * @param partID - partID to store it under.
+     * @param part - The part.
+     * @return Price of the part it replaced, NaN if there was none.
+     */
+    double putPart(int partID, Part part);
+
+    /**
+     * Remove a part and its name.
+     *
+     * @param partID - partID to remove.
+     * @return The removed part, else null.
+     */
+    Part removePart(int partID);
+
+    /**
+     * @param name - Text to search for.
+     * @return IDs of the parts whose name contains the text ignoring case, ascending.
+     */
+    int[] searchParts(String name);
+
+    /**
+     * @param productID - productID to look up.
+     * @return Product matching the ID, else null.
+     */
+    Product getProduct(int productID);
+
+    /**
+     * Store a product, replacing any product with the ID, and index its name. Its parts are linked separately.
+     *
+     * @param productID - productID to store it under.
+     * @param product - The product.
+     * @return The product it replaced, else null.
+     */
+    Product putProduct(int productID, Product product);
+
+    /**
+     * Remove a product and its name. Its parts are unlinked separately.
+     *
+     * @param productID - productID to remove.
+     * @return The removed product, else null.
+     */
+    Product removeProduct(int productID);
+
+    /**
+     * @param name - Text to search for.
+     * @return IDs of the products whose name contains the text ignoring case, ascending.
+     */
+    int[] searchProducts(String name);
+
+    /**
+     * Record that a product uses a part, replacing any product with the same productID.
+     *
+     * @param product - The product.
+     * @param partID - partID it uses.
+     */
+    void link(Product product, int partID);
+
+    /**
+     * Forget that a product uses a part, unless a different product with its productID has replaced it.
+     *
+     * @param product - The product.
+     * @param partID - partID it used.
+     */
+    void unlink(Product product, int partID);
+
+    /**
+     * @param partID - partID to look up.
+     * @return A new list of the products using the part, empty if none.
+     */
+    List<Product> getProductsContaining(int partID);
+
+    /**
+     * @param partID - partID to check.
+     * @return true if at least one product uses the part.
+     */
+    boolean isPartAssociated(int partID);
+
+    /**
+     * Record that a product uses another product as a sub-assembly, same as link().
+     *
+     * @param product - The product.
+     * @param subassemblyID - productID of the sub-assembly it uses.
+     */
+    void linkSubassembly(Product product, int subassemblyID);
+
+    /**
+     * Forget that a product uses a sub-assembly, same as unlink().
+     *
+     * @param product - The product.
+     * @param subassemblyID - productID of the sub-assembly it used.
+     */
+    void unlinkSubassembly(Product product, int subassemblyID);
+
+    /**
+     * @param subassemblyID - productID of the sub-assembly to look up.
+     * @return A new list of the products using it as a direct sub-assembly, empty if none.
+     */
+    List<Product> getProductsUsing(int subassemblyID);
+}
@@ -0,0 +1,78 @@
+package inventory.model;
+
+import java.util.Arrays;
+
+/**
+ * The leaf parts one unit of a product needs, with every sub-assembly flattened into the parts it is built from.
+ *
+ * Immutable. Parts are held in ascending partID order with the total quantity of each across all levels.
+ */
+public final class Explosion {
+
+    private final int productID;
+    private final int[] partIDs;
+    private final long[] quantities;
+    private final boolean complete;
+
+    Explosion(int productID, int[] partIDs, long[] quantities, boolean complete) {
+        this.productID = productID;
+        this.partIDs = partIDs;
+        this.quantities = quantities;
+        this.complete = complete;
+    }
+
+    public int getProductID() {
+        return productID;
+    }
+
+    /**
+     * @return Number of distinct leaf parts.
+     */
+    public int size() {
+        return partIDs.length;
+    }
+
+    /**
+     * @param index - Position from 0 to size() - 1.
+     * @return partID at the position.
+     */
+    public int getPartID(int index) {
+        return partIDs[index];
+    }
+
+    /**
+     * @param index - Position from 0 to size() - 1.
+     * @return Units of the part at the position one unit of the product needs.
+     */
+    public long getQuantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * @param partID - partID to look up.
+     * @return Units of the part one unit of the product needs, 0 if it needs none.
+     */
+    public long getQuantityOf(int partID) {
+        int index = Arrays.binarySearch(partIDs, partID);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    /**
+     * @return partIDs of the leaf parts, ascending.
+     */
+    public int[] getPartIDs() {
+        return partIDs.clone();
+    }
+
+    /**
+     * @return false if a sub-assembly at some level is not in the inventory, its parts are then missing.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "Product " + productID + ": " + partIDs.length + " leaf parts" + (complete ? "" : ", incomplete");
+    }
+}
@@ -0,0 +1,179 @@
+package inventory.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * EntityStore keeping everything in IntHashMaps and NameIndexes on the heap.
+ *
+ * @implNote Not thread safe.
+ */
+class HeapEntityStore implements EntityStore {
+
+    /**
+     * Parts keyed by partID, null when a subclass keeps the parts itself.
+     */
+    private final IntHashMap<Part> parts;
+
+    /**
+     * Name search index over parts, null when a subclass keeps the parts itself.
+     */
+    private final NameIndex partNames;
+
+    /**
+     * Products keyed by productID.
+     */
+    private final IntHashMap<Product> products = new IntHashMap<>();
+
+    /**
+     * Name search index over products.
+     */
+    private final NameIndex productNames = new NameIndex();
+
+    /**
+     * Reverse index from partID to the products associated with that part, keyed by productID.
+     */
+    private final IntHashMap<IntHashMap<Product>> productsByPart = new IntHashMap<>();
+
+    /**
+     * Reverse index from a sub-assembly's productID to the products using it, keyed by productID.
+     */
+    private final IntHashMap<IntHashMap<Product>> productsBySubassembly = new IntHashMap<>();
+
+    HeapEntityStore() {
+        this(true);
+    }
+
+    /**
+     * @param heapParts - false if a subclass overrides every part method and keeps the parts itself.
+     */
+    HeapEntityStore(boolean heapParts) {
+        parts = heapParts ? new IntHashMap<>() : null;
+        partNames = heapParts ? new NameIndex() : null;
+    }
+
+    @Override
+    public Part getPart(int partID) {
+        return parts.get(partID);
+    }
+
+    @Override
+    public boolean containsPart(int partID) {
+        return parts.containsKey(partID);
+    }
+
+    @Override
+    public double getPartPrice(int partID) {
+        Part part = parts.get(partID);
+        return part == null ? Double.NaN : part.getPrice();
+    }
+
+    @Override
+    public double putPart(int partID, Part part) {
+        Part previous = parts.put(partID, part);
+        partNames.update(partID, part.getName());
+        return previous == null ? Double.NaN : previous.getPrice();
+    }
+
+    @Override
+    public Part removePart(int partID) {
+        Part removed = parts.remove(partID);
+        partNames.remove(partID);
+        return removed;
+    }
+
+    @Override
+    public int[] searchParts(String name) {
+        return partNames.search(name);
+    }
+
+    @Override
+    public Product getProduct(int productID) {
+        return products.get(productID);
+    }
+
+    @Override
+    public Product putProduct(int productID, Product product) {
+        Product previous = products.put(productID, product);
+        productNames.update(productID, product.getName());
+        return previous;
+    }
+
+    @Override
+    public Product removeProduct(int productID) {
+        Product removed = products.remove(productID);
+        productNames.remove(productID);
+        return removed;
+    }
+
+    @Override
+    public int[] searchProducts(String name) {
+        return productNames.search(name);
+    }
+
+    @Override
+    public void link(Product product, int partID) {
+        link(productsByPart, partID, product);
+    }
+
+    @Override
+    public void unlink(Product product, int partID) {
+        unlink(productsByPart, partID, product);
+    }
+
+    @Override
+    public List<Product> getProductsContaining(int partID) {
+        return using(productsByPart, partID);
+    }
+
+    @Override
+    public boolean isPartAssociated(int partID) {
+        return productsByPart.containsKey(partID);
+    }
+
+    @Override
+    public void linkSubassembly(Product product, int subassemblyID) {
+        link(productsBySubassembly, subassemblyID, product);
+    }
+
+    @Override
+    public void unlinkSubassembly(Product product, int subassemblyID) {
+        unlink(productsBySubassembly, subassemblyID, product);
+    }
+
+    @Override
+    public List<Product> getProductsUsing(int subassemblyID) {
+        return using(productsBySubassembly, subassemblyID);
+    }
+
+    private static void link(IntHashMap<IntHashMap<Product>> index, int key, Product product) {
+        IntHashMap<Product> using = index.get(key);
+
+        if (using == null) {
+            using = new IntHashMap<>(2);
+            index.put(key, using);
+        }
+
+        using.put(product.getProductID(), product);
+    }
+
+    private static void unlink(IntHashMap<IntHashMap<Product>> index, int key, Product product) {
+        IntHashMap<Product> using = index.get(key);
+
+        // Only unlink if the index still points at this instance and not at a replacement.
+        if (using == null || using.get(product.getProductID()) != product) {
+            return;
+        }
+
+        using.remove(product.getProductID());
+        if (using.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static List<Product> using(IntHashMap<IntHashMap<Product>> index, int key) {
+        IntHashMap<Product> using = index.get(key);
+        return using == null ? Collections.emptyList() : new ArrayList<>(using.values());
+    }
+}
@@ -0,0 +1,58 @@
+package inventory.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out increasing IDs for one entity type.
+ *
+ * Allocation is a single atomic increment so concurrent callers never receive the same ID and never block.
+ * IDs are never handed out twice, even after the entity that held one has been deleted.
+ */
+public class IdSequence {
+
+    /**
+     * The last ID that was handed out, 0 when none have been.
+     */
+    private final AtomicInteger last = new AtomicInteger();
+
+    /**
+     * Allocate the next ID.
+     *
+     * @return The allocated ID.
+     */
+    public int next() {
+        return last.incrementAndGet();
+    }
+
+    /**
+     * Allocate a contiguous block of IDs for a batch insert.
+     *
+     * @param count - Number of IDs to allocate.
+     * @return The first ID of the block, the block covers first through first + count - 1.
+     */
+    public int nextBlock(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1, got " + count);
+        }
+        return last.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Get the last ID that was handed out so it can be persisted.
+     *
+     * @return The last allocated ID, 0 when none have been.
+     */
+    public int getLast() {
+        return last.get();
+    }
+
+    /**
+     * Make sure the sequence continues after the given ID.
+     * Used when loading persisted state. The sequence never moves backwards.
+     *
+     * @param id - An ID that is already in use or was used before.
+     */
+    public void restore(int id) {
+        last.accumulateAndGet(id, Math::max);
+    }
+}
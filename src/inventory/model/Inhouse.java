@@ -10,4 +10,11 @@ public class Inhouse extends Part {
     public void setMachineID(int machineID) {
         this.machineID = machineID;
     }
+
+    @Override
+    public Inhouse copy() {
+        Inhouse part = copyInto(new Inhouse());
+        part.setMachineID(machineID);
+        return part;
+    }
 }
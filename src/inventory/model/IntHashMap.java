@@ -0,0 +1,348 @@
+package inventory.model;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map keyed by primitive ints that remembers insertion order.
+ *
+ * Keys are never boxed. Entries live in dense arrays in the order they were added and a separate open addressing
+ * table maps a key to its entry position, so get, put and remove are O(1) and iteration follows insertion order.
+ * Replacing the value of an existing key keeps its position.
+ *
+ * @param <V> - Type of the mapped values.
+ * @implNote Not thread safe, but reads never change the map.
+ */
+public class IntHashMap<V> {
+
+    /**
+     * Table slot that has never held an entry.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * Table slot whose entry has been removed. Probing continues past it.
+     */
+    private static final int DELETED = -2;
+
+    /**
+     * Hash table of entry positions, EMPTY or DELETED. Length is always a power of two.
+     */
+    private int[] table;
+
+    /**
+     * Entry keys in insertion order.
+     */
+    private int[] keys;
+
+    /**
+     * Entry values in insertion order. A null value marks a removed entry.
+     */
+    private Object[] values;
+
+    /**
+     * Number of entry positions in use, including removed ones.
+     */
+    private int entries;
+
+    /**
+     * Number of live entries.
+     */
+    private int size;
+
+    /**
+     * Number of table slots that are not EMPTY.
+     */
+    private int usedSlots;
+
+    /**
+     * Read only view of the values in insertion order.
+     */
+    private final Collection<V> valuesView = new ValuesView();
+
+    public IntHashMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize - Number of entries to size the map for.
+     */
+    public IntHashMap(int expectedSize) {
+        allocate(Math.max(expectedSize, 2));
+    }
+
+    /**
+     * Look up the value mapped to a key.
+     *
+     * @param key - Key to look up.
+     * @return The mapped value, else null.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[table[slot]];
+    }
+
+    /**
+     * @param key - Key to look up.
+     * @return true if the key is mapped.
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Map a key to a value. An existing key keeps its position in iteration order.
+     *
+     * @param key - Key to map.
+     * @param value - Value to map it to, must not be null.
+     * @return The previously mapped value, else null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntHashMap does not accept null values");
+        }
+
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int position = table[slot];
+            V previous = (V) values[position];
+            values[position] = value;
+            return previous;
+        }
+
+        if (entries == keys.length || (usedSlots + 1) * 4 > table.length * 3) {
+            rebuild(size + 1 > keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+
+        keys[entries] = key;
+        values[entries] = value;
+
+        slot = firstFreeSlot(key);
+        if (table[slot] == EMPTY) {
+            usedSlots++;
+        }
+        table[slot] = entries++;
+        size++;
+        return null;
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key - Key to remove.
+     * @return The value that was mapped, else null.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        int position = table[slot];
+        V previous = (V) values[position];
+        values[position] = null;
+        table[slot] = DELETED;
+        size--;
+
+        // Trailing removals can simply give their entry position back.
+        if (position == entries - 1) {
+            entries--;
+        }
+        return previous;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        Arrays.fill(values, 0, entries, null);
+        entries = 0;
+        size = 0;
+        usedSlots = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Call the consumer for every entry in insertion order.
+     *
+     * @param consumer - Receives each key and value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < entries; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Get a live, read only view of the values in insertion order.
+     *
+     * @return Collection<V>
+     * @implNote Iterating skips removed entries rather than compacting them away, so it never writes to the map.
+     */
+    public Collection<V> values() {
+        return valuesView;
+    }
+
+    /**
+     * Callback used by forEach.
+     *
+     * @param <V> - Type of the mapped values.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    /**
+     * Find the table slot holding a key.
+     *
+     * @param key - Key to find.
+     * @return The slot, else -1.
+     */
+    private int findSlot(int key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+
+        while (true) {
+            int position = table[slot];
+            if (position == EMPTY) {
+                return -1;
+            }
+            if (position >= 0 && keys[position] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Find the first slot an absent key may be stored in.
+     *
+     * @param key - Key to store.
+     * @return An EMPTY or DELETED slot.
+     */
+    private int firstFreeSlot(int key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+
+        while (table[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Drop removed entries and rehash into storage sized for the given number of entries.
+     *
+     * @param capacity - Number of entries the new storage must hold.
+     */
+    private void rebuild(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldEntries = entries;
+
+        allocate(capacity);
+
+        int mask = table.length - 1;
+        for (int i = 0; i < oldEntries; i++) {
+            if (oldValues[i] == null) {
+                continue;
+            }
+
+            keys[entries] = oldKeys[i];
+            values[entries] = oldValues[i];
+
+            int slot = hash(oldKeys[i]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entries++;
+        }
+
+        size = entries;
+        usedSlots = entries;
+    }
+
+    /**
+     * Allocate empty storage for the given number of entries.
+     *
+     * @param capacity - Number of entries.
+     */
+    private void allocate(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 3)) << 1;
+
+        table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        entries = 0;
+        size = 0;
+        usedSlots = 0;
+    }
+
+    /**
+     * Spread the key bits so sequential ids do not cluster.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Collection view over the values of the map.
+     */
+    private class ValuesView extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+                private int next = skipRemoved(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next < entries;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (next >= entries) {
+                        throw new NoSuchElementException();
+                    }
+                    V value = (V) values[next];
+                    next = skipRemoved(next + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private int skipRemoved(int position) {
+            while (position < entries && values[position] == null) {
+                position++;
+            }
+            return position;
+        }
+    }
+}
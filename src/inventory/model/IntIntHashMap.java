@@ -0,0 +1,337 @@
+package inventory.model;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to primitive int counts that remembers insertion order.
+ *
+ * Laid out like IntHashMap: entries live in dense arrays in the order they were added and an open addressing table
+ * maps a key to its entry position, so get and put are O(1) and nothing is boxed. Zero is never stored: get()
+ * returns 0 for an absent key and putting or adding down to 0 removes the key, which suits quantities.
+ *
+ * @implNote Not thread safe. Removing a key is O(1): its entry is left as a gap, same as IntHashMap, and the gaps are
+ * closed in one pass when the entries are next read by position or the storage is rebuilt. Call compact() before
+ * sharing a map that keys were removed from with readers on other threads, reads never change a map without gaps.
+ */
+public class IntIntHashMap {
+
+    /**
+     * Table slot that has never held an entry.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * Table slot whose entry has been removed. Probing continues past it.
+     */
+    private static final int DELETED = -2;
+
+    /**
+     * Hash table of entry positions, EMPTY or DELETED. Length is always a power of two.
+     */
+    private int[] table;
+
+    /**
+     * Entry keys in insertion order.
+     */
+    private int[] keys;
+
+    /**
+     * Entry values in insertion order. A 0 value marks a removed entry, 0 is never stored.
+     */
+    private int[] values;
+
+    /**
+     * Number of entry positions in use, including removed ones.
+     */
+    private int entries;
+
+    /**
+     * Number of live entries.
+     */
+    private int size;
+
+    /**
+     * Number of table slots that are not EMPTY.
+     */
+    private int usedSlots;
+
+    public IntIntHashMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize - Number of entries to size the map for.
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(Math.max(expectedSize, 2));
+    }
+
+    /**
+     * Look up the value mapped to a key.
+     *
+     * @param key - Key to look up.
+     * @return The mapped value, else 0.
+     */
+    public int get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? 0 : values[table[slot]];
+    }
+
+    /**
+     * @param key - Key to check.
+     * @return true if the key is mapped.
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Map a key to a value. An existing key keeps its position in iteration order.
+     *
+     * @param key - Key to map.
+     * @param value - Value to map it to, 0 removes the key.
+     * @return The previously mapped value, else 0.
+     */
+    public int put(int key, int value) {
+        if (value == 0) {
+            return remove(key);
+        }
+
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int position = table[slot];
+            int previous = values[position];
+            values[position] = value;
+            return previous;
+        }
+
+        if (entries == keys.length || (usedSlots + 1) * 4 > table.length * 3) {
+            rebuild(size + 1 > keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+
+        keys[entries] = key;
+        values[entries] = value;
+
+        slot = firstFreeSlot(key);
+        if (table[slot] == EMPTY) {
+            usedSlots++;
+        }
+        table[slot] = entries++;
+        size++;
+        return 0;
+    }
+
+    /**
+     * Add to the value mapped to a key, treating an absent key as 0.
+     *
+     * @param key - Key to add to.
+     * @param delta - Amount to add, may be negative.
+     * @return The new value, 0 if the key was removed.
+     */
+    public int add(int key, int delta) {
+        int value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key - Key to remove.
+     * @return The value that was mapped, else 0.
+     */
+    public int remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return 0;
+        }
+
+        int position = table[slot];
+        int previous = values[position];
+        values[position] = 0;
+        table[slot] = DELETED;
+        size--;
+
+        // Trailing removals can simply give their entry position back.
+        if (position == entries - 1) {
+            entries--;
+        }
+        return previous;
+    }
+
+    /**
+     * Close the gaps removed entries left, keeping the rest in insertion order. O(n) if there are any, else O(1).
+     */
+    public void compact() {
+        if (entries != size) {
+            rebuild(keys.length);
+        }
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        entries = 0;
+        size = 0;
+        usedSlots = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the key at a position in insertion order.
+     *
+     * @param index - Position among the entries.
+     * @return int
+     * @implNote Compacts the map first if keys were removed since it was last compacted.
+     */
+    public int keyAt(int index) {
+        checkIndex(index);
+        compact();
+        return keys[index];
+    }
+
+    /**
+     * Get the value at a position in insertion order.
+     *
+     * @param index - Position among the entries.
+     * @return int
+     * @implNote Compacts the map first, same as keyAt().
+     */
+    public int valueAt(int index) {
+        checkIndex(index);
+        compact();
+        return values[index];
+    }
+
+    /**
+     * Call the consumer for every entry in insertion order.
+     *
+     * @param consumer - Receives each key and value.
+     * @implNote Skips removed entries rather than compacting them away, so it never writes to the map.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < entries; i++) {
+            if (values[i] != 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Callback used by forEach.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Find the table slot holding a key.
+     *
+     * @param key - Key to find.
+     * @return The slot, else -1.
+     */
+    private int findSlot(int key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+
+        while (true) {
+            int position = table[slot];
+            if (position == EMPTY) {
+                return -1;
+            }
+            if (position >= 0 && keys[position] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Find the first slot an absent key may be stored in.
+     *
+     * @param key - Key to store.
+     * @return An EMPTY or DELETED slot.
+     */
+    private int firstFreeSlot(int key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+
+        while (table[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Drop removed entries and rehash into storage sized for the given number of entries.
+     *
+     * @param capacity - Number of entries the new storage must hold.
+     */
+    private void rebuild(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        int oldEntries = entries;
+
+        allocate(capacity);
+
+        int mask = table.length - 1;
+        for (int i = 0; i < oldEntries; i++) {
+            if (oldValues[i] == 0) {
+                continue;
+            }
+
+            keys[entries] = oldKeys[i];
+            values[entries] = oldValues[i];
+
+            int slot = hash(oldKeys[i]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entries++;
+        }
+
+        size = entries;
+        usedSlots = entries;
+    }
+
+    /**
+     * Allocate empty storage for the given number of entries.
+     *
+     * @param capacity - Number of entries.
+     */
+    private void allocate(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 3)) << 1;
+
+        table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+        keys = new int[capacity];
+        values = new int[capacity];
+        entries = 0;
+        size = 0;
+        usedSlots = 0;
+    }
+
+    /**
+     * Spread the key bits so sequential ids do not cluster.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
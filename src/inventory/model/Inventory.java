@@ -1,38 +1,212 @@
 package inventory.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class Inventory {
 
     /**
-     * A list of products in inventory
+     * Parts and products, their name indexes and the part to product index.
      */
-    private List<Product> products = new ArrayList<>();
+    private final EntityStore store;
 
     /**
-     * A list of parts in inventory.
+     * Sequence that productIDs are allocated from.
      */
-    private List<Part> allParts = new ArrayList<>();
+    private final IdSequence productIDs = new IdSequence();
+
+    /**
+     * Sequence that partIDs are allocated from.
+     */
+    private final IdSequence partIDs = new IdSequence();
+
+    /**
+     * Journal every mutation is recorded in before it is applied.
+     */
+    private volatile Journal journal = Journal.NONE;
+
+    /**
+     * Listeners told about every change after it is applied.
+     */
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Products priced below the cost of their parts, keyed by productID.
+     */
+    private final ConcurrentSkipListMap<Integer, Product> belowCost = new ConcurrentSkipListMap<>();
+
+    /**
+     * Latest published snapshot of parts and products. Replaced, never changed, by every mutation.
+     */
+    private final AtomicReference<InventorySnapshot> snapshot = new AtomicReference<>(InventorySnapshot.EMPTY);
+
+    /**
+     * Held while a transaction commits, so transactions apply one at a time.
+     */
+    private final Object commitLock = new Object();
+
+    /**
+     * Lock every part and product shares unless a subclass stripes them.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Thread staging a transaction, else null. Its changes are journaled together once all of them are staged, and
+     * its snapshot changes and events are held back until then.
+     */
+    private volatile Thread committer;
+
+    private final List<UnaryOperator<InventorySnapshot>> heldSnapshots = new ArrayList<>();
+    private final List<InventoryEvent> heldEvents = new ArrayList<>();
+
+    /**
+     * Undoes the store changes of the transaction being staged, in the order they were made.
+     */
+    private final List<Runnable> heldUndo = new ArrayList<>();
+
+    /**
+     * Recosts of the products using a part or sub-assembly the transaction being staged changed. Run once its locks
+     * are released.
+     */
+    private final List<Runnable> heldRecosts = new ArrayList<>();
+
+    public Inventory() {
+        this(new HeapEntityStore());
+    }
+
+    /**
+     * @param store - Where the parts and products are kept.
+     */
+    Inventory(EntityStore store) {
+        this.store = store;
+    }
 
     /**
      * Add product to the inventory.
      * @param product - The product to add.
+     * @throws IllegalArgumentException if a sub-assembly does not exist.
+     * @throws IllegalStateException if the product is already stored, add a copy().
      */
     public void addProduct(Product product) {
-        // Get max partID + 1
-        int productID = products.stream()
-                .mapToInt(p -> p.getProductID())
-                .max()
-                .orElse(0) + 1;
-
         // Set productID
-        product.setProductID(productID);
+        product.setProductID(productIDs.next());
+
+        if (!product.hasSubassemblies()) {
+            insertProduct(product);
+            return;
+        }
 
-        // Add product to list
-        products.add(product);
+        // Sub-assemblies are checked and stored under the commit lock, same as in a Transaction, so two changes can
+        // never form a cycle between them.
+        synchronized (commitLock) {
+            checkSubassemblies(Collections.singletonMap(product.getProductID(), product));
+            insertProduct(product);
+        }
+    }
+
+    private void insertProduct(Product product) {
+        synchronized (productLock(product.getProductID())) {
+            journal().productAdded(product);
+
+            // Add product to inventory
+            storeProduct(product.getProductID(), product);
+            publishProduct(product.getProductID(), product);
+            fire(InventoryEvent.productAdded(this, product));
+        }
+    }
+
+    /**
+     * Add a batch of products to the inventory.
+     * The products receive consecutive productIDs in the order given.
+     *
+     * @param batch - The products to add.
+     * @throws IllegalArgumentException if a sub-assembly does not exist or would form a cycle, nothing is added.
+     * @throws IllegalStateException if a product is already stored, add a copy().
+     * @implNote The IDs are fresh, they are only locked so no writer replaces one of the products before the batch is
+     * published. A batch with sub-assemblies is checked and stored under the commit lock, same as addProduct().
+     */
+    public void addProducts(Collection<Product> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int[] batchIDs = new int[batch.size()];
+        int productID = productIDs.nextBlock(batch.size());
+        int i = 0;
+        Map<Integer, Product> assembled = new LinkedHashMap<>();
+        for (Product product : batch) {
+            batchIDs[i++] = productID;
+            product.setProductID(productID++);
+            assembled.put(product.getProductID(), product);
+        }
+
+        if (batch.stream().noneMatch(Product::hasSubassemblies)) {
+            insertProducts(batch, batchIDs);
+            return;
+        }
+
+        synchronized (commitLock) {
+            checkSubassemblies(assembled);
+            insertProducts(batch, batchIDs);
+        }
+    }
+
+    private void insertProducts(Collection<Product> batch, int[] batchIDs) {
+        locked(new int[0], batchIDs, () -> {
+            journal().productsAdded(batch);
+            batch.forEach(product -> storeProduct(product.getProductID(), product));
+            publishProducts(batch);
+
+            if (hasListeners()) {
+                batch.forEach(product -> fire(InventoryEvent.productAdded(this, product)));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Put a product back into the inventory under its existing productID, replacing any product with that ID.
+     * Used when loading persisted state, the change is not journaled.
+     *
+     * @param product - The product to restore.
+     */
+    public void restoreProduct(Product product) {
+        if (putProduct(product)) {
+            recostLater(() -> subassemblyRecosted(product.getProductID()));
+        }
+    }
+
+    /**
+     * Store a restored product under its productID. Caller must not hold another product's lock.
+     *
+     * @param product - The product to restore.
+     * @return true if it is new or its cost differs from the product it replaced, so the products using it need
+     * recosting.
+     */
+    private boolean putProduct(Product product) {
+        productIDs.restore(product.getProductID());
+
+        synchronized (productLock(product.getProductID())) {
+            stageProduct(product.getProductID());
+            Product previous = storeProduct(product.getProductID(), product);
+            publishProduct(product.getProductID(), product);
+
+            fire(previous == null
+                    ? InventoryEvent.productAdded(this, product)
+                    : InventoryEvent.productUpdated(this, product.getProductID(), product));
+            return previous == null || Double.compare(previous.getPartCost(), product.getPartCost()) != 0;
+        }
     }
 
     /**
@@ -42,15 +216,20 @@ public class Inventory {
      * @return On success true, on product not found, false.
      */
     public boolean removeProduct(int productID) {
-        Optional<Product> product = products.stream()
-                .filter(prod -> prod.getProductID() == productID)
-                .findFirst();
+        synchronized (productLock(productID)) {
+            if (store.getProduct(productID) == null) {
+                return false;
+            }
 
-        if (!product.isPresent()) {
-            return false;
+            journal().productRemoved(productID);
+            stageProduct(productID);
+            Product removed = store.removeProduct(productID);
+            detach(removed, null);
+            publishProduct(productID, null);
+            fire(InventoryEvent.productRemoved(this, productID, removed));
         }
 
-        products.remove(product.get());
+        recostLater(() -> subassemblyRecosted(productID));
         return true;
     }
 
@@ -61,9 +240,7 @@ public class Inventory {
      * @return Product if found, else null.
      */
     public Product lookupProduct(int productID) {
-        return products.stream()
-                .filter(product -> product.getProductID() == productID)
-                .findFirst().orElse(null);
+        return store.getProduct(productID);
     }
 
     /**
@@ -74,9 +251,18 @@ public class Inventory {
      * @implNote The match is case insensitive.
      */
     public List<Product> lookupProduct(String productName) {
-        return products.stream()
-                .filter(product -> product.getName().toUpperCase().contains(productName.toUpperCase()))
-                .collect(Collectors.toList());
+        int[] matchingIDs = store.searchProducts(productName);
+
+        List<Product> matches = new ArrayList<>(matchingIDs.length);
+        for (int productID : matchingIDs) {
+            Product product = lookupProduct(productID);
+
+            // Skip a product removed since the search.
+            if (product != null) {
+                matches.add(product);
+            }
+        }
+        return matches;
     }
 
     /**
@@ -84,18 +270,113 @@ public class Inventory {
      *
      * @param productID - Product ID to update
      * @param product - Product to set in the looked up product's place
+     * @throws IllegalArgumentException if a sub-assembly it adds does not exist or would form a cycle.
      * @implNote The UMNL called for a method that only took an int, but that didn't make sense since the method wouldn't know
      * which data to update it with. I have changed the signature to int, Product
      */
     public void updateProduct(int productID, Product product) {
+        Product replaced = replaceProduct(productID, product, false);
+        if (replaced == product) {
 
-        Integer productIndex = products.indexOf(lookupProduct(productID));
+            // The product adds sub-assemblies, they are checked and stored under the commit lock, same as addProduct().
+            synchronized (commitLock) {
+                replaced = replaceProduct(productID, product, true);
+            }
+        }
 
-        if (productIndex == -1) {
-            return;
+        recostUsing(productID, replaced, product);
+    }
+
+    /**
+     * Recost the products using a product that was just replaced, if its cost changed. Call after the product's lock
+     * is released, the products using it are recosted under their own locks.
+     *
+     * @param productID - productID of the product.
+     * @param replaced - The product replaced, null if there was none.
+     * @param product - The product now stored.
+     */
+    private void recostUsing(int productID, Product replaced, Product product) {
+        if (replaced != null && Double.compare(replaced.getPartCost(), product.getPartCost()) != 0) {
+            subassemblyRecosted(productID);
         }
+    }
+
+    /**
+     * Replace a stored product.
+     *
+     * @param productID - Product ID to update.
+     * @param product - Product to set in its place.
+     * @param check - true if the caller holds commitLock, so sub-assemblies the product adds can be checked.
+     * @return The product replaced, null if there was none, or the product itself if it adds sub-assemblies and check
+     * is false, nothing was replaced.
+     * @throws IllegalArgumentException if an added sub-assembly does not exist or would form a cycle.
+     */
+    private Product replaceProduct(int productID, Product product, boolean check) {
+        synchronized (productLock(productID)) {
+            Product current = store.getProduct(productID);
+            if (current == null) {
+                return null;
+            }
+
+            if (addsSubassemblies(current, product)) {
+                if (!check) {
+                    return product;
+                }
+                checkSubassemblies(Collections.singletonMap(productID, product));
+            }
+
+            journal().productUpdated(productID, product);
+
+            // Replacing the value keeps the product's position in the list.
+            storeProduct(productID, product);
+            publishProduct(productID, product);
+            fire(InventoryEvent.productUpdated(this, productID, product));
+            return current;
+        }
+    }
+
+    /**
+     * @param current - Product as it is stored.
+     * @param product - Product to replace it with.
+     * @return true if the product uses a sub-assembly the stored product does not.
+     */
+    private static boolean addsSubassemblies(Product current, Product product) {
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            if (current.getSubassemblyQuantity(subassemblyID) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        products.set(productIndex, product);
+    /**
+     * Check that every sub-assembly of products about to be stored exists and that none of them forms a cycle. Call
+     * holding commitLock, so no other sub-assembly change can come between the check and the store.
+     *
+     * @param changed - The products, keyed by the productID they are about to be stored under.
+     * @throws IllegalArgumentException if a sub-assembly does not exist or would form a cycle.
+     */
+    private void checkSubassemblies(Map<Integer, Product> changed) {
+        IntFunction<Product> after = productID -> changed.containsKey(productID)
+                ? changed.get(productID) : lookupProduct(productID);
+
+        for (Map.Entry<Integer, Product> entry : changed.entrySet()) {
+            Product product = entry.getValue();
+            if (!product.hasSubassemblies()) {
+                continue;
+            }
+
+            for (int subassemblyID : product.getSubassemblyIDs()) {
+                if (after.apply(subassemblyID) == null) {
+                    throw new IllegalArgumentException("Sub-assembly product " + subassemblyID + " of product "
+                            + entry.getKey() + " does not exist.");
+                }
+            }
+            List<Integer> cycle = BillOfMaterials.findCycle(entry.getKey(), after);
+            if (!cycle.isEmpty()) {
+                throw new IllegalArgumentException("Products " + cycle + " would form a sub-assembly cycle.");
+            }
+        }
     }
 
     /**
@@ -105,17 +386,148 @@ public class Inventory {
      */
     public void addPart(Part part) {
 
-        // Get max partID + 1
-        int partID = allParts.stream()
-                .mapToInt(p -> p.getPartID())
-                .max()
-                .orElse(0) + 1;
-
         // Set partID
-        part.setPartID(partID);
+        part.setPartID(partIDs.next());
+
+        synchronized (partLock(part.getPartID())) {
+            journal().partAdded(part);
+
+            // Add part to inventory
+            store.putPart(part.getPartID(), part);
+            publishPart(part.getPartID(), part);
+            fire(InventoryEvent.partAdded(this, part));
+        }
+    }
+
+    /**
+     * Method to add a batch of parts to inventory.
+     * The parts receive consecutive partIDs in the order given.
+     *
+     * @param batch - The parts to add.
+     * @implNote Locked the same as addProducts().
+     */
+    public void addParts(Collection<Part> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int[] batchIDs = new int[batch.size()];
+        int partID = partIDs.nextBlock(batch.size());
+        int i = 0;
+        for (Part part : batch) {
+            batchIDs[i++] = partID;
+            part.setPartID(partID++);
+        }
+
+        locked(batchIDs, new int[0], () -> {
+            journal().partsAdded(batch);
+            batch.forEach(part -> store.putPart(part.getPartID(), part));
+            publishParts(batch);
+
+            if (hasListeners()) {
+                batch.forEach(part -> fire(InventoryEvent.partAdded(this, part)));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Put a part back into the inventory under its existing partID, replacing any part with that ID.
+     * Used when loading persisted state, the change is not journaled.
+     *
+     * @param part - The part to restore.
+     */
+    public void restorePart(Part part) {
+        partIDs.restore(part.getPartID());
+
+        double previousPrice;
+        synchronized (partLock(part.getPartID())) {
+            stagePart(part.getPartID());
+            previousPrice = store.putPart(part.getPartID(), part);
+            publishPart(part.getPartID(), part);
+
+            if (Double.isNaN(previousPrice)) {
+                fire(InventoryEvent.partAdded(this, part));
+                return;
+            }
+            fire(InventoryEvent.partUpdated(this, part.getPartID(), part));
+        }
+
+        if (previousPrice != part.getPrice()) {
+            recostLater(() -> partRepriced(part.getPartID()));
+        }
+    }
+
+    /**
+     * Load every part and product of a persisted inventory into this one in one step. Used when loading a snapshot,
+     * the change is not journaled and listeners are not told, so register them once it is loaded.
+     *
+     * @param parts - Every part, in partID order. Iterated once, so the parts may be read as they are stored.
+     * @param products - Every product, in productID order.
+     * @throws IllegalStateException if the inventory already holds a part or product.
+     * @implNote Fills the store directly and publishes one snapshot built from the sorted entities, rather than a
+     * snapshot and an event per record as restorePart() and restoreProduct() do. Products are costed as they are
+     * stored, a product using a sub-assembly with a later productID is recosted once every product is stored.
+     */
+    public void restoreAll(Iterable<? extends Part> parts, Collection<Product> products) {
+        quiesce(() -> {
+            if (getPartCount() != 0 || getProductCount() != 0) {
+                throw new IllegalStateException("Only an empty inventory can be restored in one step");
+            }
+
+            List<Part> published = new ArrayList<>();
+            for (Part part : parts) {
+                partIDs.restore(part.getPartID());
+                store.putPart(part.getPartID(), part);
+                if (snapshotsParts()) {
+                    published.add(part);
+                }
+            }
+
+            List<Product> forward = new ArrayList<>();
+            for (Product product : products) {
+                productIDs.restore(product.getProductID());
+                attach(product);
+                store.putProduct(product.getProductID(), product);
+
+                for (int subassemblyID : product.getSubassemblyIDs()) {
+                    if (subassemblyID > product.getProductID()) {
+                        forward.add(product);
+                        break;
+                    }
+                }
+            }
+            forward.forEach(this::recostRestored);
+
+            publish(current -> current.withAll(published, products));
+            return null;
+        });
+    }
+
+    /**
+     * Recost a product restored before one of its sub-assemblies, and the products using it, in place. They are not
+     * published yet.
+     *
+     * @param product - The product.
+     */
+    private void recostRestored(Product product) {
+        double cost = partCost(product);
+        if (Double.compare(cost, product.getPartCost()) == 0) {
+            return;
+        }
 
-        // Add part to list
-        allParts.add(part);
+        product.setPartCost(cost);
+        trackCost(product);
+        for (Product user : store.getProductsUsing(product.getProductID())) {
+            recostRestored(user);
+        }
+    }
+
+    /**
+     * @return true if snapshots hold the parts, false if a subclass serves them from its store instead.
+     */
+    protected boolean snapshotsParts() {
+        return true;
     }
 
     /**
@@ -125,16 +537,18 @@ public class Inventory {
      * @return
      */
     public boolean deletePart(int partID) {
-        Optional<Part> part = allParts.stream()
-                .filter(p -> p.getPartID() == partID)
-                .findFirst();
+        synchronized (partLock(partID)) {
+            if (!store.containsPart(partID)) {
+                return false;
+            }
 
-        if (!part.isPresent()) {
-            return false;
+            journal().partDeleted(partID);
+            stagePart(partID);
+            Part removed = store.removePart(partID);
+            publishPart(partID, null);
+            fire(InventoryEvent.partRemoved(this, partID, removed));
+            return true;
         }
-
-        allParts.remove(part.get());
-        return true;
     }
 
     /**
@@ -144,9 +558,7 @@ public class Inventory {
      * @return Part matching the ID, else null.
      */
     public Part lookupPart(int partID) {
-        return allParts.stream()
-                .filter(part -> part.getPartID() == partID)
-                .findFirst().orElse(null);
+        return store.getPart(partID);
     }
 
     /**
@@ -156,9 +568,18 @@ public class Inventory {
      * @return Parts at least partially matching on name.
      */
     public List<Part> lookupPart(String name) {
-        return allParts.stream()
-                .filter(part -> part.getName().toUpperCase().contains(name.toUpperCase()))
-                .collect(Collectors.toList());
+        int[] matchingIDs = store.searchParts(name);
+
+        List<Part> matches = new ArrayList<>(matchingIDs.length);
+        for (int partID : matchingIDs) {
+            Part part = lookupPart(partID);
+
+            // Skip a part deleted since the search.
+            if (part != null) {
+                matches.add(part);
+            }
+        }
+        return matches;
     }
 
     /**
@@ -170,34 +591,791 @@ public class Inventory {
      * data to update it with. I have changed the signature to int, part.
      */
     public void updatePart(int partID, Part part) {
-        Integer partIndex = allParts.indexOf(lookupPart(partID));
+        double previousPrice;
+        synchronized (partLock(partID)) {
+            if (!store.containsPart(partID)) {
+                return;
+            }
 
-        if (partIndex == -1) {
-            return;
+            journal().partUpdated(partID, part);
+
+            // Replacing the value keeps the part's position in the list.
+            previousPrice = store.putPart(partID, part);
+            publishPart(partID, part);
+            fire(InventoryEvent.partUpdated(this, partID, part));
         }
 
-        allParts.set(partIndex, part);
+        // Products are recosted under their own locks, after the part lock is released.
+        if (previousPrice != part.getPrice()) {
+            partRepriced(partID);
+        }
+    }
+
+    /**
+     * Change a part's inventory level by an amount.
+     *
+     * @param partID - partID to adjust.
+     * @param delta - Amount to add to the inventory level, negative to take stock out.
+     * @return The part as updated, else null if it is not in inventory.
+     * @implNote The part is copied and the copy saved with updatePart(), so the change is journaled and reported like
+     * any update, and readers holding the previous part never see it change. The part's lock is held from read to
+     * update so concurrent adjustments are never lost.
+     */
+    public Part adjustPartStock(int partID, int delta) {
+        synchronized (partLock(partID)) {
+            Part current = lookupPart(partID);
+            if (current == null) {
+                return null;
+            }
+
+            Part adjusted = current.copy();
+            adjusted.setInStock(Math.addExact(current.getInStock(), delta));
+            updatePart(partID, adjusted);
+            return adjusted;
+        }
+    }
+
+    /**
+     * Change a product's inventory level by an amount.
+     *
+     * @param productID - productID to adjust.
+     * @param delta - Amount to add to the inventory level, negative to take stock out.
+     * @return The product as updated, else null if it is not in inventory.
+     * @implNote Copied and saved under the product's lock, same as adjustPartStock(). The copy adds no sub-assemblies,
+     * so it is saved without the commit lock.
+     */
+    public Product adjustProductStock(int productID, int delta) {
+        Product adjusted;
+        Product replaced;
+        synchronized (productLock(productID)) {
+            Product current = lookupProduct(productID);
+            if (current == null) {
+                return null;
+            }
+
+            adjusted = current.copy();
+            adjusted.setInStock(Math.addExact(current.getInStock(), delta));
+            replaced = replaceProduct(productID, adjusted, false);
+        }
+
+        recostUsing(productID, replaced, adjusted);
+        return adjusted;
     }
 
     /**
      * Get all parts in inventory.
      * @return List<Part>
+     * @implNote The list is the parts of the current snapshot, in the order they were added. It never changes, so it
+     * may be iterated while the inventory is modified.
      */
     public List<Part> getAllParts() {
-        return allParts;
+        return getSnapshot().getAllParts();
     }
 
     /**
      * Get all products in inventory.
      * @return List<Product>
+     * @implNote The list is the products of the current snapshot, same as getAllParts().
      */
     public List<Product> getProducts() {
-        return products;
+        return getSnapshot().getProducts();
+    }
+
+    /**
+     * Visit every part in inventory, in getAllParts() order.
+     *
+     * @param action - Called with each part.
+     * @implNote Walks the current snapshot.
+     */
+    public void forEachPart(Consumer<? super Part> action) {
+        getSnapshot().getAllParts().forEach(action);
+    }
+
+    /**
+     * @return Number of parts in inventory. O(1).
+     */
+    public int getPartCount() {
+        return getSnapshot().getAllParts().size();
+    }
+
+    /**
+     * @return Number of products in inventory. O(1).
+     */
+    public int getProductCount() {
+        return getSnapshot().getProducts().size();
+    }
+
+    /**
+     * Get the parts and products as they are now, as one consistent view that later changes do not affect.
+     *
+     * @return The latest snapshot. O(1), nothing is copied.
+     */
+    public InventorySnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Get one page of parts, in getAllParts() order.
+     *
+     * @param offset - Position of the first part.
+     * @param limit - Largest number of parts to return.
+     * @return Up to limit parts starting at offset, empty past the end.
+     * @implNote Copied out of the current snapshot in O(log n + limit).
+     */
+    public List<Part> getParts(int offset, int limit) {
+        return getSnapshot().getParts(offset, limit);
+    }
+
+    /**
+     * Get one page of products, in getProducts() order.
+     *
+     * @param offset - Position of the first product.
+     * @param limit - Largest number of products to return.
+     * @return Up to limit products starting at offset, empty past the end.
+     * @implNote Copied out of the current snapshot, same as getParts(int, int).
+     */
+    public List<Product> getProducts(int offset, int limit) {
+        return getSnapshot().getProducts(offset, limit);
+    }
+
+    /**
+     * Get the sequence partIDs are allocated from so it can be persisted and restored.
+     * @return IdSequence
+     */
+    public IdSequence getPartIDs() {
+        return partIDs;
+    }
+
+    /**
+     * Get the sequence productIDs are allocated from so it can be persisted and restored.
+     * @return IdSequence
+     */
+    public IdSequence getProductIDs() {
+        return productIDs;
+    }
+
+    /**
+     * Get the journal mutations are recorded in.
+     * @return Journal
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Set the journal mutations are recorded in. Pass null to stop journaling.
+     * @param journal - The journal.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal == null ? Journal.NONE : journal;
+    }
+
+    /**
+     * Get the journal to record a mutation in.
+     * @return The journal, or Journal.NONE while a transaction is being staged, it journals its changes together.
+     */
+    protected Journal journal() {
+        return committer == Thread.currentThread() ? Journal.NONE : journal;
+    }
+
+    /**
+     * Start a transaction against this inventory.
+     * @return A new, empty transaction.
+     */
+    public Transaction newTransaction() {
+        return new Transaction(this);
     }
 
+    /**
+     * Apply a transaction all or nothing. Called by Transaction.commit().
+     *
+     * @param transaction - The transaction.
+     * @return List<String> of error messages, empty if the transaction was applied.
+     * @implNote The Validation rules run before anything is locked. Only checking the changes against the current
+     * state, journaling and applying them happen under the lock. Products using a part the transaction reprices are
+     * recosted after the locks are released, as updatePart() does, since their locks are not among the transaction's.
+     * So are the products using a product the transaction changes the cost of or removes.
+     */
+    List<String> commit(Transaction transaction) {
+        List<String> errors = transaction.validate();
+        if (!errors.isEmpty()) {
+            return errors;
+        }
+
+        List<Runnable> recosts = new ArrayList<>();
+        synchronized (commitLock) {
+            errors = locked(transaction.getPartIDs(), transaction.getProductIDs(), () -> apply(transaction, recosts));
+        }
+        recosts.forEach(Runnable::run);
+        return errors;
+    }
+
+    /**
+     * Run a change touching many entities, a transaction's commit or a batch add, with those entities locked against
+     * other writers.
+     *
+     * @param partIDs - partIDs the change touches.
+     * @param productIDs - productIDs the change touches.
+     * @param commit - The change.
+     * @return What the change returns.
+     * @implNote Inventory is not thread safe, so nothing is locked.
+     */
+    protected <T> T locked(int[] partIDs, int[] productIDs, Supplier<T> commit) {
+        return commit.get();
+    }
+
+    /**
+     * Run an action while every writer waits, so nothing is journaled, published or fired until it returns. Used to
+     * write a snapshot and empty the journal as one step.
+     *
+     * @param action - The action. It may read the inventory but must not write to it from another thread.
+     * @return What the action returns.
+     * @implNote Takes the commit lock and then every part and product lock, the order every writer takes them in.
+     */
+    public <T> T quiesce(Supplier<T> action) {
+        synchronized (commitLock) {
+            return lockedAll(action);
+        }
+    }
+
+    /**
+     * Run an action with every part and product locked against writers. Called with the commit lock held.
+     *
+     * @param action - The action.
+     * @return What the action returns.
+     * @implNote Every part and product shares one lock, so only it is taken.
+     */
+    protected <T> T lockedAll(Supplier<T> action) {
+        synchronized (writeLock) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Get the lock serializing writes to a part. A writer holds it from journaling a change until the change is
+     * published and fired, so the journal, the snapshot and listeners see one part's changes in the same order.
+     *
+     * @param partID - partID to lock.
+     * @return The lock.
+     * @implNote Inventory is not thread safe, so every part and product shares one lock.
+     */
+    protected Object partLock(int partID) {
+        return writeLock;
+    }
+
+    /**
+     * Get the lock serializing writes to a product, same as partLock().
+     *
+     * @param productID - productID to lock.
+     * @return The lock.
+     */
+    protected Object productLock(int productID) {
+        return writeLock;
+    }
+
+    /**
+     * Stage, journal and publish a transaction. Called with the transaction's entities locked.
+     *
+     * @implNote The changes are staged in the store first, with their snapshot changes and events held back. If
+     * staging or journaling fails the store is rolled back and nothing is published. Otherwise every change is
+     * published in one snapshot swap, then listeners are told.
+     *
+     * @param recosts - Receives the recosts of the products using a part or product the transaction changed.
+     */
+    private List<String> apply(Transaction transaction, List<Runnable> recosts) {
+        List<String> errors = new ArrayList<>();
+        List<Transaction.Change> changes = transaction.resolve(errors);
+        if (!errors.isEmpty()) {
+            return errors;
+        }
+
+        Journal journal = journal();
+        List<UnaryOperator<InventorySnapshot>> snapshotChanges;
+        List<InventoryEvent> events;
+
+        committer = Thread.currentThread();
+        try {
+            try {
+                changes.forEach(this::apply);
+            } catch (RuntimeException | Error e) {
+                rollBack();
+                throw e;
+            }
+
+            journal.transactionBegun();
+            try {
+                for (Transaction.Change change : changes) {
+                    journal(journal, change);
+                }
+                journal.transactionCommitted();
+            } catch (RuntimeException e) {
+                journal.transactionAborted();
+                rollBack();
+                throw e;
+            }
+
+            snapshotChanges = new ArrayList<>(heldSnapshots);
+            events = new ArrayList<>(heldEvents);
+            recosts.addAll(heldRecosts);
+        } finally {
+            committer = null;
+            heldSnapshots.clear();
+            heldEvents.clear();
+            heldUndo.clear();
+            heldRecosts.clear();
+        }
+
+        // Publish every change in one snapshot, then tell listeners.
+        snapshot.updateAndGet(current -> {
+            for (UnaryOperator<InventorySnapshot> change : snapshotChanges) {
+                current = change.apply(current);
+            }
+            return current;
+        });
+        events.forEach(this::fire);
+        return errors;
+    }
+
+    /**
+     * Undo the store changes of the transaction being staged, newest first.
+     */
+    private void rollBack() {
+        for (int i = heldUndo.size() - 1; i >= 0; i--) {
+            heldUndo.get(i).run();
+        }
+    }
+
+    /**
+     * If a transaction is being staged, remember how to put back the part stored under an ID before it changes.
+     *
+     * @param partID - partID about to change.
+     */
+    private void stagePart(int partID) {
+        if (committer != Thread.currentThread()) {
+            return;
+        }
+
+        Part previous = store.getPart(partID);
+        heldUndo.add(() -> {
+            if (previous == null) {
+                store.removePart(partID);
+            } else {
+                store.putPart(partID, previous);
+            }
+        });
+    }
+
+    /**
+     * If a transaction is being staged, remember how to put back the product stored under an ID before it changes.
+     * The product put back keeps the cost it was stored with, the prices it was costed at are put back as well.
+     *
+     * @param productID - productID about to change.
+     */
+    private void stageProduct(int productID) {
+        if (committer != Thread.currentThread()) {
+            return;
+        }
+
+        Product previous = store.getProduct(productID);
+        heldUndo.add(() -> {
+            Product staged;
+            if (previous == null) {
+                staged = store.removeProduct(productID);
+            } else {
+                link(previous);
+                trackCost(previous);
+                staged = store.putProduct(productID, previous);
+            }
+
+            if (staged != null) {
+                detach(staged, previous);
+            }
+        });
+    }
+
+    private static void journal(Journal journal, Transaction.Change change) {
+        switch (change.kind) {
+            case ADD_PART:
+                journal.partAdded(change.part);
+                break;
+            case UPDATE_PART:
+                journal.partUpdated(change.id, change.part);
+                break;
+            case DELETE_PART:
+                journal.partDeleted(change.id);
+                break;
+            case ADD_PRODUCT:
+                journal.productAdded(change.product);
+                break;
+            case UPDATE_PRODUCT:
+                journal.productUpdated(change.id, change.product);
+                break;
+            default:
+                journal.productRemoved(change.id);
+        }
+    }
+
+    /**
+     * Apply one resolved change of a transaction. Added and updated entities already carry their IDs, so they are
+     * restored under them.
+     */
+    private void apply(Transaction.Change change) {
+        switch (change.kind) {
+            case ADD_PART:
+            case UPDATE_PART:
+                restorePart(change.part);
+                break;
+            case DELETE_PART:
+                deletePart(change.id);
+                break;
+            case ADD_PRODUCT:
+            case UPDATE_PRODUCT:
+                restoreProduct(change.product);
+                break;
+            default:
+                removeProduct(change.id);
+        }
+    }
+
+    /**
+     * Register a listener to be told about every change to this inventory.
+     * @param listener - The listener.
+     */
+    public void addListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop telling a listener about changes.
+     * @param listener - The listener.
+     */
+    public void removeListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return true if any listener is registered, so callers can skip building events nobody receives.
+     */
+    protected boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Deliver an event to every listener. Call after the change is applied.
+     * @param event - The change.
+     */
+    protected void fire(InventoryEvent event) {
+        if (committer == Thread.currentThread()) {
+            heldEvents.add(event);
+            return;
+        }
+
+        for (InventoryListener listener : listeners) {
+            listener.inventoryChanged(event);
+        }
+    }
+
+    /**
+     * Publish a snapshot with a part stored or removed. Call after the change is applied and before it is fired.
+     *
+     * @param partID - partID that changed.
+     * @param part - The part now stored under it, null if it was removed.
+     * @implNote Writers of different entities may publish concurrently, each retries its O(log n) change on top of
+     * the other's. Writers of the same entity must publish in the order they apply.
+     */
+    protected void publishPart(int partID, Part part) {
+        publish(current -> current.withPart(partID, part));
+    }
+
+    /**
+     * Publish a snapshot with a batch of freshly added parts.
+     *
+     * @param batch - The parts, in partID order.
+     */
+    protected void publishParts(Collection<Part> batch) {
+        publish(current -> current.withParts(batch));
+    }
+
+    /**
+     * Publish a snapshot with a product stored or removed, same as publishPart().
+     *
+     * @param productID - productID that changed.
+     * @param product - The product now stored under it, null if it was removed.
+     */
+    protected void publishProduct(int productID, Product product) {
+        publish(current -> current.withProduct(productID, product));
+    }
+
+    /**
+     * Publish a snapshot with a batch of freshly added products.
+     *
+     * @param batch - The products, in productID order.
+     */
+    protected void publishProducts(Collection<Product> batch) {
+        publish(current -> current.withProducts(batch));
+    }
+
+    private void publish(UnaryOperator<InventorySnapshot> change) {
+        if (committer == Thread.currentThread()) {
+            heldSnapshots.add(change);
+            return;
+        }
+        snapshot.updateAndGet(change);
+    }
+
+    /**
+     * Get the products priced below the total price of their parts.
+     *
+     * @return Products in productID order, empty if none.
+     * @implNote Kept current as part prices, associations and products change, so this never scans the catalog.
+     */
+    public List<Product> getProductsBelowCost() {
+        return new ArrayList<>(belowCost.values());
+    }
+
+    /**
+     * Get how many units of a product can be built from the parts in stock, the fewest any leaf part covers. Every
+     * sub-assembly is built from parts.
+     *
+     * @param productID - productID to look up.
+     * @return Units buildable, 0 if the product does not exist, has no parts or misses a sub-assembly.
+     * @implNote Computed on every call, a product with sub-assemblies is exploded again. Use BuildableQuantities to
+     * keep every product's quantity current.
+     */
+    public int getBuildableQuantity(int productID) {
+        Product product = lookupProduct(productID);
+        if (product == null) {
+            return 0;
+        }
+        if (!product.hasSubassemblies()) {
+            return Buildable.of(this, product, null).getQuantity();
+        }
+
+        try (BillOfMaterials bom = new BillOfMaterials(this)) {
+            return Buildable.of(this, product, bom).getQuantity();
+        }
+    }
+
+    /**
+     * Get the current price of a part in inventory.
+     *
+     * @param partID - partID to look up.
+     * @return The price, else NaN.
+     */
+    protected double partPrice(int partID) {
+        return store.getPartPrice(partID);
+    }
+
+    /**
+     * Sum the cost of a product's parts at the prices the inventory holds them at now, including the parts of its
+     * sub-assemblies.
+     *
+     * @param product - The product.
+     * @return The part cost.
+     * @implNote A part the inventory does not hold is counted at the price of the part the product was given, if it
+     * still has it, and a sub-assembly likewise. Each stored sub-assembly is counted at the cost it was stored with,
+     * which already includes its own sub-assemblies, so the total is the cost of the leaf parts of the
+     * BillOfMaterials explosion without walking the tree.
+     */
+    protected double partCost(Product product) {
+        IntIntHashMap quantities = product.getPartQuantities();
+
+        double total = 0;
+        for (int i = 0; i < quantities.size(); i++) {
+            int partID = quantities.keyAt(i);
+            double price = partPrice(partID);
+
+            if (Double.isNaN(price)) {
+                Part part = product.lookupAssociatedPart(partID);
+                price = part == null ? 0 : part.getPrice();
+            }
+            total += quantities.valueAt(i) * price;
+        }
+
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            Product subassembly = store.getProduct(subassemblyID);
+            if (subassembly == null) {
+                subassembly = product.lookupSubassembly(subassemblyID);
+            }
+            if (subassembly != null) {
+                total += product.getSubassemblyQuantity(subassemblyID) * subassembly.getPartCost();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Track whether a product just stored is priced below the cost of its parts.
+     *
+     * @param product - The product.
+     */
+    private void trackCost(Product product) {
+        if (product.isPricedBelowCost()) {
+            belowCost.put(product.getProductID(), product);
+        } else {
+            belowCost.remove(product.getProductID());
+        }
+    }
+
+    /**
+     * Stop tracking the cost of a product that was replaced or removed.
+     *
+     * @param product - The product.
+     */
+    private void forgetCost(Product product) {
+        belowCost.remove(product.getProductID(), product);
+    }
+
+    /**
+     * Replace every product using a part whose price changed with a copy costed at the new price. The copies are not
+     * journaled, the cost is derived from the parts, and are reported to listeners as updates.
+     *
+     * @param partID - partID of the repriced part.
+     */
+    protected void partRepriced(int partID) {
+        for (Product product : getProductsContainingPart(partID)) {
+            recostStored(product);
+        }
+    }
+
+    /**
+     * Recost every product using a product whose cost changed or that was removed, same as partRepriced(). A recosted
+     * product recosts the products using it in turn, so a change reaches every product above it.
+     *
+     * @param productID - productID of the sub-assembly.
+     * @implNote Sub-assemblies never form a cycle, so the recosting ends.
+     */
+    protected void subassemblyRecosted(int productID) {
+        for (Product product : getProductsUsingSubassembly(productID)) {
+            recostStored(product);
+        }
+    }
+
+    /**
+     * Replace a product with a recosted copy if it is still stored and its cost changed, then recost the products
+     * using it.
+     *
+     * @param product - The product as it was stored.
+     * @implNote Holds the product's lock from the check to the replacement, so a concurrent update is never
+     * overwritten by a recosted copy of the product it replaced. The products using it are recosted after the lock is
+     * released.
+     */
+    protected void recostStored(Product product) {
+        synchronized (productLock(product.getProductID())) {
+            if (store.getProduct(product.getProductID()) != product
+                    || Double.compare(partCost(product), product.getPartCost()) == 0) {
+                return;
+            }
+            putProduct(product.copy());
+        }
+        subassemblyRecosted(product.getProductID());
+    }
+
+    /**
+     * Run a recost now, or once the locks of the transaction being staged are released.
+     *
+     * @param recost - The recost.
+     */
+    private void recostLater(Runnable recost) {
+        if (committer == Thread.currentThread()) {
+            heldRecosts.add(recost);
+        } else {
+            recost.run();
+        }
+    }
+
+    /**
+     * Get the products that have the part associated.
+     *
+     * @param partID - partID to look up.
+     * @return List of products using the part, empty if none.
+     */
     public List<Product> getProductsContainingPart(int partID) {
-        return getProducts().stream()
-                .filter(p -> p.lookupAssociatedPart(partID) != null)
-                .collect(Collectors.toList());
+        return store.getProductsContaining(partID);
+    }
+
+    /**
+     * Get the products that use a product as a direct sub-assembly.
+     *
+     * @param productID - productID of the sub-assembly.
+     * @return List of products using it, empty if none.
+     * @implNote Read from the sub-assembly index, which is kept next to the part index, in O(products using it).
+     */
+    public List<Product> getProductsUsingSubassembly(int productID) {
+        return store.getProductsUsing(productID);
+    }
+
+    /**
+     * Check whether any product has the part associated.
+     *
+     * @param partID - partID to check.
+     * @return true if at least one product uses the part.
+     */
+    public boolean isPartAssociated(int partID) {
+        return store.isPartAssociated(partID);
+    }
+
+    /**
+     * Store a product, replacing any product with the ID, and unindex the product it replaced. Caller holds the
+     * product's lock.
+     *
+     * @param productID - productID to store it under.
+     * @param product - The product.
+     * @return The product it replaced, else null.
+     */
+    private Product storeProduct(int productID, Product product) {
+        attach(product);
+        Product previous = store.putProduct(productID, product);
+
+        if (previous != null) {
+            detach(previous, product);
+        }
+        return previous;
+    }
+
+    /**
+     * Take ownership of a product about to be stored, index its parts and sub-assemblies and cost it.
+     *
+     * @param product - The product.
+     */
+    private void attach(Product product) {
+        product.setInventory(this);
+
+        // Index the parts before costing them, so a concurrent reprice is either seen by the cost or finds the product
+        // and recosts it once it is stored.
+        link(product);
+        product.setPartCost(partCost(product));
+        trackCost(product);
+    }
+
+    /**
+     * Unindex a product that was just replaced or removed. The product itself is left as it is, snapshots may hold
+     * it.
+     *
+     * @param product - The product.
+     * @param replacement - The product now stored under its productID, null if it was removed.
+     */
+    private void detach(Product product, Product replacement) {
+        if (product == replacement) {
+            return;
+        }
+
+        product.getPartQuantities().forEach((partID, quantity) -> store.unlink(product, partID));
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            store.unlinkSubassembly(product, subassemblyID);
+        }
+        forgetCost(product);
+    }
+
+    /**
+     * Index a product under the parts and sub-assemblies it uses.
+     *
+     * @param product - The product.
+     */
+    private void link(Product product) {
+        product.getPartQuantities().forEach((partID, quantity) -> store.link(product, partID));
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            store.linkSubassembly(product, subassemblyID);
+        }
     }
 }
@@ -0,0 +1,93 @@
+package inventory.model;
+
+/**
+ * A change to one part or product in an inventory.
+ */
+public final class InventoryEvent {
+
+    public enum Type {
+        PART_ADDED,
+        PART_UPDATED,
+        PART_REMOVED,
+        PRODUCT_ADDED,
+        PRODUCT_UPDATED,
+        PRODUCT_REMOVED;
+
+        public boolean isPartEvent() {
+            return this == PART_ADDED || this == PART_UPDATED || this == PART_REMOVED;
+        }
+    }
+
+    private final Inventory source;
+    private final Type type;
+    private final int id;
+    private final Object entity;
+
+    InventoryEvent(Inventory source, Type type, int id, Object entity) {
+        this.source = source;
+        this.type = type;
+        this.id = id;
+        this.entity = entity;
+    }
+
+    static InventoryEvent partAdded(Inventory source, Part part) {
+        return new InventoryEvent(source, Type.PART_ADDED, part.getPartID(), part);
+    }
+
+    static InventoryEvent partUpdated(Inventory source, int partID, Part part) {
+        return new InventoryEvent(source, Type.PART_UPDATED, partID, part);
+    }
+
+    static InventoryEvent partRemoved(Inventory source, int partID, Part part) {
+        return new InventoryEvent(source, Type.PART_REMOVED, partID, part);
+    }
+
+    static InventoryEvent productAdded(Inventory source, Product product) {
+        return new InventoryEvent(source, Type.PRODUCT_ADDED, product.getProductID(), product);
+    }
+
+    static InventoryEvent productUpdated(Inventory source, int productID, Product product) {
+        return new InventoryEvent(source, Type.PRODUCT_UPDATED, productID, product);
+    }
+
+    static InventoryEvent productRemoved(Inventory source, int productID, Product product) {
+        return new InventoryEvent(source, Type.PRODUCT_REMOVED, productID, product);
+    }
+
+    /**
+     * @return The inventory that changed.
+     */
+    public Inventory getSource() {
+        return source;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return partID or productID of the changed entity.
+     */
+    public int getID() {
+        return id;
+    }
+
+    /**
+     * @return The part as it is now, or as it was when removed. Null for product events.
+     */
+    public Part getPart() {
+        return type.isPartEvent() ? (Part) entity : null;
+    }
+
+    /**
+     * @return The product as it is now, or as it was when removed. Null for part events.
+     */
+    public Product getProduct() {
+        return type.isPartEvent() ? null : (Product) entity;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + id;
+    }
+}
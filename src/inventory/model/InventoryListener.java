@@ -0,0 +1,14 @@
+package inventory.model;
+
+/**
+ * Receives the changes made to an inventory.
+ *
+ * Events are delivered on the thread that made the change, after it has been applied. With ConcurrentInventory
+ * that may be any thread, and changes to the same entity are delivered in the order they were applied. Listeners
+ * should return quickly; a UI listener should queue the event and hand it to its own thread.
+ */
+@FunctionalInterface
+public interface InventoryListener {
+
+    void inventoryChanged(InventoryEvent event);
+}
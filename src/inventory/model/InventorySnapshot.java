@@ -0,0 +1,149 @@
+package inventory.model;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The parts and products of an inventory as they were at one moment.
+ *
+ * An inventory publishes a new snapshot with every change. Snapshots never change, so a report or export can read
+ * one for as long as it likes without locks, without blocking writers and without seeing a change half applied.
+ * Successive snapshots share all the entities and tree nodes they have in common, so publishing one costs O(log n).
+ *
+ * A snapshot holds the part and product objects that were stored at the time. Changes saved through updatePart() and
+ * updateProduct() replace those objects and so are not seen by older snapshots. A stored product refuses changes to
+ * its parts and sub-assemblies, and a part price change replaces the products using it with recosted copies, so the
+ * products of a snapshot keep the associations and cost they had when it was taken. Stored entities must still not be
+ * changed through their setters; copy one and save the copy instead.
+ */
+public final class InventorySnapshot {
+
+    static final InventorySnapshot EMPTY =
+            new InventorySnapshot(0, PersistentIntMap.<Part>empty(), PersistentIntMap.<Product>empty());
+
+    private final long version;
+    private final PersistentIntMap<Part> parts;
+    private final PersistentIntMap<Product> products;
+
+    private InventorySnapshot(long version, PersistentIntMap<Part> parts, PersistentIntMap<Product> products) {
+        this.version = version;
+        this.parts = parts;
+        this.products = products;
+    }
+
+    /**
+     * @return Number of changes published before this snapshot. A later snapshot of the same inventory has a larger
+     * version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param partID - partID to look up.
+     * @return Part matching the ID, else null.
+     */
+    public Part lookupPart(int partID) {
+        return parts.get(partID);
+    }
+
+    /**
+     * @param productID - productID to look up.
+     * @return Product matching the ID, else null.
+     */
+    public Product lookupProduct(int productID) {
+        return products.get(productID);
+    }
+
+    /**
+     * Get all parts.
+     * @return List<Part>
+     * @implNote The list is read only and in partID order, which is the order the parts were added.
+     */
+    public List<Part> getAllParts() {
+        return parts.values();
+    }
+
+    /**
+     * Get all products.
+     * @return List<Product>
+     * @implNote The list is read only and in productID order, which is the order the products were added.
+     */
+    public List<Product> getProducts() {
+        return products.values();
+    }
+
+    /**
+     * Get one page of parts, in getAllParts() order.
+     *
+     * @param offset - Position of the first part.
+     * @param limit - Largest number of parts to return.
+     * @return Up to limit parts starting at offset, empty past the end.
+     */
+    public List<Part> getParts(int offset, int limit) {
+        return parts.range(offset, limit);
+    }
+
+    /**
+     * Get one page of products, in getProducts() order.
+     *
+     * @param offset - Position of the first product.
+     * @param limit - Largest number of products to return.
+     * @return Up to limit products starting at offset, empty past the end.
+     */
+    public List<Product> getProducts(int offset, int limit) {
+        return products.range(offset, limit);
+    }
+
+    /**
+     * @param partID - partID to change.
+     * @param part - Part to store under it, null to remove it.
+     * @return The next snapshot.
+     */
+    InventorySnapshot withPart(int partID, Part part) {
+        return new InventorySnapshot(version + 1, parts.put(partID, part), products);
+    }
+
+    /**
+     * @param batch - Parts to store under their partIDs.
+     * @return The next snapshot.
+     */
+    InventorySnapshot withParts(Collection<Part> batch) {
+        return new InventorySnapshot(version + 1, parts.putAll(batch, Part::getPartID), products);
+    }
+
+    /**
+     * @param parts - Every part, in partID order.
+     * @return A snapshot of the same version with its parts replaced.
+     */
+    InventorySnapshot withAllParts(Collection<Part> parts) {
+        return new InventorySnapshot(version, PersistentIntMap.fromSorted(parts, Part::getPartID), products);
+    }
+
+    /**
+     * @param parts - Every part, in partID order.
+     * @param products - Every product, in productID order.
+     * @return The next snapshot, holding exactly those parts and products. Built in O(n) rather than by n puts.
+     */
+    InventorySnapshot withAll(Collection<Part> parts, Collection<Product> products) {
+        return new InventorySnapshot(version + 1, PersistentIntMap.fromSorted(parts, Part::getPartID),
+                PersistentIntMap.fromSorted(products, Product::getProductID));
+    }
+
+    /**
+     * @param productID - productID to change.
+     * @param product - Product to store under it, null to remove it.
+     * @return The next snapshot.
+     */
+    InventorySnapshot withProduct(int productID, Product product) {
+        return new InventorySnapshot(version + 1, parts, products.put(productID, product));
+    }
+
+    /**
+     * @param batch - Products to store under their productIDs.
+     * @return The next snapshot.
+     */
+    InventorySnapshot withProducts(Collection<Product> batch) {
+        return new InventorySnapshot(version + 1, parts, products.putAll(batch, Product::getProductID));
+    }
+}
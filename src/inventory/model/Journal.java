@@ -0,0 +1,66 @@
+package inventory.model;
+
+import java.util.Collection;
+
+/**
+ * Receives every Inventory mutation before it is applied.
+ *
+ * Inventory calls the journal first and only changes its state once the call returns, so a mutation that could not
+ * be recorded is never applied. Implementations signal failure with an unchecked exception.
+ * All methods do nothing by default.
+ */
+public interface Journal {
+
+    /**
+     * Journal that records nothing.
+     */
+    Journal NONE = new Journal() {
+    };
+
+    default void partAdded(Part part) {
+    }
+
+    default void partsAdded(Collection<Part> parts) {
+        parts.forEach(this::partAdded);
+    }
+
+    default void partUpdated(int partID, Part part) {
+    }
+
+    default void partDeleted(int partID) {
+    }
+
+    default void productAdded(Product product) {
+    }
+
+    default void productsAdded(Collection<Product> products) {
+        products.forEach(this::productAdded);
+    }
+
+    default void productUpdated(int productID, Product product) {
+    }
+
+    default void productRemoved(int productID) {
+    }
+
+    /**
+     * Called before the changes of a transaction are journaled. The calls that follow on the same thread, up to
+     * transactionCommitted() or transactionAborted(), are the changes of the transaction.
+     */
+    default void transactionBegun() {
+    }
+
+    /**
+     * Called once every change of a transaction has been journaled. Once this returns the transaction must be
+     * recorded as a whole, and replay must apply all of its changes or, if it was torn by a crash, none of them.
+     */
+    default void transactionCommitted() {
+    }
+
+    /**
+     * Called instead of transactionCommitted() when journaling a change of the transaction failed. None of its changes
+     * will be applied.
+     */
+    default void transactionAborted() {
+    }
+}
@@ -0,0 +1,170 @@
+package inventory.model;
+
+import java.util.Arrays;
+
+/**
+ * Trigram index over entity names for case insensitive "contains" searches.
+ *
+ * Names are upper cased once when they are indexed. Every three character window of a name maps to the IDs holding
+ * it, so a search only has to check the IDs under the rarest trigram of the query instead of every name.
+ * Candidates are confirmed with the same upper cased contains test the inventory has always used, so results are
+ * identical to a full scan.
+ */
+class NameIndex {
+
+    /**
+     * Length of the character windows that are indexed.
+     */
+    static final int GRAM = 3;
+
+    /**
+     * Upper cased names keyed by ID.
+     */
+    private final IntHashMap<String> names = new IntHashMap<>();
+
+    /**
+     * Trigram key to the IDs (and their upper cased names) containing that trigram.
+     */
+    private final IntHashMap<IntHashMap<String>> postings = new IntHashMap<>();
+
+    /**
+     * Index a name.
+     *
+     * @param id - ID of the entity.
+     * @param name - Name of the entity, may be null.
+     */
+    void add(int id, String name) {
+        String normalized = normalize(name);
+        names.put(id, normalized);
+
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            int gram = gram(normalized, i);
+            IntHashMap<String> ids = postings.get(gram);
+
+            if (ids == null) {
+                ids = new IntHashMap<>(2);
+                postings.put(gram, ids);
+            }
+            ids.put(id, normalized);
+        }
+    }
+
+    /**
+     * Remove an ID from the index.
+     *
+     * @param id - ID of the entity.
+     */
+    void remove(int id) {
+        String normalized = names.remove(id);
+
+        if (normalized == null) {
+            return;
+        }
+
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            int gram = gram(normalized, i);
+            IntHashMap<String> ids = postings.get(gram);
+
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-index an ID under a new name.
+     *
+     * @param id - ID of the entity.
+     * @param name - New name of the entity, may be null.
+     */
+    void update(int id, String name) {
+        String current = names.get(id);
+
+        // Nothing to do when the name did not change.
+        if (current != null && current.equals(normalize(name))) {
+            return;
+        }
+
+        remove(id);
+        add(id, name);
+    }
+
+    /**
+     * Find the IDs whose name contains the query, ignoring case.
+     *
+     * @param query - Text to search for.
+     * @return Matching IDs in ascending order.
+     * @implNote Queries shorter than the trigram length fall back to checking every indexed name.
+     */
+    int[] search(String query) {
+        String normalized = normalize(query);
+        Matches matches = new Matches(normalized);
+
+        if (normalized.length() < GRAM) {
+            names.forEach(matches);
+            return matches.sorted();
+        }
+
+        // Walk the rarest trigram of the query; any trigram missing entirely means nothing can match.
+        IntHashMap<String> rarest = null;
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            IntHashMap<String> ids = postings.get(gram(normalized, i));
+
+            if (ids == null) {
+                return new int[0];
+            }
+            if (rarest == null || ids.size() < rarest.size()) {
+                rarest = ids;
+            }
+        }
+
+        rarest.forEach(matches);
+        return matches.sorted();
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toUpperCase();
+    }
+
+    /**
+     * Pack the trigram starting at the given offset into an int key.
+     * Keys are exact for Latin-1 text; other characters may share keys, which only adds candidates.
+     */
+    private static int gram(String s, int offset) {
+        return (s.charAt(offset) << 16) ^ (s.charAt(offset + 1) << 8) ^ s.charAt(offset + 2);
+    }
+
+    /**
+     * Collects the IDs whose name contains the query.
+     */
+    private static class Matches implements IntHashMap.EntryConsumer<String> {
+        private final String query;
+        private int[] ids = new int[16];
+        private int count;
+
+        Matches(String query) {
+            this.query = query;
+        }
+
+        @Override
+        public void accept(int id, String name) {
+            if (!name.contains(query)) {
+                return;
+            }
+
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        int[] sorted() {
+            int[] result = Arrays.copyOf(ids, count);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -10,4 +10,11 @@ public class Outsourced extends Part {
     public void setCompanyName(String companyName) {
         this.companyName = companyName;
     }
+
+    @Override
+    public Outsourced copy() {
+        Outsourced part = copyInto(new Outsourced());
+        part.setCompanyName(companyName);
+        return part;
+    }
 }
@@ -58,4 +58,27 @@ public abstract class Part {
     public void setMax(int max) {
         this.max = max;
     }
+
+    /**
+     * Copy this part, including its partID.
+     *
+     * @return A new part of the same type with the same values.
+     */
+    public abstract Part copy();
+
+    /**
+     * Copy the values common to all parts into another part.
+     *
+     * @param part - Part to copy into.
+     * @return The part copied into.
+     */
+    protected <T extends Part> T copyInto(T part) {
+        part.setPartID(partID);
+        part.setName(name);
+        part.setPrice(price);
+        part.setInStock(inStock);
+        part.setMin(min);
+        part.setMax(max);
+        return part;
+    }
 }
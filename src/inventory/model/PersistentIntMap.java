@@ -0,0 +1,423 @@
+package inventory.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable map from primitive int keys to values, sorted by key.
+ *
+ * put and remove return a new map and leave this one as it was. The two share every node except the O(log n) on the
+ * path to the changed key, so keeping old versions around is cheap and reading one never needs a lock. The nodes form
+ * a height balanced (AVL) tree that also counts the entries below each node, so the entry at a position is found in
+ * O(log n) and a run of entries starting at a position is copied in O(log n + run).
+ *
+ * @param <V> - Type of the mapped values.
+ * @implNote Thread safe, instances never change. Values are shared, not copied.
+ */
+public final class PersistentIntMap<V> {
+
+    private static final PersistentIntMap<Object> EMPTY = new PersistentIntMap<>(null);
+
+    private final Node<V> root;
+
+    private PersistentIntMap(Node<V> root) {
+        this.root = root;
+    }
+
+    /**
+     * @return The map with no entries.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    /**
+     * Build a map from values already in ascending key order, in O(n).
+     *
+     * @param values - Values in ascending key order with no key repeated.
+     * @param keyOf - Gives the key of a value.
+     * @return A new map.
+     * @throws IllegalArgumentException if the keys are not strictly ascending.
+     */
+    public static <V> PersistentIntMap<V> fromSorted(Collection<? extends V> values, ToIntFunction<? super V> keyOf) {
+        List<V> sorted = new ArrayList<>(values);
+        int[] keys = sortedKeys(sorted, keyOf);
+        if (keys == null) {
+            throw new IllegalArgumentException("Keys must be in strictly ascending order");
+        }
+        return new PersistentIntMap<>(build(keys, sorted, 0, keys.length));
+    }
+
+    /**
+     * Look up the value mapped to a key.
+     *
+     * @param key - Key to look up.
+     * @return The mapped value, else null.
+     */
+    public V get(int key) {
+        Node<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param key - Key to check.
+     * @return true if the key is mapped.
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Map a key to a value.
+     *
+     * @param key - Key to map.
+     * @param value - Value to map it to, null removes the key.
+     * @return A map with the key mapped, or this map if it already maps the key to this value.
+     */
+    public PersistentIntMap<V> put(int key, V value) {
+        if (value == null) {
+            return remove(key);
+        }
+
+        Node<V> updated = put(root, key, value);
+        return updated == root ? this : new PersistentIntMap<>(updated);
+    }
+
+    /**
+     * Map the keys of a batch of values to the values.
+     *
+     * @param values - Values to map.
+     * @param keyOf - Gives the key of a value.
+     * @return A map with every value mapped.
+     * @implNote A batch whose keys ascend and all come after the last key, such as entities with freshly allocated
+     * IDs, is built into a balanced tree and joined on in O(batch + log n). Any other batch is put one at a time.
+     */
+    public PersistentIntMap<V> putAll(Collection<? extends V> values, ToIntFunction<? super V> keyOf) {
+        if (values.isEmpty()) {
+            return this;
+        }
+
+        List<V> batch = new ArrayList<>(values);
+        int[] keys = sortedKeys(batch, keyOf);
+        if (keys == null || (root != null && keys[0] <= last(root).key)) {
+            PersistentIntMap<V> map = this;
+            for (V value : batch) {
+                map = map.put(keyOf.applyAsInt(value), value);
+            }
+            return map;
+        }
+
+        // The first entry of the batch becomes the join point between the existing tree and the rest of the batch.
+        Node<V> rest = build(keys, batch, 1, keys.length);
+        return new PersistentIntMap<>(join(root, keys[0], batch.get(0), rest));
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key - Key to remove.
+     * @return A map without the key, or this map if the key was not mapped.
+     */
+    public PersistentIntMap<V> remove(int key) {
+        Node<V> updated = remove(root, key);
+        return updated == root ? this : new PersistentIntMap<>(updated);
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Get the value at a position in key order.
+     *
+     * @param index - Position of the entry.
+     * @return The value.
+     */
+    public V valueAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        Node<V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * Copy out a run of values in key order.
+     *
+     * @param offset - Position of the first value.
+     * @param limit - Largest number of values to return.
+     * @return Up to limit values starting at offset, empty past the end.
+     */
+    public List<V> range(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+
+        int count = (int) Math.min(limit, Math.max((long) size() - offset, 0));
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<V> run = new ArrayList<>(count);
+        Iterator<V> values = new ValueIterator<>(root, offset);
+        while (run.size() < count) {
+            run.add(values.next());
+        }
+        return run;
+    }
+
+    /**
+     * Get the values as a list.
+     * @return List<V>
+     * @implNote The list is a read only view in key order and never changes. Iteration is O(1) per value,
+     * get(index) is O(log n).
+     */
+    public List<V> values() {
+        return new ValuesView();
+    }
+
+    private static <V> int size(Node<V> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <V> int height(Node<V> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <V> Node<V> last(Node<V> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    private static <V> Node<V> put(Node<V> node, int key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+
+        if (key < node.key) {
+            Node<V> left = put(node.left, key, value);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (key > node.key) {
+            Node<V> right = put(node.right, key, value);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        return value == node.value ? node : new Node<>(key, value, node.left, node.right);
+    }
+
+    private static <V> Node<V> remove(Node<V> node, int key) {
+        if (node == null) {
+            return null;
+        }
+
+        if (key < node.key) {
+            Node<V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (key > node.key) {
+            Node<V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+
+        // Replace the removed entry with its successor.
+        Node<V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, remove(node.right, successor.key));
+    }
+
+    /**
+     * Join two trees and an entry whose key lies between them, in O(difference in height).
+     */
+    private static <V> Node<V> join(Node<V> left, int key, V value, Node<V> right) {
+        if (height(left) > height(right) + 1) {
+            return balance(left.key, left.value, left.left, join(left.right, key, value, right));
+        }
+        if (height(right) > height(left) + 1) {
+            return balance(right.key, right.value, join(left, key, value, right.left), right.right);
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    /**
+     * Build a node from subtrees whose heights differ by at most two, rotating to restore balance.
+     */
+    private static <V> Node<V> balance(int key, V value, Node<V> left, Node<V> right) {
+        int difference = height(left) - height(right);
+
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<V> pivot = left.right;
+            return new Node<>(pivot.key, pivot.value,
+                    new Node<>(left.key, left.value, left.left, pivot.left),
+                    new Node<>(key, value, pivot.right, right));
+        }
+
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<V> pivot = right.left;
+            return new Node<>(pivot.key, pivot.value,
+                    new Node<>(key, value, left, pivot.left),
+                    new Node<>(right.key, right.value, pivot.right, right.right));
+        }
+
+        return new Node<>(key, value, left, right);
+    }
+
+    /**
+     * Build a perfectly balanced tree from entries from to to - 1 of sorted keys and values.
+     */
+    private static <V> Node<V> build(int[] keys, List<V> values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+
+        int middle = (from + to) >>> 1;
+        return new Node<>(keys[middle], values.get(middle),
+                build(keys, values, from, middle), build(keys, values, middle + 1, to));
+    }
+
+    /**
+     * @return The keys of the values, else null if they do not strictly ascend.
+     */
+    private static <V> int[] sortedKeys(List<V> values, ToIntFunction<? super V> keyOf) {
+        int[] keys = new int[values.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keyOf.applyAsInt(values.get(i));
+            if (i > 0 && keys[i] <= keys[i - 1]) {
+                return null;
+            }
+        }
+        return keys;
+    }
+
+    private static class Node<V> {
+        final int key;
+        final V value;
+        final Node<V> left;
+        final Node<V> right;
+        final int height;
+        final int size;
+
+        Node(int key, V value, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    /**
+     * In order iterator that keeps the path to the next node on a stack.
+     */
+    private static class ValueIterator<V> implements Iterator<V> {
+
+        /**
+         * Nodes whose value and right subtree are still to be visited, the next one last. An AVL tree of 2^31
+         * entries is under 48 levels deep.
+         */
+        @SuppressWarnings("unchecked")
+        private final Node<V>[] stack = (Node<V>[]) new Node<?>[48];
+        private int depth;
+
+        ValueIterator(Node<V> root, int offset) {
+            Node<V> node = root;
+            while (node != null) {
+                int leftSize = size(node.left);
+                if (offset < leftSize) {
+                    stack[depth++] = node;
+                    node = node.left;
+                } else if (offset > leftSize) {
+                    offset -= leftSize + 1;
+                    node = node.right;
+                } else {
+                    stack[depth++] = node;
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public V next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+
+            Node<V> node = stack[--depth];
+            for (Node<V> next = node.right; next != null; next = next.left) {
+                stack[depth++] = next;
+            }
+            return node.value;
+        }
+    }
+
+    private class ValuesView extends AbstractList<V> {
+
+        @Override
+        public V get(int index) {
+            return valueAt(index);
+        }
+
+        @Override
+        public int size() {
+            return PersistentIntMap.this.size();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator<>(root, 0);
+        }
+    }
+}
@@ -1,11 +1,42 @@
 package inventory.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
+/**
+ * A product built from parts and, optionally, other products used as sub-assemblies.
+ *
+ * Once a product is stored in an inventory it is never changed in place: snapshots, the name index and the below cost
+ * list may hold it. Every mutator throws IllegalStateException from then on, its fields, associations and
+ * sub-assemblies can only be changed on a copy() saved with Inventory.updateProduct(), and the inventory replaces it
+ * with a recosted copy when a part price changes.
+ */
 public class Product {
-    private List<Part> associatedParts = new ArrayList<>();
+
+    /**
+     * Quantity of each associated part keyed by partID, in the order the parts were first associated.
+     */
+    private final IntIntHashMap partQuantities = new IntIntHashMap(4);
+
+    /**
+     * Associated parts this product cannot resolve through an inventory, keyed by partID. Null when there are none.
+     * Parts the inventory holds are always read from it, so the product sees every update to them.
+     */
+    private IntHashMap<Part> detachedParts;
+
+    /**
+     * Quantity of each sub-assembly keyed by productID, in the order they were first added. Null when there are none.
+     * Sub-assemblies are other products and are always looked up through the inventory.
+     */
+    private IntIntHashMap subassemblies;
+
+    /**
+     * Sub-assemblies this product cannot resolve through an inventory, kept so they can be costed, same as
+     * detachedParts. Null when there are none.
+     */
+    private IntHashMap<Product> detachedSubassemblies;
+
     private int productID;
     private String name;
     private double price = -1;
@@ -13,12 +44,40 @@ public class Product {
     private int min = -1;
     private int max = -1;
 
+    /**
+     * The inventory this product was stored in, null until it is added. Parts are resolved through it.
+     */
+    private Inventory inventory;
+
+    /**
+     * Total price of the associated parts when the inventory stored the product.
+     */
+    private volatile double partCost;
+
     /**
      * Method to add an associated part to the product.
      * @param part - The part to associate.
      */
     public void addAssociatedPart(Part part) {
-        associatedParts.add(part);
+        addAssociatedPart(part, 1);
+    }
+
+    /**
+     * Associate a number of a part to the product, on top of any already associated.
+     *
+     * @param part - The part to associate.
+     * @param quantity - How many of the part the product uses, at least 1.
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
+    public void addAssociatedPart(Part part, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be at least 1");
+        }
+        checkNotStored();
+
+        int partID = part.getPartID();
+        partQuantities.add(partID, quantity);
+        keepDetached(partID, part);
     }
 
     /**
@@ -28,17 +87,21 @@ public class Product {
      *
      * @param partID - The partID to remove the association for.
      * @return true if success, false if part wasn't associated.
+     * @throws IllegalStateException if the product is stored in an inventory.
+     * @implNote Removes one of the part, a part associated several times stays associated with one less.
      */
     public boolean removeAssociatedPart(int partID) {
-        Optional<Part> part = associatedParts.stream()
-                .filter(p -> p.getPartID() == partID)
-                .findFirst();
+        checkNotStored();
 
-        if (!part.isPresent()) {
+        int quantity = partQuantities.get(partID);
+        if (quantity == 0) {
             return false;
         }
 
-        associatedParts.remove(part.get());
+        partQuantities.put(partID, quantity - 1);
+        if (quantity == 1 && detachedParts != null) {
+            detachedParts.remove(partID);
+        }
         return true;
     }
 
@@ -49,20 +112,363 @@ public class Product {
      * @return Part matching partID.
      */
     public Part lookupAssociatedPart(int partID) {
-        return associatedParts.stream()
-                .filter(part -> part.getPartID() == partID)
-                .findFirst().orElse(null);
+        return partQuantities.containsKey(partID) ? resolve(partID) : null;
+    }
+
+    /**
+     * @param partID - Part ID to look up.
+     * @return How many of the part the product uses, 0 if it is not associated.
+     */
+    public int getPartQuantity(int partID) {
+        return partQuantities.get(partID);
+    }
+
+    /**
+     * @return true if at least one part is associated.
+     */
+    public boolean hasAssociatedParts() {
+        return !partQuantities.isEmpty();
+    }
+
+    /**
+     * Use a number of another product as a sub-assembly of this one, on top of any already used.
+     *
+     * @param productID - productID of the sub-assembly.
+     * @param quantity - How many of the sub-assembly the product uses, at least 1.
+     * @throws IllegalArgumentException if the sub-assembly is this product.
+     * @throws IllegalStateException if the product is stored in an inventory.
+     * @implNote Only a product using itself is refused here. The inventory checks the sub-assemblies exist and do not
+     * use this product when the product is saved.
+     */
+    public void addSubassembly(int productID, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be at least 1");
+        }
+        if (productID == this.productID && productID != 0) {
+            throw new IllegalArgumentException("A product can not be a sub-assembly of itself");
+        }
+        checkNotStored();
+
+        if (subassemblies == null) {
+            subassemblies = new IntIntHashMap(2);
+        }
+        subassemblies.add(productID, quantity);
+    }
+
+    /**
+     * Use a number of another product as a sub-assembly of this one, same as addSubassembly(int, int). The product is
+     * kept until this one is stored, so its cost counts towards getPartCost() outside an inventory.
+     *
+     * @param subassembly - The sub-assembly.
+     * @param quantity - How many of the sub-assembly the product uses, at least 1.
+     */
+    public void addSubassembly(Product subassembly, int quantity) {
+        addSubassembly(subassembly.getProductID(), quantity);
+
+        if (detachedSubassemblies == null) {
+            detachedSubassemblies = new IntHashMap<>(2);
+        }
+        detachedSubassemblies.put(subassembly.getProductID(), subassembly);
+    }
+
+    /**
+     * Stop using a product as a sub-assembly, whatever its quantity.
+     *
+     * @param productID - productID of the sub-assembly.
+     * @return true if success, false if the product was not a sub-assembly.
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
+    public boolean removeSubassembly(int productID) {
+        checkNotStored();
+
+        if (subassemblies == null || !subassemblies.containsKey(productID)) {
+            return false;
+        }
+
+        subassemblies.remove(productID);
+        if (subassemblies.isEmpty()) {
+            subassemblies = null;
+        }
+        if (detachedSubassemblies != null) {
+            detachedSubassemblies.remove(productID);
+        }
+        return true;
+    }
+
+    /**
+     * This method looks up a sub-assembly by ID.
+     *
+     * @param productID - productID to look up.
+     * @return The sub-assembly as the inventory holds it, else as it was added, else null.
+     */
+    public Product lookupSubassembly(int productID) {
+        if (getSubassemblyQuantity(productID) == 0) {
+            return null;
+        }
+
+        Product subassembly = inventory == null ? null : inventory.lookupProduct(productID);
+        if (subassembly == null && detachedSubassemblies != null) {
+            subassembly = detachedSubassemblies.get(productID);
+        }
+        return subassembly;
+    }
+
+    /**
+     * @param productID - productID to look up.
+     * @return How many of the product this one uses as a sub-assembly, 0 if none.
+     */
+    public int getSubassemblyQuantity(int productID) {
+        return subassemblies == null ? 0 : subassemblies.get(productID);
+    }
+
+    /**
+     * @return productIDs of the sub-assemblies, each once, in the order they were first added.
+     */
+    public int[] getSubassemblyIDs() {
+        if (subassemblies == null) {
+            return new int[0];
+        }
+
+        int[] productIDs = new int[subassemblies.size()];
+        for (int i = 0; i < productIDs.length; i++) {
+            productIDs[i] = subassemblies.keyAt(i);
+        }
+        return productIDs;
+    }
+
+    /**
+     * @return true if the product uses at least one sub-assembly.
+     */
+    public boolean hasSubassemblies() {
+        return subassemblies != null;
     }
 
+    /**
+     * Get the associated parts, each listed once per unit of its quantity.
+     *
+     * @return A new read only list, in the order the parts were first associated.
+     * @implNote Parts are resolved through the inventory so the list holds them as they are now. A part that can no
+     * longer be resolved, because it was deleted from the inventory, is left out.
+     */
     public List<Part> getAssociatedParts() {
-        return associatedParts;
+        List<Part> parts = new ArrayList<>(partQuantities.size());
+        for (int i = 0; i < partQuantities.size(); i++) {
+            Part part = resolve(partQuantities.keyAt(i));
+            if (part != null) {
+                for (int unit = partQuantities.valueAt(i); unit > 0; unit--) {
+                    parts.add(part);
+                }
+            }
+        }
+        return Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * Copy this product, including its productID, associations and sub-assemblies, outside any inventory.
+     *
+     * @return A new product with the same values.
+     */
+    public Product copy() {
+        Product product = new Product();
+        product.setProductID(productID);
+        product.setName(name);
+        product.setPrice(price);
+        product.setInStock(inStock);
+        product.setMin(min);
+        product.setMax(max);
+
+        for (int i = 0; i < partQuantities.size(); i++) {
+            Part part = resolve(partQuantities.keyAt(i));
+            if (part != null) {
+                product.addAssociatedPart(part, partQuantities.valueAt(i));
+            }
+        }
+
+        if (subassemblies != null) {
+            for (int i = 0; i < subassemblies.size(); i++) {
+                Product subassembly = lookupSubassembly(subassemblies.keyAt(i));
+                if (subassembly != null) {
+                    product.addSubassembly(subassembly, subassemblies.valueAt(i));
+                } else {
+                    product.addSubassembly(subassemblies.keyAt(i), subassemblies.valueAt(i));
+                }
+            }
+        }
+        return product;
+    }
+
+    /**
+     * @return partIDs of the associated parts, each once, in the order they were first associated. Their quantities
+     * are read with getPartQuantity().
+     */
+    public int[] getPartIDs() {
+        int[] partIDs = new int[partQuantities.size()];
+        for (int i = 0; i < partIDs.length; i++) {
+            partIDs[i] = partQuantities.keyAt(i);
+        }
+        return partIDs;
+    }
+
+    /**
+     * Get the associated partIDs without resolving the parts, each listed once per unit of its quantity.
+     *
+     * @return partIDs in the order the parts were first associated.
+     */
+    public int[] getAssociatedPartIDs() {
+        int units = 0;
+        for (int i = 0; i < partQuantities.size(); i++) {
+            units += partQuantities.valueAt(i);
+        }
+
+        int[] partIDs = new int[units];
+        int next = 0;
+        for (int i = 0; i < partQuantities.size(); i++) {
+            for (int unit = partQuantities.valueAt(i); unit > 0; unit--) {
+                partIDs[next++] = partQuantities.keyAt(i);
+            }
+        }
+        return partIDs;
+    }
+
+    /**
+     * Get the associated partIDs and quantities. Callers must not change the map.
+     *
+     * @return IntIntHashMap
+     */
+    IntIntHashMap getPartQuantities() {
+        return partQuantities;
+    }
+
+    /**
+     * Get the total price of the associated parts and of the parts of every sub-assembly, counting each once per unit
+     * of its quantity.
+     *
+     * @return Part cost of the product.
+     * @implNote In an inventory the cost is computed when the product is stored, using each part and sub-assembly as
+     * it is stored in the inventory, and a price change of any part below it stores a recosted copy. Outside one it
+     * is summed on every call from the associated parts and the cost of the sub-assemblies it was given as products,
+     * a sub-assembly added by productID alone counts nothing.
+     */
+    public double getPartCost() {
+        if (inventory == null) {
+            double total = 0;
+            for (int i = 0; i < partQuantities.size(); i++) {
+                Part part = resolve(partQuantities.keyAt(i));
+                if (part != null) {
+                    total += partQuantities.valueAt(i) * part.getPrice();
+                }
+            }
+            if (detachedSubassemblies != null) {
+                for (int i = 0; i < subassemblies.size(); i++) {
+                    Product subassembly = detachedSubassemblies.get(subassemblies.keyAt(i));
+                    if (subassembly != null) {
+                        total += subassemblies.valueAt(i) * subassembly.getPartCost();
+                    }
+                }
+            }
+            return total;
+        }
+        return partCost;
+    }
+
+    /**
+     * Set the part cost. Only called by the inventory as it stores the product.
+     */
+    void setPartCost(double partCost) {
+        this.partCost = partCost;
+    }
+
+    /**
+     * @return true if the product has a price and it is less than the cost of its parts.
+     */
+    public boolean isPricedBelowCost() {
+        return price >= 0 && price < getPartCost();
+    }
+
+    Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Store the product in an inventory. Called by the inventory before the product is published, so the product is
+     * still private to the caller. It stays with the inventory once it is removed, readers of old snapshots may hold it.
+     *
+     * @param inventory - The inventory.
+     * @throws IllegalStateException if the product was stored in another inventory.
+     */
+    void setInventory(Inventory inventory) {
+        if (this.inventory == inventory) {
+            return;
+        }
+        if (this.inventory != null) {
+            throw new IllegalStateException("Product " + productID + " is stored in another inventory, add a copy()");
+        }
+
+        // Parts the inventory holds resolve through it from now on.
+        if (detachedParts != null) {
+            for (int i = 0; i < partQuantities.size(); i++) {
+                int partID = partQuantities.keyAt(i);
+                if (!Double.isNaN(inventory.partPrice(partID))) {
+                    detachedParts.remove(partID);
+                }
+            }
+            if (detachedParts.isEmpty()) {
+                detachedParts = null;
+            }
+        }
+
+        // Readers on any thread address the entries by position from now on.
+        partQuantities.compact();
+        if (subassemblies != null) {
+            subassemblies.compact();
+        }
+
+        // The inventory costs its own products, it only falls back on the ones it does not hold.
+        if (detachedSubassemblies != null) {
+            for (int productID : getSubassemblyIDs()) {
+                if (inventory.lookupProduct(productID) != null) {
+                    detachedSubassemblies.remove(productID);
+                }
+            }
+            if (detachedSubassemblies.isEmpty()) {
+                detachedSubassemblies = null;
+            }
+        }
+
+        this.inventory = inventory;
+    }
+
+    private void checkNotStored() {
+        if (inventory != null) {
+            throw new IllegalStateException("Product " + productID
+                    + " is stored in an inventory, change a copy() and save it with updateProduct()");
+        }
+    }
+
+    private void keepDetached(int partID, Part part) {
+        if (detachedParts == null) {
+            detachedParts = new IntHashMap<>(2);
+        }
+        detachedParts.put(partID, part);
+    }
+
+    private Part resolve(int partID) {
+        Part part = inventory == null ? null : inventory.lookupPart(partID);
+        if (part == null && detachedParts != null) {
+            part = detachedParts.get(partID);
+        }
+        return part;
     }
 
     public int getProductID() {
         return productID;
     }
 
+    /**
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
     public void setProductID(int productID) {
+        checkNotStored();
         this.productID = productID;
     }
 
@@ -70,7 +476,11 @@ public class Product {
         return name;
     }
 
+    /**
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
     public void setName(String name) {
+        checkNotStored();
         this.name = name;
     }
 
@@ -78,7 +488,11 @@ public class Product {
         return price;
     }
 
+    /**
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
     public void setPrice(double price) {
+        checkNotStored();
         this.price = price;
     }
 
@@ -86,7 +500,11 @@ public class Product {
         return inStock;
     }
 
+    /**
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
     public void setInStock(int inStock) {
+        checkNotStored();
         this.inStock = inStock;
     }
 
@@ -94,7 +512,11 @@ public class Product {
         return min;
     }
 
+    /**
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
     public void setMin(int min) {
+        checkNotStored();
         this.min = min;
     }
 
@@ -102,7 +524,11 @@ public class Product {
         return max;
     }
 
+    /**
+     * @throws IllegalStateException if the product is stored in an inventory.
+     */
     public void setMax(int max) {
+        checkNotStored();
         this.max = max;
     }
 }
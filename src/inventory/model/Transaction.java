@@ -0,0 +1,401 @@
+package inventory.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A batch of part and product changes that is applied to an inventory all together or not at all.
+ *
+ * Get one from Inventory.newTransaction(), add changes in the order they should be applied, then commit(). Every
+ * change is checked first, with the Validation rules and against the inventory as it is, and if any change fails
+ * nothing is applied. Otherwise the changes are journaled as one unit, applied under one short lock and published in
+ * one snapshot, so readers of Inventory.getSnapshot() see all of them or none. Listeners are told about each change
+ * once all of them are applied.
+ *
+ * Added parts and products get their IDs as they are added to the transaction, so a product added or updated in the
+ * same transaction can use an added part. The IDs of a transaction that is not committed are not reused.
+ *
+ * @implNote Not thread safe. A transaction is committed at most once.
+ */
+public class Transaction {
+
+    enum Kind {
+        ADD_PART("Add part"),
+        UPDATE_PART("Update part"),
+        DELETE_PART("Delete part"),
+        ADJUST_PART("Adjust part"),
+        ADD_PRODUCT("Add product"),
+        UPDATE_PRODUCT("Update product"),
+        REMOVE_PRODUCT("Remove product"),
+        ADJUST_PRODUCT("Adjust product");
+
+        final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        boolean isPart() {
+            return ordinal() <= ADJUST_PART.ordinal();
+        }
+    }
+
+    /**
+     * One change. Part changes carry a part, product changes a product, deletes neither.
+     */
+    static final class Change {
+        final Kind kind;
+        final int id;
+        final Part part;
+        final Product product;
+        final int delta;
+
+        Change(Kind kind, int id, Part part, Product product, int delta) {
+            this.kind = kind;
+            this.id = id;
+            this.part = part;
+            this.product = product;
+            this.delta = delta;
+        }
+
+        @Override
+        public String toString() {
+            return kind.label + " " + id;
+        }
+    }
+
+    private final Inventory inventory;
+
+    private final List<Change> changes = new ArrayList<>();
+
+    private boolean committed;
+
+    Transaction(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Add a part. The part is given its partID now.
+     *
+     * @param part - The part to add.
+     * @return This transaction.
+     */
+    public Transaction addPart(Part part) {
+        part.setPartID(inventory.getPartIDs().next());
+        return add(new Change(Kind.ADD_PART, part.getPartID(), part, null, 0));
+    }
+
+    /**
+     * Replace a part.
+     *
+     * @param partID - partID to update.
+     * @param part - Part to replace it with. It is given the partID.
+     * @return This transaction.
+     */
+    public Transaction updatePart(int partID, Part part) {
+        part.setPartID(partID);
+        return add(new Change(Kind.UPDATE_PART, partID, part, null, 0));
+    }
+
+    /**
+     * Delete a part. Fails if a product still uses the part once the transaction's product changes are applied.
+     *
+     * @param partID - partID to delete.
+     * @return This transaction.
+     */
+    public Transaction deletePart(int partID) {
+        return add(new Change(Kind.DELETE_PART, partID, null, null, 0));
+    }
+
+    /**
+     * Change a part's inventory level by an amount. Fails if it would take the level below zero.
+     *
+     * @param partID - partID to adjust.
+     * @param delta - Amount to add to the inventory level, negative to take stock out.
+     * @return This transaction.
+     */
+    public Transaction adjustPartStock(int partID, int delta) {
+        return add(new Change(Kind.ADJUST_PART, partID, null, null, delta));
+    }
+
+    /**
+     * Add a product. The product is given its productID now.
+     *
+     * @param product - The product to add.
+     * @return This transaction.
+     * @throws IllegalStateException if the product is already stored, change a copy().
+     */
+    public Transaction addProduct(Product product) {
+        product.setProductID(inventory.getProductIDs().next());
+        return add(new Change(Kind.ADD_PRODUCT, product.getProductID(), null, product, 0));
+    }
+
+    /**
+     * Replace a product.
+     *
+     * @param productID - productID to update.
+     * @param product - Product to replace it with. It is given the productID.
+     * @return This transaction.
+     * @throws IllegalStateException if the product is already stored, change a copy().
+     */
+    public Transaction updateProduct(int productID, Product product) {
+        product.setProductID(productID);
+        return add(new Change(Kind.UPDATE_PRODUCT, productID, null, product, 0));
+    }
+
+    /**
+     * Remove a product.
+     *
+     * @param productID - productID to remove.
+     * @return This transaction.
+     */
+    public Transaction removeProduct(int productID) {
+        return add(new Change(Kind.REMOVE_PRODUCT, productID, null, null, 0));
+    }
+
+    /**
+     * Change a product's inventory level by an amount. Fails if it would take the level below zero.
+     *
+     * @param productID - productID to adjust.
+     * @param delta - Amount to add to the inventory level, negative to take stock out.
+     * @return This transaction.
+     */
+    public Transaction adjustProductStock(int productID, int delta) {
+        return add(new Change(Kind.ADJUST_PRODUCT, productID, null, null, delta));
+    }
+
+    /**
+     * @return Number of changes in the transaction.
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Check every change and apply them all, or none if any fails.
+     *
+     * @return List<String> of error messages, each naming its change, empty if the transaction was applied.
+     * @throws IllegalStateException if the transaction was already committed.
+     */
+    public List<String> commit() {
+        if (committed) {
+            throw new IllegalStateException("Transaction was already committed");
+        }
+        committed = true;
+        return inventory.commit(this);
+    }
+
+    /**
+     * Check the parts and products being added or updated with the Validation rules. Needs no lock, the rules only
+     * look at the entities themselves.
+     *
+     * @return List<String> of error messages, empty if every entity is valid.
+     */
+    List<String> validate() {
+        List<String> errors = new ArrayList<>();
+
+        for (Change change : changes) {
+            List<Violation> problems;
+            switch (change.kind) {
+                case ADD_PART:
+                case UPDATE_PART:
+                    problems = Validation.PARTS.validate(change.part);
+                    break;
+                case ADD_PRODUCT:
+                case UPDATE_PRODUCT:
+                    problems = Validation.PRODUCTS.validate(change.product);
+                    break;
+                default:
+                    problems = Collections.emptyList();
+            }
+
+            for (Violation problem : problems) {
+                errors.add(change + ": " + problem.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Check the changes against the inventory as it is now and work out what each one stores. Stock adjustments
+     * become updates of a copy of the entity with the new level. Call with the touched entities locked.
+     *
+     * @param errors - Receives a message for every change that cannot be applied.
+     * @return The changes to journal and apply, in order. Only adds, updates, deletes and removes.
+     */
+    List<Change> resolve(List<String> errors) {
+        List<Change> resolved = new ArrayList<>(changes.size());
+
+        // State as the transaction leaves it. A key mapped to null was deleted.
+        Map<Integer, Part> parts = new HashMap<>();
+        Map<Integer, Product> products = new HashMap<>();
+
+        for (Change change : changes) {
+            Change result = change;
+
+            switch (change.kind) {
+                case ADD_PART:
+                    parts.put(change.id, change.part);
+                    break;
+                case UPDATE_PART:
+                case DELETE_PART:
+                case ADJUST_PART: {
+                    Part current = parts.containsKey(change.id) ? parts.get(change.id) : inventory.lookupPart(change.id);
+                    if (current == null) {
+                        errors.add(change + ": Part does not exist.");
+                        continue;
+                    }
+
+                    if (change.kind == Kind.ADJUST_PART) {
+                        Part adjusted = current.copy();
+                        adjusted.setInStock(adjustedStock(change, current.getInStock(), errors));
+                        result = new Change(Kind.UPDATE_PART, change.id, adjusted, null, 0);
+                    }
+                    parts.put(change.id, result.part);
+                    break;
+                }
+                case ADD_PRODUCT:
+                    products.put(change.id, change.product);
+                    break;
+                default: {
+                    Product current = products.containsKey(change.id)
+                            ? products.get(change.id) : inventory.lookupProduct(change.id);
+                    if (current == null) {
+                        errors.add(change + ": Product does not exist.");
+                        continue;
+                    }
+
+                    if (change.kind == Kind.ADJUST_PRODUCT) {
+                        Product adjusted = current.copy();
+                        adjusted.setInStock(adjustedStock(change, current.getInStock(), errors));
+                        result = new Change(Kind.UPDATE_PRODUCT, change.id, null, adjusted, 0);
+                    }
+                    products.put(change.id, result.product);
+                }
+            }
+            resolved.add(result);
+        }
+
+        checkDeletedParts(parts, products, errors);
+        checkSubassemblies(products, errors);
+        return resolved;
+    }
+
+    /**
+     * @return partIDs the transaction touches, in no particular order.
+     */
+    int[] getPartIDs() {
+        return ids(true);
+    }
+
+    /**
+     * @return productIDs the transaction touches, in no particular order.
+     */
+    int[] getProductIDs() {
+        return ids(false);
+    }
+
+    private Transaction add(Change change) {
+        if (committed) {
+            throw new IllegalStateException("Transaction was already committed");
+        }
+        changes.add(change);
+        return this;
+    }
+
+    private static int adjustedStock(Change change, int inStock, List<String> errors) {
+        long stock = (long) inStock + change.delta;
+
+        if (stock < 0) {
+            errors.add(change + ": Only " + inStock + " in stock, can not take out " + -change.delta + ".");
+        } else if (stock > Integer.MAX_VALUE) {
+            errors.add(change + ": Inventory would exceed " + Integer.MAX_VALUE + ".");
+        }
+        return (int) Math.max(0, Math.min(stock, Integer.MAX_VALUE));
+    }
+
+    /**
+     * A part may only be deleted once no product uses it, same as deleting it from the main screen.
+     */
+    private void checkDeletedParts(Map<Integer, Part> parts, Map<Integer, Product> products, List<String> errors) {
+        for (Change change : changes) {
+            if (change.kind != Kind.DELETE_PART || !parts.containsKey(change.id) || parts.get(change.id) != null) {
+                continue;
+            }
+
+            List<Product> using = new ArrayList<>(inventory.getProductsContainingPart(change.id));
+            using.addAll(products.values());
+
+            for (Product product : using) {
+                if (product == null || product.getPartQuantity(change.id) == 0) {
+                    continue;
+                }
+
+                // A stored product counts as it will be after the transaction.
+                int productID = product.getProductID();
+                Product after = products.containsKey(productID) ? products.get(productID) : product;
+                if (after == product) {
+                    errors.add(change + ": Part is associated with product " + productID + ".");
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Every sub-assembly of an added or updated product must exist once the transaction is applied without forming a
+     * cycle, and a removed product must not be a sub-assembly of any product left.
+     */
+    private void checkSubassemblies(Map<Integer, Product> products, List<String> errors) {
+        IntFunction<Product> after = productID -> products.containsKey(productID)
+                ? products.get(productID) : inventory.lookupProduct(productID);
+
+        for (Change change : changes) {
+            if (change.kind == Kind.ADD_PRODUCT || change.kind == Kind.UPDATE_PRODUCT) {
+                Product product = change.product;
+                if (products.get(change.id) != product || !product.hasSubassemblies()) {
+                    continue;
+                }
+
+                for (int subassemblyID : product.getSubassemblyIDs()) {
+                    if (after.apply(subassemblyID) == null) {
+                        errors.add(change + ": Sub-assembly product " + subassemblyID + " does not exist.");
+                    }
+                }
+                List<Integer> cycle = BillOfMaterials.findCycle(change.id, after);
+                if (!cycle.isEmpty()) {
+                    errors.add(change + ": Products " + cycle + " would form a sub-assembly cycle.");
+                }
+            } else if (change.kind == Kind.REMOVE_PRODUCT && products.containsKey(change.id)
+                    && products.get(change.id) == null) {
+                List<Product> using = new ArrayList<>(inventory.getProductsUsingSubassembly(change.id));
+                using.addAll(products.values());
+
+                for (Product product : using) {
+                    // Only products that will still be stored, as they will be, count.
+                    if (product != null && product.getSubassemblyQuantity(change.id) > 0
+                            && after.apply(product.getProductID()) == product) {
+                        errors.add(change + ": Product is a sub-assembly of product " + product.getProductID() + ".");
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int[] ids(boolean part) {
+        int[] ids = new int[changes.size()];
+        int count = 0;
+        for (Change change : changes) {
+            if (change.kind.isPart() == part) {
+                ids[count++] = change.id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+}
@@ -0,0 +1,184 @@
+package inventory.model;
+
+import java.util.List;
+
+/**
+ * Validation rules for parts and products and the field parsing they rely on.
+ *
+ * Shared by the add/modify screens, the bulk importer, transactions and the HTTP API so all of them accept exactly the
+ * same data. The rules are built once into the PARTS and PRODUCTS validators and report typed Violations. A field
+ * whose text does not parse is reported by the parser as a violation of that field and left at its absent value, so
+ * no invalid marker value is stored on the part or product. The field checks are plain character loops equivalent to
+ * the patterns the forms used, so they can run per field on millions of rows.
+ */
+public final class Validation {
+
+    /**
+     * Value an optional min, max or machineID is stored as when it is not given.
+     */
+    public static final int ABSENT = -1;
+
+    public static final Violation MAX_INVALID = new Violation(Violation.Field.MAX,
+            "Maximum allowed is optional but when provided must be a positive integer.");
+    public static final Violation MIN_INVALID = new Violation(Violation.Field.MIN,
+            "Minimum allowed is optional but when provided must be an integer >= 0.");
+    public static final Violation MIN_ABOVE_MAX = new Violation(Violation.Field.MIN,
+            "Minimum allowed must be less than maximum allowed.");
+    public static final Violation IN_STOCK_INVALID = new Violation(Violation.Field.IN_STOCK,
+            "Inventory must be an integer >= 0.");
+    public static final Violation IN_STOCK_BELOW_MIN = new Violation(Violation.Field.IN_STOCK,
+            "Inventory must be greater than the minimum.");
+    public static final Violation IN_STOCK_ABOVE_MAX = new Violation(Violation.Field.IN_STOCK,
+            "Inventory must be less than the maximum.");
+    public static final Violation NAME_REQUIRED = new Violation(Violation.Field.NAME,
+            "Name is a required field.");
+    public static final Violation PART_PRICE_REQUIRED = new Violation(Violation.Field.PRICE,
+            "Price is a required decimal field.");
+    public static final Violation PRODUCT_PRICE_REQUIRED = new Violation(Violation.Field.PRICE,
+            "Price is a required field.");
+    public static final Violation PRICE_BELOW_COST = new Violation(Violation.Field.PRICE,
+            "Price of the product can not be less than the sum of part costs.");
+    public static final Violation MACHINE_ID_INVALID = new Violation(Violation.Field.MACHINE_ID,
+            "Machine ID is optional but if provided must be a positive integer.");
+    public static final Violation PARTS_REQUIRED = new Violation(Violation.Field.PARTS,
+            "Must have one or more parts or sub-assemblies associated to the product.");
+
+    /**
+     * Rules every part must pass.
+     */
+    public static final Validator<Part> PARTS = Validator.<Part>builder()
+            .rule(MAX_INVALID, part -> part.getMax() >= ABSENT)
+            .rule(MIN_INVALID, part -> part.getMin() >= ABSENT)
+            .rule(MIN_ABOVE_MAX, part -> part.getMin() < 0 || part.getMax() <= 0 || part.getMin() <= part.getMax())
+            .rule(IN_STOCK_INVALID, part -> part.getInStock() >= 0)
+            .rule(IN_STOCK_BELOW_MIN, part -> part.getMin() < 0 || part.getInStock() >= part.getMin())
+            .rule(IN_STOCK_ABOVE_MAX, part -> part.getMax() <= 0 || part.getInStock() <= part.getMax())
+            .rule(NAME_REQUIRED, part -> part.getName() != null && part.getName().length() > 0)
+            .rule(PART_PRICE_REQUIRED, part -> part.getPrice() >= 0)
+            .rule(MACHINE_ID_INVALID, part -> !(part instanceof Inhouse)
+                    || ((Inhouse) part).getMachineID() == ABSENT || ((Inhouse) part).getMachineID() > 0)
+            .build();
+
+    /**
+     * Rules every product must pass.
+     */
+    public static final Validator<Product> PRODUCTS = Validator.<Product>builder()
+            .rule(MAX_INVALID, product -> product.getMax() >= ABSENT)
+            .rule(MIN_INVALID, product -> product.getMin() >= ABSENT)
+            .rule(MIN_ABOVE_MAX, product -> product.getMin() <= product.getMax())
+            .rule(IN_STOCK_INVALID, product -> product.getInStock() >= 0)
+            .rule(IN_STOCK_BELOW_MIN, product -> product.getMin() < 0 || product.getInStock() >= product.getMin())
+            .rule(IN_STOCK_ABOVE_MAX, product -> product.getMax() <= 0 || product.getInStock() <= product.getMax())
+            .rule(PARTS_REQUIRED, product -> product.hasAssociatedParts() || product.hasSubassemblies())
+            .rule(NAME_REQUIRED, product -> product.getName() != null && product.getName().length() > 0)
+            .rule(PRODUCT_PRICE_REQUIRED, product -> product.getPrice() >= 0)
+
+            // Make sure that the product costs at least as much as the sum of the parts' cost.
+            .rule(PRICE_BELOW_COST, product -> !product.isPricedBelowCost())
+            .build();
+
+    private Validation() {
+    }
+
+    /**
+     * Equivalent to matching \d+.
+     *
+     * @param text - Text to check.
+     * @return true if the text is one or more ASCII digits.
+     */
+    public static boolean isInteger(CharSequence text) {
+        int length = text.length();
+        if (length == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Equivalent to matching [0-9]+\.?[0-9]*.
+     *
+     * @param text - Text to check.
+     * @return true if the text is a non negative decimal number.
+     */
+    public static boolean isDecimal(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == 0) {
+            return false;
+        }
+
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+        }
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i == length;
+    }
+
+    /**
+     * Parse an integer field.
+     *
+     * @param text - Text to parse.
+     * @param invalid - Value to return if the text is not an integer or does not fit in an int.
+     * @return The parsed value, else invalid.
+     */
+    public static int parseInteger(CharSequence text, int invalid) {
+        if (!isInteger(text)) {
+            return invalid;
+        }
+
+        long value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                return invalid;
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parse an integer field, reporting text that is not an integer.
+     *
+     * @param text - Text to parse.
+     * @param absent - Value to return for empty text.
+     * @param invalid - Violation to report if the text is not an integer or does not fit in an int.
+     * @param violations - Receives the violation.
+     * @return The parsed value, else absent.
+     */
+    public static int parseInteger(CharSequence text, int absent, Violation invalid, List<Violation> violations) {
+        if (text.length() == 0) {
+            return absent;
+        }
+
+        int value = parseInteger(text, Integer.MIN_VALUE);
+        if (value == Integer.MIN_VALUE) {
+            violations.add(invalid);
+            return absent;
+        }
+        return value;
+    }
+
+    /**
+     * Parse a price field.
+     *
+     * @param text - Text to parse.
+     * @param invalid - Value to return if the text is not a decimal number.
+     * @return The parsed value, else invalid.
+     */
+    public static double parseDecimal(CharSequence text, double invalid) {
+        return isDecimal(text) ? Double.parseDouble(text.toString()) : invalid;
+    }
+}
@@ -0,0 +1,86 @@
+package inventory.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The violations of each record in a batch checked by a Validator, by the record's index in the batch.
+ *
+ * Immutable.
+ */
+public final class ValidationReport {
+
+    /**
+     * Violations of each record, null for a valid one.
+     */
+    private final List<List<Violation>> violations;
+
+    /**
+     * Indexes of the invalid records, ascending.
+     */
+    private final int[] invalid;
+
+    ValidationReport(List<List<Violation>> violations) {
+        this.violations = violations;
+
+        int[] indexes = new int[16];
+        int count = 0;
+        for (int i = 0; i < violations.size(); i++) {
+            if (violations.get(i) != null) {
+                if (count == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, count * 2);
+                }
+                indexes[count++] = i;
+            }
+        }
+        this.invalid = Arrays.copyOf(indexes, count);
+    }
+
+    /**
+     * @return Number of records checked.
+     */
+    public int size() {
+        return violations.size();
+    }
+
+    /**
+     * @return true if every record is valid.
+     */
+    public boolean isValid() {
+        return invalid.length == 0;
+    }
+
+    /**
+     * @param index - Index of the record in the batch.
+     * @return true if the record is valid.
+     */
+    public boolean isValid(int index) {
+        return violations.get(index) == null;
+    }
+
+    public int getInvalidCount() {
+        return invalid.length;
+    }
+
+    /**
+     * @return Indexes of the invalid records, ascending.
+     */
+    public int[] getInvalidIndexes() {
+        return invalid.clone();
+    }
+
+    /**
+     * @param index - Index of the record in the batch.
+     * @return The record's violations in rule order, empty if it is valid.
+     */
+    public List<Violation> getViolations(int index) {
+        List<Violation> broken = violations.get(index);
+        return broken == null ? Collections.emptyList() : Collections.unmodifiableList(broken);
+    }
+
+    @Override
+    public String toString() {
+        return violations.size() + " records, " + invalid.length + " invalid";
+    }
+}
@@ -0,0 +1,168 @@
+package inventory.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * A fixed set of rules records of one type are checked against, built once and reused for every record.
+ *
+ * Each rule is a check paired with the Violation it reports, so checking a valid record allocates nothing. Batches
+ * are checked in parallel on a fork/join pool and reported per record. The rule sets for parts and products are
+ * Validation.PARTS and Validation.PRODUCTS.
+ *
+ * @param <T> - Type of record checked.
+ * @implNote Immutable and safe to share between threads, as long as the checks only read the record.
+ */
+public final class Validator<T> {
+
+    /**
+     * Records a fork/join task checks itself rather than splitting further.
+     */
+    private static final int BATCH_THRESHOLD = 1024;
+
+    private final List<Predicate<? super T>> checks;
+    private final List<Violation> violations;
+
+    private Validator(List<Predicate<? super T>> checks, List<Violation> violations) {
+        this.checks = new ArrayList<>(checks);
+        this.violations = new ArrayList<>(violations);
+    }
+
+    /**
+     * Start building a validator.
+     *
+     * @param <T> - Type of record checked.
+     * @return Builder
+     */
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Check one record against every rule.
+     *
+     * @param record - Record to check.
+     * @return List of the rules' violations in rule order, empty and shared if the record is valid.
+     */
+    public List<Violation> validate(T record) {
+        List<Violation> broken = null;
+        for (int i = 0; i < checks.size(); i++) {
+            if (!checks.get(i).test(record)) {
+                if (broken == null) {
+                    broken = new ArrayList<>(2);
+                }
+                broken.add(violations.get(i));
+            }
+        }
+        return broken == null ? Collections.emptyList() : broken;
+    }
+
+    /**
+     * @param record - Record to check.
+     * @return true if the record passes every rule.
+     */
+    public boolean isValid(T record) {
+        for (Predicate<? super T> check : checks) {
+            if (!check.test(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check a batch of records, split across the common fork/join pool.
+     *
+     * @param records - Records to check. Must not change while they are checked.
+     * @return ValidationReport with the violations of each record by its index.
+     */
+    public ValidationReport validateAll(List<? extends T> records) {
+        return validateAll(records, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Check a batch of records.
+     *
+     * @param records - Records to check. Must not change while they are checked.
+     * @param pool - Pool the batch is split across.
+     * @return ValidationReport with the violations of each record by its index.
+     */
+    public ValidationReport validateAll(List<? extends T> records, ForkJoinPool pool) {
+        List<List<Violation>> results = new ArrayList<>(Collections.nCopies(records.size(), null));
+        pool.invoke(new Batch(records, results, 0, results.size()));
+        return new ValidationReport(results);
+    }
+
+    /**
+     * Collects the rules of a Validator in the order they are checked and reported.
+     *
+     * @param <T> - Type of record checked.
+     */
+    public static final class Builder<T> {
+        private final List<Predicate<? super T>> checks = new ArrayList<>();
+        private final List<Violation> violations = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a rule.
+         *
+         * @param violation - Violation reported when the record fails the check.
+         * @param check - Returns true if the record passes.
+         * @return this
+         */
+        public Builder<T> rule(Violation violation, Predicate<? super T> check) {
+            checks.add(check);
+            violations.add(violation);
+            return this;
+        }
+
+        /**
+         * @return A validator with the rules added so far.
+         */
+        public Validator<T> build() {
+            return new Validator<>(checks, violations);
+        }
+    }
+
+    /**
+     * Checks a range of records into the matching range of a list, splitting it in half until the halves are
+     * small. Valid records leave their slot null.
+     */
+    private final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends T> records;
+        private final List<List<Violation>> results;
+        private final int from;
+        private final int to;
+
+        Batch(List<? extends T> records, List<List<Violation>> results, int from, int to) {
+            this.records = records;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    List<Violation> broken = validate(records.get(i));
+                    if (!broken.isEmpty()) {
+                        results.set(i, broken);
+                    }
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new Batch(records, results, from, middle), new Batch(records, results, middle, to));
+        }
+    }
+}
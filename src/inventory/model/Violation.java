@@ -0,0 +1,69 @@
+package inventory.model;
+
+/**
+ * A validation rule a part or product broke: the field it concerns and the message to show for it.
+ *
+ * Immutable. The violations Validation's rules report are shared constants, so they can be compared with ==.
+ */
+public final class Violation {
+
+    /**
+     * Field a violation concerns.
+     */
+    public enum Field {
+        NAME("name"),
+        PRICE("price"),
+        IN_STOCK("inStock"),
+        MIN("min"),
+        MAX("max"),
+        MACHINE_ID("machineID"),
+        COMPANY_NAME("companyName"),
+        PARTS("parts"),
+
+        /**
+         * The record as a whole, such as a row with the wrong number of columns.
+         */
+        RECORD("record");
+
+        private final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return Name of the field as the part and product properties and the JSON API call it.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Field field;
+    private final String message;
+
+    /**
+     * @param field - Field the violation concerns.
+     * @param message - Message to show.
+     */
+    public Violation(Field field, String message) {
+        this.field = field;
+        this.message = message;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The message.
+     */
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,988 @@
+package inventory.persistence;
+
+import inventory.model.IntHashMap;
+import inventory.model.Inventory;
+import inventory.model.Journal;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of Inventory mutations.
+ *
+ * Every mutation is encoded as one record and appended before Inventory applies it. Records from concurrent callers
+ * are group committed: the first caller to need a flush writes everything queued so far with one write and one
+ * fsync, and callers that queued in the meantime share it.
+ *
+ * The journal is folded down to one record per live entity whenever it has grown to twice its size after the
+ * previous compaction, so replay time stays proportional to the inventory rather than its history. Appends carry on
+ * while the journal is rewritten and are copied over before the rewritten file replaces it. A background compaction
+ * that fails leaves the journal as it was and is reported by close().
+ *
+ * File layout: magic, version, then records of [int length][byte type][payload][int crc32 of type and payload].
+ * A torn or corrupt record at the tail, left by a crash mid-write, is discarded on replay.
+ *
+ * The records of a transaction are written together between a begin and a commit record, with one write and one
+ * fsync. Replay applies them once it reaches the commit record, so a transaction torn by a crash is dropped whole,
+ * and the file is truncated back to its begin record so later records are never read as part of it.
+ */
+public class FileJournal implements Journal, Closeable {
+
+    /**
+     * When appended records are forced to disk.
+     */
+    public enum SyncPolicy {
+
+        /**
+         * Every append returns only once its record is on disk. Concurrent appends share one fsync.
+         */
+        ALWAYS,
+
+        /**
+         * Appends return once written to the OS. A background thread forces the file at the sync interval.
+         */
+        INTERVAL,
+
+        /**
+         * Appends return once written to the OS. Forcing is left to the OS.
+         */
+        NEVER
+    }
+
+    private static final int MAGIC = 0x494E564A;
+    private static final int VERSION = 2;
+
+    /**
+     * Oldest version that can still be read. Version 1 lacks transaction records, so it is upgraded in place.
+     */
+    private static final int MIN_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    static final byte PART_ADD = 1;
+    static final byte PART_UPDATE = 2;
+    static final byte PART_DELETE = 3;
+    static final byte PRODUCT_ADD = 4;
+    static final byte PRODUCT_UPDATE = 5;
+    static final byte PRODUCT_DELETE = 6;
+    static final byte SEQUENCES = 7;
+    static final byte TRANSACTION_BEGIN = 8;
+    static final byte TRANSACTION_COMMIT = 9;
+
+    /**
+     * Journals smaller than this are never compacted.
+     */
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final Path file;
+    private final SyncPolicy policy;
+    private final ScheduledExecutorService maintenance;
+    private final Object lock = new Object();
+
+    /**
+     * Held for the whole of a compaction, so only one runs at a time. Appends only wait on lock.
+     */
+    private final Object compactionLock = new Object();
+
+    private FileChannel channel;
+
+    /**
+     * Records queued for the next group commit, and the buffer the committing thread is writing out.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Sequence number of the last queued record and of the last record written out.
+     */
+    private long appended;
+    private long written;
+
+    /**
+     * True while a thread is writing a group commit.
+     */
+    private boolean committing;
+
+    /**
+     * Set once a write fails, all later appends fail with it.
+     */
+    private IOException failure;
+
+    /**
+     * Journal size right after the last compaction or open.
+     */
+    private long compactedSize;
+
+    /**
+     * Number of resets so far. A compaction that sees it change abandons its rewrite.
+     */
+    private long resets;
+
+    /**
+     * Why the last background compaction failed, null if it succeeded. Reported by close().
+     */
+    private IOException compactionFailure;
+
+    /**
+     * Records of the transaction the calling thread is journaling, each its type byte followed by its payload.
+     * Null when the thread is not in a transaction.
+     */
+    private final ThreadLocal<List<byte[]>> transaction = new ThreadLocal<>();
+
+    /**
+     * Open a journal that forces every append to disk.
+     *
+     * @param file - Journal file, created if missing.
+     * @throws IOException
+     */
+    public FileJournal(Path file) throws IOException {
+        this(file, SyncPolicy.ALWAYS, 1000, 60_000);
+    }
+
+    /**
+     * Open a journal.
+     *
+     * @param file - Journal file, created if missing.
+     * @param policy - When appended records are forced to disk.
+     * @param syncIntervalMillis - Interval between forces for SyncPolicy.INTERVAL.
+     * @param compactionCheckMillis - Interval between checks whether the journal should be compacted.
+     * @throws IOException
+     */
+    public FileJournal(Path file, SyncPolicy policy, long syncIntervalMillis, long compactionCheckMillis)
+            throws IOException {
+        this.file = file;
+        this.policy = policy;
+        this.channel = openChannel(file);
+        this.compactedSize = channel.size();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (policy == SyncPolicy.INTERVAL) {
+            maintenance.scheduleWithFixedDelay(this::forceQuietly, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        maintenance.scheduleWithFixedDelay(this::compactIfGrown, compactionCheckMillis, compactionCheckMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void partAdded(Part part) {
+        append(PART_ADD, out -> RecordCodec.writePart(out, part.getPartID(), part));
+    }
+
+    @Override
+    public void partsAdded(Collection<Part> parts) {
+        append(PART_ADD, parts, (out, part) -> RecordCodec.writePart(out, part.getPartID(), part));
+    }
+
+    @Override
+    public void partUpdated(int partID, Part part) {
+        append(PART_UPDATE, out -> RecordCodec.writePart(out, partID, part));
+    }
+
+    @Override
+    public void partDeleted(int partID) {
+        append(PART_DELETE, out -> out.writeInt(partID));
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        append(PRODUCT_ADD, out -> RecordCodec.writeProduct(out, product.getProductID(), product));
+    }
+
+    @Override
+    public void productsAdded(Collection<Product> products) {
+        append(PRODUCT_ADD, products, (out, product) -> RecordCodec.writeProduct(out, product.getProductID(), product));
+    }
+
+    @Override
+    public void productUpdated(int productID, Product product) {
+        append(PRODUCT_UPDATE, out -> RecordCodec.writeProduct(out, productID, product));
+    }
+
+    @Override
+    public void productRemoved(int productID) {
+        append(PRODUCT_DELETE, out -> out.writeInt(productID));
+    }
+
+    @Override
+    public void transactionBegun() {
+        transaction.set(new ArrayList<>());
+    }
+
+    /**
+     * @implNote The records are queued back to back between a begin and a commit record and committed with one
+     * write, so records of other threads never land inside the transaction.
+     */
+    @Override
+    public void transactionCommitted() {
+        List<byte[]> records = transaction.get();
+        transaction.remove();
+        if (records == null) {
+            throw new IllegalStateException("No transaction was begun on this thread");
+        }
+
+        long sequence;
+        synchronized (lock) {
+            queue(TRANSACTION_BEGIN, out -> out.writeInt(records.size()));
+            for (byte[] record : records) {
+                queue(record[0], record, 1, record.length - 1);
+            }
+            sequence = queue(TRANSACTION_COMMIT, out -> out.writeInt(records.size()));
+        }
+        commit(sequence);
+    }
+
+    @Override
+    public void transactionAborted() {
+        transaction.remove();
+    }
+
+    /**
+     * Apply every record in the journal to an inventory.
+     * Call this before setting the journal on the inventory so the replayed changes are not journaled again.
+     *
+     * @param inventory - Inventory to load into.
+     * @return Number of records replayed.
+     * @throws IOException
+     */
+    public long replay(Inventory inventory) throws IOException {
+        synchronized (lock) {
+            awaitIdle();
+            flushPending(false);
+
+            Replay replay = new Replay(inventory);
+            Transactions transactions = new Transactions(replay);
+            long validBytes = transactions.end(read(channel, channel.size(), transactions));
+
+            // Drop a torn tail, a torn transaction included, so new records are not appended after garbage or read
+            // back as part of a transaction that never committed.
+            if (validBytes < channel.size()) {
+                channel.truncate(validBytes);
+                channel.force(true);
+            }
+            channel.position(channel.size());
+            return replay.records;
+        }
+    }
+
+    /**
+     * Rewrite the journal as one record per live entity. A torn tail, a torn transaction included, is left out.
+     *
+     * @throws IOException
+     * @implNote The records written so far are folded and rewritten from a separate read only channel without the
+     * lock, so appends carry on meanwhile. The lock is only taken again to copy the records appended since onto the
+     * rewritten file and swap it in. A reset or close during the rewrite abandons it.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            long end;
+            long generation;
+            synchronized (lock) {
+                awaitIdle();
+                flushPending(false);
+                end = channel.size();
+                generation = resets;
+            }
+
+            Fold fold = new Fold();
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                read(in, end, new Transactions(fold));
+            }
+
+            Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out)));
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                DataOutputStream bodyData = new DataOutputStream(body);
+                bodyData.writeInt(fold.lastPartID);
+                bodyData.writeInt(fold.lastProductID);
+                writeRecord(data, SEQUENCES, body.toByteArray());
+
+                // Write entities in ID order, which is the order they were allocated in.
+                for (int partID : sortedKeys(fold.parts)) {
+                    writeRecord(data, PART_ADD, fold.parts.get(partID));
+                }
+                for (int productID : sortedKeys(fold.products)) {
+                    writeRecord(data, PRODUCT_ADD, fold.products.get(productID));
+                }
+                data.flush();
+            }
+
+            synchronized (lock) {
+                if (!channel.isOpen() || resets != generation) {
+                    Files.deleteIfExists(compacted);
+                    return;
+                }
+
+                awaitIdle();
+                flushPending(false);
+
+                // Carry over the records appended while the journal was rewritten, whole transactions included.
+                try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)) {
+                    long tail = channel.size() - end;
+                    for (long copied = 0; copied < tail; ) {
+                        copied += channel.transferTo(end + copied, tail - copied, out);
+                    }
+                    out.force(true);
+                }
+
+                channel.close();
+                try {
+                    Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    channel = openChannel(file);
+                    compactedSize = channel.size();
+                }
+            }
+        }
+    }
+
+    /**
+     * Discard every record, leaving an empty journal.
+     * Used after a snapshot has captured the state the journal describes. The caller must make sure no mutations
+     * happen between taking the snapshot and resetting the journal.
+     *
+     * @throws IOException
+     */
+    public void reset() throws IOException {
+        synchronized (lock) {
+            awaitIdle();
+            flushPending(false);
+
+            channel.truncate(HEADER_BYTES);
+            channel.force(true);
+            channel.position(HEADER_BYTES);
+            compactedSize = HEADER_BYTES;
+            resets++;
+        }
+    }
+
+    /**
+     * Get the current size of the journal file.
+     *
+     * @return Size in bytes, including records not yet written out.
+     * @throws IOException
+     */
+    public long size() throws IOException {
+        synchronized (lock) {
+            return channel.size() + pending.position();
+        }
+    }
+
+    /**
+     * Write out and force everything appended so far, then close the journal.
+     *
+     * @throws IOException if the journal cannot be written out, or if the last background compaction failed. The
+     * journal is closed either way.
+     */
+    @Override
+    public void close() throws IOException {
+        // Let a running compaction finish rather than interrupt it, an interrupted channel closes itself.
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (lock) {
+            if (!channel.isOpen()) {
+                return;
+            }
+
+            awaitIdle();
+            flushPending(true);
+            channel.close();
+
+            if (compactionFailure != null) {
+                throw new IOException("Journal compaction failed, the journal was left uncompacted",
+                        compactionFailure);
+            }
+        }
+    }
+
+    /**
+     * Encodes a record payload.
+     */
+    @FunctionalInterface
+    interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Encodes the payload of one record in a batch.
+     */
+    @FunctionalInterface
+    interface BatchWriter<T> {
+        void write(DataOutputStream out, T item) throws IOException;
+    }
+
+    private void append(byte type, PayloadWriter payload) {
+        List<byte[]> records = transaction.get();
+        if (records != null) {
+            records.add(capture(type, payload));
+            return;
+        }
+
+        long sequence;
+        synchronized (lock) {
+            sequence = queue(type, payload);
+        }
+        commit(sequence);
+    }
+
+    private <T> void append(byte type, Collection<T> items, BatchWriter<T> payload) {
+        List<byte[]> records = transaction.get();
+        if (records != null) {
+            for (T item : items) {
+                records.add(capture(type, out -> payload.write(out, item)));
+            }
+            return;
+        }
+
+        long sequence = 0;
+
+        synchronized (lock) {
+            for (T item : items) {
+                sequence = queue(type, out -> payload.write(out, item));
+            }
+        }
+        commit(sequence);
+    }
+
+    /**
+     * Encode a record into the pending buffer. Caller holds the lock.
+     *
+     * @return Sequence number of the record.
+     */
+    private long queue(byte type, PayloadWriter payload) {
+        byte[] bytes = encode(payload, 0);
+        return queue(type, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Queue a record whose payload is already encoded. Caller holds the lock.
+     *
+     * @return Sequence number of the record.
+     */
+    private long queue(byte type, byte[] payload, int offset, int length) {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal is unusable after an earlier write failure", failure);
+        }
+        if (!channel.isOpen()) {
+            throw new IllegalStateException("Journal is closed");
+        }
+
+        int recordBytes = 4 + 1 + length + 4;
+        if (pending.remaining() < recordBytes) {
+            pending = grow(pending, recordBytes);
+        }
+
+        pending.putInt(1 + length);
+        pending.put(type);
+        pending.put(payload, offset, length);
+        pending.putInt(checksum(type, payload, offset, length));
+
+        return ++appended;
+    }
+
+    /**
+     * Encode a record of a transaction now, while its entity is as it was journaled.
+     *
+     * @return The type byte followed by the payload.
+     */
+    private static byte[] capture(byte type, PayloadWriter payload) {
+        byte[] record = encode(payload, 1);
+        record[0] = type;
+        return record;
+    }
+
+    /**
+     * @param reserve - Bytes to leave free at the start of the result.
+     * @return The encoded payload.
+     */
+    private static byte[] encode(PayloadWriter payload, int reserve) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+            body.write(new byte[reserve]);
+            payload.write(new DataOutputStream(body));
+            return body.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wait until the record with the given sequence number has been written out, writing it out if no other
+     * thread is. The writer takes every record queued so far, so concurrent appenders share one write and fsync.
+     */
+    private void commit(long sequence) {
+        ByteBuffer batch;
+        long target;
+
+        synchronized (lock) {
+            while (committing && written < sequence) {
+                awaitLock();
+            }
+            if (written >= sequence) {
+                rethrowFailure();
+                return;
+            }
+
+            committing = true;
+            batch = pending;
+            pending = spare;
+            spare = batch;
+            target = appended;
+        }
+
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            if (policy == SyncPolicy.ALWAYS) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            batch.clear();
+        }
+
+        synchronized (lock) {
+            committing = false;
+            if (error == null) {
+                written = target;
+            } else {
+                failure = error;
+            }
+            lock.notifyAll();
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Write out the pending buffer directly. Caller holds the lock and no commit is in progress.
+     *
+     * @param force - Force the file to disk even if the policy does not call for it.
+     * @implNote Appenders return once written covers their record, so under SyncPolicy.ALWAYS records written here
+     * are forced before written moves past them, same as in commit().
+     */
+    private void flushPending(boolean force) throws IOException {
+        boolean queued = pending.position() > 0;
+
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+
+        if (force || (queued && policy == SyncPolicy.ALWAYS)) {
+            channel.force(false);
+        }
+        written = appended;
+    }
+
+    /**
+     * Wait for an in-progress commit to finish. Caller holds the lock.
+     */
+    private void awaitIdle() {
+        while (committing) {
+            awaitLock();
+        }
+    }
+
+    private void awaitLock() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        }
+    }
+
+    private void rethrowFailure() {
+        synchronized (lock) {
+            if (failure != null) {
+                throw new UncheckedIOException("Journal write failed", failure);
+            }
+        }
+    }
+
+    private void forceQuietly() {
+        FileChannel current;
+        synchronized (lock) {
+            current = channel;
+        }
+
+        try {
+            current.force(false);
+        } catch (ClosedChannelException e) {
+            // Replaced by compaction or closed, both force the file themselves.
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Compact if the journal has doubled since the last compaction. Compaction is an optimization and the journal
+     * stays valid if it fails, so a failure is kept for close() to report rather than stopping the checks.
+     */
+    private void compactIfGrown() {
+        IOException error = null;
+        try {
+            long size;
+            synchronized (lock) {
+                size = size();
+                if (size <= MIN_COMPACTION_BYTES || size <= compactedSize * 2) {
+                    return;
+                }
+            }
+            compact();
+        } catch (IOException e) {
+            error = e;
+        } catch (UncheckedIOException e) {
+            error = e.getCause();
+        }
+
+        synchronized (lock) {
+            compactionFailure = error;
+        }
+    }
+
+    /**
+     * Read every valid record in a journal file. Caller holds the lock if source is the journal's own channel.
+     *
+     * @param source - Channel to read, its position is moved.
+     * @param size - Offset to stop reading at.
+     * @return Offset just past the last valid record.
+     */
+    private static long read(FileChannel source, long size, RecordVisitor visitor) throws IOException {
+        source.position(HEADER_BYTES);
+
+        InputStream stream = new BufferedInputStream(Channels.newInputStream(source), 1 << 16);
+        DataInputStream in = new DataInputStream(stream);
+        long offset = HEADER_BYTES;
+        byte[] body = new byte[256];
+
+        while (offset + 9 <= size) {
+            int length;
+            try {
+                length = in.readInt();
+                if (length < 1 || offset + 8 + length > size) {
+                    break;
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                in.readFully(body, 0, length);
+                int crc = in.readInt();
+
+                if (crc != checksum(body[0], body, 1, length - 1)) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+
+            visitor.visit(offset, body[0], new DataInputStream(new ByteArrayInputStream(body, 1, length - 1)),
+                    body, length - 1);
+            offset += 8 + length;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Receives each record read from the journal.
+     */
+    private interface RecordVisitor {
+
+        /**
+         * @param offset - Offset of the record in the journal file.
+         */
+        void visit(long offset, byte type, DataInputStream payload, byte[] raw, int payloadLength) throws IOException;
+    }
+
+    /**
+     * Passes records on, except that the records of a transaction are held until its commit record is read. A
+     * transaction with no commit record, torn by a crash, is never passed on.
+     *
+     * @implNote Only the last transaction in the file can be torn, since replay truncates it away before anything
+     * is appended. A begin record inside an open transaction means the journal was written before that was so; the
+     * open transaction is dropped.
+     */
+    private static class Transactions implements RecordVisitor {
+        private final RecordVisitor target;
+
+        /**
+         * Records of the open transaction, each its type byte followed by its payload. Null outside a transaction.
+         */
+        private List<byte[]> held;
+
+        /**
+         * Offset of the begin record of the open transaction, -1 outside a transaction.
+         */
+        private long begunAt = -1;
+
+        Transactions(RecordVisitor target) {
+            this.target = target;
+        }
+
+        /**
+         * @param validBytes - Offset just past the last valid record read.
+         * @return Offset the journal is valid up to: the begin record of a transaction left open at the end of the
+         * file, else validBytes.
+         */
+        long end(long validBytes) {
+            return begunAt >= 0 ? begunAt : validBytes;
+        }
+
+        @Override
+        public void visit(long offset, byte type, DataInputStream payload, byte[] raw, int payloadLength)
+                throws IOException {
+            switch (type) {
+                case TRANSACTION_BEGIN:
+                    held = new ArrayList<>(payload.readInt());
+                    begunAt = offset;
+                    break;
+                case TRANSACTION_COMMIT:
+                    if (held != null) {
+                        for (byte[] record : held) {
+                            target.visit(begunAt, record[0], new DataInputStream(
+                                    new ByteArrayInputStream(record, 1, record.length - 1)), record, record.length - 1);
+                        }
+                    }
+                    held = null;
+                    begunAt = -1;
+                    break;
+                default:
+                    if (held != null) {
+                        held.add(Arrays.copyOf(raw, 1 + payloadLength));
+                    } else {
+                        target.visit(offset, type, payload, raw, payloadLength);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Applies records to an inventory.
+     */
+    private static class Replay implements RecordVisitor {
+        private final Inventory inventory;
+        private long records;
+
+        Replay(Inventory inventory) {
+            this.inventory = inventory;
+        }
+
+        @Override
+        public void visit(long offset, byte type, DataInputStream payload, byte[] raw, int payloadLength)
+                throws IOException {
+            records++;
+
+            switch (type) {
+                case PART_ADD:
+                    inventory.restorePart(RecordCodec.readPart(payload));
+                    break;
+                case PART_UPDATE: {
+                    Part part = RecordCodec.readPart(payload);
+                    if (inventory.lookupPart(part.getPartID()) != null) {
+                        inventory.restorePart(part);
+                    }
+                    break;
+                }
+                case PART_DELETE: {
+                    int partID = payload.readInt();
+                    inventory.getPartIDs().restore(partID);
+                    inventory.deletePart(partID);
+                    break;
+                }
+                case PRODUCT_ADD:
+                    inventory.restoreProduct(RecordCodec.readProduct(payload, inventory));
+                    break;
+                case PRODUCT_UPDATE: {
+                    Product product = RecordCodec.readProduct(payload, inventory);
+                    if (inventory.lookupProduct(product.getProductID()) != null) {
+                        inventory.restoreProduct(product);
+                    }
+                    break;
+                }
+                case PRODUCT_DELETE: {
+                    int productID = payload.readInt();
+                    inventory.getProductIDs().restore(productID);
+                    inventory.removeProduct(productID);
+                    break;
+                }
+                case SEQUENCES:
+                    inventory.getPartIDs().restore(payload.readInt());
+                    inventory.getProductIDs().restore(payload.readInt());
+                    break;
+                default:
+                    throw new IOException("Unknown journal record type " + type);
+            }
+        }
+    }
+
+    /**
+     * Folds records down to the latest payload of every live entity.
+     */
+    private static class Fold implements RecordVisitor {
+        private final IntHashMap<byte[]> parts = new IntHashMap<>();
+        private final IntHashMap<byte[]> products = new IntHashMap<>();
+        private int lastPartID;
+        private int lastProductID;
+
+        @Override
+        public void visit(long offset, byte type, DataInputStream payload, byte[] raw, int payloadLength)
+                throws IOException {
+            switch (type) {
+                case PART_ADD:
+                case PART_UPDATE:
+                case PRODUCT_ADD:
+                case PRODUCT_UPDATE: {
+                    int id = payload.readInt();
+                    IntHashMap<byte[]> entities = type <= PART_UPDATE ? parts : products;
+
+                    if (type == PART_ADD || type == PRODUCT_ADD || entities.containsKey(id)) {
+                        entities.put(id, Arrays.copyOfRange(raw, 1, 1 + payloadLength));
+                    }
+                    seen(type <= PART_UPDATE, id);
+                    break;
+                }
+                case PART_DELETE:
+                case PRODUCT_DELETE: {
+                    int id = payload.readInt();
+                    (type == PART_DELETE ? parts : products).remove(id);
+                    seen(type == PART_DELETE, id);
+                    break;
+                }
+                case SEQUENCES:
+                    lastPartID = Math.max(lastPartID, payload.readInt());
+                    lastProductID = Math.max(lastProductID, payload.readInt());
+                    break;
+                default:
+                    throw new IOException("Unknown journal record type " + type);
+            }
+        }
+
+        private void seen(boolean part, int id) {
+            if (part) {
+                lastPartID = Math.max(lastPartID, id);
+            } else {
+                lastProductID = Math.max(lastProductID, id);
+            }
+        }
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (channel.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+
+            if (header.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException(file + " is not an inventory journal");
+            }
+            int version = header.getInt();
+            if (version < MIN_VERSION || version > VERSION) {
+                channel.close();
+                throw new IOException("Unsupported journal version " + version + " in " + file);
+            }
+            if (version < VERSION) {
+                ByteBuffer upgraded = ByteBuffer.allocate(4);
+                upgraded.putInt(VERSION).flip();
+                channel.write(upgraded, 4);
+                channel.force(true);
+            }
+        }
+
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeInt(1 + payload.length);
+        out.writeByte(type);
+        out.write(payload);
+        out.writeInt(checksum(type, payload, payload.length));
+    }
+
+    private static int[] sortedKeys(IntHashMap<?> map) {
+        int[] keys = new int[map.size()];
+        int[] count = new int[1];
+
+        map.forEach((key, value) -> keys[count[0]++] = key);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static int checksum(byte type, byte[] payload, int length) {
+        return checksum(type, payload, 0, length);
+    }
+
+    private static int checksum(byte type, byte[] payload, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
@@ -0,0 +1,102 @@
+package inventory.persistence;
+
+import inventory.model.Inventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Keeps an inventory durable in a data directory holding a snapshot and a journal.
+ *
+ * On open the snapshot is mapped in and the journal written since is replayed on top of it. Every change after that
+ * is journaled. A checkpoint writes a fresh snapshot and empties the journal with every writer held off, so startup cost
+ * stays close to a snapshot load and no change falls between the two. Replaying a journal over the snapshot it was
+ * started from is idempotent, so a crash between the two steps of a checkpoint loses nothing.
+ */
+public class InventoryStore implements Closeable {
+
+    private final Inventory inventory;
+    private final Path snapshotFile;
+    private final FileJournal journal;
+
+    private InventoryStore(Inventory inventory, Path snapshotFile, FileJournal journal) {
+        this.inventory = inventory;
+        this.snapshotFile = snapshotFile;
+        this.journal = journal;
+    }
+
+    /**
+     * Load the persisted state of a data directory into an inventory and start journaling its changes.
+     *
+     * @param directory - Data directory, created if missing.
+     * @param inventory - Empty inventory to load into.
+     * @param policy - When journaled changes are forced to disk.
+     * @return InventoryStore
+     * @throws IOException
+     */
+    public static InventoryStore open(Path directory, Inventory inventory, FileJournal.SyncPolicy policy)
+            throws IOException {
+        Files.createDirectories(directory);
+
+        Path snapshotFile = directory.resolve("inventory.snapshot");
+        if (Files.exists(snapshotFile)) {
+            SnapshotFile.read(snapshotFile, inventory);
+        }
+
+        FileJournal journal = new FileJournal(directory.resolve("inventory.journal"), policy, 1000, 60_000);
+
+        // Replay before attaching the journal so the replayed changes are not journaled again.
+        journal.replay(inventory);
+        inventory.setJournal(journal);
+
+        return new InventoryStore(inventory, snapshotFile, journal);
+    }
+
+    /**
+     * Write a snapshot of the inventory and empty the journal.
+     * Writers wait while the checkpoint runs, a change made in between would be in neither.
+     *
+     * @throws IOException
+     */
+    public void checkpoint() throws IOException {
+        try {
+            inventory.quiesce(() -> {
+                try {
+                    SnapshotFile.write(inventory, snapshotFile);
+                    journal.reset();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public FileJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Checkpoint, stop journaling and close the journal.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            checkpoint();
+        } finally {
+            // Writers journal under their locks, so once they are held off none of them still holds the journal.
+            inventory.quiesce(() -> {
+                inventory.setJournal(null);
+                return null;
+            });
+            journal.close();
+        }
+    }
+}
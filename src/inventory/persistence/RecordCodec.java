@@ -0,0 +1,143 @@
+package inventory.persistence;
+
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Outsourced;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary encoding of parts and products used by the journal.
+ */
+class RecordCodec {
+
+    static final byte INHOUSE = 0;
+    static final byte OUTSOURCED = 1;
+
+    private RecordCodec() {
+    }
+
+    /**
+     * Encode a part.
+     *
+     * @param out - Stream to write to.
+     * @param partID - partID to record, which may differ from the ID currently set on the part.
+     * @param part - The part.
+     * @throws IOException
+     */
+    static void writePart(DataOutputStream out, int partID, Part part) throws IOException {
+        out.writeInt(partID);
+        out.writeByte(part instanceof Inhouse ? INHOUSE : OUTSOURCED);
+        writeString(out, part.getName());
+        out.writeDouble(part.getPrice());
+        out.writeInt(part.getInStock());
+        out.writeInt(part.getMin());
+        out.writeInt(part.getMax());
+
+        if (part instanceof Inhouse) {
+            out.writeInt(((Inhouse) part).getMachineID());
+        } else {
+            writeString(out, ((Outsourced) part).getCompanyName());
+        }
+    }
+
+    static Part readPart(DataInputStream in) throws IOException {
+        int partID = in.readInt();
+        Part part = in.readByte() == INHOUSE ? new Inhouse() : new Outsourced();
+
+        part.setPartID(partID);
+        part.setName(readString(in));
+        part.setPrice(in.readDouble());
+        part.setInStock(in.readInt());
+        part.setMin(in.readInt());
+        part.setMax(in.readInt());
+
+        if (part instanceof Inhouse) {
+            ((Inhouse) part).setMachineID(in.readInt());
+        } else {
+            ((Outsourced) part).setCompanyName(readString(in));
+        }
+        return part;
+    }
+
+    /**
+     * Encode a product. Associated parts are recorded by partID, then sub-assemblies by productID and quantity.
+     *
+     * @param out - Stream to write to.
+     * @param productID - productID to record, which may differ from the ID currently set on the product.
+     * @param product - The product.
+     * @throws IOException
+     */
+    static void writeProduct(DataOutputStream out, int productID, Product product) throws IOException {
+        out.writeInt(productID);
+        writeString(out, product.getName());
+        out.writeDouble(product.getPrice());
+        out.writeInt(product.getInStock());
+        out.writeInt(product.getMin());
+        out.writeInt(product.getMax());
+
+        int[] partIDs = product.getAssociatedPartIDs();
+        out.writeInt(partIDs.length);
+        for (int partID : partIDs) {
+            out.writeInt(partID);
+        }
+
+        if (product.hasSubassemblies()) {
+            int[] subassemblyIDs = product.getSubassemblyIDs();
+            out.writeInt(subassemblyIDs.length);
+            for (int subassemblyID : subassemblyIDs) {
+                out.writeInt(subassemblyID);
+                out.writeInt(product.getSubassemblyQuantity(subassemblyID));
+            }
+        }
+    }
+
+    /**
+     * Decode a product, resolving its associated parts through the inventory.
+     * Associations to parts the inventory does not hold are dropped. Sub-assemblies are kept by productID as they are.
+     *
+     * @implNote The sub-assembly section is left out when a product has none, so records written before products
+     * could hold sub-assemblies read the same. The stream must end with the record.
+     */
+    static Product readProduct(DataInputStream in, Inventory inventory) throws IOException {
+        Product product = new Product();
+
+        product.setProductID(in.readInt());
+        product.setName(readString(in));
+        product.setPrice(in.readDouble());
+        product.setInStock(in.readInt());
+        product.setMin(in.readInt());
+        product.setMax(in.readInt());
+
+        int partCount = in.readInt();
+        for (int i = 0; i < partCount; i++) {
+            Part part = inventory.lookupPart(in.readInt());
+            if (part != null) {
+                product.addAssociatedPart(part);
+            }
+        }
+
+        if (in.available() > 0) {
+            int subassemblyCount = in.readInt();
+            for (int i = 0; i < subassemblyCount; i++) {
+                product.addSubassembly(in.readInt(), in.readInt());
+            }
+        }
+        return product;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
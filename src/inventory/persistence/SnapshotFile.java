@@ -0,0 +1,438 @@
+package inventory.persistence;
+
+import inventory.model.Inhouse;
+import inventory.model.IntHashMap;
+import inventory.model.Inventory;
+import inventory.model.Outsourced;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Versioned, fixed layout binary snapshot of an inventory.
+ *
+ * The file is written and read through a MappedByteBuffer. Parts and products are fixed size records so a load is a
+ * sequential walk over mapped pages. Strings are stored once each in a trailing section and records refer to them by
+ * offset, and each distinct string is decoded once on load.
+ *
+ * Layout (big endian):
+ * <pre>
+ * header   magic, version, partCount, productCount, lastPartID, lastProductID,
+ *          partsOffset, productsOffset, partRefsOffset, stringsOffset, subassemblyRefsOffset (64 bytes)
+ * parts    partID, type, 3 pad, price, inStock, min, max, machineID, nameRef, companyRef (40 bytes each)
+ * products productID, nameRef, price, inStock, min, max, firstPartRef, partRefCount,
+ *          subassemblyCount                                                                (40 bytes each)
+ * partRefs partID, quantity of every product's associated parts, in product order          (8 bytes each)
+ * subassemblyRefs  productID, quantity of every product's sub-assemblies, in product order (8 bytes each)
+ * strings  [int byteLength][UTF-8 bytes] for each distinct string, referenced by offset from the section start
+ * </pre>
+ * A string reference of -1 stands for null. Parts and products are written in ID order. Versions 1 and 2 wrote one
+ * 4 byte partRef per unit of each associated part, and version 1 files have no subassemblyRefs section, the
+ * subassemblyCount of their products and the header's last 8 bytes are 0. Both are still read.
+ */
+public class SnapshotFile {
+
+    private static final int MAGIC = 0x494E5653;
+    public static final int VERSION = 3;
+
+    /**
+     * Oldest version still read. Version 1 snapshots predate sub-assemblies.
+     */
+    private static final int MIN_VERSION = 1;
+
+    /**
+     * First version writing associated parts as partID, quantity pairs.
+     */
+    private static final int QUANTITY_VERSION = 3;
+
+    static final int HEADER_BYTES = 64;
+    static final int PART_BYTES = 40;
+    static final int PRODUCT_BYTES = 40;
+
+    private static final byte INHOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+    private static final int NULL_REF = -1;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Write a snapshot of the inventory. The file is replaced atomically once the snapshot is complete.
+     *
+     * @param inventory - Inventory to snapshot. Writers wait while the snapshot is written, so the file holds the
+     * parts and products as they were at one point.
+     * @param file - File to write.
+     * @throws IOException
+     * @implNote Parts are read with forEachPart(), which a ColumnarInventory serves from its columns one part at a
+     * time, so the parts are never all on the heap at once.
+     */
+    public static void write(Inventory inventory, Path file) throws IOException {
+        try {
+            inventory.quiesce(() -> {
+                try {
+                    writeQuiesced(inventory, file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeQuiesced(Inventory inventory, Path file) throws IOException {
+        int partCount = inventory.getPartCount();
+        List<Product> products = inventory.getProducts();
+
+        // Lay out the string section and count associated part references first so the file size is known.
+        Strings strings = new Strings();
+        long partRefCount = 0;
+        long subassemblyRefCount = 0;
+
+        inventory.forEachPart(part -> {
+            strings.add(part.getName());
+            if (part instanceof Outsourced) {
+                strings.add(((Outsourced) part).getCompanyName());
+            }
+        });
+        for (Product product : products) {
+            strings.add(product.getName());
+            partRefCount += product.getPartIDs().length;
+            subassemblyRefCount += product.getSubassemblyIDs().length;
+        }
+
+        long partsOffset = HEADER_BYTES;
+        long productsOffset = partsOffset + (long) partCount * PART_BYTES;
+        long partRefsOffset = productsOffset + (long) products.size() * PRODUCT_BYTES;
+        long subassemblyRefsOffset = partRefsOffset + partRefCount * 8;
+        long stringsOffset = subassemblyRefsOffset + subassemblyRefCount * 8;
+        long size = stringsOffset + strings.bytes;
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + size + " bytes exceeds the 2 GiB format limit");
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(partCount);
+            buffer.putInt(products.size());
+            buffer.putInt(inventory.getPartIDs().getLast());
+            buffer.putInt(inventory.getProductIDs().getLast());
+            buffer.putLong(partsOffset);
+            buffer.putLong(productsOffset);
+            buffer.putLong(partRefsOffset);
+            buffer.putLong(stringsOffset);
+            buffer.putLong(subassemblyRefsOffset);
+
+            buffer.position((int) partsOffset);
+            inventory.forEachPart(part -> {
+                boolean inhouse = part instanceof Inhouse;
+
+                buffer.putInt(part.getPartID());
+                buffer.put(inhouse ? INHOUSE : OUTSOURCED);
+                buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+                buffer.putDouble(part.getPrice());
+                buffer.putInt(part.getInStock());
+                buffer.putInt(part.getMin());
+                buffer.putInt(part.getMax());
+                buffer.putInt(inhouse ? ((Inhouse) part).getMachineID() : -1);
+                buffer.putInt(strings.ref(part.getName()));
+                buffer.putInt(inhouse ? NULL_REF : strings.ref(((Outsourced) part).getCompanyName()));
+            });
+
+            int partRef = 0;
+            for (Product product : products) {
+                int associated = product.getPartIDs().length;
+
+                buffer.putInt(product.getProductID());
+                buffer.putInt(strings.ref(product.getName()));
+                buffer.putDouble(product.getPrice());
+                buffer.putInt(product.getInStock());
+                buffer.putInt(product.getMin());
+                buffer.putInt(product.getMax());
+                buffer.putInt(partRef);
+                buffer.putInt(associated);
+                buffer.putInt(product.getSubassemblyIDs().length);
+                partRef += associated;
+            }
+
+            for (Product product : products) {
+                for (int partID : product.getPartIDs()) {
+                    buffer.putInt(partID);
+                    buffer.putInt(product.getPartQuantity(partID));
+                }
+            }
+
+            for (Product product : products) {
+                for (int subassemblyID : product.getSubassemblyIDs()) {
+                    buffer.putInt(subassemblyID);
+                    buffer.putInt(product.getSubassemblyQuantity(subassemblyID));
+                }
+            }
+
+            for (String value : strings.ordered) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+
+            buffer.force();
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a snapshot into an inventory.
+     *
+     * @param file - Snapshot file.
+     * @param inventory - Inventory to load into, it must be empty.
+     * @throws IOException
+     * @implNote Loaded with Inventory.restoreAll(), so the snapshot is built once and no events are fired. Parts are
+     * decoded as the inventory stores them, so a ColumnarInventory never holds them all on the heap. A product's
+     * associated parts are found by a binary search of the part records, which are in partID order.
+     */
+    public static void read(Path file, Inventory inventory) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException(file + " is too short to be an inventory snapshot");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an inventory snapshot");
+            }
+            int version = buffer.getInt(4);
+            if (version < MIN_VERSION || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+
+            int partCount = buffer.getInt(8);
+            int productCount = buffer.getInt(12);
+            int lastPartID = buffer.getInt(16);
+            int lastProductID = buffer.getInt(20);
+            int partsOffset = (int) buffer.getLong(24);
+            int productsOffset = (int) buffer.getLong(32);
+            int partRefsOffset = (int) buffer.getLong(40);
+            int stringsOffset = (int) buffer.getLong(48);
+            int subassemblyRefsOffset = (int) buffer.getLong(56);
+
+            PartReader parts = new PartReader(buffer, partsOffset, partCount, new StringReader(buffer, stringsOffset));
+            int partRefBytes = version >= QUANTITY_VERSION ? 8 : 4;
+            int subassemblyRef = 0;
+
+            List<Product> products = new ArrayList<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                int at = productsOffset + i * PRODUCT_BYTES;
+                Product product = new Product();
+
+                product.setProductID(buffer.getInt(at));
+                product.setName(parts.strings.get(buffer.getInt(at + 4)));
+                product.setPrice(buffer.getDouble(at + 8));
+                product.setInStock(buffer.getInt(at + 16));
+                product.setMin(buffer.getInt(at + 20));
+                product.setMax(buffer.getInt(at + 24));
+
+                int firstRef = buffer.getInt(at + 28);
+                int refCount = buffer.getInt(at + 32);
+                for (int r = 0; r < refCount; r++) {
+                    int ref = partRefsOffset + (firstRef + r) * partRefBytes;
+                    Part part = parts.find(buffer.getInt(ref));
+                    if (part != null) {
+                        product.addAssociatedPart(part, partRefBytes == 8 ? buffer.getInt(ref + 4) : 1);
+                    }
+                }
+
+                int subassemblyCount = buffer.getInt(at + 36);
+                for (int r = 0; r < subassemblyCount; r++, subassemblyRef++) {
+                    int ref = subassemblyRefsOffset + subassemblyRef * 8;
+                    product.addSubassembly(buffer.getInt(ref), buffer.getInt(ref + 4));
+                }
+
+                products.add(product);
+            }
+
+            inventory.restoreAll(parts, products);
+            inventory.getPartIDs().restore(lastPartID);
+            inventory.getProductIDs().restore(lastProductID);
+        }
+    }
+
+    /**
+     * Assigns each distinct string its offset in the string section.
+     */
+    private static class Strings {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final List<String> ordered = new ArrayList<>();
+        private long bytes;
+
+        void add(String value) {
+            if (value == null || offsets.containsKey(value)) {
+                return;
+            }
+
+            offsets.put(value, (int) bytes);
+            ordered.add(value);
+            bytes += 4 + value.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        int ref(String value) {
+            return value == null ? NULL_REF : offsets.get(value);
+        }
+    }
+
+    /**
+     * Decodes the mapped part records, in order or by partID.
+     */
+    private static class PartReader implements Iterable<Part> {
+        private final ByteBuffer buffer;
+        private final int sectionOffset;
+        private final int count;
+        private final StringReader strings;
+
+        /**
+         * Parts found for product associations, decoded once each. A product keeps them only until it is stored.
+         */
+        private final IntHashMap<Part> found = new IntHashMap<>();
+
+        PartReader(MappedByteBuffer buffer, int sectionOffset, int count, StringReader strings) {
+            this.buffer = buffer;
+            this.sectionOffset = sectionOffset;
+            this.count = count;
+            this.strings = strings;
+        }
+
+        @Override
+        public Iterator<Part> iterator() {
+            return new Iterator<Part>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public Part next() {
+                    if (next >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    return decode(next++);
+                }
+            };
+        }
+
+        /**
+         * @param partID - partID to find.
+         * @return The part, else null if the snapshot has none with the ID.
+         */
+        Part find(int partID) {
+            Part part = found.get(partID);
+            if (part != null) {
+                return part;
+            }
+
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int middleID = buffer.getInt(sectionOffset + middle * PART_BYTES);
+                if (middleID < partID) {
+                    low = middle + 1;
+                } else if (middleID > partID) {
+                    high = middle - 1;
+                } else {
+                    part = decode(middle);
+                    found.put(partID, part);
+                    return part;
+                }
+            }
+            return null;
+        }
+
+        private Part decode(int index) {
+            int at = sectionOffset + index * PART_BYTES;
+            boolean inhouse = buffer.get(at + 4) == INHOUSE;
+            Part part = inhouse ? new Inhouse() : new Outsourced();
+
+            part.setPartID(buffer.getInt(at));
+            part.setPrice(buffer.getDouble(at + 8));
+            part.setInStock(buffer.getInt(at + 16));
+            part.setMin(buffer.getInt(at + 20));
+            part.setMax(buffer.getInt(at + 24));
+            part.setName(strings.get(buffer.getInt(at + 32)));
+
+            if (inhouse) {
+                ((Inhouse) part).setMachineID(buffer.getInt(at + 28));
+            } else {
+                ((Outsourced) part).setCompanyName(strings.get(buffer.getInt(at + 36)));
+            }
+            return part;
+        }
+    }
+
+    /**
+     * Decodes strings from the mapped string section, once per distinct offset.
+     */
+    private static class StringReader {
+        private final ByteBuffer buffer;
+        private final int sectionOffset;
+        private final IntHashMap<String> decoded = new IntHashMap<>();
+        private byte[] scratch = new byte[64];
+
+        StringReader(MappedByteBuffer buffer, int sectionOffset) {
+            this.buffer = buffer.duplicate();
+            this.sectionOffset = sectionOffset;
+        }
+
+        String get(int ref) {
+            if (ref == NULL_REF) {
+                return null;
+            }
+
+            String value = decoded.get(ref);
+            if (value != null) {
+                return value;
+            }
+
+            int at = sectionOffset + ref;
+            int length = buffer.getInt(at);
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.position(at + 4);
+            buffer.get(scratch, 0, length);
+
+            value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            decoded.put(ref, value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package inventory.reservation;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stock of a product's parts held for building some units of the product.
+ *
+ * Get one from StockReservations.reserve(), then commit it to build the units or release it to give the stock back.
+ * A reservation that is neither by the time it expires is released on its own.
+ */
+public final class Reservation {
+
+    public enum State {
+
+        /**
+         * The parts are held and the reservation may be committed or released.
+         */
+        HELD,
+
+        /**
+         * The commit is being applied to the inventory.
+         */
+        COMMITTING,
+
+        /**
+         * The parts were taken out of stock and the units added to the product.
+         */
+        COMMITTED,
+
+        /**
+         * The parts were given back, by release() or a commit the inventory refused.
+         */
+        RELEASED,
+
+        /**
+         * The parts were given back because the reservation timed out.
+         */
+        EXPIRED
+    }
+
+    private final long id;
+    private final int productID;
+    private final int units;
+    private final long expiresAt;
+
+    /**
+     * partIDs in ascending order and the units of each held, parallel arrays.
+     */
+    final int[] partIDs;
+    final int[] held;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.HELD);
+
+    /**
+     * Expiry task, cancelled once the reservation is settled.
+     */
+    volatile ScheduledFuture<?> expiry;
+
+    Reservation(long id, int productID, int units, long expiresAt, int[] partIDs, int[] held) {
+        this.id = id;
+        this.productID = productID;
+        this.units = units;
+        this.expiresAt = expiresAt;
+        this.partIDs = partIDs;
+        this.held = held;
+    }
+
+    public long getID() {
+        return id;
+    }
+
+    public int getProductID() {
+        return productID;
+    }
+
+    /**
+     * @return Number of product units the reservation builds.
+     */
+    public int getUnits() {
+        return units;
+    }
+
+    /**
+     * @return When the reservation expires, in System.currentTimeMillis() time.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Get the units of a part the reservation holds.
+     *
+     * @param partID - partID to look up.
+     * @return Units held, 0 if the product does not use the part.
+     */
+    public int getHeld(int partID) {
+        for (int i = 0; i < partIDs.length; i++) {
+            if (partIDs[i] == partID) {
+                return held[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Move the reservation from one state to another. Only one caller wins each transition.
+     *
+     * @return true if the reservation was in the expected state.
+     */
+    boolean transition(State expected, State next) {
+        return state.compareAndSet(expected, next);
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation " + id + " of " + units + " x product " + productID + " (" + state.get() + ")";
+    }
+}
@@ -0,0 +1,384 @@
+package inventory.reservation;
+
+import inventory.model.BillOfMaterials;
+import inventory.model.Explosion;
+import inventory.model.Inventory;
+import inventory.model.InventoryEvent;
+import inventory.model.InventoryListener;
+import inventory.model.Product;
+import inventory.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds part stock for building products, so concurrent builds can never take out the same stock twice.
+ *
+ * Every part has one counter packing its inventory level, as the inventory last reported it, with the units held by
+ * reservations. reserve() holds the parts a number of product units need, all of them or none: each part is held
+ * with one compare and set against the units still available, and if any part falls short the parts already held
+ * are given back. commit() takes the held units out of the parts' stock and adds the built units to the product in
+ * one Transaction, then drops the hold. release() drops the hold without building, and a reservation left alone
+ * past its timeout is released on its own. A product with sub-assemblies holds the leaf parts of its BillOfMaterials
+ * explosion, every sub-assembly is built from parts.
+ *
+ * Safe to use from any thread, with any inventory whose events are ordered per entity, as ConcurrentInventory's are.
+ *
+ * @implNote Reserving takes no lock, a popular part costs its reservers one compare and set each plus retries when
+ * they collide. Parts are held in ascending partID order, so two reservations competing for the last stock of the same
+ * parts meet on the first of them and one of them fails before holding anything else. Stock changed outside the
+ * engine is seen once the inventory reports the change. If stock is taken away in the meantime, the commit is refused
+ * by the Transaction and its reservation released, stock is never taken below zero.
+ */
+public class StockReservations implements AutoCloseable {
+
+    private final Inventory inventory;
+
+    /**
+     * Explodes the products with sub-assemblies.
+     */
+    private final BillOfMaterials bom;
+
+    /**
+     * Counter of each part the inventory has reported, by partID. Inventory level in the high half, held units in the
+     * low half.
+     */
+    private final ConcurrentHashMap<Integer, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Reservations that are held or being committed, by ID.
+     */
+    private final ConcurrentHashMap<Long, Reservation> active = new ConcurrentHashMap<>();
+
+    private final AtomicLong reservationIDs = new AtomicLong();
+
+    private final ScheduledThreadPoolExecutor expiries;
+
+    private final InventoryListener inventoryListener = this::inventoryChanged;
+
+    /**
+     * Start holding stock of an inventory.
+     *
+     * @param inventory - Inventory whose parts are reserved.
+     */
+    public StockReservations(Inventory inventory) {
+        this.inventory = inventory;
+        this.bom = new BillOfMaterials(inventory);
+
+        expiries = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiries.setRemoveOnCancelPolicy(true);
+
+        // Listen first so no change is missed. A counter created by an event holds a level at least as new as the
+        // scan read, so the scan only fills in parts that have not changed since.
+        inventory.addListener(inventoryListener);
+        inventory.forEachPart(part ->
+                counters.computeIfAbsent(part.getPartID(), partID -> new AtomicLong(pack(part.getInStock(), 0))));
+    }
+
+    /**
+     * Release every reservation still held and stop tracking the inventory.
+     */
+    @Override
+    public void close() {
+        inventory.removeListener(inventoryListener);
+        bom.close();
+        for (Reservation reservation : active.values()) {
+            release(reservation);
+        }
+        expiries.shutdownNow();
+    }
+
+    /**
+     * Hold the parts needed to build units of a product.
+     *
+     * @param productID - Product to build.
+     * @param units - Number of units to build, at least 1.
+     * @param timeout - How long the reservation is held before it is released on its own.
+     * @param unit - Unit of the timeout.
+     * @return The reservation, or null if a part does not have enough stock available.
+     * @throws IllegalArgumentException if units or timeout is less than 1, or the product or one of its sub-assemblies
+     * does not exist.
+     */
+    public Reservation reserve(int productID, int units, long timeout, TimeUnit unit) {
+        if (units < 1 || timeout < 1) {
+            throw new IllegalArgumentException("units and timeout must be at least 1");
+        }
+
+        Product product = inventory.lookupProduct(productID);
+        if (product == null) {
+            throw new IllegalArgumentException("Product " + productID + " does not exist.");
+        }
+
+        int[] partIDs;
+        int[] held;
+        int parts = 0;
+        if (product.hasSubassemblies()) {
+            Explosion explosion = bom.explode(productID);
+            if (explosion == null || !explosion.isComplete()) {
+                throw new IllegalArgumentException("Product " + productID + " uses a sub-assembly that does not exist.");
+            }
+
+            // Explosions are in partID order already.
+            partIDs = new int[explosion.size()];
+            held = new int[explosion.size()];
+            for (int i = 0; i < explosion.size(); i++) {
+                long quantity = explosion.getQuantity(i);
+                if (quantity > Integer.MAX_VALUE / units) {
+                    return null;
+                }
+                partIDs[parts] = explosion.getPartID(i);
+                held[parts++] = (int) (quantity * units);
+            }
+        } else {
+            // The product lists each partID once per unit of its quantity, grouped together.
+            int[] used = product.getAssociatedPartIDs();
+            Arrays.sort(used);
+
+            partIDs = new int[used.length];
+            held = new int[used.length];
+            for (int i = 0; i < used.length; ) {
+                int partID = used[i];
+                int quantity = 0;
+                while (i < used.length && used[i] == partID) {
+                    quantity++;
+                    i++;
+                }
+
+                long needed = (long) quantity * units;
+                if (needed > Integer.MAX_VALUE) {
+                    return null;
+                }
+                partIDs[parts] = partID;
+                held[parts++] = (int) needed;
+            }
+        }
+
+        for (int i = 0; i < parts; i++) {
+            AtomicLong counter = counters.get(partIDs[i]);
+            if (counter == null || !hold(counter, held[i])) {
+                unhold(partIDs, held, i);
+                return null;
+            }
+        }
+
+        long timeoutMillis = unit.toMillis(timeout);
+        long now = System.currentTimeMillis();
+        long expiresAt = timeoutMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeoutMillis;
+
+        Reservation reservation = new Reservation(reservationIDs.incrementAndGet(), productID, units, expiresAt,
+                Arrays.copyOf(partIDs, parts), Arrays.copyOf(held, parts));
+        active.put(reservation.getID(), reservation);
+        reservation.expiry = expiries.schedule(() -> expire(reservation), timeout, unit);
+        return reservation;
+    }
+
+    /**
+     * Build a reservation's units: take the held parts out of stock and add the units to the product's stock, as one
+     * Transaction.
+     *
+     * @param reservation - A held reservation from this engine.
+     * @return List<String> of error messages, empty if the units were built. The reservation is released if the
+     * inventory refuses the change.
+     */
+    public List<String> commit(Reservation reservation) {
+        if (!reservation.transition(Reservation.State.HELD, Reservation.State.COMMITTING)) {
+            return Collections.singletonList(reservation + " can not be committed.");
+        }
+        cancelExpiry(reservation);
+
+        List<String> errors = Collections.singletonList(reservation + " failed to commit.");
+        try {
+            Transaction transaction = inventory.newTransaction();
+            for (int i = 0; i < reservation.partIDs.length; i++) {
+                transaction.adjustPartStock(reservation.partIDs[i], -reservation.held[i]);
+            }
+            transaction.adjustProductStock(reservation.getProductID(), reservation.getUnits());
+            errors = transaction.commit();
+        } finally {
+            // The inventory has reported the lower levels by now, so dropping the hold after never over-counts.
+            settle(reservation);
+            reservation.transition(Reservation.State.COMMITTING,
+                    errors.isEmpty() ? Reservation.State.COMMITTED : Reservation.State.RELEASED);
+        }
+        return errors;
+    }
+
+    /**
+     * Give a reservation's parts back without building.
+     *
+     * @param reservation - A reservation from this engine.
+     * @return true if the reservation was held, false if it was already committed, released or expired.
+     */
+    public boolean release(Reservation reservation) {
+        if (!reservation.transition(Reservation.State.HELD, Reservation.State.RELEASED)) {
+            return false;
+        }
+        cancelExpiry(reservation);
+        settle(reservation);
+        return true;
+    }
+
+    /**
+     * Reserve and commit in one step.
+     *
+     * @param productID - Product to build.
+     * @param units - Number of units to build, at least 1.
+     * @return List<String> of error messages, empty if the units were built.
+     * @throws IllegalArgumentException if units is less than 1 or the product does not exist.
+     */
+    public List<String> build(int productID, int units) {
+        Reservation reservation = reserve(productID, units, 1, TimeUnit.MINUTES);
+        if (reservation == null) {
+            List<String> errors = new ArrayList<>(1);
+            errors.add("Not enough parts in stock to build " + units + " of product " + productID + ".");
+            return errors;
+        }
+        return commit(reservation);
+    }
+
+    /**
+     * Get the units of a part that are in stock and not held.
+     *
+     * @param partID - partID to look up.
+     * @return Units available to reserve, 0 if the part does not exist.
+     */
+    public int getAvailable(int partID) {
+        AtomicLong counter = counters.get(partID);
+        if (counter == null) {
+            return 0;
+        }
+        long state = counter.get();
+        return (int) Math.max(0, (long) stock(state) - held(state));
+    }
+
+    /**
+     * Get the units of a part held by reservations.
+     *
+     * @param partID - partID to look up.
+     * @return Units held, 0 if none.
+     */
+    public int getHeld(int partID) {
+        AtomicLong counter = counters.get(partID);
+        return counter == null ? 0 : held(counter.get());
+    }
+
+    /**
+     * @return A new list of the reservations that are held or being committed.
+     */
+    public List<Reservation> getReservations() {
+        return new ArrayList<>(active.values());
+    }
+
+    /**
+     * @return Number of reservations that are held or being committed.
+     */
+    public int size() {
+        return active.size();
+    }
+
+    private void inventoryChanged(InventoryEvent event) {
+        switch (event.getType()) {
+            case PART_ADDED:
+            case PART_UPDATED:
+                setStock(counters.computeIfAbsent(event.getID(), partID -> new AtomicLong()),
+                        event.getPart().getInStock());
+                break;
+            case PART_REMOVED: {
+                // The counter stays while reservations may still give units back to it.
+                AtomicLong counter = counters.get(event.getID());
+                if (counter != null) {
+                    setStock(counter, 0);
+                }
+                break;
+            }
+            default:
+        }
+    }
+
+    private void expire(Reservation reservation) {
+        if (reservation.transition(Reservation.State.HELD, Reservation.State.EXPIRED)) {
+            settle(reservation);
+        }
+    }
+
+    /**
+     * Give back the units a reservation holds and forget it. Called once per reservation, by whichever caller won
+     * its transition out of HELD.
+     */
+    private void settle(Reservation reservation) {
+        unhold(reservation.partIDs, reservation.held, reservation.partIDs.length);
+        active.remove(reservation.getID());
+    }
+
+    private static void cancelExpiry(Reservation reservation) {
+        ScheduledFuture<?> expiry = reservation.expiry;
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+    }
+
+    /**
+     * Hold units of a part if that many are available.
+     *
+     * @return true if the units are now held.
+     */
+    private static boolean hold(AtomicLong counter, int units) {
+        while (true) {
+            long state = counter.get();
+            int held = held(state);
+            if ((long) stock(state) - held < units) {
+                return false;
+            }
+            if (counter.compareAndSet(state, pack(stock(state), held + units))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back the units held for the first count parts.
+     */
+    private void unhold(int[] partIDs, int[] held, int count) {
+        for (int i = 0; i < count; i++) {
+            AtomicLong counter = counters.get(partIDs[i]);
+            while (true) {
+                long state = counter.get();
+                if (counter.compareAndSet(state, pack(stock(state), held(state) - held[i]))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void setStock(AtomicLong counter, int stock) {
+        while (true) {
+            long state = counter.get();
+            if (counter.compareAndSet(state, pack(stock, held(state)))) {
+                return;
+            }
+        }
+    }
+
+    private static long pack(int stock, int held) {
+        return (long) stock << 32 | (held & 0xFFFFFFFFL);
+    }
+
+    private static int stock(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int held(long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,220 @@
+package inventory.server;
+
+import inventory.model.Inhouse;
+import inventory.model.Inventory;
+import inventory.model.Outsourced;
+import inventory.model.Part;
+import inventory.model.Product;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps parts and products to and from their JSON form.
+ *
+ * A part is {"partID", "type", "name", "price", "inStock", "min", "max"} plus "machineID" when its type is "inhouse"
+ * or "companyName" when it is "outsourced". A product is {"productID", "name", "price", "inStock", "min", "max",
+ * "partCost", "parts", "subassemblies"} where parts is a list of {"partID", "quantity"} and subassemblies a list of
+ * {"productID", "quantity"}. Fields left out of a request body take the
+ * same defaults as a blank field on the part and product screens.
+ */
+final class EntityJson {
+
+    static final String INHOUSE = "inhouse";
+    static final String OUTSOURCED = "outsourced";
+
+    private EntityJson() {
+    }
+
+    static void writePart(JsonWriter json, Part part) {
+        json.beginObject()
+                .name("partID").value(part.getPartID())
+                .name("type").value(part instanceof Outsourced ? OUTSOURCED : INHOUSE)
+                .name("name").value(part.getName())
+                .name("price").value(part.getPrice())
+                .name("inStock").value(part.getInStock())
+                .name("min").value(part.getMin())
+                .name("max").value(part.getMax());
+
+        if (part instanceof Outsourced) {
+            json.name("companyName").value(((Outsourced) part).getCompanyName());
+        } else if (part instanceof Inhouse) {
+            json.name("machineID").value(((Inhouse) part).getMachineID());
+        }
+        json.endObject();
+    }
+
+    static void writeProduct(JsonWriter json, Product product) {
+        json.beginObject()
+                .name("productID").value(product.getProductID())
+                .name("name").value(product.getName())
+                .name("price").value(product.getPrice())
+                .name("inStock").value(product.getInStock())
+                .name("min").value(product.getMin())
+                .name("max").value(product.getMax())
+                .name("partCost").value(product.getPartCost())
+                .name("parts").beginArray();
+
+        // Each partID is listed once per unit, grouped together in association order.
+        int[] partIDs = product.getAssociatedPartIDs();
+        for (int i = 0; i < partIDs.length; ) {
+            int partID = partIDs[i];
+            int quantity = 0;
+            while (i < partIDs.length && partIDs[i] == partID) {
+                quantity++;
+                i++;
+            }
+            json.beginObject().name("partID").value(partID).name("quantity").value(quantity).endObject();
+        }
+        json.endArray().name("subassemblies").beginArray();
+
+        for (int subassemblyID : product.getSubassemblyIDs()) {
+            json.beginObject().name("productID").value(subassemblyID)
+                    .name("quantity").value(product.getSubassemblyQuantity(subassemblyID)).endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    /**
+     * Build a part from a request body.
+     *
+     * @param body - Parsed request body.
+     * @return Part without a partID.
+     * @throws IllegalArgumentException if the body is not an object or a field has the wrong type.
+     */
+    static Part readPart(Object body) {
+        Map<String, Object> fields = object(body);
+
+        Object type = fields.get("type");
+        boolean outsourced;
+        if (type == null) {
+            outsourced = fields.containsKey("companyName");
+        } else if (INHOUSE.equals(type) || OUTSOURCED.equals(type)) {
+            outsourced = OUTSOURCED.equals(type);
+        } else {
+            throw new IllegalArgumentException("type must be \"" + INHOUSE + "\" or \"" + OUTSOURCED + "\"");
+        }
+
+        Part part;
+        if (outsourced) {
+            Outsourced outsourcedPart = new Outsourced();
+            outsourcedPart.setCompanyName(string(fields, "companyName"));
+            part = outsourcedPart;
+        } else {
+            Inhouse inhousePart = new Inhouse();
+            inhousePart.setMachineID(integer(fields, "machineID", -1));
+            part = inhousePart;
+        }
+
+        part.setName(string(fields, "name"));
+        part.setPrice(decimal(fields, "price", -1));
+        part.setInStock(integer(fields, "inStock", 0));
+        part.setMin(integer(fields, "min", -1));
+        part.setMax(integer(fields, "max", -1));
+        return part;
+    }
+
+    /**
+     * Build a product from a request body, resolving its parts through the inventory.
+     *
+     * @param body - Parsed request body.
+     * @param inventory - Inventory holding the associated parts.
+     * @return Product without a productID.
+     * @throws IllegalArgumentException if the body is not an object, a field has the wrong type or an associated
+     * part does not exist. Sub-assemblies are checked when the product is committed.
+     */
+    static Product readProduct(Object body, Inventory inventory) {
+        Map<String, Object> fields = object(body);
+
+        Product product = new Product();
+        product.setName(string(fields, "name"));
+        product.setPrice(decimal(fields, "price", -1));
+        product.setInStock(integer(fields, "inStock", 0));
+        product.setMin(integer(fields, "min", -1));
+        product.setMax(integer(fields, "max", -1));
+
+        for (Object entry : list(fields, "parts")) {
+            Map<String, Object> association = object(entry);
+            int partID = integer(association, "partID", -1);
+            int quantity = integer(association, "quantity", 1);
+
+            Part part = inventory.lookupPart(partID);
+            if (part == null) {
+                throw new IllegalArgumentException("Part " + partID + " does not exist.");
+            }
+            if (quantity < 1) {
+                throw new IllegalArgumentException("Quantity of part " + partID + " must be at least 1.");
+            }
+            product.addAssociatedPart(part, quantity);
+        }
+
+        for (Object entry : list(fields, "subassemblies")) {
+            Map<String, Object> subassembly = object(entry);
+            int productID = integer(subassembly, "productID", -1);
+            int quantity = integer(subassembly, "quantity", 1);
+
+            if (quantity < 1) {
+                throw new IllegalArgumentException("Quantity of sub-assembly " + productID + " must be at least 1.");
+            }
+
+            // The inventory refuses a sub-assembly that does not exist when the product is saved.
+            Product stored = inventory.lookupProduct(productID);
+            if (stored != null) {
+                product.addSubassembly(stored, quantity);
+            } else {
+                product.addSubassembly(productID, quantity);
+            }
+        }
+        return product;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> object(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    static int integer(Map<String, Object> fields, String name, int absent) {
+        Object value = fields.get(name);
+        if (value == null) {
+            return absent;
+        }
+        if (!(value instanceof Long) || (Long) value != ((Long) value).intValue()) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+        return ((Long) value).intValue();
+    }
+
+    private static double decimal(Map<String, Object> fields, String name, double absent) {
+        Object value = fields.get(name);
+        if (value == null) {
+            return absent;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static String string(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(name + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private static List<?> list(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException(name + " must be a list");
+        }
+        return (List<?>) value;
+    }
+}
@@ -0,0 +1,547 @@
+package inventory.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import inventory.model.Inventory;
+import inventory.model.InventorySnapshot;
+import inventory.model.Part;
+import inventory.model.Product;
+import inventory.model.Transaction;
+import inventory.model.Validation;
+import inventory.model.Validator;
+import inventory.model.Violation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves an inventory over HTTP with JSON bodies, for point of sale terminals and scanners.
+ *
+ * GET /parts lists parts a page at a time, or searches them with ?q= the same way the main screen does, paged with
+ * ?offset= and ?limit=. POST /parts adds a part. GET, PUT and DELETE /parts/{id} look up, replace and delete one part,
+ * and POST /parts/{id}/stock with {"delta": n} changes its inventory level. /products works the same for products.
+ * The body formats are described on EntityJson.
+ *
+ * Reads are served from one inventory snapshot, so a page is always consistent. Writes go through a Transaction, so
+ * they get the same validation as the part and product screens and are journaled like any other change. Errors are
+ * answered as {"errors": [...]}: 400 for a malformed or invalid body, 404 for a missing part or product, 409 when the
+ * change conflicts with the inventory, such as deleting a part a product uses or taking out more stock than there is.
+ * A body that breaks the Validation rules also lists each broken rule as {"field", "message"} in "violations".
+ *
+ * @implNote Requests run on a fixed pool of worker threads with a bounded queue. When the queue is full the thread
+ * accepting connections runs the request itself, which stops it accepting more until it is done. Every response has
+ * a fixed length and every request body is read to its end, so connections are kept alive between requests. Each
+ * worker reuses one request buffer and one response buffer. The JDK server writes response headers and body
+ * separately, so unless the process is started with -Dsun.net.httpserver.nodelay=true the body waits for the client's
+ * delayed ACK of the headers, adding about 40 ms to every keep-alive request.
+ */
+public class InventoryServer implements Closeable {
+
+    /**
+     * Request bodies larger than this are refused with 413.
+     */
+    static final int MAX_BODY_BYTES = 1 << 20;
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    /**
+     * Buffers kept by each worker thread.
+     */
+    private static final class Buffers {
+        final JsonWriter json = new JsonWriter();
+        byte[] body = new byte[4096];
+    }
+
+    /**
+     * An error response that ends the request early.
+     */
+    private static final class Failure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+        final List<String> errors;
+        final List<Violation> violations;
+
+        Failure(int status, String error) {
+            this(status, Collections.singletonList(error));
+        }
+
+        Failure(int status, List<String> errors) {
+            this(status, errors, Collections.emptyList());
+        }
+
+        Failure(int status, List<String> errors, List<Violation> violations) {
+            super(null, null, false, false);
+            this.status = status;
+            this.errors = errors;
+            this.violations = violations;
+        }
+    }
+
+    private final Inventory inventory;
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private InventoryServer(Inventory inventory, HttpServer server, ThreadPoolExecutor workers) {
+        this.inventory = inventory;
+        this.server = server;
+        this.workers = workers;
+    }
+
+    /**
+     * Start serving an inventory.
+     *
+     * @param inventory - Inventory to serve.
+     * @param address - Address to listen on, port 0 picks a free port.
+     * @param threads - Number of worker threads.
+     * @param queueSize - Number of requests that may wait for a worker.
+     * @return The running server.
+     * @throws IOException if the address cannot be bound.
+     */
+    public static InventoryServer start(Inventory inventory, InetSocketAddress address, int threads, int queueSize)
+            throws IOException {
+        if (threads < 1 || queueSize < 1) {
+            throw new IllegalArgumentException("threads and queueSize must be at least 1");
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "inventory-server-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        workers.prestartAllCoreThreads();
+
+        HttpServer server = HttpServer.create(address, 0);
+        server.setExecutor(workers);
+
+        InventoryServer inventoryServer = new InventoryServer(inventory, server, workers);
+        server.createContext("/", inventoryServer::handle);
+        server.start();
+        return inventoryServer;
+    }
+
+    /**
+     * @return Port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests, let the ones running finish and stop the workers.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Buffers buffers = this.buffers.get();
+        JsonWriter json = buffers.json;
+        json.reset();
+
+        int status;
+        try {
+            int length = readBody(exchange, buffers);
+            status = route(exchange, buffers.body, length, json);
+        } catch (Failure e) {
+            status = e.status;
+            writeErrors(json, e.errors, e.violations);
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            writeErrors(json, Collections.singletonList(e.getMessage()), Collections.emptyList());
+        } catch (RuntimeException e) {
+            status = 500;
+            writeErrors(json, Collections.singletonList("Internal error: " + e), Collections.emptyList());
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, json.length() == 0 ? -1 : json.length());
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json.bytes(), 0, json.length());
+        }
+    }
+
+    /**
+     * Read the whole request body into the worker's buffer, so the connection can take the next request.
+     *
+     * @return Length of the body.
+     */
+    private static int readBody(HttpExchange exchange, Buffers buffers) throws IOException {
+        int length = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            while (true) {
+                if (length == buffers.body.length) {
+                    if (length >= MAX_BODY_BYTES) {
+                        throw new Failure(413, "Request body exceeds " + MAX_BODY_BYTES + " bytes.");
+                    }
+                    buffers.body = Arrays.copyOf(buffers.body, Math.min(length * 2, MAX_BODY_BYTES));
+                }
+
+                int read = in.read(buffers.body, length, buffers.body.length - length);
+                if (read < 0) {
+                    return length;
+                }
+                length += read;
+            }
+        }
+    }
+
+    /**
+     * Dispatch a request on its path and method.
+     *
+     * @return Response status. The response body has been written to json.
+     */
+    private int route(HttpExchange exchange, byte[] body, int length, JsonWriter json) {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath();
+
+        // Path segments after the leading slash: collection, id, action.
+        String[] segments = path.length() > 1 ? path.substring(1).split("/", -1) : new String[0];
+        boolean parts = segments.length > 0 && segments[0].equals("parts");
+        if (segments.length == 0 || segments.length > 3 || !(parts || segments[0].equals("products"))) {
+            throw new Failure(404, "No such resource " + path + ".");
+        }
+
+        if (segments.length == 1) {
+            if (method.equals("GET")) {
+                Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+                return parts ? listParts(query, json) : listProducts(query, json);
+            }
+            if (method.equals("POST")) {
+                Object document = JsonReader.parse(body, length);
+                return parts ? addPart(exchange, document, json) : addProduct(exchange, document, json);
+            }
+            return notAllowed(exchange, "GET, POST");
+        }
+
+        int id = id(segments[1]);
+        if (segments.length == 3) {
+            if (!segments[2].equals("stock")) {
+                throw new Failure(404, "No such resource " + path + ".");
+            }
+            if (!method.equals("POST")) {
+                return notAllowed(exchange, "POST");
+            }
+            int delta = EntityJson.integer(EntityJson.object(JsonReader.parse(body, length)), "delta", 0);
+            return parts ? adjustPart(id, delta, json) : adjustProduct(id, delta, json);
+        }
+
+        switch (method) {
+            case "GET":
+                return parts ? getPart(id, json) : getProduct(id, json);
+            case "PUT": {
+                Object document = JsonReader.parse(body, length);
+                return parts ? updatePart(id, document, json) : updateProduct(id, document, json);
+            }
+            case "DELETE":
+                return parts ? deletePart(id, json) : removeProduct(id, json);
+            default:
+                return notAllowed(exchange, "GET, PUT, DELETE");
+        }
+    }
+
+    private int listParts(Map<String, String> query, JsonWriter json) {
+        int offset = offset(query);
+        int limit = limit(query);
+        String search = query.get("q");
+
+        List<Part> matches;
+        int total;
+        if (search == null || search.isEmpty()) {
+            InventorySnapshot snapshot = inventory.getSnapshot();
+            matches = snapshot.getParts(offset, limit);
+            total = snapshot.getAllParts().size();
+        } else {
+            List<Part> results = searchParts(search);
+            matches = page(results, offset, limit);
+            total = results.size();
+        }
+
+        json.beginObject().name("total").value(total).name("offset").value(offset).name("items").beginArray();
+        for (Part part : matches) {
+            EntityJson.writePart(json, part);
+        }
+        json.endArray().endObject();
+        return 200;
+    }
+
+    private int listProducts(Map<String, String> query, JsonWriter json) {
+        int offset = offset(query);
+        int limit = limit(query);
+        String search = query.get("q");
+
+        List<Product> matches;
+        int total;
+        if (search == null || search.isEmpty()) {
+            InventorySnapshot snapshot = inventory.getSnapshot();
+            matches = snapshot.getProducts(offset, limit);
+            total = snapshot.getProducts().size();
+        } else {
+            List<Product> results = searchProducts(search);
+            matches = page(results, offset, limit);
+            total = results.size();
+        }
+
+        json.beginObject().name("total").value(total).name("offset").value(offset).name("items").beginArray();
+        for (Product product : matches) {
+            EntityJson.writeProduct(json, product);
+        }
+        json.endArray().endObject();
+        return 200;
+    }
+
+    /**
+     * A numeric query matches the partID, anything else is a case insensitive search on the name, same as the
+     * search field on the main screen.
+     */
+    private List<Part> searchParts(String search) {
+        Integer partID = parseID(search);
+        if (partID == null) {
+            return inventory.lookupPart(search);
+        }
+
+        Part part = inventory.lookupPart(partID);
+        return part == null ? Collections.emptyList() : Collections.singletonList(part);
+    }
+
+    private List<Product> searchProducts(String search) {
+        Integer productID = parseID(search);
+        if (productID == null) {
+            return inventory.lookupProduct(search);
+        }
+
+        Product product = inventory.lookupProduct(productID);
+        return product == null ? Collections.emptyList() : Collections.singletonList(product);
+    }
+
+    private int getPart(int partID, JsonWriter json) {
+        EntityJson.writePart(json, existingPart(partID));
+        return 200;
+    }
+
+    private int getProduct(int productID, JsonWriter json) {
+        EntityJson.writeProduct(json, existingProduct(productID));
+        return 200;
+    }
+
+    private int addPart(HttpExchange exchange, Object document, JsonWriter json) {
+        Part part = validated(EntityJson.readPart(document), Validation.PARTS);
+        commit(inventory.newTransaction().addPart(part), 400);
+
+        exchange.getResponseHeaders().set("Location", "/parts/" + part.getPartID());
+        EntityJson.writePart(json, part);
+        return 201;
+    }
+
+    private int addProduct(HttpExchange exchange, Object document, JsonWriter json) {
+        Product product = validated(EntityJson.readProduct(document, inventory), Validation.PRODUCTS);
+        commit(inventory.newTransaction().addProduct(product), 400);
+
+        exchange.getResponseHeaders().set("Location", "/products/" + product.getProductID());
+        EntityJson.writeProduct(json, inventory.lookupProduct(product.getProductID()));
+        return 201;
+    }
+
+    private int updatePart(int partID, Object document, JsonWriter json) {
+        existingPart(partID);
+        Part part = validated(EntityJson.readPart(document), Validation.PARTS);
+        commit(inventory.newTransaction().updatePart(partID, part), 400);
+        return getPart(partID, json);
+    }
+
+    private int updateProduct(int productID, Object document, JsonWriter json) {
+        existingProduct(productID);
+        Product product = validated(EntityJson.readProduct(document, inventory), Validation.PRODUCTS);
+        commit(inventory.newTransaction().updateProduct(productID, product), 400);
+        return getProduct(productID, json);
+    }
+
+    private int deletePart(int partID, JsonWriter json) {
+        existingPart(partID);
+        commit(inventory.newTransaction().deletePart(partID), 409);
+        return 204;
+    }
+
+    private int removeProduct(int productID, JsonWriter json) {
+        existingProduct(productID);
+        commit(inventory.newTransaction().removeProduct(productID), 409);
+        return 204;
+    }
+
+    private int adjustPart(int partID, int delta, JsonWriter json) {
+        existingPart(partID);
+        commit(inventory.newTransaction().adjustPartStock(partID, delta), 409);
+        return getPart(partID, json);
+    }
+
+    private int adjustProduct(int productID, int delta, JsonWriter json) {
+        existingProduct(productID);
+        commit(inventory.newTransaction().adjustProductStock(productID, delta), 409);
+        return getProduct(productID, json);
+    }
+
+    private Part existingPart(int partID) {
+        Part part = inventory.lookupPart(partID);
+        if (part == null) {
+            throw new Failure(404, "Part " + partID + " does not exist.");
+        }
+        return part;
+    }
+
+    private Product existingProduct(int productID) {
+        Product product = inventory.lookupProduct(productID);
+        if (product == null) {
+            throw new Failure(404, "Product " + productID + " does not exist.");
+        }
+        return product;
+    }
+
+    /**
+     * Check a part or product read from a request body, answering 400 with the rules it broke if it is invalid.
+     *
+     * @param record - The part or product.
+     * @param validator - Rules it must pass.
+     * @return The record.
+     */
+    private static <T> T validated(T record, Validator<T> validator) {
+        List<Violation> violations = validator.validate(record);
+        if (violations.isEmpty()) {
+            return record;
+        }
+
+        List<String> errors = new ArrayList<>(violations.size());
+        for (Violation violation : violations) {
+            errors.add(violation.getMessage());
+        }
+        throw new Failure(400, errors, violations);
+    }
+
+    /**
+     * Commit a transaction, turning its errors into a response.
+     *
+     * @param transaction - Transaction to commit.
+     * @param status - Status to answer with if the transaction is refused.
+     */
+    private static void commit(Transaction transaction, int status) {
+        List<String> errors = transaction.commit();
+        if (!errors.isEmpty()) {
+            throw new Failure(status, errors);
+        }
+    }
+
+    private static int notAllowed(HttpExchange exchange, String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        throw new Failure(405, "Method " + exchange.getRequestMethod() + " is not allowed.");
+    }
+
+    private static void writeErrors(JsonWriter json, List<String> errors, List<Violation> violations) {
+        json.reset();
+        json.beginObject().name("errors").beginArray();
+        for (String error : errors) {
+            json.value(error);
+        }
+        json.endArray();
+
+        if (!violations.isEmpty()) {
+            json.name("violations").beginArray();
+            for (Violation violation : violations) {
+                json.beginObject().name("field").value(violation.getField().getName())
+                        .name("message").value(violation.getMessage()).endObject();
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    private static int id(String segment) {
+        Integer id = parseID(segment);
+        if (id == null) {
+            throw new Failure(404, "No such resource " + segment + ".");
+        }
+        return id;
+    }
+
+    private static Integer parseID(String text) {
+        try {
+            return Integer.valueOf(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int offset(Map<String, String> query) {
+        return Math.max(0, number(query, "offset", 0));
+    }
+
+    private static int limit(Map<String, String> query) {
+        return Math.max(0, Math.min(MAX_LIMIT, number(query, "limit", DEFAULT_LIMIT)));
+    }
+
+    private static int number(Map<String, String> query, String name, int absent) {
+        String value = query.get(name);
+        if (value == null) {
+            return absent;
+        }
+
+        Integer number = parseID(value);
+        if (number == null) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+        return number;
+    }
+
+    private static <T> List<T> page(List<T> results, int offset, int limit) {
+        int from = Math.min(offset, results.size());
+        return results.subList(from, (int) Math.min((long) from + limit, results.size()));
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> query = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(decode(name), decode(value));
+        }
+        return query;
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
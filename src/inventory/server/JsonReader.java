@@ -0,0 +1,252 @@
+package inventory.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the small JSON documents clients send into maps, lists, strings, numbers, booleans and nulls.
+ *
+ * Integral numbers become Long and other numbers Double. Objects keep their member order.
+ */
+final class JsonReader {
+
+    /**
+     * Documents nested deeper than this are rejected rather than risk the stack.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    private final String text;
+    private int position;
+
+    private JsonReader(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parse a UTF-8 encoded document.
+     *
+     * @param bytes - Buffer holding the document.
+     * @param length - Number of bytes of the document.
+     * @return The parsed value.
+     * @throws IllegalArgumentException if the document is not valid JSON.
+     */
+    static Object parse(byte[] bytes, int length) {
+        JsonReader reader = new JsonReader(new String(bytes, 0, length, StandardCharsets.UTF_8));
+        Object value = reader.value(0);
+
+        reader.whitespace();
+        if (reader.position != reader.text.length()) {
+            throw reader.error("Unexpected text after the document");
+        }
+        return value;
+    }
+
+    private Object value(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw error("Document is nested too deeply");
+        }
+
+        whitespace();
+        if (position == text.length()) {
+            throw error("Unexpected end of document");
+        }
+
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return object(depth);
+            case '[':
+                return array(depth);
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return number();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> object(int depth) {
+        Map<String, Object> members = new LinkedHashMap<>();
+        position++;
+
+        whitespace();
+        if (peek() == '}') {
+            position++;
+            return members;
+        }
+
+        while (true) {
+            whitespace();
+            if (peek() != '"') {
+                throw error("Expected a member name");
+            }
+            String name = string();
+
+            whitespace();
+            expect(':');
+            members.put(name, value(depth + 1));
+
+            whitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return members;
+            }
+        }
+    }
+
+    private List<Object> array(int depth) {
+        List<Object> elements = new ArrayList<>();
+        position++;
+
+        whitespace();
+        if (peek() == ']') {
+            position++;
+            return elements;
+        }
+
+        while (true) {
+            elements.add(value(depth + 1));
+
+            whitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return elements;
+            }
+        }
+    }
+
+    private String string() {
+        position++;
+        StringBuilder value = new StringBuilder();
+
+        while (true) {
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    value.append(escaped);
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error("Invalid escape '\\" + escaped + "'");
+            }
+        }
+    }
+
+    private Object number() {
+        int start = position;
+        boolean integral = true;
+
+        if (peek() == '-') {
+            position++;
+        }
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c >= '0' && c <= '9') {
+                position++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                integral = false;
+                position++;
+            } else {
+                break;
+            }
+        }
+
+        String number = text.substring(start, position);
+        try {
+            return integral ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + number);
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, position)) {
+            throw error("Unexpected character '" + text.charAt(position) + "'");
+        }
+        position += word.length();
+        return value;
+    }
+
+    private void whitespace() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + position);
+    }
+}
@@ -0,0 +1,222 @@
+package inventory.server;
+
+import java.util.Arrays;
+
+/**
+ * Writes JSON straight into a reusable UTF-8 byte buffer.
+ *
+ * Each server worker keeps one writer and resets it for every response, so a response costs no allocation once the
+ * buffer has grown to fit. Commas between members and elements are inserted automatically.
+ *
+ * @implNote Not thread safe.
+ */
+final class JsonWriter {
+
+    /**
+     * Buffers grown past this are dropped after the response so one large response does not pin memory.
+     */
+    private static final int RETAINED_BYTES = 1 << 20;
+
+    private static final int INITIAL_BYTES = 8 * 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private byte[] bytes = new byte[INITIAL_BYTES];
+    private int length;
+
+    /**
+     * True when the next member or element needs a comma before it.
+     */
+    private boolean comma;
+
+    /**
+     * Empty the writer for a new document.
+     */
+    void reset() {
+        if (bytes.length > RETAINED_BYTES) {
+            bytes = new byte[INITIAL_BYTES];
+        }
+        length = 0;
+        comma = false;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    JsonWriter beginObject() {
+        separate();
+        put('{');
+        comma = false;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        put('}');
+        comma = true;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separate();
+        put('[');
+        comma = false;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        put(']');
+        comma = true;
+        return this;
+    }
+
+    /**
+     * Write a member name, the value written next belongs to it.
+     *
+     * @param name - Member name, plain ASCII.
+     * @return This writer.
+     */
+    JsonWriter name(String name) {
+        separate();
+        string(name);
+        put(':');
+        comma = false;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            ascii("null");
+        } else {
+            string(value);
+        }
+        comma = true;
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            ascii(Long.toString(value));
+        } else {
+            digits(value);
+        }
+        comma = true;
+        return this;
+    }
+
+    /**
+     * @param value - Value to write, NaN and infinities are written as null.
+     * @return This writer.
+     */
+    JsonWriter value(double value) {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            ascii("null");
+        } else if (value == (long) value && Math.abs(value) < 1e15) {
+            digits((long) value);
+        } else {
+            ascii(Double.toString(value));
+        }
+        comma = true;
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        separate();
+        ascii(value ? "true" : "false");
+        comma = true;
+        return this;
+    }
+
+    private void separate() {
+        if (comma) {
+            put(',');
+        }
+    }
+
+    private void string(String value) {
+        ensure(value.length() * 6 + 2);
+        bytes[length++] = '"';
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                bytes[length++] = '\\';
+                bytes[length++] = (byte) c;
+            } else if (c < 0x20) {
+                bytes[length++] = '\\';
+                bytes[length++] = 'u';
+                bytes[length++] = '0';
+                bytes[length++] = '0';
+                bytes[length++] = HEX[c >> 4];
+                bytes[length++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                // A lone surrogate is not valid UTF-8, it is written as the replacement character.
+                char encoded = Character.isSurrogate(c) ? '\uFFFD' : c;
+                bytes[length++] = (byte) (0xE0 | encoded >> 12);
+                bytes[length++] = (byte) (0x80 | encoded >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | encoded & 0x3F);
+            }
+        }
+
+        bytes[length++] = '"';
+    }
+
+    private void digits(long value) {
+        ensure(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        // Digits were written least significant first.
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = digit;
+        }
+    }
+
+    private void ascii(String text) {
+        ensure(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            bytes[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void put(char c) {
+        ensure(1);
+        bytes[length++] = (byte) c;
+    }
+
+    private void ensure(int needed) {
+        if (length + needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + needed));
+        }
+    }
+}